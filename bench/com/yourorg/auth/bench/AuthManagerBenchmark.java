@@ -0,0 +1,65 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the end-to-end login and token authentication paths of {@link AuthManagerImpl}.
+ * <p>
+ * Login is dominated by password verification; authentication should cost about as much as
+ * a token lookup, and any gap between the two points at overhead in the manager itself.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthManagerBenchmark {
+    private UuidTokenService tokenService;
+    private AuthManagerImpl authManager;
+    private String token;
+
+    @Setup
+    public void setUp() throws AuthException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        tokenService = new UuidTokenService(users::findById);
+        authManager = new AuthManagerImpl(users, new Pbkdf2PasswordEncoder(), tokenService);
+        authManager.register("bench", "correct horse battery staple");
+        token = authManager.login("bench", "correct horse battery staple");
+    }
+
+    @TearDown
+    public void tearDown() {
+        tokenService.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String login() throws AuthException {
+        return authManager.login("bench", "correct horse battery staple");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<User> authenticate() {
+        return authManager.authenticate(token);
+    }
+}
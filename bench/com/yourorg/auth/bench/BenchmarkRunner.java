@@ -0,0 +1,67 @@
+package com.yourorg.auth.bench;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the whole benchmark suite with the GC profiler and writes one JSON result file per run.
+ * <p>
+ * Single-threaded benchmarks run once; {@link TokenServiceBenchmark} runs again at every power
+ * of two up to the number of available processors. Results are written to
+ * {@code bench-results/<benchmark>-<threads>t-<timestamp>.json}, so runs made before and after
+ * a change can be compared side by side, e.g. with JMH Visualizer.
+ * </p>
+ * <p>
+ * An optional first argument restricts the run to benchmark classes whose name contains it,
+ * e.g. {@code Token}.
+ * </p>
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args an optional benchmark class name filter
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String filter = args.length > 0 ? args[0] : "";
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        new File("bench-results").mkdirs();
+
+        for (Class<?> benchmark : new Class<?>[] {
+                PasswordEncoderBenchmark.class, UserRepositoryBenchmark.class, AuthManagerBenchmark.class}) {
+            if (benchmark.getSimpleName().contains(filter)) {
+                run(benchmark, 1, timestamp);
+            }
+        }
+        if (TokenServiceBenchmark.class.getSimpleName().contains(filter)) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                run(TokenServiceBenchmark.class, threads, timestamp);
+            }
+        }
+    }
+
+    private static void run(Class<?> benchmark, int threads, String timestamp) throws RunnerException {
+        String include = "^" + benchmark.getName().replace(".", "\\.") + "\\.";
+        String name = benchmark.getSimpleName() + "-" + threads + "t-" + timestamp;
+        Options options = new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("bench-results/" + name + ".json")
+                .build();
+        new Runner(options).run();
+    }
+}
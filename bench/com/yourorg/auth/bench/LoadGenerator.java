@@ -0,0 +1,334 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.metrics.LatencyHistogram;
+import com.yourorg.auth.domain.service.AuthManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process load generator for any {@link AuthManager} wiring.
+ * <p>
+ * A fixed number of clients, on platform or virtual threads, each repeatedly pick an operation
+ * according to the configured mix of register, login and authenticate calls. Before measuring,
+ * the generator registers a pool of users, logs some of them in to obtain tokens, and runs a
+ * warmup phase whose results are discarded.
+ * </p>
+ * <p>
+ * In <em>closed-loop</em> mode each client issues its next call as soon as the previous one
+ * returns. In <em>open-loop</em> mode calls are scheduled at a fixed aggregate rate, and a
+ * client that falls behind issues its overdue calls back to back instead of skipping them.
+ * </p>
+ * <p>
+ * Two latencies are recorded for every call. <em>Service time</em> runs from the moment the
+ * call is issued. <em>Response time</em> runs from the moment it should have been issued, and
+ * is corrected for coordinated omission. In open-loop mode that moment is the call's scheduled
+ * start. A closed loop has no schedule, so a call that took longer than the operation's mean
+ * warmup service time is backfilled. The backfill adds the samples that the stalled client
+ * would otherwise have produced while waiting, in the manner of HdrHistogram's
+ * {@code recordValueWithExpectedInterval}.
+ * </p>
+ */
+public final class LoadGenerator {
+    /** Operations the generator can issue. */
+    public enum Operation {
+        REGISTER, LOGIN, AUTHENTICATE
+    }
+
+    /**
+     * Floor for the closed-loop backfill interval, so that a long stall of a sub-microsecond
+     * operation adds at most one synthetic sample per microsecond of stall.
+     */
+    private static final long MIN_EXPECTED_INTERVAL_NANOS = 1_000;
+    /** Number of logged-in tokens kept for authenticate calls. */
+    private static final int TOKEN_POOL = 256;
+
+    private final AuthManager authManager;
+    private final Options options;
+    private final AtomicLong registrations = new AtomicLong();
+    private final List<String> usernames = new ArrayList<>();
+    private String[] tokens;
+
+    /**
+     * Creates a load generator.
+     *
+     * @param authManager the auth manager to drive
+     * @param options the load to generate
+     */
+    public LoadGenerator(AuthManager authManager, Options options) {
+        this.authManager = authManager;
+        this.options = options;
+    }
+
+    /**
+     * Prepares users and tokens, runs the warmup phase, then measures.
+     *
+     * @return the measurement phase's report
+     * @throws AuthException if the initial users cannot log in
+     * @throws InterruptedException if interrupted while waiting for clients
+     */
+    public LoadReport run() throws AuthException, InterruptedException {
+        prepare();
+        Phase warmup = runPhase(options.warmup, null);
+        Map<Operation, Long> expectedIntervals = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            expectedIntervals.put(op, Math.max(MIN_EXPECTED_INTERVAL_NANOS, warmup.service.get(op).snapshot().getMeanNanos()));
+        }
+        Phase measured = runPhase(options.duration, expectedIntervals);
+        return measured.report(options);
+    }
+
+    private void prepare() throws AuthException {
+        Map<String, String> credentials = new LinkedHashMap<>();
+        for (int i = 0; i < options.users; i++) {
+            credentials.put("user-" + i, "password-" + i);
+        }
+        authManager.registerAll(credentials);
+        usernames.addAll(credentials.keySet());
+        tokens = new String[Math.min(TOKEN_POOL, options.users)];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = authManager.login(usernames.get(i), credentials.get(usernames.get(i)));
+        }
+    }
+
+    private Phase runPhase(Duration length, Map<Operation, Long> expectedIntervals) throws InterruptedException {
+        Phase phase = new Phase();
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < options.clients; i++) {
+            int client = i;
+            Runnable body = () -> runClient(phase, client, start, end, expectedIntervals);
+            clients.add(options.virtualThreads
+                    ? Thread.ofVirtual().name("load-client-" + i).start(body)
+                    : Thread.ofPlatform().name("load-client-" + i).daemon().start(body));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        phase.elapsedNanos = System.nanoTime() - start;
+        return phase;
+    }
+
+    private void runClient(Phase phase, int client, long start, long end, Map<Operation, Long> expectedIntervals) {
+        boolean openLoop = options.ratePerSecond > 0;
+        long interval = openLoop ? (long) (options.clients * 1e9 / options.ratePerSecond) : 0;
+        long intended = start + (openLoop ? interval * client / options.clients : 0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long now = System.nanoTime();
+            if (openLoop) {
+                while (now < intended) {
+                    LockSupport.parkNanos(intended - now);
+                    now = System.nanoTime();
+                }
+            } else {
+                intended = now;
+            }
+            if (now >= end) {
+                return;
+            }
+            Operation op = pick(random);
+            boolean ok = execute(op, client, random);
+            long done = System.nanoTime();
+            phase.record(op, ok, done - now, done - intended,
+                    expectedIntervals == null || openLoop ? 0 : expectedIntervals.get(op));
+            intended += interval;
+        }
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        int roll = random.nextInt(options.registerWeight + options.loginWeight + options.authenticateWeight);
+        if (roll < options.registerWeight) {
+            return Operation.REGISTER;
+        }
+        return roll < options.registerWeight + options.loginWeight ? Operation.LOGIN : Operation.AUTHENTICATE;
+    }
+
+    private boolean execute(Operation op, int client, ThreadLocalRandom random) {
+        try {
+            switch (op) {
+                case REGISTER:
+                    authManager.register("load-" + client + "-" + registrations.incrementAndGet(), "password");
+                    return true;
+                case LOGIN:
+                    int user = random.nextInt(usernames.size());
+                    authManager.login(usernames.get(user), "password-" + user);
+                    return true;
+                default:
+                    return authManager.authenticate(tokens[random.nextInt(tokens.length)]).isPresent();
+            }
+        } catch (AuthException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Histograms and counters of one phase. */
+    private static final class Phase {
+        final Map<Operation, LatencyHistogram> service = new EnumMap<>(Operation.class);
+        final Map<Operation, LatencyHistogram> response = new EnumMap<>(Operation.class);
+        final Map<Operation, LongAdder> completed = new EnumMap<>(Operation.class);
+        final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        long elapsedNanos;
+
+        Phase() {
+            for (Operation op : Operation.values()) {
+                service.put(op, new LatencyHistogram());
+                response.put(op, new LatencyHistogram());
+                completed.put(op, new LongAdder());
+                errors.put(op, new LongAdder());
+            }
+        }
+
+        void record(Operation op, boolean ok, long serviceNanos, long responseNanos, long expectedInterval) {
+            (ok ? completed : errors).get(op).increment();
+            service.get(op).record(serviceNanos);
+            LatencyHistogram corrected = response.get(op);
+            corrected.record(responseNanos);
+            if (expectedInterval > 0) {
+                for (long missed = responseNanos - expectedInterval; missed >= expectedInterval; missed -= expectedInterval) {
+                    corrected.record(missed);
+                }
+            }
+        }
+
+        LoadReport report(Options options) {
+            List<LoadReport.OperationResult> results = new ArrayList<>();
+            for (Operation op : Operation.values()) {
+                long count = completed.get(op).sum();
+                long failed = errors.get(op).sum();
+                if (count + failed > 0) {
+                    results.add(new LoadReport.OperationResult(op, count, failed,
+                            service.get(op).snapshot(), response.get(op).snapshot()));
+                }
+            }
+            return new LoadReport(options.describe(), elapsedNanos, results);
+        }
+    }
+
+    /**
+     * Load to generate. Defaults to a closed loop of 16 platform-thread clients issuing
+     * 5% register, 15% login and 80% authenticate calls against 1,000 users, with a 5 second
+     * warmup and a 30 second measurement.
+     */
+    public static final class Options {
+        int registerWeight = 5;
+        int loginWeight = 15;
+        int authenticateWeight = 80;
+        int clients = 16;
+        boolean virtualThreads;
+        double ratePerSecond;
+        int users = 1_000;
+        Duration warmup = Duration.ofSeconds(5);
+        Duration duration = Duration.ofSeconds(30);
+
+        /**
+         * Sets the relative weights of the operations.
+         *
+         * @param register weight of register calls
+         * @param login weight of login calls
+         * @param authenticate weight of authenticate calls
+         * @return these options
+         * @throws IllegalArgumentException if a weight is negative or all are zero
+         */
+        public Options mix(int register, int login, int authenticate) {
+            if (register < 0 || login < 0 || authenticate < 0 || register + login + authenticate == 0) {
+                throw new IllegalArgumentException("Weights must be non-negative and not all zero");
+            }
+            this.registerWeight = register;
+            this.loginWeight = login;
+            this.authenticateWeight = authenticate;
+            return this;
+        }
+
+        /**
+         * Sets the number of concurrent clients.
+         *
+         * @param clients the number of clients
+         * @return these options
+         */
+        public Options clients(int clients) {
+            if (clients < 1) {
+                throw new IllegalArgumentException("At least one client is required");
+            }
+            this.clients = clients;
+            return this;
+        }
+
+        /**
+         * Selects virtual-thread or platform-thread clients.
+         *
+         * @param virtualThreads {@code true} to run each client on a virtual thread
+         * @return these options
+         */
+        public Options virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Switches to an open loop at the given aggregate rate, or back to a closed loop.
+         *
+         * @param ratePerSecond calls per second across all clients, or {@code 0} for a closed loop
+         * @return these options
+         */
+        public Options ratePerSecond(double ratePerSecond) {
+            if (ratePerSecond < 0) {
+                throw new IllegalArgumentException("Rate must not be negative");
+            }
+            this.ratePerSecond = ratePerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the number of users registered before the test starts.
+         *
+         * @param users the number of users
+         * @return these options
+         */
+        public Options users(int users) {
+            if (users < 1) {
+                throw new IllegalArgumentException("At least one user is required");
+            }
+            this.users = users;
+            return this;
+        }
+
+        /**
+         * Sets the length of the discarded warmup phase.
+         *
+         * @param warmup the warmup length
+         * @return these options
+         */
+        public Options warmup(Duration warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * Sets the length of the measured phase.
+         *
+         * @param duration the measurement length
+         * @return these options
+         */
+        public Options duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        String describe() {
+            return (ratePerSecond > 0 ? "open loop at " + (long) ratePerSecond + "/s" : "closed loop")
+                    + ", " + clients + (virtualThreads ? " virtual" : " platform") + "-thread clients"
+                    + ", mix register/login/authenticate " + registerWeight + "/" + loginWeight + "/" + authenticateWeight
+                    + ", " + users + " users";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.metrics.MetricsSnapshot;
+import java.util.List;
+
+/**
+ * Throughput and latency results of one {@link LoadGenerator} run.
+ * <p>
+ * {@link #toString()} renders a table with, per operation, the completed and failed calls,
+ * the throughput, and percentiles of both service time and coordinated-omission-corrected
+ * response time, in microseconds.
+ * </p>
+ */
+public final class LoadReport {
+    private final String description;
+    private final long elapsedNanos;
+    private final List<OperationResult> results;
+
+    LoadReport(String description, long elapsedNanos, List<OperationResult> results) {
+        this.description = description;
+        this.elapsedNanos = elapsedNanos;
+        this.results = List.copyOf(results);
+    }
+
+    /**
+     * Returns the length of the measured phase.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the results of each operation that was issued.
+     *
+     * @return the per-operation results
+     */
+    public List<OperationResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the throughput of successful calls of all operations.
+     *
+     * @return calls per second
+     */
+    public double getThroughput() {
+        return results.stream().mapToLong(OperationResult::getCompleted).sum() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(description).append('\n');
+        out.append(String.format("measured %.1f s, %.0f ops/s total%n", elapsedNanos / 1e9, getThroughput()));
+        out.append(String.format("%-13s %10s %8s %11s | %-33s | %-33s%n", "operation", "ok", "failed", "ops/s",
+                "service time p50/p99/p999 (us)", "response time p50/p99/p999 (us)"));
+        for (OperationResult r : results) {
+            out.append(String.format("%-13s %10d %8d %11.0f | %-33s | %-33s%n", r.operation, r.completed, r.failed,
+                    r.completed * 1e9 / elapsedNanos, percentiles(r.serviceTime), percentiles(r.responseTime)));
+        }
+        return out.toString();
+    }
+
+    private static String percentiles(MetricsSnapshot.Latency latency) {
+        return String.format("%.1f / %.1f / %.1f",
+                latency.getP50Nanos() / 1e3, latency.getP99Nanos() / 1e3, latency.getP999Nanos() / 1e3);
+    }
+
+    /** Results of one operation. */
+    public static final class OperationResult {
+        private final LoadGenerator.Operation operation;
+        private final long completed;
+        private final long failed;
+        private final MetricsSnapshot.Latency serviceTime;
+        private final MetricsSnapshot.Latency responseTime;
+
+        OperationResult(LoadGenerator.Operation operation, long completed, long failed,
+                        MetricsSnapshot.Latency serviceTime, MetricsSnapshot.Latency responseTime) {
+            this.operation = operation;
+            this.completed = completed;
+            this.failed = failed;
+            this.serviceTime = serviceTime;
+            this.responseTime = responseTime;
+        }
+
+        /** @return the operation */
+        public LoadGenerator.Operation getOperation() {
+            return operation;
+        }
+
+        /** @return the number of successful calls */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /** @return the number of calls that failed or were rejected */
+        public long getFailed() {
+            return failed;
+        }
+
+        /** @return latency from issuing each call to its completion */
+        public MetricsSnapshot.Latency getServiceTime() {
+            return serviceTime;
+        }
+
+        /** @return latency from each call's intended start, corrected for coordinated omission */
+        public MetricsSnapshot.Latency getResponseTime() {
+            return responseTime;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+import java.time.Duration;
+
+/**
+ * Runs {@link LoadGenerator} against {@link AuthManagerImpl} over {@link InMemoryUserRepository}
+ * and {@link UuidTokenService}, and prints the report.
+ * <p>
+ * Options, all optional: {@code --mix=5,15,80} (register, login, authenticate weights),
+ * {@code --clients=16}, {@code --virtual}, {@code --rate=<calls/s>} for an open loop,
+ * {@code --users=1000}, {@code --warmup=5} and {@code --duration=30} (seconds).
+ * </p>
+ */
+public final class LoadTestMain {
+    private LoadTestMain() {
+    }
+
+    /**
+     * Entry point.
+     *
+     * @param args the options described above
+     * @throws AuthException if the initial users cannot log in
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws AuthException, InterruptedException {
+        LoadGenerator.Options options = new LoadGenerator.Options();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            String value = pair.length > 1 ? pair[1] : "";
+            switch (pair[0]) {
+                case "--mix":
+                    String[] weights = value.split(",");
+                    options.mix(Integer.parseInt(weights[0]), Integer.parseInt(weights[1]), Integer.parseInt(weights[2]));
+                    break;
+                case "--clients":
+                    options.clients(Integer.parseInt(value));
+                    break;
+                case "--virtual":
+                    options.virtualThreads(true);
+                    break;
+                case "--rate":
+                    options.ratePerSecond(Double.parseDouble(value));
+                    break;
+                case "--users":
+                    options.users(Integer.parseInt(value));
+                    break;
+                case "--warmup":
+                    options.warmup(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "--duration":
+                    options.duration(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        try (UuidTokenService tokenService = new UuidTokenService(users::findById)) {
+            AuthManagerImpl authManager = new AuthManagerImpl(users, new Pbkdf2PasswordEncoder(), tokenService);
+            System.out.print(new LoadGenerator(authManager, options).run());
+        }
+    }
+}
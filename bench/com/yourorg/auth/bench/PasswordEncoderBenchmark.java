@@ -0,0 +1,59 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.security.Argon2PasswordEncoder;
+import com.yourorg.auth.domain.security.PasswordEncoder;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures password hashing and verification for PBKDF2 and Argon2id.
+ * <p>
+ * {@code verify} is the operation on the login path; {@code hash} adds salt generation and
+ * encoding of the stored value and is what registration pays.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    /** Encoder under test: the zero-allocation PBKDF2 engine or Argon2id. */
+    @Param({"pbkdf2", "argon2id"})
+    public String engine;
+
+    private PasswordEncoder encoder;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        if ("argon2id".equals(engine)) {
+            encoder = new Argon2PasswordEncoder();
+        } else {
+            encoder = new Pbkdf2PasswordEncoder();
+        }
+        stored = encoder.hash("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String hash() {
+        return encoder.hash("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.verify("correct horse battery staple", stored);
+    }
+}
@@ -0,0 +1,151 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.security.FileSessionStore;
+import com.yourorg.auth.domain.security.HmacTokenService;
+import com.yourorg.auth.domain.security.OffHeapTokenService;
+import com.yourorg.auth.domain.security.SigningKey;
+import com.yourorg.auth.domain.security.TieredTokenService;
+import com.yourorg.auth.domain.security.TokenService;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures token creation and validation with every thread sharing one token service.
+ * <p>
+ * Run with increasing thread counts ({@code -t 1}, {@code -t 2}, ... or through
+ * {@link BenchmarkRunner}) to see how each engine behaves under contention.
+ * Validation picks a random token from a pre-issued pool so that threads hit different
+ * entries, as concurrent requests from different users would.
+ * </p>
+ * <p>
+ * Each user holds {@value #TOKENS_PER_USER} consecutive tokens of the pool. The batch benchmarks
+ * validate {@value #BATCH} consecutive tokens, once in a loop of single validations and once through
+ * {@link TokenService#authenticateAll(java.util.Collection)}; both report per-token throughput.
+ * </p>
+ * <p>
+ * The {@code tiered} engine keeps only {@value TieredTokenService#DEFAULT_HOT_CAPACITY} sessions on
+ * the heap. As the pool is picked from uniformly, most of its validations miss the hot tier, so it
+ * measures the cost of reading the session store rather than the skewed traffic the hot tier is for.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+    /** Number of live sessions issued before measuring. */
+    private static final int SESSIONS = 100_000;
+    /** Number of consecutive pool tokens that belong to the same user. */
+    private static final int TOKENS_PER_USER = 8;
+    /** Number of tokens validated together by the batch benchmarks. */
+    private static final int BATCH = 64;
+
+    /** Token service under test. */
+    @Param({"uuid", "offheap", "hmac", "tiered"})
+    public String engine;
+
+    private TokenService tokenService;
+    private FileSessionStore sessionStore;
+    private Path storeDirectory;
+    private User user;
+    private String[] tokens;
+    private List<String> tokenList;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, User> users = new HashMap<>();
+        User[] owners = new User[SESSIONS / TOKENS_PER_USER];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new User("bench" + i, "unused");
+            users.put(owners[i].getId(), owners[i]);
+        }
+        user = owners[0];
+        switch (engine) {
+            case "offheap":
+                tokenService = new OffHeapTokenService(id -> Optional.ofNullable(users.get(id)), SESSIONS * 2L);
+                break;
+            case "tiered":
+                storeDirectory = Files.createTempDirectory("bench-sessions");
+                sessionStore = new FileSessionStore(storeDirectory);
+                tokenService = new TieredTokenService(id -> Optional.ofNullable(users.get(id)), sessionStore);
+                break;
+            case "hmac":
+                tokenService = new HmacTokenService(id -> Optional.ofNullable(users.get(id)), SigningKey.generate(1));
+                break;
+            default:
+                tokenService = new UuidTokenService(id -> Optional.ofNullable(users.get(id)));
+        }
+        tokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = tokenService.createToken(owners[i / TOKENS_PER_USER]);
+        }
+        tokenList = Arrays.asList(tokens);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (tokenService instanceof AutoCloseable) {
+            ((AutoCloseable) tokenService).close();
+        }
+        if (sessionStore != null) {
+            sessionStore.close();
+            try (Stream<Path> files = Files.walk(storeDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenService.createToken(user);
+    }
+
+    @Benchmark
+    public Optional<User> validateToken() {
+        return tokenService.validateToken(tokens[ThreadLocalRandom.current().nextInt(SESSIONS)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void validateTokenLoop(Blackhole blackhole) {
+        int from = ThreadLocalRandom.current().nextInt(SESSIONS - BATCH);
+        for (int i = from; i < from + BATCH; i++) {
+            blackhole.consume(tokenService.validateToken(tokens[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Map<String, User> authenticateAll() {
+        int from = ThreadLocalRandom.current().nextInt(SESSIONS - BATCH);
+        return tokenService.authenticateAll(tokenList.subList(from, from + BATCH));
+    }
+}
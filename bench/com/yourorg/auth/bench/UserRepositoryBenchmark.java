@@ -0,0 +1,60 @@
+package com.yourorg.auth.bench;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures username lookups in {@link InMemoryUserRepository} at different population sizes.
+ * <p>
+ * At one million users the map no longer fits in cache, so the difference between the two
+ * sizes shows the cost of cache misses rather than hashing the key.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserRepositoryBenchmark {
+    /** Number of registered users. */
+    @Param({"1000", "1000000"})
+    public int users;
+
+    private InMemoryUserRepository repository;
+    private String[] usernames;
+
+    @Setup
+    public void setUp() {
+        repository = new InMemoryUserRepository();
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = "user" + i;
+            repository.save(new User(usernames[i], "unused"));
+        }
+    }
+
+    @Benchmark
+    public Optional<User> findExisting() {
+        return repository.findByUsername(usernames[ThreadLocalRandom.current().nextInt(users)]);
+    }
+
+    @Benchmark
+    public Optional<User> findMissing() {
+        return repository.findByUsername("missing" + ThreadLocalRandom.current().nextInt(users));
+    }
+}
@@ -3,11 +3,13 @@ package com.yourorg.auth.demo;
 import com.yourorg.auth.demo.controller.AuthController;
 import com.yourorg.auth.demo.view.LoginPanel;
 import com.yourorg.auth.demo.view.RegisterPanel;
+import com.yourorg.auth.domain.repository.CachingUserRepository;
 import com.yourorg.auth.domain.repository.InMemoryUserRepository;
 import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
 import com.yourorg.auth.domain.security.UuidTokenService;
 import com.yourorg.auth.domain.service.AuthManagerImpl;
 import java.awt.*;
+import java.time.Duration;
 import javax.swing.*;
 
 /**
@@ -29,13 +31,14 @@ public class AuthFrame extends JFrame {
     public AuthFrame() {
         setTitle("Auth Demo");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setSize(400, 200);
+        setSize(400, 280);
 
+        CachingUserRepository users = new CachingUserRepository(new InMemoryUserRepository());
         AuthController controller = new AuthController(
                 new AuthManagerImpl(
-                        new InMemoryUserRepository(),
-                        new Pbkdf2PasswordEncoder(),
-                        new UuidTokenService()
+                        users,
+                        Pbkdf2PasswordEncoder.calibrated(Duration.ofMillis(100)),
+                        new UuidTokenService(users::findById)
                 )
         );
 
@@ -0,0 +1,70 @@
+package com.yourorg.auth.demo;
+
+import com.yourorg.auth.demo.controller.AuthController;
+import com.yourorg.auth.demo.http.AuthHttpServer;
+import com.yourorg.auth.domain.repository.CachingUserRepository;
+import com.yourorg.auth.domain.repository.FileUserRepository;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.LoginThrottle;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.SessionSnapshotter;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AdmissionController;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Entry point that serves the authentication API over HTTP instead of the Swing UI.
+ * <p>
+ * Listens on the port given as the first argument, or 8080 by default. Hashing is admitted
+ * by an {@link AdmissionController}, so the server's own hashing permits are only a hard cap
+ * at the controller's largest limit.
+ * </p>
+ * <p>
+ * If a data directory is given as the second argument, users are kept in a
+ * {@link FileUserRepository} there and sessions are snapshotted by a {@link SessionSnapshotter},
+ * so a restart keeps both and nobody has to log in again.
+ * </p>
+ */
+public class HttpMain {
+    /**
+     * Starts the HTTP server and keeps running until the process is stopped.
+     *
+     * @param args an optional port number, then an optional data directory
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path dataDirectory = args.length > 1 ? Path.of(args[1]) : null;
+        FileUserRepository store = dataDirectory == null ? null : new FileUserRepository(dataDirectory.resolve("users"));
+        CachingUserRepository users = new CachingUserRepository(
+                store == null ? new InMemoryUserRepository() : store);
+        UuidTokenService tokens = new UuidTokenService(users::findById);
+        SessionSnapshotter snapshots = dataDirectory == null ? null
+                : new SessionSnapshotter(tokens, dataDirectory.resolve("sessions"));
+        AuthController controller = new AuthController(
+                new AuthManagerImpl(
+                        users,
+                        Pbkdf2PasswordEncoder.calibrated(Duration.ofMillis(100)),
+                        tokens,
+                        new LoginThrottle(),
+                        new AdmissionController()
+                )
+        );
+        int cores = Runtime.getRuntime().availableProcessors();
+        AuthHttpServer server = new AuthHttpServer(controller, new InetSocketAddress(port), cores * 4);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (snapshots != null) {
+                snapshots.close();
+                store.close();
+            }
+        }, "http-shutdown"));
+        if (snapshots != null) {
+            System.out.println("Restored " + snapshots.getRestoredCount() + " sessions");
+        }
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+}
@@ -1,29 +1,176 @@
 package com.yourorg.auth.demo.controller;
 
+import com.yourorg.auth.domain.service.AsyncAuthManagerImpl;
 import com.yourorg.auth.domain.service.AuthManager;
 import com.yourorg.auth.domain.model.User;
 import com.yourorg.auth.domain.exception.AuthException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller class responsible for handling authentication-related operations.
  * <p>
- * Provides methods for user registration, login, and token-based authentication.
+ * Provides methods for user registration, login, logout, and token-based authentication.
  * Delegates authentication logic to the {@link AuthManager}.
  * </p>
+ * <p>
+ * Registration and login hash a password, which takes long enough to freeze a user interface.
+ * {@link #registerAsync(String, String)} and {@link #loginAsync(String, String)} run them on a
+ * background executor instead, so the caller's thread, typically the Swing event dispatch
+ * thread, stays free while the work is in progress.
+ * </p>
  */
-public class AuthController {
+public class AuthController implements AutoCloseable {
+    /** Number of background requests that may wait for a free worker. */
+    private static final int QUEUE_DEPTH = 16;
+
     private final AuthManager authManager;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Constructs a new AuthController with its own background executor, one daemon worker per core.
+     *
+     * @param authManager the auth manager doing the actual work
+     */
     public AuthController(AuthManager authManager) {
-        this.authManager = authManager;
+        this(authManager, AsyncAuthManagerImpl.newHashingExecutor(
+                Runtime.getRuntime().availableProcessors(), QUEUE_DEPTH), true);
+    }
+
+    /**
+     * Constructs a new AuthController running background work on a caller-supplied executor.
+     * <p>
+     * The executor is not shut down by {@link #close()}.
+     * </p>
+     *
+     * @param authManager the auth manager doing the actual work
+     * @param executor the executor on which asynchronous register and login are run
+     */
+    public AuthController(AuthManager authManager, ExecutorService executor) {
+        this(authManager, executor, false);
+    }
+
+    private AuthController(AuthManager authManager, ExecutorService executor, boolean ownsExecutor) {
+        this.authManager = Objects.requireNonNull(authManager);
+        this.executor = Objects.requireNonNull(executor);
+        this.ownsExecutor = ownsExecutor;
     }
     public User register(String username, String password) throws AuthException {
         return authManager.register(username, password);
     }
+    public User register(String username, String password, Instant deadline) throws AuthException {
+        return authManager.register(username, password, deadline);
+    }
+
+    /**
+     * Registers a new user on the background executor.
+     * <p>
+     * The returned future completes exceptionally with the {@link AuthException} if registration
+     * fails. Cancelling it before the work has started skips the registration; once hashing has
+     * started, the user may still be registered.
+     * </p>
+     *
+     * @param username the username for the new user
+     * @param password the raw password for the new user
+     * @return a future completed with the registered {@link User}
+     */
+    public CompletableFuture<User> registerAsync(String username, String password) {
+        CompletableFuture<User> result = new CompletableFuture<>();
+        submit(result, () -> {
+            if (!result.isDone()) {
+                result.complete(authManager.register(username, password));
+            }
+        });
+        return result;
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return authManager.isUsernameAvailable(username);
+    }
     public String login(String username, String password) throws AuthException {
         return authManager.login(username, password);
     }
+    public String login(String username, String password, String clientKey) throws AuthException {
+        return authManager.login(username, password, clientKey);
+    }
+    public String login(String username, String password, String clientKey, Instant deadline) throws AuthException {
+        return authManager.login(username, password, clientKey, deadline);
+    }
+
+    /**
+     * Logs a user in on the background executor.
+     * <p>
+     * The returned future completes exceptionally with the {@link AuthException} if login fails.
+     * Cancelling it before the work has started skips the login; if it is cancelled while the
+     * password is being checked, the token issued afterwards is logged out again.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param password the raw password of the user
+     * @return a future completed with the authentication token
+     */
+    public CompletableFuture<String> loginAsync(String username, String password) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        submit(result, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            String token = authManager.login(username, password);
+            if (!result.complete(token)) {
+                authManager.logout(token);
+            }
+        });
+        return result;
+    }
+
     public Optional<User> authenticate(String token) {
         return authManager.authenticate(token);
     }
-}
\ No newline at end of file
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        return authManager.authenticateAll(tokens);
+    }
+    public boolean logout(String token) {
+        return authManager.logout(token);
+    }
+    public boolean logoutEverywhere(String token) {
+        return authManager.logoutEverywhere(token);
+    }
+
+    /**
+     * Shuts down the background executor if this controller created it.
+     * Work already submitted is allowed to finish.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /** Work submitted by the asynchronous methods; completes its future itself. */
+    @FunctionalInterface
+    private interface Work {
+        void run() throws AuthException;
+    }
+
+    private void submit(CompletableFuture<?> result, Work work) {
+        try {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } catch (AuthException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.yourorg.auth.demo.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yourorg.auth.demo.controller.AuthController;
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.exception.OverloadedException;
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
+import com.yourorg.auth.domain.exception.UserAlreadyExistsException;
+import com.yourorg.auth.domain.model.User;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP front end for {@link AuthController}, built on the JDK's {@code com.sun.net.httpserver}.
+ * <p>
+ * Endpoints:
+ * </p>
+ * <ul>
+ *     <li>{@code POST /register} with {@code {"username":..,"password":..}}: {@code 201} and
+ *     {@code {"id":..,"username":..}}, or {@code 409} if the username is taken</li>
+ *     <li>{@code POST /login} with {@code {"username":..,"password":..}}: {@code 200} and
+ *     {@code {"token":..}}, {@code 401} for invalid credentials, or {@code 429} with
+ *     {@code Retry-After} if the manager throttles the attempt; the client's IP address is
+ *     passed as the throttling client key</li>
+ *     <li>{@code GET /authenticate} with {@code Authorization: Bearer <token>}: {@code 200} and
+ *     {@code {"id":..,"username":..}}, or {@code 401} if the token is invalid or expired</li>
+ *     <li>{@code POST /logout} with {@code Authorization: Bearer <token>}: {@code 200} once the
+ *     token is revoked, or {@code 401} if the token is invalid or expired</li>
+ *     <li>{@code POST /logout-everywhere} with {@code Authorization: Bearer <token>}: {@code 200}
+ *     once every token of the token's user is revoked, or {@code 401} if the token is invalid or expired</li>
+ * </ul>
+ * <p>
+ * Errors are reported as {@code {"error":..}}. Every request runs on its own virtual thread,
+ * so a blocked or slow request ties up no platform thread and idle keep-alive connections
+ * cost only their socket. Register and login are CPU-bound, so they first take a permit from
+ * a semaphore sized to the core count; requests that cannot get one within
+ * {@value #HASHING_WAIT_SECONDS} seconds get {@code 503} instead of queueing without bound.
+ * The same interval, counted from the request's arrival, is passed to the manager as the
+ * request's deadline; if the manager sheds the request with an {@link OverloadedException},
+ * the answer is also {@code 503}, with a {@code Retry-After} header.
+ * </p>
+ * <p>
+ * The JDK server closes keep-alive connections beyond {@code sun.net.httpserver.maxIdleConnections},
+ * which defaults to 200. Unless that property is set explicitly, this class raises it to
+ * {@value #MAX_IDLE_CONNECTIONS} so that tens of thousands of clients can stay connected.
+ * </p>
+ */
+public final class AuthHttpServer implements AutoCloseable {
+    /** Largest request body accepted, in bytes. */
+    private static final int MAX_BODY_BYTES = 4_096;
+    /** How long a register or login request waits for a hashing permit. */
+    private static final int HASHING_WAIT_SECONDS = 10;
+    /** Idle keep-alive connections kept open unless configured otherwise. */
+    private static final int MAX_IDLE_CONNECTIONS = 65_536;
+    /** Pending connection backlog passed to the listening socket. */
+    private static final int BACKLOG = 4_096;
+
+    static {
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        }
+    }
+
+    private final AuthController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore hashingPermits;
+
+    /**
+     * Creates a server bound to the given address, with one hashing permit per core.
+     * Call {@link #start()} to begin accepting requests.
+     *
+     * @param controller the controller handling the requests
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public AuthHttpServer(AuthController controller, InetSocketAddress address) {
+        this(controller, address, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a server bound to the given address.
+     * Call {@link #start()} to begin accepting requests.
+     *
+     * @param controller the controller handling the requests
+     * @param address the address to listen on; port 0 picks a free port
+     * @param hashingPermits the number of register and login requests allowed to hash at once
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public AuthHttpServer(AuthController controller, InetSocketAddress address, int hashingPermits) {
+        this.controller = controller;
+        this.hashingPermits = new Semaphore(hashingPermits);
+        try {
+            this.server = HttpServer.create(address, BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot bind " + address, e);
+        }
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/register", exchange -> handle(exchange, "POST", this::register));
+        server.createContext("/login", exchange -> handle(exchange, "POST", this::login));
+        server.createContext("/authenticate", exchange -> handle(exchange, "GET", this::authenticate));
+        server.createContext("/logout", exchange -> handle(exchange, "POST", this::logout));
+        server.createContext("/logout-everywhere", exchange -> handle(exchange, "POST", this::logoutEverywhere));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections and waits for in-flight requests to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private Response register(HttpExchange exchange) throws IOException, AuthException, InterruptedException {
+        Map<String, String> body = readBody(exchange);
+        String username = required(body, "username");
+        String password = required(body, "password");
+        Instant deadline = Instant.now().plusSeconds(HASHING_WAIT_SECONDS);
+        User user = withHashingPermit(() -> controller.register(username, password, deadline));
+        if (user == null) {
+            return overloaded();
+        }
+        return new Response(201, JsonCodec.object("id", user.getId(), "username", user.getUsername()));
+    }
+
+    private Response login(HttpExchange exchange) throws IOException, AuthException, InterruptedException {
+        Map<String, String> body = readBody(exchange);
+        String username = required(body, "username");
+        String password = required(body, "password");
+        String clientKey = exchange.getRemoteAddress().getAddress().getHostAddress();
+        Instant deadline = Instant.now().plusSeconds(HASHING_WAIT_SECONDS);
+        String token = withHashingPermit(() -> controller.login(username, password, clientKey, deadline));
+        if (token == null) {
+            return overloaded();
+        }
+        return new Response(200, JsonCodec.object("token", token));
+    }
+
+    private Response authenticate(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        Optional<User> user = token == null ? Optional.empty() : controller.authenticate(token);
+        if (user.isEmpty()) {
+            return invalidToken(exchange);
+        }
+        return new Response(200, JsonCodec.object("id", user.get().getId(), "username", user.get().getUsername()));
+    }
+
+    private Response logout(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        if (token == null || !controller.logout(token)) {
+            return invalidToken(exchange);
+        }
+        return new Response(200, JsonCodec.object("status", "logged out"));
+    }
+
+    private Response logoutEverywhere(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        if (token == null || !controller.logoutEverywhere(token)) {
+            return invalidToken(exchange);
+        }
+        return new Response(200, JsonCodec.object("status", "logged out everywhere"));
+    }
+
+    /** Returns the token of an {@code Authorization: Bearer} header, or {@code null} if there is none. */
+    private static String bearerToken(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        return null;
+    }
+
+    private static Response invalidToken(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+        return error(401, "Invalid or expired token");
+    }
+
+    /**
+     * Runs a hashing call while holding a permit.
+     *
+     * @return the call's result, or {@code null} if no permit became available in time
+     */
+    private <T> T withHashingPermit(AuthCall<T> call) throws AuthException, InterruptedException {
+        if (!hashingPermits.tryAcquire(HASHING_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            return null;
+        }
+        try {
+            return call.call();
+        } finally {
+            hashingPermits.release();
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) {
+        try (exchange) {
+            Response response;
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                response = error(405, "Method not allowed");
+            } else {
+                response = dispatch(exchange, endpoint);
+            }
+            send(exchange, response);
+        } catch (IOException e) {
+            // The client went away; there is nobody left to answer.
+        }
+    }
+
+    private Response dispatch(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try {
+            return endpoint.handle(exchange);
+        } catch (UserAlreadyExistsException e) {
+            return error(409, e.getMessage());
+        } catch (InvalidCredentialsException e) {
+            return error(401, e.getMessage());
+        } catch (TooManyAttemptsException e) {
+            long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(seconds));
+            return error(429, e.getMessage());
+        } catch (OverloadedException e) {
+            long seconds = Math.max(1, (e.getEstimatedWait().toMillis() + 999) / 1000);
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(seconds));
+            return overloaded();
+        } catch (AuthException e) {
+            return error(400, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            return error(413, "Request body too large");
+        } catch (IllegalArgumentException e) {
+            return error(400, "Malformed request: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return overloaded();
+        } catch (RuntimeException e) {
+            return error(500, "Internal server error");
+        }
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            return JsonCodec.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing field '" + field + "'");
+        }
+        return value;
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Response overloaded() {
+        return error(503, "Server busy, try again later");
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, JsonCodec.object("error", message));
+    }
+
+    /** Status code and JSON body of a response. */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /** Thrown when a request body exceeds {@link #MAX_BODY_BYTES}. */
+    private static final class BodyTooLargeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws IOException, AuthException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface AuthCall<T> {
+        T call() throws AuthException;
+    }
+}
@@ -0,0 +1,190 @@
+package com.yourorg.auth.demo.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON encoder and decoder for the flat request and response bodies of {@link AuthHttpServer}.
+ * <p>
+ * Every body the server exchanges is a single object whose values are strings, so a small
+ * hand-written scanner covers the whole protocol without reflection or a JSON library.
+ * Anything else, such as nested objects, numbers or trailing garbage, is rejected.
+ * </p>
+ */
+final class JsonCodec {
+    private JsonCodec() {
+    }
+
+    /**
+     * Parses a JSON object whose values are all strings.
+     *
+     * @param json the JSON text
+     * @return the members in document order
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> members = new LinkedHashMap<>();
+        int[] pos = {skipWhitespace(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            pos[0]++;
+        } else {
+            while (true) {
+                String name = parseString(json, pos);
+                expect(json, pos, ':');
+                members.put(name, parseString(json, pos));
+                char c = next(json, pos);
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}' at " + (pos[0] - 1));
+                }
+            }
+        }
+        if (skipWhitespace(json, pos[0]) != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after object");
+        }
+        return members;
+    }
+
+    /**
+     * Encodes alternating names and string values as a JSON object.
+     *
+     * @param namesAndValues name, value, name, value, ...
+     * @return the JSON text
+     */
+    static String object(String... namesAndValues) {
+        StringBuilder out = new StringBuilder(64).append('{');
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendString(out, namesAndValues[i]);
+            out.append(':');
+            appendString(out, namesAndValues[i + 1]);
+        }
+        return out.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder value = new StringBuilder();
+        int i = pos[0];
+        while (true) {
+            if (i >= json.length()) {
+                throw new IllegalArgumentException("Unterminated string");
+            }
+            char c = json.charAt(i++);
+            if (c == '"') {
+                break;
+            }
+            if (c < 0x20) {
+                throw new IllegalArgumentException("Control character in string at " + (i - 1));
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                throw new IllegalArgumentException("Unterminated escape");
+            }
+            char escape = json.charAt(i++);
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escape);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > json.length()) {
+                        throw new IllegalArgumentException("Truncated unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid unicode escape at " + i);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape at " + (i - 1));
+            }
+        }
+        pos[0] = i;
+        return value.toString();
+    }
+
+    private static void expect(String json, int[] pos, char expected) {
+        if (next(json, pos) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at " + (pos[0] - 1));
+        }
+    }
+
+    private static char next(String json, int[] pos) {
+        char c = peek(json, pos);
+        pos[0]++;
+        return c;
+    }
+
+    private static char peek(String json, int[] pos) {
+        pos[0] = skipWhitespace(json, pos[0]);
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && " \t\r\n".indexOf(json.charAt(i)) >= 0) {
+            i++;
+        }
+        return i;
+    }
+}
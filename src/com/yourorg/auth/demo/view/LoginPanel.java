@@ -3,12 +3,17 @@ package com.yourorg.auth.demo.view;
 import com.yourorg.auth.demo.controller.AuthController;
 import com.yourorg.auth.domain.exception.AuthException;
 import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 
 /**
  * Login panel for user authentication in the demo application.
  * <p>
  * Provides fields for username and password input, and buttons for login and switching to registration.
+ * The login runs in the background while a progress bar is shown, and can be cancelled; the form is
+ * locked until it finishes, so a second click cannot submit it twice.
  * Notifies an {@link AuthListener} on successful authentication or when the user wants to register.
  * </p>
  */
@@ -34,6 +39,11 @@ public class LoginPanel extends JPanel {
     private AuthListener authListener;
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginBtn;
+    private JButton cancelBtn;
+    private JProgressBar progressBar;
+    /** The login in progress, or {@code null}; only used on the event dispatch thread. */
+    private CompletableFuture<String> pendingLogin;
 
     /**
      * Constructs a new LoginPanel with the specified authentication controller.
@@ -49,28 +59,35 @@ public class LoginPanel extends JPanel {
      * Initializes the UI components and event handlers for the login panel.
      */
     private void initComponents() {
-        setLayout(new GridLayout(4, 1, 5, 5));
+        setLayout(new GridLayout(5, 1, 5, 5));
         add(new JLabel("Login"));
         usernameField = new JTextField();
         add(usernameField);
         passwordField = new JPasswordField();
         add(passwordField);
         JPanel buttons = new JPanel(new FlowLayout());
-        JButton loginBtn = new JButton("Login");
+        loginBtn = new JButton("Login");
+        cancelBtn = new JButton("Cancel");
         JButton toRegBtn = new JButton("Go to Register");
         buttons.add(loginBtn);
+        buttons.add(cancelBtn);
         buttons.add(toRegBtn);
         add(buttons);
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        add(progressBar);
+        setBusy(false);
 
-        // Handle login button click
-        loginBtn.addActionListener(e -> {
-            try {
-                String token = controller.login(
-                        usernameField.getText(), new String(passwordField.getPassword())
-                );
-                if (authListener != null) authListener.onAuthSuccess(token);
-            } catch (AuthException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        // Handle login button click; the password is checked in the background
+        loginBtn.addActionListener(e -> startLogin());
+        passwordField.addActionListener(e -> startLogin());
+
+        // Handle cancel button click
+        cancelBtn.addActionListener(e -> {
+            if (pendingLogin != null) {
+                pendingLogin.cancel(false);
+                pendingLogin = null;
+                setBusy(false);
             }
         });
 
@@ -80,6 +97,53 @@ public class LoginPanel extends JPanel {
         });
     }
 
+    /**
+     * Starts a login in the background, unless one is already in progress.
+     */
+    private void startLogin() {
+        if (pendingLogin != null) {
+            return;
+        }
+        CompletableFuture<String> login = controller.loginAsync(
+                usernameField.getText(), new String(passwordField.getPassword())
+        );
+        pendingLogin = login;
+        setBusy(true);
+        login.whenComplete((token, error) -> SwingUtilities.invokeLater(() -> finishLogin(login, token, error)));
+    }
+
+    /**
+     * Shows the outcome of a login, unless it has been cancelled or superseded.
+     */
+    private void finishLogin(CompletableFuture<String> login, String token, Throwable error) {
+        if (login != pendingLogin) {
+            return;
+        }
+        pendingLogin = null;
+        setBusy(false);
+        if (error == null) {
+            if (authListener != null) authListener.onAuthSuccess(token);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        String message = cause instanceof AuthException ? cause.getMessage() : "Login failed: " + cause;
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Locks the form and shows the progress bar while a login is in progress.
+     */
+    private void setBusy(boolean busy) {
+        usernameField.setEnabled(!busy);
+        passwordField.setEnabled(!busy);
+        loginBtn.setEnabled(!busy);
+        cancelBtn.setEnabled(busy);
+        progressBar.setVisible(busy);
+    }
+
     /**
      * Sets the authentication listener for this panel.
      *
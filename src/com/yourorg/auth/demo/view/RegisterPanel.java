@@ -2,13 +2,22 @@ package com.yourorg.auth.demo.view;
 
 import com.yourorg.auth.demo.controller.AuthController;
 import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.model.User;
 import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Registration panel for user sign-up in the demo application.
  * <p>
  * Provides fields for username and password input, and buttons for registration and switching to login.
+ * Whether the typed username is still free is shown as the user types.
+ * The registration runs in the background while a progress bar is shown, and can be cancelled; the form
+ * is locked until it finishes, so a second click cannot submit it twice.
  * Notifies a {@link RegisterListener} on successful registration or when the user wants to switch to login.
  * </p>
  */
@@ -31,7 +40,13 @@ public class RegisterPanel extends JPanel {
     private final AuthController controller;
     private RegisterListener registerListener;
     private JTextField usernameField;
+    private JLabel availabilityLabel;
     private JPasswordField passwordField;
+    private JButton regBtn;
+    private JButton cancelBtn;
+    private JProgressBar progressBar;
+    /** The registration in progress, or {@code null}; only used on the event dispatch thread. */
+    private CompletableFuture<User> pendingRegistration;
 
     /**
      * Constructs a new RegisterPanel with the specified authentication controller.
@@ -47,28 +62,50 @@ public class RegisterPanel extends JPanel {
      * Initializes the UI components and event handlers for the registration panel.
      */
     private void initComponents() {
-        setLayout(new GridLayout(4, 1, 5, 5));
+        setLayout(new GridLayout(6, 1, 5, 5));
         add(new JLabel("Register"));
         usernameField = new JTextField();
         add(usernameField);
+        availabilityLabel = new JLabel(" ");
+        add(availabilityLabel);
         passwordField = new JPasswordField();
         add(passwordField);
         JPanel buttons = new JPanel(new FlowLayout());
-        JButton regBtn = new JButton("Register");
+        regBtn = new JButton("Register");
+        cancelBtn = new JButton("Cancel");
         JButton toLoginBtn = new JButton("Go to Login");
         buttons.add(regBtn);
+        buttons.add(cancelBtn);
         buttons.add(toLoginBtn);
         add(buttons);
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        add(progressBar);
+        setBusy(false);
 
-        // Handle register button click
-        regBtn.addActionListener(e -> {
-            try {
-                controller.register(
-                        usernameField.getText(), new String(passwordField.getPassword())
-                );
-                if (registerListener != null) registerListener.onRegisterSuccess();
-            } catch (AuthException ex) {
-                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        // Handle register button click; the password is hashed in the background
+        regBtn.addActionListener(e -> startRegistration());
+
+        // Handle cancel button click
+        cancelBtn.addActionListener(e -> {
+            if (pendingRegistration != null) {
+                pendingRegistration.cancel(false);
+                pendingRegistration = null;
+                setBusy(false);
+                updateAvailability();
+            }
+        });
+
+        // Check the username on every keystroke; the check never hashes a password
+        usernameField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                updateAvailability();
+            }
+            public void removeUpdate(DocumentEvent e) {
+                updateAvailability();
+            }
+            public void changedUpdate(DocumentEvent e) {
+                updateAvailability();
             }
         });
 
@@ -78,6 +115,71 @@ public class RegisterPanel extends JPanel {
         });
     }
 
+    /**
+     * Starts a registration in the background, unless one is already in progress.
+     */
+    private void startRegistration() {
+        if (pendingRegistration != null) {
+            return;
+        }
+        CompletableFuture<User> registration = controller.registerAsync(
+                usernameField.getText(), new String(passwordField.getPassword())
+        );
+        pendingRegistration = registration;
+        setBusy(true);
+        registration.whenComplete((user, error) ->
+                SwingUtilities.invokeLater(() -> finishRegistration(registration, error)));
+    }
+
+    /**
+     * Shows the outcome of a registration, unless it has been cancelled or superseded.
+     */
+    private void finishRegistration(CompletableFuture<User> registration, Throwable error) {
+        if (registration != pendingRegistration) {
+            return;
+        }
+        pendingRegistration = null;
+        setBusy(false);
+        if (error == null) {
+            if (registerListener != null) registerListener.onRegisterSuccess();
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        updateAvailability();
+        String message = cause instanceof AuthException ? cause.getMessage() : "Registration failed: " + cause;
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Locks the form and shows the progress bar while a registration is in progress.
+     */
+    private void setBusy(boolean busy) {
+        usernameField.setEnabled(!busy);
+        passwordField.setEnabled(!busy);
+        regBtn.setEnabled(!busy);
+        cancelBtn.setEnabled(busy);
+        progressBar.setVisible(busy);
+    }
+
+    /**
+     * Shows whether the username currently typed is still available.
+     */
+    private void updateAvailability() {
+        String username = usernameField.getText();
+        if (username.isEmpty()) {
+            availabilityLabel.setText(" ");
+        } else if (controller.isUsernameAvailable(username)) {
+            availabilityLabel.setForeground(new Color(0, 128, 0));
+            availabilityLabel.setText("Username is available");
+        } else {
+            availabilityLabel.setForeground(Color.RED);
+            availabilityLabel.setText("Username is taken");
+        }
+    }
+
     /**
      * Sets the registration listener for this panel.
      *
@@ -0,0 +1,30 @@
+package com.yourorg.auth.domain.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when password hashing work is shed because it could not start before the caller's
+ * deadline. The request was not processed and may be retried.
+ */
+public class OverloadedException extends AuthException {
+    private final Duration estimatedWait;
+
+    /**
+     * Constructs a new OverloadedException.
+     *
+     * @param estimatedWait how long the request would have had to wait for a hashing slot
+     */
+    public OverloadedException(Duration estimatedWait) {
+        super("Server overloaded, estimated wait " + estimatedWait.toMillis() + " ms exceeds the deadline");
+        this.estimatedWait = estimatedWait;
+    }
+
+    /**
+     * Returns how long the request would have had to wait for a hashing slot.
+     *
+     * @return the estimated wait
+     */
+    public Duration getEstimatedWait() {
+        return estimatedWait;
+    }
+}
@@ -0,0 +1,29 @@
+package com.yourorg.auth.domain.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a login attempt is rejected by throttling, before the password is checked.
+ */
+public class TooManyAttemptsException extends AuthException {
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new TooManyAttemptsException.
+     *
+     * @param retryAfter how long the caller should wait before trying again
+     */
+    public TooManyAttemptsException(Duration retryAfter) {
+        super("Too many login attempts, retry in " + Math.max(1, retryAfter.toSeconds()) + " s");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns how long the caller should wait before trying again.
+     *
+     * @return the wait time
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
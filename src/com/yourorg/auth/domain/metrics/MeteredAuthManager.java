@@ -0,0 +1,228 @@
+package com.yourorg.auth.domain.metrics;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.exception.OverloadedException;
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
+import com.yourorg.auth.domain.exception.UserAlreadyExistsException;
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.service.AuthManager;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AuthManager} decorator that records call latencies and outcomes.
+ * <p>
+ * Each operation is timed into an {@code auth.<operation>} histogram. Outcomes are counted
+ * separately: {@code auth.register.duplicateUser}, {@code auth.register.overloaded},
+ * {@code auth.login.invalidCredentials}, {@code auth.login.throttled}, {@code auth.login.overloaded},
+ * {@code auth.authenticate.rejected}, and {@code auth.<operation>.errors} for any other exception.
+ * Token authentication and username availability checks are counted on every call but timed
+ * only on a sample, so the instrumentation stays cheap relative to the lookup it measures.
+ * Batches from {@code authenticateAll} are timed as a whole, and their rejected tokens count
+ * towards {@code auth.authenticate.rejected}. Logouts are timed into {@code auth.logout} and
+ * {@code auth.logoutEverywhere}, and those given a token that was not valid are counted as
+ * {@code auth.logout.rejected}.
+ * Combine with {@link MeteredUserRepository}, {@link MeteredPasswordEncoder} and
+ * {@link MeteredTokenService} on the same registry to see where a login spends its time.
+ * </p>
+ */
+public class MeteredAuthManager implements AuthManager {
+    private final AuthManager delegate;
+    private final LatencyHistogram register;
+    private final LatencyHistogram registerAll;
+    private final LatencyHistogram login;
+    private final LatencyHistogram authenticate;
+    private final LatencyHistogram authenticateAll;
+    private final LatencyHistogram isUsernameAvailable;
+    private final LatencyHistogram logout;
+    private final LatencyHistogram logoutEverywhere;
+    private final LongAdder duplicateUser;
+    private final LongAdder registerOverloaded;
+    private final LongAdder registerErrors;
+    private final LongAdder registerAllErrors;
+    private final LongAdder invalidCredentials;
+    private final LongAdder throttled;
+    private final LongAdder loginOverloaded;
+    private final LongAdder loginErrors;
+    private final LongAdder rejectedTokens;
+    private final LongAdder authenticateErrors;
+    private final LongAdder rejectedLogouts;
+
+    /**
+     * Wraps an auth manager.
+     *
+     * @param delegate the auth manager to instrument
+     * @param registry the registry to record into
+     */
+    public MeteredAuthManager(AuthManager delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.register = registry.histogram("auth.register");
+        this.registerAll = registry.histogram("auth.registerAll");
+        this.login = registry.histogram("auth.login");
+        this.authenticate = registry.histogram("auth.authenticate", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.authenticateAll = registry.histogram("auth.authenticateAll");
+        this.isUsernameAvailable = registry.histogram("auth.isUsernameAvailable", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.logout = registry.histogram("auth.logout");
+        this.logoutEverywhere = registry.histogram("auth.logoutEverywhere");
+        this.duplicateUser = registry.counter("auth.register.duplicateUser");
+        this.registerOverloaded = registry.counter("auth.register.overloaded");
+        this.registerErrors = registry.counter("auth.register.errors");
+        this.registerAllErrors = registry.counter("auth.registerAll.errors");
+        this.invalidCredentials = registry.counter("auth.login.invalidCredentials");
+        this.throttled = registry.counter("auth.login.throttled");
+        this.loginOverloaded = registry.counter("auth.login.overloaded");
+        this.loginErrors = registry.counter("auth.login.errors");
+        this.rejectedTokens = registry.counter("auth.authenticate.rejected");
+        this.authenticateErrors = registry.counter("auth.authenticate.errors");
+        this.rejectedLogouts = registry.counter("auth.logout.rejected");
+    }
+
+    @Override
+    public User register(String username, String rawPassword) throws AuthException {
+        return register(username, rawPassword, null);
+    }
+
+    @Override
+    public User register(String username, String rawPassword, Instant deadline) throws AuthException {
+        long start = register.start();
+        try {
+            return delegate.register(username, rawPassword, deadline);
+        } catch (UserAlreadyExistsException e) {
+            duplicateUser.increment();
+            throw e;
+        } catch (OverloadedException e) {
+            registerOverloaded.increment();
+            throw e;
+        } catch (AuthException | RuntimeException e) {
+            registerErrors.increment();
+            throw e;
+        } finally {
+            register.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        long start = isUsernameAvailable.start();
+        try {
+            return delegate.isUsernameAvailable(username);
+        } finally {
+            isUsernameAvailable.stop(start);
+        }
+    }
+
+    @Override
+    public List<User> registerAll(Map<String, String> credentials) {
+        long start = registerAll.start();
+        try {
+            return delegate.registerAll(credentials);
+        } catch (RuntimeException e) {
+            registerAllErrors.increment();
+            throw e;
+        } finally {
+            registerAll.stop(start);
+        }
+    }
+
+    @Override
+    public String login(String username, String rawPassword) throws AuthException {
+        return login(username, rawPassword, null);
+    }
+
+    @Override
+    public String login(String username, String rawPassword, String clientKey) throws AuthException {
+        return login(username, rawPassword, clientKey, null);
+    }
+
+    @Override
+    public String login(String username, String rawPassword, String clientKey, Instant deadline)
+            throws AuthException {
+        long start = login.start();
+        try {
+            return delegate.login(username, rawPassword, clientKey, deadline);
+        } catch (InvalidCredentialsException e) {
+            invalidCredentials.increment();
+            throw e;
+        } catch (TooManyAttemptsException e) {
+            throttled.increment();
+            throw e;
+        } catch (OverloadedException e) {
+            loginOverloaded.increment();
+            throw e;
+        } catch (AuthException | RuntimeException e) {
+            loginErrors.increment();
+            throw e;
+        } finally {
+            login.stop(start);
+        }
+    }
+
+    @Override
+    public Optional<User> authenticate(String token) {
+        long start = authenticate.start();
+        try {
+            Optional<User> user = delegate.authenticate(token);
+            if (user.isEmpty()) {
+                rejectedTokens.increment();
+            }
+            return user;
+        } catch (RuntimeException e) {
+            authenticateErrors.increment();
+            throw e;
+        } finally {
+            authenticate.stop(start);
+        }
+    }
+
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        long start = authenticateAll.start();
+        try {
+            Map<String, User> users = delegate.authenticateAll(tokens);
+            for (String token : tokens) {
+                if (!users.containsKey(token)) {
+                    rejectedTokens.increment();
+                }
+            }
+            return users;
+        } catch (RuntimeException e) {
+            authenticateErrors.increment();
+            throw e;
+        } finally {
+            authenticateAll.stop(start);
+        }
+    }
+
+    @Override
+    public boolean logout(String token) {
+        long start = logout.start();
+        try {
+            boolean loggedOut = delegate.logout(token);
+            if (!loggedOut) {
+                rejectedLogouts.increment();
+            }
+            return loggedOut;
+        } finally {
+            logout.stop(start);
+        }
+    }
+
+    @Override
+    public boolean logoutEverywhere(String token) {
+        long start = logoutEverywhere.start();
+        try {
+            boolean loggedOut = delegate.logoutEverywhere(token);
+            if (!loggedOut) {
+                rejectedLogouts.increment();
+            }
+            return loggedOut;
+        } finally {
+            logoutEverywhere.stop(start);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.yourorg.auth.domain.metrics;
+
+import com.yourorg.auth.domain.security.PasswordEncoder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link PasswordEncoder} decorator that records hashing and verification latencies.
+ * <p>
+ * Operations are timed into {@code password.hash} and {@code password.verify}; failed
+ * verifications are counted as {@code password.verify.mismatch}.
+ * </p>
+ */
+public class MeteredPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final LatencyHistogram hash;
+    private final LatencyHistogram verify;
+    private final LongAdder mismatch;
+
+    /**
+     * Wraps a password encoder.
+     *
+     * @param delegate the encoder to instrument
+     * @param registry the registry to record into
+     */
+    public MeteredPasswordEncoder(PasswordEncoder delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.hash = registry.histogram("password.hash");
+        this.verify = registry.histogram("password.verify");
+        this.mismatch = registry.counter("password.verify.mismatch");
+    }
+
+    @Override
+    public String hash(CharSequence rawPassword) {
+        long start = hash.start();
+        try {
+            return delegate.hash(rawPassword);
+        } finally {
+            hash.stop(start);
+        }
+    }
+
+    @Override
+    public boolean verify(CharSequence rawPassword, String hashedPassword) {
+        long start = verify.start();
+        try {
+            return counted(delegate.verify(rawPassword, hashedPassword));
+        } finally {
+            verify.stop(start);
+        }
+    }
+
+    @Override
+    public boolean verify(char[] rawPassword, String hashedPassword) {
+        long start = verify.start();
+        try {
+            return counted(delegate.verify(rawPassword, hashedPassword));
+        } finally {
+            verify.stop(start);
+        }
+    }
+
+    @Override
+    public boolean needsRehash(String hashedPassword) {
+        return delegate.needsRehash(hashedPassword);
+    }
+
+    private boolean counted(boolean matches) {
+        if (!matches) {
+            mismatch.increment();
+        }
+        return matches;
+    }
+}
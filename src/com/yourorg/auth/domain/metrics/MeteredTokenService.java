@@ -0,0 +1,109 @@
+package com.yourorg.auth.domain.metrics;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.security.TokenService;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link TokenService} decorator that records token creation and validation latencies.
+ * <p>
+ * Operations are timed into {@code token.create} and {@code token.validate}; tokens that do
+ * not resolve to a user are counted as {@code token.validate.miss}. Both operations take
+ * nanoseconds, so every call is counted but only a sample of them is timed.
+ * </p>
+ * <p>
+ * Batches are timed as a whole into {@code token.authenticateAll}, and the tokens in them
+ * that do not resolve count towards {@code token.validate.miss} as well.
+ * </p>
+ * <p>
+ * Revocations are timed into {@code token.revoke} and {@code token.revokeAllForUser}.
+ * </p>
+ */
+public class MeteredTokenService implements TokenService {
+    private final TokenService delegate;
+    private final LatencyHistogram create;
+    private final LatencyHistogram validate;
+    private final LatencyHistogram authenticateAll;
+    private final LatencyHistogram revoke;
+    private final LatencyHistogram revokeAllForUser;
+    private final LongAdder miss;
+
+    /**
+     * Wraps a token service.
+     *
+     * @param delegate the token service to instrument
+     * @param registry the registry to record into
+     */
+    public MeteredTokenService(TokenService delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.create = registry.histogram("token.create", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.validate = registry.histogram("token.validate", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.authenticateAll = registry.histogram("token.authenticateAll");
+        this.revoke = registry.histogram("token.revoke");
+        this.revokeAllForUser = registry.histogram("token.revokeAllForUser");
+        this.miss = registry.counter("token.validate.miss");
+    }
+
+    @Override
+    public String createToken(User user) {
+        long start = create.start();
+        try {
+            return delegate.createToken(user);
+        } finally {
+            create.stop(start);
+        }
+    }
+
+    @Override
+    public Optional<User> validateToken(String token) {
+        long start = validate.start();
+        try {
+            Optional<User> user = delegate.validateToken(token);
+            if (user.isEmpty()) {
+                miss.increment();
+            }
+            return user;
+        } finally {
+            validate.stop(start);
+        }
+    }
+
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        long start = authenticateAll.start();
+        try {
+            Map<String, User> users = delegate.authenticateAll(tokens);
+            for (String token : tokens) {
+                if (!users.containsKey(token)) {
+                    miss.increment();
+                }
+            }
+            return users;
+        } finally {
+            authenticateAll.stop(start);
+        }
+    }
+
+    @Override
+    public boolean revoke(String token) {
+        long start = revoke.start();
+        try {
+            return delegate.revoke(token);
+        } finally {
+            revoke.stop(start);
+        }
+    }
+
+    @Override
+    public int revokeAllForUser(String userId) {
+        long start = revokeAllForUser.start();
+        try {
+            return delegate.revokeAllForUser(userId);
+        } finally {
+            revokeAllForUser.stop(start);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yourorg.auth.domain.metrics;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link UserRepository} decorator that records call latencies and outcomes.
+ * <p>
+ * Each operation is timed into a {@code users.<operation>} histogram. Lookups that find
+ * nothing are counted as {@code users.findByUsername.miss} and {@code users.findById.miss}, and inserts rejected because the
+ * username was taken as {@code users.saveIfAbsent.duplicate}. Lookups are counted on every
+ * call but timed only on a sample.
+ * </p>
+ */
+public class MeteredUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final LatencyHistogram find;
+    private final LatencyHistogram findById;
+    private final LatencyHistogram isUsernameAvailable;
+    private final LatencyHistogram save;
+    private final LatencyHistogram saveIfAbsent;
+    private final LatencyHistogram saveAllIfAbsent;
+    private final LatencyHistogram update;
+    private final LongAdder findMiss;
+    private final LongAdder findByIdMiss;
+    private final LongAdder duplicate;
+
+    /**
+     * Wraps a user repository.
+     *
+     * @param delegate the repository to instrument
+     * @param registry the registry to record into
+     */
+    public MeteredUserRepository(UserRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.find = registry.histogram("users.findByUsername", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.findById = registry.histogram("users.findById", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.isUsernameAvailable = registry.histogram("users.isUsernameAvailable", MetricsRegistry.FAST_PATH_SAMPLING);
+        this.save = registry.histogram("users.save");
+        this.saveIfAbsent = registry.histogram("users.saveIfAbsent");
+        this.saveAllIfAbsent = registry.histogram("users.saveAllIfAbsent");
+        this.update = registry.histogram("users.update");
+        this.findMiss = registry.counter("users.findByUsername.miss");
+        this.findByIdMiss = registry.counter("users.findById.miss");
+        this.duplicate = registry.counter("users.saveIfAbsent.duplicate");
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        long start = find.start();
+        try {
+            Optional<User> user = delegate.findByUsername(username);
+            if (user.isEmpty()) {
+                findMiss.increment();
+            }
+            return user;
+        } finally {
+            find.stop(start);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        long start = findById.start();
+        try {
+            Optional<User> user = delegate.findById(id);
+            if (user.isEmpty()) {
+                findByIdMiss.increment();
+            }
+            return user;
+        } finally {
+            findById.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        long start = isUsernameAvailable.start();
+        try {
+            return delegate.isUsernameAvailable(username);
+        } finally {
+            isUsernameAvailable.stop(start);
+        }
+    }
+
+    @Override
+    public void save(User user) {
+        long start = save.start();
+        try {
+            delegate.save(user);
+        } finally {
+            save.stop(start);
+        }
+    }
+
+    @Override
+    public boolean saveIfAbsent(User user) {
+        long start = saveIfAbsent.start();
+        try {
+            boolean saved = delegate.saveIfAbsent(user);
+            if (!saved) {
+                duplicate.increment();
+            }
+            return saved;
+        } finally {
+            saveIfAbsent.stop(start);
+        }
+    }
+
+    @Override
+    public List<User> saveAllIfAbsent(List<User> users) {
+        long start = saveAllIfAbsent.start();
+        try {
+            List<User> saved = delegate.saveAllIfAbsent(users);
+            duplicate.add(users.size() - saved.size());
+            return saved;
+        } finally {
+            saveAllIfAbsent.stop(start);
+        }
+    }
+
+    @Override
+    public void update(User user) {
+        long start = update.start();
+        try {
+            delegate.update(user);
+        } finally {
+            update.stop(start);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.yourorg.auth.domain.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters and latency histograms shared by the metered decorators.
+ * <p>
+ * Counters are {@link LongAdder}s, which stripe increments across cells so that threads
+ * counting the same event do not contend on one cache line. Decorators look their counters
+ * and histograms up once, when they are constructed, so the hot path never touches the
+ * registry's maps. {@link #snapshot()} may be called at any time from any thread.
+ * </p>
+ */
+public final class MetricsRegistry {
+    /**
+     * Sampling interval for operations that complete in nanoseconds, such as token validation,
+     * where reading the clock on every call would dominate the cost being measured.
+     */
+    static final int FAST_PATH_SAMPLING = 8;
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name the counter name
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it on first use.
+     *
+     * @param name the operation name
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histogram(name, 1);
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it on first use with the
+     * given sampling interval.
+     *
+     * @param name the operation name
+     * @param sampleEvery time one call in this many; must be a power of two
+     * @return the histogram
+     * @see LatencyHistogram#LatencyHistogram(int)
+     */
+    public LatencyHistogram histogram(String name, int sampleEvery) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram(sampleEvery));
+    }
+
+    /**
+     * Captures the current value of every counter and histogram.
+     *
+     * @return the snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new HashMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        Map<String, MetricsSnapshot.Latency> latencies = new HashMap<>();
+        histograms.forEach((name, histogram) -> latencies.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(counterValues, latencies);
+    }
+}
@@ -0,0 +1,149 @@
+package com.yourorg.auth.domain.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable point-in-time copy of every counter and latency histogram in a {@link MetricsRegistry}.
+ * <p>
+ * {@link #toMap()} flattens the snapshot into dotted metric names with {@code long} values,
+ * which can be handed to any monitoring backend; {@link #toString()} renders the same data
+ * as one line per metric for logs.
+ * </p>
+ */
+public final class MetricsSnapshot {
+    private final Map<String, Long> counters;
+    private final Map<String, Latency> latencies;
+
+    MetricsSnapshot(Map<String, Long> counters, Map<String, Latency> latencies) {
+        this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+        this.latencies = Collections.unmodifiableMap(new TreeMap<>(latencies));
+    }
+
+    /**
+     * Returns the counter values, sorted by name.
+     *
+     * @return the counters
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Returns the latency summaries, sorted by name.
+     *
+     * @return the latencies
+     */
+    public Map<String, Latency> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param name the counter name
+     * @return its value, or zero if it has never been incremented
+     */
+    public long counter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Returns the latency summary of an operation.
+     *
+     * @param name the operation name
+     * @return its summary, or an empty one if it has never been recorded
+     */
+    public Latency latency(String name) {
+        return latencies.getOrDefault(name, Latency.EMPTY);
+    }
+
+    /**
+     * Flattens the snapshot into metric names and values. Latencies contribute
+     * {@code <name>.count}, {@code .mean}, {@code .p50}, {@code .p99}, {@code .p999} and
+     * {@code .max}, all in nanoseconds except the count.
+     *
+     * @return the flattened metrics, sorted by name
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> flat = new TreeMap<>(counters);
+        latencies.forEach((name, latency) -> {
+            flat.put(name + ".count", latency.getCount());
+            flat.put(name + ".mean", latency.getMeanNanos());
+            flat.put(name + ".p50", latency.getP50Nanos());
+            flat.put(name + ".p99", latency.getP99Nanos());
+            flat.put(name + ".p999", latency.getP999Nanos());
+            flat.put(name + ".max", latency.getMaxNanos());
+        });
+        return flat;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        latencies.forEach((name, latency) -> out.append(name).append(' ').append(latency).append('\n'));
+        counters.forEach((name, value) -> out.append(name).append(' ').append(value).append('\n'));
+        return out.toString();
+    }
+
+    /**
+     * Count and latency distribution of one operation, in nanoseconds.
+     * Percentiles are upper bounds of the histogram bucket they fall in.
+     */
+    public static final class Latency {
+        static final Latency EMPTY = new Latency(0, 0, 0, 0, 0, 0);
+
+        private final long count;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        Latency(long count, long meanNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /** @return the number of recorded calls */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return the mean latency */
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        /** @return the median latency */
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        /** @return the 99th percentile latency */
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        /** @return the 99.9th percentile latency */
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        /** @return the largest recorded latency */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " mean=" + meanNanos + " p50=" + p50Nanos
+                    + " p99=" + p99Nanos + " p999=" + p999Nanos + " max=" + maxNanos;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.yourorg.auth.domain.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Binary encoding of stored password hashes, used by {@link User} to hold them compactly.
+ * <p>
+ * A stored hash is a Base64 text format. For the PBKDF2 and Argon2id formats written by the
+ * password encoders, the text is fully determined by a few numbers and the raw salt and hash
+ * bytes, so those are stored instead: a tag byte, the cost parameters of the self-describing
+ * formats, then the 16-byte salt and 32-byte hash. Anything else, including formats added later, is kept
+ * as tagged UTF-8 text. A value is only packed if unpacking it gives back exactly the same
+ * string, so the encoding never changes what {@link User#getPasswordHash()} returns; a
+ * {@code null} hash stays {@code null}.
+ * </p>
+ */
+final class PackedPasswordHash {
+    private static final byte TEXT = 0;
+    private static final byte LEGACY = 1;
+    private static final byte PBKDF2 = 2;
+    private static final byte ARGON2ID = 3;
+
+    private static final String PBKDF2_PREFIX = "$pbkdf2-sha256$i=";
+    private static final String ARGON2ID_PREFIX = "$argon2id$v=19$m=";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+
+    private PackedPasswordHash() {
+    }
+
+    /**
+     * Encodes a stored password hash.
+     *
+     * @param stored the stored hash, in any format, or {@code null}
+     * @return the encoded hash, or {@code null} if {@code stored} is {@code null}
+     */
+    static byte[] pack(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        byte[] packed = packBinary(stored);
+        if (packed != null && stored.equals(unpack(packed))) {
+            return packed;
+        }
+        byte[] text = stored.getBytes(StandardCharsets.UTF_8);
+        byte[] tagged = new byte[1 + text.length];
+        tagged[0] = TEXT;
+        System.arraycopy(text, 0, tagged, 1, text.length);
+        return tagged;
+    }
+
+    /**
+     * Decodes a value produced by {@link #pack(String)}.
+     *
+     * @param packed the encoded hash, or {@code null}
+     * @return the stored hash, or {@code null} if {@code packed} is {@code null}
+     */
+    static String unpack(byte[] packed) {
+        if (packed == null) {
+            return null;
+        }
+        Base64.Encoder base64 = Base64.getEncoder();
+        switch (packed[0]) {
+            case LEGACY:
+                return base64.encodeToString(Arrays.copyOfRange(packed, 1, 1 + SALT_LENGTH)) + ':'
+                        + base64.encodeToString(Arrays.copyOfRange(packed, 1 + SALT_LENGTH, packed.length));
+            case PBKDF2:
+                return PBKDF2_PREFIX + ByteBuffer.wrap(packed, 1, 4).getInt() + '$'
+                        + base64.encodeToString(Arrays.copyOfRange(packed, 5, 5 + SALT_LENGTH)) + '$'
+                        + base64.encodeToString(Arrays.copyOfRange(packed, 5 + SALT_LENGTH, packed.length));
+            case ARGON2ID:
+                ByteBuffer parameters = ByteBuffer.wrap(packed, 1, 9);
+                Base64.Encoder unpadded = base64.withoutPadding();
+                return ARGON2ID_PREFIX + parameters.getInt() + ",t=" + parameters.getInt()
+                        + ",p=" + (parameters.get() & 0xff) + '$' + unpadded.encodeToString(Arrays.copyOfRange(packed, 10, 10 + SALT_LENGTH))
+                        + '$' + unpadded.encodeToString(Arrays.copyOfRange(packed, 10 + SALT_LENGTH, packed.length));
+            default:
+                return new String(packed, 1, packed.length - 1, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Returns the binary form of a PBKDF2 or Argon2id hash, or {@code null} if it is not one. */
+    private static byte[] packBinary(String stored) {
+        try {
+            if (stored.startsWith(ARGON2ID_PREFIX)) {
+                String[] parts = stored.substring(ARGON2ID_PREFIX.length()).split("[,$]", -1);
+                if (parts.length != 5 || !parts[1].startsWith("t=") || !parts[2].startsWith("p=")) {
+                    return null;
+                }
+                int parallelism = Integer.parseInt(parts[2].substring(2));
+                if (parallelism < 0 || parallelism > 0xff) {
+                    return null;
+                }
+                return packSaltAndHash(ByteBuffer.allocate(1 + 9 + SALT_LENGTH + HASH_LENGTH).put(ARGON2ID)
+                        .putInt(Integer.parseInt(parts[0])).putInt(Integer.parseInt(parts[1].substring(2)))
+                        .put((byte) parallelism), parts[3], parts[4]);
+            }
+            if (stored.startsWith(PBKDF2_PREFIX)) {
+                int iterationsEnd = stored.indexOf('$', PBKDF2_PREFIX.length());
+                int saltEnd = iterationsEnd < 0 ? -1 : stored.indexOf('$', iterationsEnd + 1);
+                if (saltEnd < 0) {
+                    return null;
+                }
+                int iterations = Integer.parseInt(stored.substring(PBKDF2_PREFIX.length(), iterationsEnd));
+                return packSaltAndHash(ByteBuffer.allocate(1 + 4 + SALT_LENGTH + HASH_LENGTH)
+                        .put(PBKDF2).putInt(iterations),
+                        stored.substring(iterationsEnd + 1, saltEnd), stored.substring(saltEnd + 1));
+            }
+            int colon = stored.indexOf(':');
+            if (colon < 0) {
+                return null;
+            }
+            return packSaltAndHash(ByteBuffer.allocate(1 + SALT_LENGTH + HASH_LENGTH).put(LEGACY),
+                    stored.substring(0, colon), stored.substring(colon + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] packSaltAndHash(ByteBuffer out, String salt, String hash) {
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] saltBytes = base64.decode(salt);
+        byte[] hashBytes = base64.decode(hash);
+        if (saltBytes.length != SALT_LENGTH || hashBytes.length != HASH_LENGTH) {
+            return null;
+        }
+        return out.put(saltBytes).put(hashBytes).array();
+    }
+}
@@ -8,16 +8,28 @@ import java.util.UUID;
  * <p>
  * Each user has a unique identifier, username, password hash, and creation timestamp.
  * </p>
+ * <p>
+ * The fields are held in a compact form so that very large user bases fit in memory: the
+ * UUID as two longs, the creation time as epoch milliseconds, and the password hash as a
+ * {@link PackedPasswordHash}, which stores the salt and hash bytes of the PBKDF2 and Argon2id
+ * formats in one small array. The getters are views that rebuild the usual {@code String} and
+ * {@link Instant} values on each call, except {@link #getId()}: its canonical string is kept
+ * once given or formatted, so the sessions and caches keyed by it share one copy.
+ * </p>
  */
 public class User {
-    /** Unique identifier for the user (UUID as String). */
-    private final String id;
+    /** Most significant bits of the unique identifier. */
+    private final long idHigh;
+    /** Least significant bits of the unique identifier. */
+    private final long idLow;
+    /** Canonical form of the identifier, if it was given or has been formatted already. */
+    private String id;
     /** Username of the user. */
     private final String username;
-    /** Hashed password for authentication. */
-    private String passwordHash;
-    /** Timestamp when the user was created. */
-    private final Instant createdAt;
+    /** Hashed password for authentication, encoded by {@link PackedPasswordHash}. */
+    private byte[] passwordHash;
+    /** Time when the user was created, in epoch milliseconds. */
+    private final long createdAt;
 
     /**
      * Constructs a new User with the specified username and password hash.
@@ -27,10 +39,35 @@ public class User {
      * @param passwordHash the hashed password of the user
      */
     public User(String username, String passwordHash) {
-        this.id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
+        this.idHigh = id.getMostSignificantBits();
+        this.idLow = id.getLeastSignificantBits();
         this.username = username;
-        this.passwordHash = passwordHash;
-        this.createdAt = Instant.now();
+        this.passwordHash = PackedPasswordHash.pack(passwordHash);
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Reconstructs an existing User, e.g. when loading it from persistent storage.
+     * The creation time is kept to millisecond precision.
+     *
+     * @param id the unique identifier of the user
+     * @param username the username of the user
+     * @param passwordHash the hashed password of the user
+     * @param createdAt the time the user was created
+     * @throws IllegalArgumentException if {@code id} is not a UUID in its canonical lower-case form
+     */
+    public User(String id, String username, String passwordHash, Instant createdAt) {
+        UUID uuid = UUID.fromString(id);
+        if (!uuid.toString().equals(id)) {
+            throw new IllegalArgumentException("User id is not a canonical UUID: " + id);
+        }
+        this.idHigh = uuid.getMostSignificantBits();
+        this.idLow = uuid.getLeastSignificantBits();
+        this.id = id;
+        this.username = username;
+        this.passwordHash = PackedPasswordHash.pack(passwordHash);
+        this.createdAt = createdAt.toEpochMilli();
     }
 
     /**
@@ -39,7 +76,22 @@ public class User {
      * @return the user ID as a String
      */
     public String getId() {
-        return id;
+        String value = id;
+        if (value == null) {
+            // Racing callers may each format it; the copies are equal and one of them is kept.
+            value = getUuid().toString();
+            id = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the unique identifier of the user without formatting it as a String.
+     *
+     * @return the user ID as a {@link UUID}
+     */
+    public UUID getUuid() {
+        return new UUID(idHigh, idLow);
     }
 
     /**
@@ -57,7 +109,7 @@ public class User {
      * @return the password hash
      */
     public String getPasswordHash() {
-        return passwordHash;
+        return PackedPasswordHash.unpack(passwordHash);
     }
 
     /**
@@ -69,7 +121,7 @@ public class User {
      * @param passwordHash the new hashed password
      */
     public void setPasswordHash(String passwordHash) {
-        this.passwordHash = passwordHash;
+        this.passwordHash = PackedPasswordHash.pack(passwordHash);
     }
 
     /**
@@ -78,6 +130,6 @@ public class User {
      * @return the creation time as an {@link Instant}
      */
     public Instant getCreatedAt() {
-        return createdAt;
+        return Instant.ofEpochMilli(createdAt);
     }
 }
@@ -0,0 +1,201 @@
+package com.yourorg.auth.domain.repository;
+
+import com.yourorg.auth.domain.model.User;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link UserRepository} decorator with a bounded read-through cache for {@link #findById(String)}.
+ * <p>
+ * Token services resolve the user id stored in a session on every validation; this cache
+ * keeps that lookup off the underlying store for active users. It holds at most the configured
+ * number of users, split over independently locked segments that each evict their least recently
+ * used entry. Misses are not cached.
+ * </p>
+ * <p>
+ * {@link #update(User)} and {@link #save(User)} invalidate the cached entry after the write
+ * reaches the store, so the next lookup sees the change. A lookup that raced with such a write
+ * does not put its possibly stale result into the cache. Changes made to the underlying
+ * repository directly are not seen until the entry is evicted.
+ * </p>
+ */
+public class CachingUserRepository implements UserRepository {
+    /** Default number of cached users. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+    /** Number of independently locked segments. */
+    private static final int SEGMENTS = 16;
+
+    /** One lock's worth of cache: an access-ordered map plus an invalidation counter. */
+    private static final class Segment extends LinkedHashMap<String, User> {
+        private final int capacity;
+        /** Incremented by every invalidation, so a racing read-through can detect it. */
+        long invalidations;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private final UserRepository delegate;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * Wraps a user repository with a cache of the default capacity.
+     *
+     * @param delegate the repository holding the users
+     */
+    public CachingUserRepository(UserRepository delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Wraps a user repository.
+     *
+     * @param delegate the repository holding the users
+     * @param capacity the maximum number of cached users
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public CachingUserRepository(UserRepository delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.delegate = delegate;
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Finds a user by their username in the underlying repository; not cached.
+     *
+     * @param username the username to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return delegate.findByUsername(username);
+    }
+
+    /**
+     * Reports whether no user has the given username, as the underlying repository sees it.
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return delegate.isUsernameAvailable(username);
+    }
+
+    /**
+     * Finds a user by their unique identifier, from the cache if possible.
+     *
+     * @param id the user id to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    @Override
+    public Optional<User> findById(String id) {
+        Segment segment = segmentFor(id);
+        long invalidations;
+        synchronized (segment) {
+            User cached = segment.get(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            invalidations = segment.invalidations;
+        }
+        Optional<User> user = delegate.findById(id);
+        if (user.isPresent()) {
+            synchronized (segment) {
+                if (segment.invalidations == invalidations) {
+                    segment.put(id, user.get());
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Saves a user and drops any cached copy of it, as well as of a user it replaces.
+     *
+     * @param user the user to save
+     */
+    @Override
+    public void save(User user) {
+        Optional<User> replaced = delegate.findByUsername(user.getUsername());
+        delegate.save(user);
+        invalidate(user.getId());
+        replaced.ifPresent(u -> invalidate(u.getId()));
+    }
+
+    /**
+     * Saves a new user unless the username is taken. New users cannot be cached yet,
+     * so nothing is invalidated.
+     *
+     * @param user the user to save
+     * @return {@code true} if the user was saved, {@code false} if the username was taken
+     */
+    @Override
+    public boolean saveIfAbsent(User user) {
+        return delegate.saveIfAbsent(user);
+    }
+
+    /**
+     * Saves a batch of new users through the underlying repository.
+     *
+     * @param users the users to save
+     * @return the users that were saved
+     */
+    @Override
+    public List<User> saveAllIfAbsent(List<User> users) {
+        return delegate.saveAllIfAbsent(users);
+    }
+
+    /**
+     * Updates a user and drops any cached copy of it.
+     *
+     * @param user the user to update
+     */
+    @Override
+    public void update(User user) {
+        delegate.update(user);
+        invalidate(user.getId());
+    }
+
+    /**
+     * Returns the number of cached users.
+     *
+     * @return the cache size
+     */
+    public int cachedSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private void invalidate(String id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.remove(id);
+            segment.invalidations++;
+        }
+    }
+
+    private Segment segmentFor(String id) {
+        int h = id.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+}
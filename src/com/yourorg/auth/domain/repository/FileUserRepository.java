@@ -0,0 +1,1065 @@
+package com.yourorg.auth.domain.repository;
+
+import com.yourorg.auth.domain.model.User;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent {@link UserRepository} backed by an append-only log and a memory-mapped index.
+ * <p>
+ * Every {@code save} or {@code update} appends a checksummed record to {@code users.log}.
+ * A single writer thread group-commits whatever records are queued: it writes them in one
+ * go, forces the log to disk once, and only then publishes them in the index, so callers
+ * return once their user is durable. {@code users.idx} is a memory-mapped file holding two
+ * open-addressing tables of equal capacity, one keyed by a 64-bit hash of the username and one
+ * by a hash of the user id, both pointing at the offset of that user's latest record;
+ * lookups probe one of them and read one record from the log.
+ * </p>
+ * <p>
+ * After a clean {@link #close()} the index is reused as-is, so startup costs a mapping of
+ * the index file regardless of the number of users. After a crash the index is rebuilt by
+ * scanning the log; the scan only hashes usernames and ids and stops at the first torn or corrupt
+ * record, which is truncated away. When superseded records make up most of the log, a
+ * background task asks the writer thread to compact it into a fresh log and index.
+ * </p>
+ * <p>
+ * A {@link UsernameFilter} over the username hashes lets {@link #isUsernameAvailable(String)}
+ * report most free usernames without probing the index or reading a record. It is rebuilt
+ * from the hashes stored in the index on startup and extended as the writer publishes records.
+ * </p>
+ */
+public class FileUserRepository implements UserRepository, AutoCloseable {
+    private static final String LOG_FILE = "users.log";
+    private static final String INDEX_FILE = "users.idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int LOG_MAGIC = 0x41554c47;
+    private static final int INDEX_MAGIC = 0x41554958;
+    private static final int VERSION = 2;
+    private static final int LOG_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final byte KIND_PUT = 1;
+    /** Largest possible payload: kind, timestamp and three length-prefixed strings. */
+    private static final int MAX_PAYLOAD = 1 + 8 + 3 * (2 + 0xffff);
+    /** Size of the pooled record read buffers, which hold all but unusually long records. */
+    private static final int READ_BUFFER_BYTES = 512;
+
+    private static final int INDEX_HEADER = 64;
+    private static final int IDX_CAPACITY = 8;
+    private static final int IDX_CLEAN = 12;
+    private static final int IDX_COUNT = 16;
+    private static final int IDX_RECORDS = 24;
+    private static final int IDX_COVERED = 32;
+    private static final int IDX_IDS = 40;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_INDEX_CAPACITY = 1 << 10;
+    /** Largest capacity of each table; both tables together then span 1 GiB, within one mapping. */
+    private static final int MAX_INDEX_CAPACITY = 1 << 25;
+    /** Most entries either table may hold; tables are kept at most half full so that probes end. */
+    private static final long MAX_INDEX_ENTRIES = MAX_INDEX_CAPACITY / 2;
+
+    /** Maximum number of records written by one group commit. */
+    private static final int MAX_BATCH = 4_096;
+    /** Minimum number of records before compaction is considered. */
+    private static final long COMPACTION_MIN_RECORDS = 10_000;
+    private static final long COMPACTION_CHECK_SECONDS = 60;
+
+    /** A record waiting for the writer thread. */
+    private static final class PendingWrite {
+        final byte[] username;
+        final long hash;
+        final byte[] id;
+        final long idHash;
+        final byte[] record;
+        /** Whether the write must be skipped if the username already exists. */
+        final boolean ifAbsent;
+        /** Completed with whether the record was written. */
+        final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        PendingWrite(byte[] username, long hash, byte[] id, byte[] record, boolean ifAbsent) {
+            this.username = username;
+            this.hash = hash;
+            this.id = id;
+            this.idHash = hash(id);
+            this.record = record;
+            this.ifAbsent = ifAbsent;
+        }
+    }
+
+    private final Path directory;
+    private final StampedLock lock = new StampedLock();
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    /** Record read buffers ready for reuse, shared so that lookups on virtual threads reuse them too. */
+    private final BlockingQueue<ByteBuffer> readBuffers =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private final Thread writer;
+    private final ScheduledExecutorService compactionScheduler;
+    private volatile CompletableFuture<Void> compactionRequest;
+    private volatile boolean running = true;
+    /** Set when the writer thread stops on an unexpected error; later writes are rejected. */
+    private volatile Throwable failure;
+
+    /** The log; replaced only by compaction, under the write lock. */
+    private FileChannel log;
+    /** End of the last durable record. */
+    private long logEnd;
+    /** The index; replaced by growth and compaction, under the write lock. */
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int mask;
+    /** Every username in the index; replaced only while opening. */
+    private volatile UsernameFilter usernames;
+
+    /**
+     * Opens (or creates) a repository stored in the given directory.
+     *
+     * @param directory the directory holding the log and index files
+     * @throws UncheckedIOException if the files cannot be opened or recovered
+     */
+    public FileUserRepository(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(directory.resolve(LOG_FILE + TEMP_SUFFIX));
+            Files.deleteIfExists(directory.resolve(INDEX_FILE + TEMP_SUFFIX));
+            openLog();
+            openIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open user repository in " + directory, e);
+        }
+        this.writer = new Thread(this::writeLoop, "user-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        this.compactionScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "user-log-compaction");
+            t.setDaemon(true);
+            return t;
+        });
+        compactionScheduler.scheduleWithFixedDelay(this::compactIfWorthwhile,
+                COMPACTION_CHECK_SECONDS, COMPACTION_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Finds a user by their username.
+     *
+     * @param username the username to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    @Override
+    public Optional<User> findByUsername(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(name);
+        ByteBuffer buffer = acquireReadBuffer();
+        long stamp = lock.readLock();
+        try {
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                int base = slotBase(mask + 1, false, i);
+                long offset = index.getLong(base + 8);
+                if (offset == 0) {
+                    return Optional.empty();
+                }
+                if (index.getLong(base) == hash) {
+                    ByteBuffer payload = readRecord(offset, buffer);
+                    if (usernameEquals(payload, name)) {
+                        return Optional.of(decodeUser(payload));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user " + username, e);
+        } finally {
+            lock.unlockRead(stamp);
+            releaseReadBuffer(buffer);
+        }
+    }
+
+    /**
+     * Reports whether no user has the given username. Usernames that were never stored are
+     * mostly recognized by the filter alone; otherwise the index is probed.
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (!usernames.mightContain(hash(username.getBytes(StandardCharsets.UTF_8)))) {
+            return true;
+        }
+        return findByUsername(username).isEmpty();
+    }
+
+    /**
+     * Finds a user by their unique identifier, probing the id table of the index.
+     *
+     * @param id the user id to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    @Override
+    public Optional<User> findById(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        ByteBuffer buffer = acquireReadBuffer();
+        long stamp = lock.readLock();
+        try {
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                int base = slotBase(mask + 1, true, i);
+                long offset = index.getLong(base + 8);
+                if (offset == 0) {
+                    return Optional.empty();
+                }
+                if (index.getLong(base) == hash) {
+                    ByteBuffer payload = readRecord(offset, buffer);
+                    if (idEquals(payload, key)) {
+                        byte[] name = username(payload);
+                        User user = decodeUser(payload);
+                        // save() may have given the username to another user, leaving this id behind.
+                        return isLatestForUsername(hash(name), offset) ? Optional.of(user) : Optional.empty();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user " + id, e);
+        } finally {
+            lock.unlockRead(stamp);
+            releaseReadBuffer(buffer);
+        }
+    }
+
+    /**
+     * Durably saves a user, replacing any user with the same username.
+     *
+     * @param user the user to save
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    @Override
+    public void save(User user) {
+        await(enqueue(user, false));
+    }
+
+    /**
+     * Durably saves a user unless a user with the same username already exists.
+     * The check and the append are both performed by the writer thread, so concurrent
+     * calls for the same username cannot both succeed.
+     *
+     * @param user the user to save
+     * @return {@code true} if the user was saved, {@code false} if the username was taken
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    @Override
+    public boolean saveIfAbsent(User user) {
+        return await(enqueue(user, true));
+    }
+
+    /**
+     * Saves a batch of new users, skipping usernames that already exist.
+     * All records are queued at once, so they are group-committed in as few
+     * disk flushes as the writer's batch size allows.
+     *
+     * @param users the users to save
+     * @return the users that were saved
+     * @throws UncheckedIOException if the records cannot be written
+     */
+    @Override
+    public List<User> saveAllIfAbsent(List<User> users) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            results.add(enqueue(user, true));
+        }
+        List<User> saved = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (await(results.get(i))) {
+                saved.add(users.get(i));
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Durably updates a user; if the user does not exist, it is added.
+     *
+     * @param user the user to update
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    @Override
+    public void update(User user) {
+        await(enqueue(user, false));
+    }
+
+    /**
+     * Rewrites the log so that it only holds the latest record of every user,
+     * blocking until the compaction has finished.
+     *
+     * @throws UncheckedIOException if compaction fails
+     */
+    public void compact() {
+        checkWritable();
+        CompletableFuture<Void> request = requestCompaction();
+        rejectIfStopped();
+        await(request);
+    }
+
+    /**
+     * Returns the number of distinct users stored.
+     *
+     * @return the number of users
+     */
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return index.getLong(IDX_COUNT);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Flushes pending writes, marks the index clean and closes the files. Writes still queued
+     * when the writer thread has stopped fail with an {@link IllegalStateException}. After a
+     * writer failure the index is left marked unclean, so it is rebuilt from the log on the next start.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        compactionScheduler.shutdownNow();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectPending(new IllegalStateException("Repository is closed"));
+        long stamp = lock.writeLock();
+        try {
+            log.force(true);
+            if (failure == null) {
+                index.putLong(IDX_COVERED, logEnd);
+                index.force();
+                index.putInt(IDX_CLEAN, 1);
+                index.force();
+            }
+            log.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close user repository", e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private CompletableFuture<Boolean> enqueue(User user, boolean ifAbsent) {
+        checkWritable();
+        byte[] name = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] id = user.getId().getBytes(StandardCharsets.UTF_8);
+        PendingWrite write = new PendingWrite(name, hash(name), id, encodeRecord(user, id, name), ifAbsent);
+        queue.add(write);
+        // The writer may have stopped after the check above; nobody else would complete the write then.
+        rejectIfStopped();
+        return write.done;
+    }
+
+    private void checkWritable() {
+        if (!running) {
+            throw new IllegalStateException("Repository is closed");
+        }
+        Throwable cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("Repository has failed", cause);
+        }
+    }
+
+    private void rejectIfStopped() {
+        Throwable cause = failure;
+        if (cause != null) {
+            rejectPending(new IllegalStateException("Repository has failed", cause));
+        } else if (!running && !writer.isAlive()) {
+            rejectPending(new IllegalStateException("Repository is closed"));
+        }
+    }
+
+    /**
+     * Fails every queued write and any outstanding compaction request.
+     */
+    private void rejectPending(RuntimeException cause) {
+        for (PendingWrite w; (w = queue.poll()) != null; ) {
+            w.done.completeExceptionally(cause);
+        }
+        CompletableFuture<Void> request = compactionRequest;
+        if (request != null) {
+            request.completeExceptionally(cause);
+        }
+    }
+
+    private synchronized CompletableFuture<Void> requestCompaction() {
+        CompletableFuture<Void> request = compactionRequest;
+        if (request == null || request.isDone()) {
+            request = new CompletableFuture<>();
+            compactionRequest = request;
+        }
+        return request;
+    }
+
+    private void compactIfWorthwhile() {
+        long stamp = lock.readLock();
+        long records;
+        long live;
+        try {
+            records = index.getLong(IDX_RECORDS);
+            live = index.getLong(IDX_COUNT);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (records >= COMPACTION_MIN_RECORDS && records > 2 * live) {
+            requestCompaction();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    // ---------------------------------------------------------------- writer thread
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    try {
+                        commit(batch);
+                    } catch (RuntimeException e) {
+                        // The log and index may no longer agree, so stop accepting writes.
+                        failure = e;
+                        Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+                        batch.forEach(w -> w.done.completeExceptionally(cause));
+                        rejectPending(new IllegalStateException("Repository has failed", e));
+                        return;
+                    }
+                    batch.clear();
+                }
+                CompletableFuture<Void> request = compactionRequest;
+                if (request != null && !request.isDone()) {
+                    try {
+                        rewrite();
+                        request.complete(null);
+                    } catch (IOException | RuntimeException e) {
+                        request.completeExceptionally(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends a batch of records, forces them to disk and publishes them in the index.
+     * Writes that could not be indexed once the index has reached its maximum capacity are
+     * rejected before anything is written.
+     *
+     * @throws UncheckedIOException if records were written but could not be indexed
+     */
+    private void commit(List<PendingWrite> pending) {
+        List<PendingWrite> batch = new ArrayList<>(pending.size());
+        Set<ByteBuffer> batchNames = new HashSet<>();
+        long entries = Math.max(index.getLong(IDX_COUNT), index.getLong(IDX_IDS));
+        for (PendingWrite w : pending) {
+            ByteBuffer name = ByteBuffer.wrap(w.username);
+            try {
+                if (w.ifAbsent && (batchNames.contains(name) || indexContains(w.hash, w.username))) {
+                    w.done.complete(false);
+                    continue;
+                }
+            } catch (IOException e) {
+                w.done.completeExceptionally(e);
+                continue;
+            }
+            // Counts every write as a new entry, so the index can never be overfilled.
+            if (entries + batch.size() >= MAX_INDEX_ENTRIES) {
+                w.done.completeExceptionally(new IOException("User index is full: " + entries + " entries"));
+                continue;
+            }
+            batchNames.add(name);
+            batch.add(w);
+        }
+        int size = 0;
+        for (PendingWrite w : batch) {
+            size += w.record.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        long[] offsets = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            offsets[i] = logEnd + out.position();
+            out.put(batch.get(i).record);
+        }
+        out.flip();
+        try {
+            for (long position = logEnd; out.hasRemaining(); ) {
+                position += log.write(out, position);
+            }
+            // force(false) maps to fdatasync, which also persists the grown file length.
+            log.force(false);
+        } catch (IOException e) {
+            try {
+                log.truncate(logEnd);
+            } catch (IOException ignored) {
+                // The torn tail will be truncated by recovery on the next start.
+            }
+            batch.forEach(w -> w.done.completeExceptionally(e));
+            return;
+        }
+        logEnd += size;
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite w = batch.get(i);
+                indexPut(w.hash, w.username, w.idHash, w.id, offsets[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot index user records", e);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        batch.forEach(w -> w.done.complete(true));
+    }
+
+    /**
+     * Copies the latest record of every user into a new log and index, then swaps them in.
+     * Runs on the writer thread, so no records are appended meanwhile; readers continue
+     * against the old files until the final swap.
+     */
+    private void rewrite() throws IOException {
+        Path newLogPath = directory.resolve(LOG_FILE + TEMP_SUFFIX);
+        Path newIndexPath = directory.resolve(INDEX_FILE + TEMP_SUFFIX);
+        int capacity = mask + 1;
+        FileChannel newLog = FileChannel.open(newLogPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel newIndexChannel = FileChannel.open(newIndexPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newIndex = newIndexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexBytes(capacity));
+        long newEnd;
+        long count;
+        ByteBuffer buffer = acquireReadBuffer();
+        long stamp = lock.readLock();
+        try {
+            writeLogHeader(newLog);
+            ByteBuffer out = ByteBuffer.allocate(1 << 20);
+            newEnd = LOG_HEADER;
+            count = 0;
+            for (int i = 0; i < capacity; i++) {
+                int base = slotBase(capacity, false, i);
+                long offset = index.getLong(base + 8);
+                if (offset == 0) {
+                    continue;
+                }
+                ByteBuffer payload = readRecord(offset, buffer);
+                int length = payload.remaining();
+                if (out.remaining() < RECORD_HEADER + length) {
+                    newEnd += flush(newLog, out, newEnd);
+                }
+                long recordOffset = newEnd + out.position();
+                long idHash = hash(id(payload));
+                out.putInt(length).putInt(crc(payload)).put(payload);
+                newIndex.putLong(base, index.getLong(base));
+                newIndex.putLong(base + 8, recordOffset);
+                insertSlot(newIndex, capacity, true, idHash, recordOffset);
+                count++;
+            }
+            newEnd += flush(newLog, out, newEnd);
+        } finally {
+            lock.unlockRead(stamp);
+            releaseReadBuffer(buffer);
+        }
+        newLog.force(true);
+        initIndexHeader(newIndex, capacity, count, count, newEnd, count);
+        newIndex.force();
+
+        stamp = lock.writeLock();
+        try {
+            log.close();
+            indexChannel.close();
+            Files.move(newLogPath, directory.resolve(LOG_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(newIndexPath, directory.resolve(INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log = newLog;
+            logEnd = newEnd;
+            indexChannel = newIndexChannel;
+            index = newIndex;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer out, long position) throws IOException {
+        out.flip();
+        long written = 0;
+        while (out.hasRemaining()) {
+            written += channel.write(out, position + written);
+        }
+        out.clear();
+        return written;
+    }
+
+    // ---------------------------------------------------------------- index
+
+    /**
+     * Returns the position of a slot: the username table comes first, the id table second.
+     */
+    private static int slotBase(int capacity, boolean ids, int i) {
+        return INDEX_HEADER + ((ids ? capacity : 0) + i) * SLOT_BYTES;
+    }
+
+    private static long indexBytes(int capacity) {
+        return INDEX_HEADER + 2L * capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Checks whether the username table points at the given record, i.e. whether it is
+     * still the latest record for its username. Compares offsets only, so no records are read.
+     */
+    private boolean isLatestForUsername(long hash, long offset) {
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            int base = slotBase(mask + 1, false, i);
+            long existing = index.getLong(base + 8);
+            if (existing == 0) {
+                return false;
+            }
+            if (existing == offset) {
+                return index.getLong(base) == hash;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the index holds a record for the username. Called by the writer
+     * thread, which is the only thread that modifies the index, so no lock is needed.
+     */
+    private boolean indexContains(long hash, byte[] username) throws IOException {
+        ByteBuffer buffer = acquireReadBuffer();
+        try {
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                int base = slotBase(mask + 1, false, i);
+                long offset = index.getLong(base + 8);
+                if (offset == 0) {
+                    return false;
+                }
+                if (index.getLong(base) == hash && usernameEquals(readRecord(offset, buffer), username)) {
+                    return true;
+                }
+            }
+        } finally {
+            releaseReadBuffer(buffer);
+        }
+    }
+
+    /**
+     * Points the index entries for a username and a user id at a new record offset.
+     * Must be called with the write lock held.
+     *
+     * @throws IOException if the index is full at its maximum capacity, or cannot be grown
+     */
+    private void indexPut(long hash, byte[] username, long idHash, byte[] id, long offset) throws IOException {
+        long entries = Math.max(index.getLong(IDX_COUNT), index.getLong(IDX_IDS));
+        if ((entries + 1) * 2 > mask + 1) {
+            if (mask + 1 >= MAX_INDEX_CAPACITY) {
+                throw new IOException("User index is full: " + entries + " entries");
+            }
+            growIndex();
+        }
+        index.putLong(IDX_RECORDS, index.getLong(IDX_RECORDS) + 1);
+        if (slotPut(false, hash, username, offset)) {
+            index.putLong(IDX_COUNT, index.getLong(IDX_COUNT) + 1);
+            usernames.add(hash);
+        }
+        if (slotPut(true, idHash, id, offset)) {
+            index.putLong(IDX_IDS, index.getLong(IDX_IDS) + 1);
+        }
+    }
+
+    /**
+     * Points the entry for a key in one of the tables at a new record offset.
+     *
+     * @return {@code true} if a new entry was added, {@code false} if an existing one was replaced
+     */
+    private boolean slotPut(boolean ids, long hash, byte[] key, long offset) throws IOException {
+        ByteBuffer buffer = acquireReadBuffer();
+        try {
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                int base = slotBase(mask + 1, ids, i);
+                long existing = index.getLong(base + 8);
+                if (existing == 0) {
+                    index.putLong(base, hash);
+                    index.putLong(base + 8, offset);
+                    return true;
+                }
+                if (index.getLong(base) == hash) {
+                    ByteBuffer payload = readRecord(existing, buffer);
+                    if (ids ? idEquals(payload, key) : usernameEquals(payload, key)) {
+                        index.putLong(base + 8, offset);
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            releaseReadBuffer(buffer);
+        }
+    }
+
+    /**
+     * Inserts an entry known to be absent into one of the tables of an index buffer.
+     */
+    private static void insertSlot(MappedByteBuffer buffer, int capacity, boolean ids, long hash, long offset) {
+        int mask = capacity - 1;
+        int i = (int) hash & mask;
+        while (buffer.getLong(slotBase(capacity, ids, i) + 8) != 0) {
+            i = (i + 1) & mask;
+        }
+        buffer.putLong(slotBase(capacity, ids, i), hash);
+        buffer.putLong(slotBase(capacity, ids, i) + 8, offset);
+    }
+
+    /**
+     * Doubles the index capacity by re-inserting every slot into a fresh index file, which
+     * then replaces the current one. Stored hashes make this possible without reading records.
+     */
+    private void growIndex() throws IOException {
+        int oldCapacity = mask + 1;
+        int capacity = oldCapacity * 2;
+        Path grownPath = directory.resolve(INDEX_FILE + TEMP_SUFFIX);
+        FileChannel grownChannel = FileChannel.open(grownPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer grown = grownChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexBytes(capacity));
+        initIndexHeader(grown, capacity, index.getLong(IDX_COUNT), index.getLong(IDX_RECORDS),
+                index.getLong(IDX_COVERED), index.getLong(IDX_IDS));
+        for (boolean ids : new boolean[] {false, true}) {
+            for (int i = 0; i < oldCapacity; i++) {
+                int base = slotBase(oldCapacity, ids, i);
+                long offset = index.getLong(base + 8);
+                if (offset != 0) {
+                    insertSlot(grown, capacity, ids, index.getLong(base), offset);
+                }
+            }
+        }
+        int newMask = capacity - 1;
+        Files.move(grownPath, directory.resolve(INDEX_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexChannel.close();
+        indexChannel = grownChannel;
+        index = grown;
+        mask = newMask;
+    }
+
+    // ---------------------------------------------------------------- startup and recovery
+
+    private void openLog() throws IOException {
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (log.size() < LOG_HEADER) {
+            log.truncate(0);
+            writeLogHeader(log);
+            log.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+            log.read(header, 0);
+            header.flip();
+            if (header.getInt() != LOG_MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a user log: " + directory.resolve(LOG_FILE));
+            }
+        }
+    }
+
+    private void openIndex() throws IOException {
+        Path path = directory.resolve(INDEX_FILE);
+        indexChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = false;
+        int capacity = MIN_INDEX_CAPACITY;
+        if (indexChannel.size() >= INDEX_HEADER) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            int storedCapacity = index.getInt(IDX_CAPACITY);
+            reusable = index.getInt(0) == INDEX_MAGIC
+                    && index.getInt(4) == VERSION
+                    && index.getInt(IDX_CLEAN) == 1
+                    && Integer.bitCount(storedCapacity) == 1
+                    && indexChannel.size() == indexBytes(storedCapacity)
+                    && index.getLong(IDX_COVERED) <= log.size();
+            if (reusable) {
+                capacity = storedCapacity;
+            } else if (Integer.bitCount(storedCapacity) == 1 && storedCapacity <= MAX_INDEX_CAPACITY) {
+                capacity = Math.max(capacity, storedCapacity);
+            }
+        }
+        long replayFrom = LOG_HEADER;
+        if (reusable) {
+            mask = capacity - 1;
+            replayFrom = index.getLong(IDX_COVERED);
+            usernames = new UsernameFilter(index.getLong(IDX_COUNT) * 2);
+            for (int i = 0; i < capacity; i++) {
+                int base = slotBase(capacity, false, i);
+                if (index.getLong(base + 8) != 0) {
+                    usernames.add(index.getLong(base));
+                }
+            }
+        } else {
+            usernames = new UsernameFilter(capacity / 2);
+            indexChannel.truncate(0);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexBytes(capacity));
+            initIndexHeader(index, capacity, 0, 0, LOG_HEADER, 0);
+            mask = capacity - 1;
+        }
+        logEnd = replay(replayFrom);
+        if (logEnd < log.size()) {
+            log.truncate(logEnd);
+            log.force(true);
+        }
+        index.putLong(IDX_COVERED, logEnd);
+        index.putInt(IDX_CLEAN, 0);
+        index.force();
+    }
+
+    /**
+     * Indexes every intact record from the given offset and returns the end of the last one.
+     * Only the username and id of each record are examined; no users are materialized.
+     */
+    private long replay(long from) throws IOException {
+        long size = log.size();
+        ByteBuffer window = ByteBuffer.allocate(Math.max(1 << 20, RECORD_HEADER + MAX_PAYLOAD));
+        long windowStart = from;
+        window.limit(0);
+        long position = from;
+        while (position + RECORD_HEADER <= size) {
+            if (position + RECORD_HEADER > windowStart + window.limit()) {
+                windowStart = refill(window, position);
+            }
+            int at = (int) (position - windowStart);
+            int length = window.getInt(at);
+            int checksum = window.getInt(at + 4);
+            if (length < 1 + 8 + 6 || length > MAX_PAYLOAD || position + RECORD_HEADER + length > size) {
+                break;
+            }
+            if (position + RECORD_HEADER + length > windowStart + window.limit()) {
+                windowStart = refill(window, position);
+                at = 0;
+            }
+            ByteBuffer payload = window.duplicate();
+            payload.limit(at + RECORD_HEADER + length).position(at + RECORD_HEADER);
+            if (crc(payload) != checksum || payload.get(payload.position()) != KIND_PUT) {
+                break;
+            }
+            byte[] name = username(payload);
+            byte[] id = id(payload);
+            indexPut(hash(name), name, hash(id), id, position);
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    private long refill(ByteBuffer window, long position) throws IOException {
+        window.clear();
+        while (window.hasRemaining()) {
+            int n = log.read(window, position + window.position());
+            if (n <= 0) {
+                break;
+            }
+        }
+        window.flip();
+        return position;
+    }
+
+    private static void writeLogHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).putInt(LOG_MAGIC).putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private static void initIndexHeader(MappedByteBuffer buffer, int capacity, long count, long records, long covered,
+                                        long ids) {
+        buffer.putInt(0, INDEX_MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(IDX_CAPACITY, capacity);
+        buffer.putInt(IDX_CLEAN, 0);
+        buffer.putLong(IDX_COUNT, count);
+        buffer.putLong(IDX_RECORDS, records);
+        buffer.putLong(IDX_COVERED, covered);
+        buffer.putLong(IDX_IDS, ids);
+    }
+
+    // ---------------------------------------------------------------- records
+
+    private static byte[] encodeRecord(User user, byte[] id, byte[] username) {
+        byte[] hash = user.getPasswordHash().getBytes(StandardCharsets.UTF_8);
+        if (id.length > 0xffff || username.length > 0xffff || hash.length > 0xffff) {
+            throw new IllegalArgumentException("User fields are too long to store");
+        }
+        int length = 1 + 8 + 2 + id.length + 2 + username.length + 2 + hash.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+        record.putInt(length).putInt(0)
+                .put(KIND_PUT)
+                .putLong(user.getCreatedAt().toEpochMilli())
+                .putShort((short) id.length).put(id)
+                .putShort((short) username.length).put(username)
+                .putShort((short) hash.length).put(hash);
+        record.putInt(4, crc(ByteBuffer.wrap(record.array(), RECORD_HEADER, length)));
+        return record.array();
+    }
+
+    private ByteBuffer acquireReadBuffer() {
+        ByteBuffer buffer = readBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(READ_BUFFER_BYTES);
+    }
+
+    private void releaseReadBuffer(ByteBuffer buffer) {
+        readBuffers.offer(buffer);
+    }
+
+    /**
+     * Reads the payload of the record at the given offset into a pooled read buffer.
+     * Records too large for it are read into a buffer of their own, which is returned instead.
+     *
+     * @param buffer a buffer from {@link #acquireReadBuffer()}
+     * @return a buffer positioned at the payload
+     * @throws IOException if the record cannot be read or fails its checksum
+     */
+    private ByteBuffer readRecord(long offset, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        readFully(buffer, offset);
+        int length = buffer.getInt(0);
+        if (length > MAX_PAYLOAD || length < 0) {
+            throw new IOException("Corrupt record at offset " + offset);
+        }
+        if (RECORD_HEADER + length > buffer.capacity()) {
+            buffer = ByteBuffer.allocate(RECORD_HEADER + length);
+            readFully(buffer, offset);
+        }
+        buffer.limit(RECORD_HEADER + length).position(RECORD_HEADER);
+        if (crc(buffer) != buffer.getInt(4)) {
+            throw new IOException("Corrupt record at offset " + offset);
+        }
+        return buffer;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = log.read(buffer, offset + buffer.position());
+            if (n < 0) {
+                break;
+            }
+        }
+    }
+
+    private static User decodeUser(ByteBuffer payload) {
+        ByteBuffer p = payload.duplicate();
+        p.get();
+        Instant createdAt = Instant.ofEpochMilli(p.getLong());
+        String id = string(p);
+        String username = string(p);
+        String passwordHash = string(p);
+        return new User(id, username, passwordHash, createdAt);
+    }
+
+    private static byte[] username(ByteBuffer payload) {
+        ByteBuffer p = payload.duplicate();
+        p.position(p.position() + 1 + 8);
+        int idLength = p.getShort() & 0xffff;
+        p.position(p.position() + idLength);
+        byte[] name = new byte[p.getShort() & 0xffff];
+        p.get(name);
+        return name;
+    }
+
+    private static byte[] id(ByteBuffer payload) {
+        ByteBuffer p = payload.duplicate();
+        p.position(p.position() + 1 + 8);
+        byte[] id = new byte[p.getShort() & 0xffff];
+        p.get(id);
+        return id;
+    }
+
+    private static boolean idEquals(ByteBuffer payload, byte[] id) {
+        int at = payload.position() + 1 + 8;
+        int length = payload.getShort(at) & 0xffff;
+        if (length != id.length) {
+            return false;
+        }
+        return payload.duplicate().position(at + 2).limit(at + 2 + length)
+                .equals(ByteBuffer.wrap(id));
+    }
+
+    private static boolean usernameEquals(ByteBuffer payload, byte[] name) {
+        int at = payload.position() + 1 + 8;
+        at += 2 + (payload.getShort(at) & 0xffff);
+        int length = payload.getShort(at) & 0xffff;
+        if (length != name.length) {
+            return false;
+        }
+        return payload.duplicate().position(at + 2).limit(at + 2 + length)
+                .equals(ByteBuffer.wrap(name));
+    }
+
+    private static String string(ByteBuffer p) {
+        byte[] bytes = new byte[p.getShort() & 0xffff];
+        p.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a UTF-8 username or user id, finished with a MurmurHash3 mix.
+     */
+    private static long hash(byte[] name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
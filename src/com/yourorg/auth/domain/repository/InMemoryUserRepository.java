@@ -3,18 +3,22 @@ package com.yourorg.auth.domain.repository;
 import com.yourorg.auth.domain.model.User;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In-memory implementation of {@link UserRepository}.
  * <p>
- * Stores users in a thread-safe map, keyed by username.
+ * Stores users in thread-safe maps, keyed by username and by id. The id map is keyed by
+ * {@link UUID}, which is smaller than the id's String form.
  * Intended for testing or development; not suitable for production use.
  * </p>
  */
 public class InMemoryUserRepository implements UserRepository {
     /** Thread-safe map to store users by their username. */
     private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    /** Thread-safe map to store users by their id. */
+    private final Map<UUID, User> usersById = new ConcurrentHashMap<>();
 
     /**
      * Finds a user by their username.
@@ -27,6 +31,37 @@ public class InMemoryUserRepository implements UserRepository {
         return Optional.ofNullable(usersByUsername.get(username));
     }
 
+    /**
+     * Reports whether no user has the given username. The map is exact, so no filter is needed.
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !usersByUsername.containsKey(username);
+    }
+
+    /**
+     * Finds a user by their unique identifier.
+     *
+     * @param id the user id to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    @Override
+    public Optional<User> findById(String id) {
+        if (id == null || id.length() != 36) {
+            return Optional.empty();
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(usersById.get(uuid));
+    }
+
     /**
      * Saves a new user to the repository.
      * <p>
@@ -37,7 +72,22 @@ public class InMemoryUserRepository implements UserRepository {
      */
     @Override
     public void save(User user) {
-        usersByUsername.put(user.getUsername(), user);
+        put(user);
+    }
+
+    /**
+     * Saves a new user unless a user with the same username already exists.
+     *
+     * @param user the user to save
+     * @return {@code true} if the user was saved, {@code false} if the username was taken
+     */
+    @Override
+    public boolean saveIfAbsent(User user) {
+        if (usersByUsername.putIfAbsent(user.getUsername(), user) != null) {
+            return false;
+        }
+        usersById.put(user.getUuid(), user);
+        return true;
     }
 
     /**
@@ -50,6 +100,14 @@ public class InMemoryUserRepository implements UserRepository {
      */
     @Override
     public void update(User user) {
-        usersByUsername.put(user.getUsername(), user);
+        put(user);
+    }
+
+    private void put(User user) {
+        usersById.put(user.getUuid(), user);
+        User replaced = usersByUsername.put(user.getUsername(), user);
+        if (replaced != null && !replaced.getUuid().equals(user.getUuid())) {
+            usersById.remove(replaced.getUuid(), replaced);
+        }
     }
 }
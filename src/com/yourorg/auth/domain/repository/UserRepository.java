@@ -1,6 +1,8 @@
 package com.yourorg.auth.domain.repository;
 
 import com.yourorg.auth.domain.model.User;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,6 +21,30 @@ public interface UserRepository {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Finds a user by their unique identifier, as returned by {@link User#getId()}.
+     * Implementations keep an index on the id, so the lookup takes constant time.
+     *
+     * @param id the user id to search for
+     * @return an {@link Optional} containing the user if found, or empty if not found
+     */
+    Optional<User> findById(String id);
+
+    /**
+     * Reports whether no user has the given username.
+     * <p>
+     * Meant to be cheap enough to call on every keystroke of a signup form. The answer is only
+     * advisory: a concurrent registration may take the name before it is saved, which
+     * {@link #saveIfAbsent(User)} detects. The default implementation looks the user up.
+     * </p>
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    default boolean isUsernameAvailable(String username) {
+        return findByUsername(username).isEmpty();
+    }
+
     /**
      * Saves a new user to the repository.
      *
@@ -26,6 +52,34 @@ public interface UserRepository {
      */
     void save(User user);
 
+    /**
+     * Atomically saves a new user unless a user with the same username already exists.
+     *
+     * @param user the user to save
+     * @return {@code true} if the user was saved, {@code false} if the username was taken
+     */
+    boolean saveIfAbsent(User user);
+
+    /**
+     * Saves a batch of new users, skipping those whose username already exists.
+     * <p>
+     * Each user is inserted atomically as by {@link #saveIfAbsent(User)}; implementations
+     * may write the batch more efficiently than one call per user.
+     * </p>
+     *
+     * @param users the users to save
+     * @return the users that were saved
+     */
+    default List<User> saveAllIfAbsent(List<User> users) {
+        List<User> saved = new ArrayList<>();
+        for (User user : users) {
+            if (saveIfAbsent(user)) {
+                saved.add(user);
+            }
+        }
+        return saved;
+    }
+
     /**
      * Updates an existing user in the repository.
      *
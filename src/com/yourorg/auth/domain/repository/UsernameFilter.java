@@ -0,0 +1,144 @@
+package com.yourorg.auth.domain.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent, growable Bloom filter over 64-bit username hashes.
+ * <p>
+ * Answers "definitely absent" or "possibly present" without touching the backing store, so a
+ * repository can report that a username is free without a lookup. Keys are hashes that are
+ * already well mixed, such as those stored in the {@link FileUserRepository} index, so the
+ * filter can be rebuilt from the index without reading any records. Probe positions are
+ * derived from the hash by double hashing.
+ * </p>
+ * <p>
+ * A Bloom filter cannot be resized in place, so the filter grows as a scalable Bloom filter:
+ * a sequence of layers, each twice as large as the previous one and with half its false
+ * positive rate. New keys go into the last layer; once that layer holds as many keys as it was
+ * sized for, a new layer is appended. Queries check every layer, so the overall false positive
+ * rate stays below twice that of the first layer however many keys are added. Bits are set with
+ * compare-and-set; only appending a layer takes a lock.
+ * </p>
+ */
+final class UsernameFilter {
+    /** Number of keys the first layer is sized for, unless configured otherwise. */
+    static final long DEFAULT_CAPACITY = 1 << 16;
+    /** False positive rate of the first layer. */
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /** One fixed-size Bloom filter. */
+    private static final class Layer {
+        final AtomicLongArray bits;
+        final long bitMask;
+        final int probes;
+        final long capacity;
+        final double falsePositiveRate;
+        final AtomicLong count = new AtomicLong();
+
+        Layer(long capacity, double falsePositiveRate) {
+            double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            long bitCount = Math.max(64, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1);
+            this.bits = new AtomicLongArray((int) (bitCount >>> 6));
+            this.bitMask = bitCount - 1;
+            this.probes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < probes; i++) {
+                long bit = (h1 + i * h2) & bitMask;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < probes; i++) {
+                long bit = (h1 + i * h2) & bitMask;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                for (long current = bits.get(word); (current & mask) == 0; current = bits.get(word)) {
+                    if (bits.compareAndSet(word, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private volatile Layer[] layers;
+
+    /**
+     * Creates a filter whose first layer is sized for the given number of keys.
+     *
+     * @param expectedKeys the number of keys expected; more may be added
+     */
+    UsernameFilter(long expectedKeys) {
+        this.layers = new Layer[] {new Layer(Math.max(DEFAULT_CAPACITY, expectedKeys), FALSE_POSITIVE_RATE)};
+    }
+
+    /**
+     * Reports whether a key may have been added.
+     *
+     * @param hash the key's 64-bit hash
+     * @return {@code false} if the key was definitely never added
+     */
+    boolean mightContain(long hash) {
+        long h2 = secondHash(hash);
+        Layer[] current = layers;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].mightContain(hash, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a key, appending a layer if the last one is full.
+     *
+     * @param hash the key's 64-bit hash
+     */
+    void add(long hash) {
+        if (mightContain(hash)) {
+            return;
+        }
+        Layer[] current = layers;
+        Layer last = current[current.length - 1];
+        last.add(hash, secondHash(hash));
+        if (last.count.incrementAndGet() >= last.capacity) {
+            grow(last);
+        }
+    }
+
+    /**
+     * Returns the number of layers, which grows logarithmically with the number of keys.
+     *
+     * @return the layer count
+     */
+    int layerCount() {
+        return layers.length;
+    }
+
+    private synchronized void grow(Layer full) {
+        Layer[] current = layers;
+        if (current[current.length - 1] != full) {
+            return;
+        }
+        Layer[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = new Layer(full.capacity * 2, full.falsePositiveRate / 2);
+        layers = grown;
+    }
+
+    /** Derives an independent, odd second hash, so that successive probes visit distinct bits. */
+    private static long secondHash(long hash) {
+        long h = hash * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 32;
+        return h | 1;
+    }
+}
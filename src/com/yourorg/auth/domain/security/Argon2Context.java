@@ -0,0 +1,66 @@
+package com.yourorg.auth.domain.security;
+
+import java.util.Arrays;
+
+/**
+ * Working memory for one Argon2 computation, reused across hashes.
+ * <p>
+ * Holds the memory matrix as a single {@code long[]} of 1 KiB blocks, lane after lane, plus the
+ * per-lane scratch blocks of the compression function and of data-independent addressing, a
+ * {@link Blake2b} instance and the byte buffers used while seeding and finalizing the matrix.
+ * {@link Argon2PasswordEncoder} keeps a small pool of contexts of its configured size, so a
+ * hash with the configured parameters allocates no memory blocks. Lanes only touch their own
+ * scratch, so they can be filled by different threads at once.
+ * </p>
+ */
+final class Argon2Context {
+    /** Number of 64-bit words in a 1 KiB block. */
+    static final int BLOCK_WORDS = 128;
+    /** Scratch blocks per lane: two for the compression function, three for data-independent addressing. */
+    private static final int SCRATCH_BLOCKS = 5;
+    static final int R = 0;
+    static final int TMP = BLOCK_WORDS;
+    static final int ZERO = 2 * BLOCK_WORDS;
+    static final int INPUT = 3 * BLOCK_WORDS;
+    static final int ADDRESS = 4 * BLOCK_WORDS;
+
+    /** The memory matrix. */
+    final long[] memory;
+    /** Per-lane scratch blocks, at the offsets above. */
+    final long[][] scratch;
+    final int blocks;
+    final int lanes;
+    final Blake2b blake = new Blake2b();
+    /** One block in bytes, for seeding the first columns and finalizing the tag. */
+    final byte[] blockBytes = new byte[BLOCK_WORDS * 8];
+    /** Chained 64-byte digests of the variable-length hash. */
+    final byte[] digest = new byte[Blake2b.MAX_DIGEST_LENGTH];
+    /** The 64-byte seed H0 followed by room for the two 32-bit counters appended to it. */
+    final byte[] seed = new byte[Blake2b.MAX_DIGEST_LENGTH + 8];
+
+    /**
+     * Allocates a context.
+     *
+     * @param blocks the number of memory blocks, a multiple of {@code 4 * lanes}
+     * @param lanes the number of lanes
+     */
+    Argon2Context(int blocks, int lanes) {
+        this.blocks = blocks;
+        this.lanes = lanes;
+        this.memory = new long[blocks * BLOCK_WORDS];
+        this.scratch = new long[lanes][SCRATCH_BLOCKS * BLOCK_WORDS];
+    }
+
+    /**
+     * Wipes everything derived from the last password.
+     */
+    void clear() {
+        Arrays.fill(memory, 0);
+        for (long[] s : scratch) {
+            Arrays.fill(s, 0);
+        }
+        Arrays.fill(blockBytes, (byte) 0);
+        Arrays.fill(digest, (byte) 0);
+        Arrays.fill(seed, (byte) 0);
+    }
+}
@@ -0,0 +1,580 @@
+package com.yourorg.auth.domain.security;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Password encoder implementation using Argon2id (RFC 9106), written in plain Java.
+ * <p>
+ * Argon2id is memory-hard: every hash fills and repeatedly revisits a configurable amount of
+ * memory, which makes guessing far more expensive on GPUs and custom hardware than PBKDF2 at
+ * the same login latency. New hashes are stored in the PHC string format,
+ * {@code $argon2id$v=19$m=<KiB>,t=<passes>,p=<lanes>$<salt>$<hash>}, with unpadded Base64 salt
+ * and hash, so they can be verified by other Argon2 implementations.
+ * </p>
+ * <p>
+ * With a parallelism above one, the lanes of each memory slice are filled at the same time on a
+ * {@link ForkJoinPool}, one task per lane, so a single hash can use several cores. The memory
+ * itself lives in an {@link Argon2Context}; a few contexts of the configured size are pooled
+ * and wiped after every use, so hashing and verifying with the configured parameters allocates
+ * no memory blocks. Contexts are pooled rather than kept per thread because callers may be
+ * short-lived virtual threads.
+ * </p>
+ * <p>
+ * Stored values in any other format are handed to a fallback encoder, by default a
+ * {@link Pbkdf2PasswordEncoder}, and {@link #needsRehash(String)} reports them, so existing users
+ * move to Argon2id as they log in.
+ * </p>
+ */
+public class Argon2PasswordEncoder implements PasswordEncoder {
+    /** Default memory size in KiB (19 MiB). */
+    public static final int DEFAULT_MEMORY_KIB = 19_456;
+    /** Default number of passes over the memory. */
+    public static final int DEFAULT_ITERATIONS = 2;
+    /** Default number of lanes. */
+    public static final int DEFAULT_PARALLELISM = 1;
+    /** Salt length in bytes. */
+    static final int SALT_LENGTH = 16;
+    /** Hash length in bytes. */
+    static final int HASH_LENGTH = 32;
+    /** Largest memory size accepted, in KiB (4 GiB). */
+    private static final int MAX_MEMORY_KIB = 1 << 22;
+    /** Largest number of passes accepted. */
+    private static final int MAX_ITERATIONS = 1 << 16;
+    /** Largest number of lanes accepted. */
+    private static final int MAX_PARALLELISM = 255;
+
+    private static final int VERSION = 0x13;
+    private static final int TYPE_ID = 2;
+    private static final int SYNC_POINTS = 4;
+    private static final int BLOCK_WORDS = Argon2Context.BLOCK_WORDS;
+    private static final String PREFIX = "$argon2id$";
+    /** Secure random number generator for salt generation. */
+    private static final SecureRandom random = new SecureRandom();
+
+    private final int memoryKib;
+    private final int iterations;
+    private final int parallelism;
+    private final int blocks;
+    private final ForkJoinPool pool;
+    private final PasswordEncoder fallback;
+    /** Wiped contexts of the configured size, ready for reuse. */
+    private final BlockingQueue<Argon2Context> contexts =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Constructs an encoder with the default parameters.
+     */
+    public Argon2PasswordEncoder() {
+        this(DEFAULT_MEMORY_KIB, DEFAULT_ITERATIONS, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Constructs an encoder that fills lanes on the common fork-join pool and verifies PBKDF2
+     * hashes with a {@link Pbkdf2PasswordEncoder}.
+     *
+     * @param memoryKib the memory size in KiB; at least {@code 8 * parallelism}
+     * @param iterations the number of passes over the memory
+     * @param parallelism the number of lanes
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public Argon2PasswordEncoder(int memoryKib, int iterations, int parallelism) {
+        this(memoryKib, iterations, parallelism, ForkJoinPool.commonPool(), new Pbkdf2PasswordEncoder());
+    }
+
+    /**
+     * Constructs an encoder.
+     *
+     * @param memoryKib the memory size in KiB; at least {@code 8 * parallelism}
+     * @param iterations the number of passes over the memory
+     * @param parallelism the number of lanes
+     * @param pool the pool that fills lanes in parallel
+     * @param fallback verifies stored values that are not Argon2id; {@code null} to reject them
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public Argon2PasswordEncoder(int memoryKib, int iterations, int parallelism, ForkJoinPool pool,
+                                 PasswordEncoder fallback) {
+        checkParameters(memoryKib, iterations, parallelism);
+        this.memoryKib = memoryKib;
+        this.iterations = iterations;
+        this.parallelism = parallelism;
+        this.blocks = blockCount(memoryKib, parallelism);
+        this.pool = Objects.requireNonNull(pool);
+        this.fallback = fallback;
+    }
+
+    /**
+     * Hashes the provided raw password using Argon2id with a random salt.
+     *
+     * @param rawPassword the raw password to hash
+     * @return the stored value in PHC string format
+     */
+    @Override
+    public String hash(CharSequence rawPassword) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        ByteBuffer password = StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword));
+        try {
+            byte[] hash = compute(password.array(), password.limit(), salt, new byte[0], new byte[0],
+                    memoryKib, iterations, parallelism, HASH_LENGTH);
+            Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+            return PREFIX + "v=19$m=" + memoryKib + ",t=" + iterations + ",p=" + parallelism + '$'
+                    + base64.encodeToString(salt) + '$' + base64.encodeToString(hash);
+        } finally {
+            Arrays.fill(password.array(), (byte) 0);
+        }
+    }
+
+    /**
+     * Verifies that the provided raw password matches the stored hash, using the memory size,
+     * passes and lanes recorded in it.
+     *
+     * @param rawPassword the raw password to verify
+     * @param stored the stored hash
+     * @return {@code true} if the password matches, {@code false} otherwise
+     * @throws NullPointerException if {@code stored} is null
+     * @throws IllegalArgumentException if {@code stored} is not in a supported format
+     */
+    @Override
+    public boolean verify(CharSequence rawPassword, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return fallback().verify(rawPassword, stored);
+        }
+        return verify(CharBuffer.wrap(rawPassword), parse(stored));
+    }
+
+    /**
+     * Verifies a password held in a character array without creating a String.
+     *
+     * @param rawPassword the raw password to verify
+     * @param stored the stored hash
+     * @return {@code true} if the password matches, {@code false} otherwise
+     * @throws NullPointerException if {@code stored} is null
+     * @throws IllegalArgumentException if {@code stored} is not in a supported format
+     */
+    @Override
+    public boolean verify(char[] rawPassword, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return fallback().verify(rawPassword, stored);
+        }
+        return verify(CharBuffer.wrap(rawPassword), parse(stored));
+    }
+
+    /**
+     * Reports whether a stored hash is not Argon2id, or uses less memory or fewer passes than this encoder.
+     *
+     * @param stored the stored hash
+     * @return {@code true} if the password should be hashed again
+     * @throws IllegalArgumentException if {@code stored} is a malformed Argon2id hash
+     */
+    @Override
+    public boolean needsRehash(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return true;
+        }
+        Stored parsed = parse(stored);
+        return parsed.memoryKib < memoryKib || parsed.iterations < iterations;
+    }
+
+    /**
+     * Computes a raw Argon2id tag with this encoder's parameters, including the optional secret
+     * and associated data of RFC 9106, which stored hashes do not use.
+     *
+     * @param password the password
+     * @param salt the salt, at least 8 bytes
+     * @param secret the secret value, possibly empty
+     * @param associatedData the associated data, possibly empty
+     * @param tagLength the tag length in bytes, at least 4
+     * @return the tag
+     * @throws IllegalArgumentException if the salt or tag length is too short
+     */
+    public byte[] hashRaw(byte[] password, byte[] salt, byte[] secret, byte[] associatedData, int tagLength) {
+        if (salt.length < 8 || tagLength < 4) {
+            throw new IllegalArgumentException("Salt must be at least 8 bytes and tag at least 4 bytes");
+        }
+        return compute(password, password.length, salt, secret, associatedData,
+                memoryKib, iterations, parallelism, tagLength);
+    }
+
+    /**
+     * Returns the memory size used for new hashes.
+     *
+     * @return the memory size in KiB
+     */
+    public int getMemoryKib() {
+        return memoryKib;
+    }
+
+    /**
+     * Returns the number of passes used for new hashes.
+     *
+     * @return the number of passes
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of lanes used for new hashes.
+     *
+     * @return the number of lanes
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private PasswordEncoder fallback() {
+        if (fallback == null) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        return fallback;
+    }
+
+    private boolean verify(CharBuffer rawPassword, Stored stored) {
+        ByteBuffer password = StandardCharsets.UTF_8.encode(rawPassword);
+        try {
+            byte[] actual = compute(password.array(), password.limit(), stored.salt, new byte[0], new byte[0],
+                    stored.memoryKib, stored.iterations, stored.parallelism, stored.hash.length);
+            return MessageDigest.isEqual(actual, stored.hash);
+        } finally {
+            Arrays.fill(password.array(), (byte) 0);
+        }
+    }
+
+    // ---------------------------------------------------------------- format
+
+    /** The parameters, salt and hash of a stored value. */
+    private static final class Stored {
+        int memoryKib;
+        int iterations;
+        int parallelism;
+        byte[] salt;
+        byte[] hash;
+    }
+
+    private static Stored parse(String stored) {
+        String[] parts = stored.split("\\$", -1);
+        if (parts.length != 6 || !parts[2].equals("v=19")) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        String[] parameters = parts[3].split(",", -1);
+        if (parameters.length != 3 || !parameters[0].startsWith("m=") || !parameters[1].startsWith("t=")
+                || !parameters[2].startsWith("p=")) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        Stored parsed = new Stored();
+        try {
+            parsed.memoryKib = Integer.parseInt(parameters[0].substring(2));
+            parsed.iterations = Integer.parseInt(parameters[1].substring(2));
+            parsed.parallelism = Integer.parseInt(parameters[2].substring(2));
+            parsed.salt = Base64.getDecoder().decode(parts[4]);
+            parsed.hash = Base64.getDecoder().decode(parts[5]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid stored password hash", e);
+        }
+        checkParameters(parsed.memoryKib, parsed.iterations, parsed.parallelism);
+        if (parsed.salt.length < 8 || parsed.hash.length < 4 || parsed.hash.length > 1024) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        return parsed;
+    }
+
+    private static void checkParameters(int memoryKib, int iterations, int parallelism) {
+        if (parallelism < 1 || parallelism > MAX_PARALLELISM || iterations < 1 || iterations > MAX_ITERATIONS
+                || memoryKib < 2 * SYNC_POINTS * parallelism || memoryKib > MAX_MEMORY_KIB) {
+            throw new IllegalArgumentException("Invalid Argon2 parameters: m=" + memoryKib + ", t=" + iterations
+                    + ", p=" + parallelism);
+        }
+    }
+
+    /** Rounds the memory size down to a whole number of blocks per segment. */
+    private static int blockCount(int memoryKib, int parallelism) {
+        return memoryKib / (SYNC_POINTS * parallelism) * (SYNC_POINTS * parallelism);
+    }
+
+    // ---------------------------------------------------------------- contexts
+
+    private Argon2Context acquire(int blockCount, int lanes) {
+        Argon2Context ctx = null;
+        if (blockCount == blocks && lanes == parallelism) {
+            ctx = contexts.poll();
+        }
+        return ctx != null ? ctx : new Argon2Context(blockCount, lanes);
+    }
+
+    private void release(Argon2Context ctx) {
+        ctx.clear();
+        if (ctx.blocks == blocks && ctx.lanes == parallelism) {
+            contexts.offer(ctx);
+        }
+    }
+
+    // ---------------------------------------------------------------- algorithm
+
+    /**
+     * Computes an Argon2id tag: seeds the first two blocks of every lane from the initial hash
+     * H0, fills the memory, and hashes the XOR of the lanes' last blocks into the tag.
+     */
+    private byte[] compute(byte[] password, int passwordLength, byte[] salt, byte[] secret, byte[] associatedData,
+                           int memoryKib, int iterations, int lanes, int tagLength) {
+        Argon2Context ctx = acquire(blockCount(memoryKib, lanes), lanes);
+        try {
+            ctx.blake.reset(Blake2b.MAX_DIGEST_LENGTH)
+                    .updateInt(lanes).updateInt(tagLength).updateInt(memoryKib).updateInt(iterations)
+                    .updateInt(VERSION).updateInt(TYPE_ID)
+                    .updateInt(passwordLength).update(password, 0, passwordLength)
+                    .updateInt(salt.length).update(salt, 0, salt.length)
+                    .updateInt(secret.length).update(secret, 0, secret.length)
+                    .updateInt(associatedData.length).update(associatedData, 0, associatedData.length)
+                    .digest(ctx.seed, 0);
+            int laneLength = ctx.blocks / lanes;
+            for (int lane = 0; lane < lanes; lane++) {
+                for (int column = 0; column < 2; column++) {
+                    writeInt(ctx.seed, Blake2b.MAX_DIGEST_LENGTH, column);
+                    writeInt(ctx.seed, Blake2b.MAX_DIGEST_LENGTH + 4, lane);
+                    variableHash(ctx, ctx.seed, ctx.seed.length, ctx.blockBytes, ctx.blockBytes.length);
+                    loadBlock(ctx.blockBytes, ctx.memory, (lane * laneLength + column) * BLOCK_WORDS);
+                }
+            }
+
+            fillMemory(ctx, iterations);
+
+            long[] last = ctx.scratch[0];
+            System.arraycopy(ctx.memory, (laneLength - 1) * BLOCK_WORDS, last, Argon2Context.R, BLOCK_WORDS);
+            for (int lane = 1; lane < lanes; lane++) {
+                int offset = (lane * laneLength + laneLength - 1) * BLOCK_WORDS;
+                for (int k = 0; k < BLOCK_WORDS; k++) {
+                    last[Argon2Context.R + k] ^= ctx.memory[offset + k];
+                }
+            }
+            storeBlock(last, Argon2Context.R, ctx.blockBytes);
+            byte[] tag = new byte[tagLength];
+            variableHash(ctx, ctx.blockBytes, ctx.blockBytes.length, tag, tagLength);
+            return tag;
+        } finally {
+            release(ctx);
+        }
+    }
+
+    /**
+     * Runs every pass, slice by slice. The lanes of a slice are independent, so all but the
+     * first are forked onto the pool while the calling thread fills the first.
+     */
+    private void fillMemory(Argon2Context ctx, int iterations) {
+        int lanes = ctx.lanes;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[lanes];
+        for (int pass = 0; pass < iterations; pass++) {
+            for (int slice = 0; slice < SYNC_POINTS; slice++) {
+                for (int lane = 1; lane < lanes; lane++) {
+                    int p = pass;
+                    int l = lane;
+                    int s = slice;
+                    tasks[lane] = pool.submit(() -> fillSegment(ctx, iterations, p, l, s));
+                }
+                fillSegment(ctx, iterations, pass, 0, slice);
+                for (int lane = 1; lane < lanes; lane++) {
+                    tasks[lane].join();
+                }
+            }
+        }
+    }
+
+    private static void fillSegment(Argon2Context ctx, int iterations, int pass, int lane, int slice) {
+        long[] memory = ctx.memory;
+        long[] scratch = ctx.scratch[lane];
+        int lanes = ctx.lanes;
+        int laneLength = ctx.blocks / lanes;
+        int segmentLength = laneLength / SYNC_POINTS;
+        boolean dataIndependent = pass == 0 && slice < SYNC_POINTS / 2;
+        if (dataIndependent) {
+            Arrays.fill(scratch, Argon2Context.ZERO, Argon2Context.INPUT + BLOCK_WORDS, 0);
+            scratch[Argon2Context.INPUT] = pass;
+            scratch[Argon2Context.INPUT + 1] = lane;
+            scratch[Argon2Context.INPUT + 2] = slice;
+            scratch[Argon2Context.INPUT + 3] = ctx.blocks;
+            scratch[Argon2Context.INPUT + 4] = iterations;
+            scratch[Argon2Context.INPUT + 5] = TYPE_ID;
+        }
+        int start = 0;
+        if (pass == 0 && slice == 0) {
+            // The first two blocks of each lane were seeded from H0.
+            start = 2;
+            if (dataIndependent) {
+                nextAddresses(scratch);
+            }
+        }
+        int current = lane * laneLength + slice * segmentLength + start;
+        int previous = current % laneLength == 0 ? current + laneLength - 1 : current - 1;
+        for (int index = start; index < segmentLength; index++, current++, previous++) {
+            if (current % laneLength == 1) {
+                previous = current - 1;
+            }
+            long pseudoRandom;
+            if (dataIndependent) {
+                if (index % BLOCK_WORDS == 0) {
+                    nextAddresses(scratch);
+                }
+                pseudoRandom = scratch[Argon2Context.ADDRESS + index % BLOCK_WORDS];
+            } else {
+                pseudoRandom = memory[previous * BLOCK_WORDS];
+            }
+            int refLane = pass == 0 && slice == 0 ? lane : (int) ((pseudoRandom >>> 32) % lanes);
+            int refIndex = referenceIndex(pass, slice, index, segmentLength, laneLength, refLane == lane,
+                    pseudoRandom & 0xffffffffL);
+            fillBlock(memory, previous * BLOCK_WORDS, memory, (refLane * laneLength + refIndex) * BLOCK_WORDS,
+                    memory, current * BLOCK_WORDS, pass != 0, scratch);
+        }
+    }
+
+    /** Maps a 32-bit pseudo-random value to a block of the reference lane, as RFC 9106 section 3.4.1.2 describes. */
+    private static int referenceIndex(int pass, int slice, int index, int segmentLength, int laneLength,
+                                      boolean sameLane, long j1) {
+        long areaSize;
+        if (pass == 0) {
+            if (slice == 0) {
+                areaSize = index - 1;
+            } else if (sameLane) {
+                areaSize = (long) slice * segmentLength + index - 1;
+            } else {
+                areaSize = (long) slice * segmentLength + (index == 0 ? -1 : 0);
+            }
+        } else if (sameLane) {
+            areaSize = laneLength - segmentLength + index - 1;
+        } else {
+            areaSize = laneLength - segmentLength + (index == 0 ? -1 : 0);
+        }
+        long x = (j1 * j1) >>> 32;
+        long relative = areaSize - 1 - ((areaSize * x) >>> 32);
+        long start = pass != 0 && slice != SYNC_POINTS - 1 ? (long) (slice + 1) * segmentLength : 0;
+        return (int) ((start + relative) % laneLength);
+    }
+
+    /** Produces the next block of pseudo-random reference positions for data-independent addressing. */
+    private static void nextAddresses(long[] scratch) {
+        scratch[Argon2Context.INPUT + 6]++;
+        fillBlock(scratch, Argon2Context.ZERO, scratch, Argon2Context.INPUT,
+                scratch, Argon2Context.ADDRESS, false, scratch);
+        fillBlock(scratch, Argon2Context.ZERO, scratch, Argon2Context.ADDRESS,
+                scratch, Argon2Context.ADDRESS, false, scratch);
+    }
+
+    /**
+     * The compression function G: {@code next = P(prev ^ ref) ^ prev ^ ref}, additionally XORed
+     * with the old {@code next} on passes after the first.
+     */
+    private static void fillBlock(long[] prevBlocks, int prev, long[] refBlocks, int ref,
+                                  long[] nextBlocks, int next, boolean withXor, long[] scratch) {
+        int r = Argon2Context.R;
+        int tmp = Argon2Context.TMP;
+        for (int k = 0; k < BLOCK_WORDS; k++) {
+            long value = prevBlocks[prev + k] ^ refBlocks[ref + k];
+            scratch[r + k] = value;
+            scratch[tmp + k] = withXor ? value ^ nextBlocks[next + k] : value;
+        }
+        for (int i = 0; i < 8; i++) {
+            int c = r + 16 * i;
+            round(scratch, c, c + 1, c + 2, c + 3, c + 4, c + 5, c + 6, c + 7,
+                    c + 8, c + 9, c + 10, c + 11, c + 12, c + 13, c + 14, c + 15);
+        }
+        for (int i = 0; i < 8; i++) {
+            int c = r + 2 * i;
+            round(scratch, c, c + 1, c + 16, c + 17, c + 32, c + 33, c + 48, c + 49,
+                    c + 64, c + 65, c + 80, c + 81, c + 96, c + 97, c + 112, c + 113);
+        }
+        for (int k = 0; k < BLOCK_WORDS; k++) {
+            nextBlocks[next + k] = scratch[tmp + k] ^ scratch[r + k];
+        }
+    }
+
+    private static void round(long[] v, int v0, int v1, int v2, int v3, int v4, int v5, int v6, int v7,
+                              int v8, int v9, int v10, int v11, int v12, int v13, int v14, int v15) {
+        mix(v, v0, v4, v8, v12);
+        mix(v, v1, v5, v9, v13);
+        mix(v, v2, v6, v10, v14);
+        mix(v, v3, v7, v11, v15);
+        mix(v, v0, v5, v10, v15);
+        mix(v, v1, v6, v11, v12);
+        mix(v, v2, v7, v8, v13);
+        mix(v, v3, v4, v9, v14);
+    }
+
+    /** The BLAKE2b mixing function with additions replaced by the multiply-hardened BlaMka. */
+    private static void mix(long[] v, int a, int b, int c, int d) {
+        long va = v[a];
+        long vb = v[b];
+        long vc = v[c];
+        long vd = v[d];
+        va = blaMka(va, vb);
+        vd = Long.rotateRight(vd ^ va, 32);
+        vc = blaMka(vc, vd);
+        vb = Long.rotateRight(vb ^ vc, 24);
+        va = blaMka(va, vb);
+        vd = Long.rotateRight(vd ^ va, 16);
+        vc = blaMka(vc, vd);
+        vb = Long.rotateRight(vb ^ vc, 63);
+        v[a] = va;
+        v[b] = vb;
+        v[c] = vc;
+        v[d] = vd;
+    }
+
+    private static long blaMka(long x, long y) {
+        return x + y + 2 * (x & 0xffffffffL) * (y & 0xffffffffL);
+    }
+
+    /** The variable-length hash H' built from chained 64-byte BLAKE2b digests. */
+    private static void variableHash(Argon2Context ctx, byte[] in, int inLength, byte[] out, int outLength) {
+        Blake2b blake = ctx.blake;
+        if (outLength <= Blake2b.MAX_DIGEST_LENGTH) {
+            blake.reset(outLength).updateInt(outLength).update(in, 0, inLength).digest(out, 0);
+            return;
+        }
+        byte[] v = ctx.digest;
+        blake.reset(Blake2b.MAX_DIGEST_LENGTH).updateInt(outLength).update(in, 0, inLength).digest(v, 0);
+        System.arraycopy(v, 0, out, 0, 32);
+        int chained = (outLength + 31) / 32 - 2;
+        int offset = 32;
+        for (int i = 2; i <= chained; i++) {
+            blake.reset(Blake2b.MAX_DIGEST_LENGTH).update(v, 0, v.length).digest(v, 0);
+            System.arraycopy(v, 0, out, offset, 32);
+            offset += 32;
+        }
+        blake.reset(outLength - 32 * chained).update(v, 0, v.length).digest(out, offset);
+    }
+
+    private static void loadBlock(byte[] bytes, long[] words, int offset) {
+        for (int k = 0; k < BLOCK_WORDS; k++) {
+            long word = 0;
+            for (int b = 7; b >= 0; b--) {
+                word = word << 8 | (bytes[k * 8 + b] & 0xffL);
+            }
+            words[offset + k] = word;
+        }
+    }
+
+    private static void storeBlock(long[] words, int offset, byte[] bytes) {
+        for (int k = 0; k < BLOCK_WORDS; k++) {
+            long word = words[offset + k];
+            for (int b = 0; b < 8; b++) {
+                bytes[k * 8 + b] = (byte) (word >>> (8 * b));
+            }
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
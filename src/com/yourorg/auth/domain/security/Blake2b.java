@@ -0,0 +1,158 @@
+package com.yourorg.auth.domain.security;
+
+import java.util.Arrays;
+
+/**
+ * Unkeyed BLAKE2b (RFC 7693) with a digest length of 1 to 64 bytes, as needed by Argon2.
+ * <p>
+ * An instance holds its chaining state and a single block buffer and can be reset and reused
+ * for any number of digests, so the many short hashes of an Argon2 computation allocate
+ * nothing. Instances are not thread-safe.
+ * </p>
+ */
+final class Blake2b {
+    /** Largest digest length in bytes. */
+    static final int MAX_DIGEST_LENGTH = 64;
+    private static final int BLOCK_BYTES = 128;
+
+    private static final long[] IV = {
+            0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+            0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L
+    };
+
+    private static final byte[][] SIGMA = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+            {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3},
+            {11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4},
+            {7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8},
+            {9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13},
+            {2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9},
+            {12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11},
+            {13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10},
+            {6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5},
+            {10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0},
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+            {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3}
+    };
+
+    private final long[] h = new long[8];
+    private final long[] v = new long[16];
+    private final long[] m = new long[16];
+    private final byte[] buffer = new byte[BLOCK_BYTES];
+    private final byte[] word = new byte[4];
+    private int buffered;
+    private long counter;
+    private int digestLength;
+
+    /**
+     * Starts a new digest.
+     *
+     * @param digestLength the digest length in bytes, 1 to {@value #MAX_DIGEST_LENGTH}
+     * @return this instance
+     */
+    Blake2b reset(int digestLength) {
+        if (digestLength < 1 || digestLength > MAX_DIGEST_LENGTH) {
+            throw new IllegalArgumentException("Invalid BLAKE2b digest length: " + digestLength);
+        }
+        System.arraycopy(IV, 0, h, 0, 8);
+        h[0] ^= 0x01010000L ^ digestLength;
+        this.digestLength = digestLength;
+        this.buffered = 0;
+        this.counter = 0;
+        return this;
+    }
+
+    /**
+     * Absorbs bytes.
+     *
+     * @param in the input
+     * @param offset where the input starts
+     * @param length the number of bytes
+     * @return this instance
+     */
+    Blake2b update(byte[] in, int offset, int length) {
+        while (length > 0) {
+            if (buffered == BLOCK_BYTES) {
+                // Only compress once more input is known to follow; the last block is compressed by digest.
+                counter += BLOCK_BYTES;
+                compress(false);
+                buffered = 0;
+            }
+            int n = Math.min(length, BLOCK_BYTES - buffered);
+            System.arraycopy(in, offset, buffer, buffered, n);
+            buffered += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Absorbs a 32-bit integer in little-endian order.
+     *
+     * @param value the value
+     * @return this instance
+     */
+    Blake2b updateInt(int value) {
+        word[0] = (byte) value;
+        word[1] = (byte) (value >>> 8);
+        word[2] = (byte) (value >>> 16);
+        word[3] = (byte) (value >>> 24);
+        return update(word, 0, 4);
+    }
+
+    /**
+     * Finishes the digest and writes it.
+     *
+     * @param out receives the digest
+     * @param offset where to write it
+     */
+    void digest(byte[] out, int offset) {
+        counter += buffered;
+        Arrays.fill(buffer, buffered, BLOCK_BYTES, (byte) 0);
+        compress(true);
+        for (int i = 0; i < digestLength; i++) {
+            out[offset + i] = (byte) (h[i >>> 3] >>> (8 * (i & 7)));
+        }
+        Arrays.fill(buffer, (byte) 0);
+    }
+
+    private void compress(boolean last) {
+        for (int i = 0; i < 16; i++) {
+            int b = i * 8;
+            m[i] = (buffer[b] & 0xffL) | (buffer[b + 1] & 0xffL) << 8 | (buffer[b + 2] & 0xffL) << 16
+                    | (buffer[b + 3] & 0xffL) << 24 | (buffer[b + 4] & 0xffL) << 32 | (buffer[b + 5] & 0xffL) << 40
+                    | (buffer[b + 6] & 0xffL) << 48 | (buffer[b + 7] & 0xffL) << 56;
+        }
+        System.arraycopy(h, 0, v, 0, 8);
+        System.arraycopy(IV, 0, v, 8, 8);
+        v[12] ^= counter;
+        if (last) {
+            v[14] = ~v[14];
+        }
+        for (byte[] s : SIGMA) {
+            g(0, 4, 8, 12, m[s[0]], m[s[1]]);
+            g(1, 5, 9, 13, m[s[2]], m[s[3]]);
+            g(2, 6, 10, 14, m[s[4]], m[s[5]]);
+            g(3, 7, 11, 15, m[s[6]], m[s[7]]);
+            g(0, 5, 10, 15, m[s[8]], m[s[9]]);
+            g(1, 6, 11, 12, m[s[10]], m[s[11]]);
+            g(2, 7, 8, 13, m[s[12]], m[s[13]]);
+            g(3, 4, 9, 14, m[s[14]], m[s[15]]);
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] ^= v[i] ^ v[i + 8];
+        }
+    }
+
+    private void g(int a, int b, int c, int d, long x, long y) {
+        v[a] += v[b] + x;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 32);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 24);
+        v[a] += v[b] + y;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 16);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 63);
+    }
+}
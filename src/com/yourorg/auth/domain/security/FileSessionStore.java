@@ -0,0 +1,505 @@
+package com.yourorg.auth.domain.security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Persistent store of token sessions, held in memory-mapped hash tables on disk.
+ * <p>
+ * Sessions are keyed by 128-bit tokens and spread over {@value #SEGMENTS} segment files, each an
+ * independently locked open-addressing table of 64-byte slots: the token and the user id as two
+ * longs each, the absolute expiry and the current expiry (the earlier of the absolute and idle
+ * expiry), padded so that no slot straddles a page. Only the pages being used need to be in
+ * memory, so the store can hold more sessions than fit in RAM, at the price of a page fault on a
+ * cold lookup; {@link TieredTokenService} keeps the active sessions on the heap in front of it.
+ * </p>
+ * <p>
+ * Changes are written to the mapped files directly and survive a restart of the process;
+ * {@link #flush()} forces them to disk so that they also survive a crash of the machine. After a
+ * clean {@link #close()} the tables are reused as-is. Otherwise their counts are recomputed on
+ * startup by scanning the slots.
+ * </p>
+ * <p>
+ * Expired slots are treated as free by inserts and reclaimed by {@link #sweep(int, long)}; a
+ * segment that runs out of free slots is rewritten into a table sized for its live sessions.
+ * Revoking all sessions of a user scans the whole store, as there is no index by user.
+ * </p>
+ */
+public class FileSessionStore implements AutoCloseable {
+    /** Number of segment files. */
+    static final int SEGMENTS = 16;
+    private static final String SEGMENT_FILE = "sessions-%02d.tbl";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x41555353;
+    private static final int VERSION = 1;
+
+    private static final int HEADER = 64;
+    private static final int H_CAPACITY = 8;
+    private static final int H_CLEAN = 12;
+    private static final int H_USED = 16;
+    private static final int H_LIVE = 24;
+
+    private static final int SLOT_BYTES = 64;
+    private static final int HI = 0;
+    private static final int LO = 8;
+    private static final int USER_HI = 16;
+    private static final int USER_LO = 24;
+    private static final int ABSOLUTE = 32;
+    private static final int EXPIRES = 40;
+    /** Absolute expiry marking an empty slot. */
+    private static final long EMPTY = 0;
+    /** Absolute expiry marking a deleted slot. */
+    private static final long DELETED = -1;
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    /** Largest capacity whose table still fits in a single mapping. */
+    private static final int MAX_CAPACITY = 1 << 24;
+    /** Maximum fraction of slots that may be used or deleted before a segment is rewritten. */
+    private static final double MAX_LOAD = 0.75;
+
+    /** Receives the sessions removed by {@link #removeAllForUser(long, long, Removal)}. */
+    @FunctionalInterface
+    interface Removal {
+        void removed(long hi, long lo, long expiresAt);
+    }
+
+    /** One segment file and its mapping. */
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        final Path path;
+        FileChannel channel;
+        MappedByteBuffer slots;
+        int mask;
+        long used;
+        long live;
+
+        Segment(Path path) {
+            this.path = path;
+        }
+    }
+
+    private final Path directory;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile boolean open = true;
+
+    /**
+     * Opens (or creates) a session store in the given directory.
+     *
+     * @param directory the directory holding the segment files
+     * @throws UncheckedIOException if the files cannot be opened
+     */
+    public FileSessionStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            for (int i = 0; i < SEGMENTS; i++) {
+                Path path = directory.resolve(String.format(Locale.ROOT, SEGMENT_FILE, i));
+                Files.deleteIfExists(path.resolveSibling(path.getFileName() + TEMP_SUFFIX));
+                segments[i] = new Segment(path);
+                openSegment(segments[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open session store in " + directory, e);
+        }
+    }
+
+    /**
+     * Stores a new session, unless the token is already in use.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @param userHi the high 64 bits of the user id
+     * @param userLo the low 64 bits of the user id
+     * @param absoluteExpiry when the session expires regardless of use, in epoch milliseconds
+     * @param expiresAt when the session expires unless used again, in epoch milliseconds
+     * @param reclaimBefore sessions that expired before this time may be overwritten
+     * @return {@code true} if the session was stored
+     */
+    boolean insert(long hi, long lo, long userHi, long userLo, long absoluteExpiry, long expiresAt,
+                   long reclaimBefore) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.used + 1 > (segment.mask + 1) * MAX_LOAD) {
+                rewrite(segment, reclaimBefore);
+            }
+            MappedByteBuffer slots = segment.slots;
+            int reusable = -1;
+            for (int i = index(lo, segment.mask); ; i = (i + 1) & segment.mask) {
+                int base = HEADER + i * SLOT_BYTES;
+                long absolute = slots.getLong(base + ABSOLUTE);
+                if (absolute == EMPTY) {
+                    int target = reusable >= 0 ? reusable : base;
+                    if (target == base) {
+                        segment.used++;
+                    }
+                    slots.putLong(target + HI, hi).putLong(target + LO, lo)
+                            .putLong(target + USER_HI, userHi).putLong(target + USER_LO, userLo)
+                            .putLong(target + EXPIRES, expiresAt).putLong(target + ABSOLUTE, absoluteExpiry);
+                    segment.live++;
+                    writeCounts(segment);
+                    return true;
+                }
+                boolean free = absolute == DELETED || slots.getLong(base + EXPIRES) < reclaimBefore;
+                if (!free && slots.getLong(base + HI) == hi && slots.getLong(base + LO) == lo) {
+                    return false;
+                }
+                if (free && reusable < 0) {
+                    reusable = base;
+                    if (absolute != DELETED) {
+                        // An expired session is being overwritten; it no longer counts as live.
+                        segment.live--;
+                    }
+                    slots.putLong(base + ABSOLUTE, DELETED);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rewrite " + segment.path, e);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Looks up a session.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @param now the current time in epoch milliseconds
+     * @param session receives the user id's high and low bits, the absolute expiry and the expiry
+     * @return {@code true} if the session exists and has not expired
+     */
+    boolean get(long hi, long lo, long now, long[] session) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.readLock();
+        try {
+            int base = find(segment, hi, lo);
+            if (base < 0 || now >= segment.slots.getLong(base + EXPIRES)) {
+                return false;
+            }
+            MappedByteBuffer slots = segment.slots;
+            session[0] = slots.getLong(base + USER_HI);
+            session[1] = slots.getLong(base + USER_LO);
+            session[2] = slots.getLong(base + ABSOLUTE);
+            session[3] = slots.getLong(base + EXPIRES);
+            return true;
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Moves a session's expiry forward, after it has been used.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @param expiresAt the new expiry in epoch milliseconds; an earlier expiry is ignored
+     */
+    void extend(long hi, long lo, long expiresAt) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.writeLock();
+        try {
+            int base = find(segment, hi, lo);
+            if (base >= 0 && expiresAt > segment.slots.getLong(base + EXPIRES)) {
+                segment.slots.putLong(base + EXPIRES, expiresAt);
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a session.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @return the removed session's expiry, or {@code 0} if there was none
+     */
+    long remove(long hi, long lo) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.writeLock();
+        try {
+            int base = find(segment, hi, lo);
+            if (base < 0) {
+                return 0;
+            }
+            long expiresAt = segment.slots.getLong(base + EXPIRES);
+            delete(segment, base);
+            return expiresAt;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every session of a user, scanning one segment at a time.
+     *
+     * @param userHi the high 64 bits of the user id
+     * @param userLo the low 64 bits of the user id
+     * @param removal receives each removed session
+     */
+    void removeAllForUser(long userHi, long userLo, Removal removal) {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                MappedByteBuffer slots = segment.slots;
+                for (int i = 0; i <= segment.mask; i++) {
+                    int base = HEADER + i * SLOT_BYTES;
+                    long absolute = slots.getLong(base + ABSOLUTE);
+                    if (absolute != EMPTY && absolute != DELETED
+                            && slots.getLong(base + USER_HI) == userHi && slots.getLong(base + USER_LO) == userLo) {
+                        removal.removed(slots.getLong(base + HI), slots.getLong(base + LO),
+                                slots.getLong(base + EXPIRES));
+                        delete(segment, base);
+                    }
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Deletes the expired sessions of one segment, and rewrites the segment if deleted slots
+     * make up most of it.
+     *
+     * @param segmentIndex the segment to sweep, from {@code 0} to {@value #SEGMENTS} (exclusive)
+     * @param reclaimBefore sessions that expired before this time are deleted
+     * @return the number of sessions deleted
+     */
+    int sweep(int segmentIndex, long reclaimBefore) {
+        Segment segment = segments[segmentIndex];
+        long stamp = segment.lock.writeLock();
+        try {
+            int deleted = 0;
+            MappedByteBuffer slots = segment.slots;
+            for (int i = 0; i <= segment.mask; i++) {
+                int base = HEADER + i * SLOT_BYTES;
+                long absolute = slots.getLong(base + ABSOLUTE);
+                if (absolute != EMPTY && absolute != DELETED && slots.getLong(base + EXPIRES) < reclaimBefore) {
+                    delete(segment, base);
+                    deleted++;
+                }
+            }
+            if (segment.used > 2 * segment.live && segment.used > MIN_CAPACITY * MAX_LOAD / 2) {
+                rewrite(segment, reclaimBefore);
+            }
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rewrite " + segment.path, e);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of sessions stored, including expired sessions that have not been swept yet.
+     *
+     * @return the number of stored sessions
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.live;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Forces all changes to disk.
+     */
+    public void flush() {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                if (open) {
+                    segment.slots.force();
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Forces all changes to disk, marks the tables clean and closes the files.
+     */
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                open = false;
+                segment.slots.force();
+                segment.slots.putInt(H_CLEAN, 1);
+                segment.slots.force();
+                segment.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close session store in " + directory, e);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- tables
+
+    private Segment segmentFor(long hi) {
+        return segments[(int) (hi >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private static int index(long lo, int mask) {
+        long h = lo * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    /** Returns the offset of a token's slot, or {@code -1} if the token is not stored. */
+    private static int find(Segment segment, long hi, long lo) {
+        MappedByteBuffer slots = segment.slots;
+        for (int i = index(lo, segment.mask); ; i = (i + 1) & segment.mask) {
+            int base = HEADER + i * SLOT_BYTES;
+            long absolute = slots.getLong(base + ABSOLUTE);
+            if (absolute == EMPTY) {
+                return -1;
+            }
+            if (absolute != DELETED && slots.getLong(base + HI) == hi && slots.getLong(base + LO) == lo) {
+                return base;
+            }
+        }
+    }
+
+    private static void delete(Segment segment, int base) {
+        segment.slots.putLong(base + ABSOLUTE, DELETED);
+        segment.live--;
+        writeCounts(segment);
+    }
+
+    private static void writeCounts(Segment segment) {
+        segment.slots.putLong(H_USED, segment.used).putLong(H_LIVE, segment.live);
+    }
+
+    private static long tableBytes(int capacity) {
+        return HEADER + (long) capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Replaces a segment's table with one sized for its sessions that are still live, written to
+     * a temporary file that is moved over the old one.
+     */
+    private void rewrite(Segment segment, long reclaimBefore) throws IOException {
+        int oldCapacity = segment.mask + 1;
+        MappedByteBuffer old = segment.slots;
+        long keep = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            int base = HEADER + i * SLOT_BYTES;
+            long absolute = old.getLong(base + ABSOLUTE);
+            if (absolute != EMPTY && absolute != DELETED && old.getLong(base + EXPIRES) >= reclaimBefore) {
+                keep++;
+            }
+        }
+        long needed = (long) Math.ceil((keep + 1) / (MAX_LOAD / 2));
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Session store segment is full: " + segment.path);
+        }
+        int capacity = Math.max(MIN_CAPACITY, (int) Long.highestOneBit(needed - 1) << 1);
+        Path tempPath = segment.path.resolveSibling(segment.path.getFileName() + TEMP_SUFFIX);
+        FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(capacity));
+        int mask = capacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            int from = HEADER + i * SLOT_BYTES;
+            long absolute = old.getLong(from + ABSOLUTE);
+            if (absolute == EMPTY || absolute == DELETED || old.getLong(from + EXPIRES) < reclaimBefore) {
+                continue;
+            }
+            int j = index(old.getLong(from + LO), mask);
+            while (slots.getLong(HEADER + j * SLOT_BYTES + ABSOLUTE) != EMPTY) {
+                j = (j + 1) & mask;
+            }
+            int to = HEADER + j * SLOT_BYTES;
+            for (int field = 0; field <= EXPIRES; field += 8) {
+                slots.putLong(to + field, old.getLong(from + field));
+            }
+        }
+        initHeader(slots, capacity, keep, keep);
+        slots.force();
+        Files.move(tempPath, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        segment.channel.close();
+        segment.channel = channel;
+        segment.slots = slots;
+        segment.mask = mask;
+        segment.used = keep;
+        segment.live = keep;
+    }
+
+    // ---------------------------------------------------------------- startup
+
+    private static void openSegment(Segment segment) throws IOException {
+        segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = segment.channel.size();
+        if (size >= HEADER) {
+            MappedByteBuffer slots = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int capacity = slots.getInt(H_CAPACITY);
+            if (slots.getInt(0) != MAGIC || slots.getInt(4) != VERSION || Integer.bitCount(capacity) != 1
+                    || capacity > MAX_CAPACITY || size != tableBytes(capacity)) {
+                throw new IOException("Not a session table: " + segment.path);
+            }
+            segment.slots = slots;
+            segment.mask = capacity - 1;
+            if (slots.getInt(H_CLEAN) == 1) {
+                segment.used = slots.getLong(H_USED);
+                segment.live = slots.getLong(H_LIVE);
+            } else {
+                recount(segment);
+            }
+        } else {
+            segment.channel.truncate(0);
+            segment.slots = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(MIN_CAPACITY));
+            initHeader(segment.slots, MIN_CAPACITY, 0, 0);
+            segment.mask = MIN_CAPACITY - 1;
+        }
+        segment.slots.putInt(H_CLEAN, 0);
+        segment.slots.force();
+    }
+
+    /** Recomputes a segment's counts after an unclean shutdown. */
+    private static void recount(Segment segment) {
+        long used = 0;
+        long live = 0;
+        for (int i = 0; i <= segment.mask; i++) {
+            long absolute = segment.slots.getLong(HEADER + i * SLOT_BYTES + ABSOLUTE);
+            if (absolute != EMPTY) {
+                used++;
+                if (absolute != DELETED) {
+                    live++;
+                }
+            }
+        }
+        segment.used = used;
+        segment.live = live;
+        writeCounts(segment);
+    }
+
+    private static void initHeader(MappedByteBuffer slots, int capacity, long used, long live) {
+        slots.putInt(0, MAGIC).putInt(4, VERSION).putInt(H_CAPACITY, capacity).putInt(H_CLEAN, 0)
+                .putLong(H_USED, used).putLong(H_LIVE, live);
+    }
+}
@@ -0,0 +1,336 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.model.User;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+
+/**
+ * Stateless token service issuing self-contained, HMAC-SHA256 signed tokens.
+ * <p>
+ * A token carries the user id, issue time, expiry and the id of the signing key,
+ * followed by the signature, all encoded as unpadded base64url. Validation is a
+ * signature check, an expiry check and a single user lookup; no session state is kept,
+ * so any node sharing the keys can validate any token.
+ * </p>
+ * <p>
+ * Several verification keys may be active at once. {@link #rotate(SigningKey)} switches
+ * signing to a new key while tokens signed with older keys remain valid until those keys
+ * are {@link #retire(int) retired}.
+ * </p>
+ * <p>
+ * Revocation is the one thing that needs state. {@link #revoke(String)} remembers the token's
+ * signature until the token would have expired anyway, so that other encodings of the same
+ * bytes, such as a padded one, are rejected too, and {@link #revokeAllForUser(String)} records a cut-off
+ * before which every token of the user is rejected, without having to know those tokens. Both
+ * are kept in memory on this node only, and are pruned once the tokens they cover have expired.
+ * </p>
+ */
+public class HmacTokenService implements TokenService {
+    /** Token format version. */
+    private static final byte VERSION = 1;
+    /** Length of an HMAC-SHA256 signature in bytes. */
+    private static final int SIGNATURE_LENGTH = 32;
+    /** Fixed header: version, key id, issued-at, expiry and user id length. */
+    private static final int HEADER_LENGTH = 1 + 4 + 8 + 8 + 1;
+    /** User id length marker meaning the id is a canonical UUID packed into 16 bytes. */
+    private static final int PACKED_UUID = 0;
+    /** Default token lifetime. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    /** Base64url encoder without padding. */
+    private static final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    /** Base64url decoder. */
+    private static final Base64.Decoder decoder = Base64.getUrlDecoder();
+    /** Number of revocations kept before expired ones are first pruned. */
+    private static final int MIN_PRUNE_THRESHOLD = 1_024;
+
+    private final Function<String, Optional<User>> userLookup;
+    private final Duration ttl;
+    private final Clock clock;
+    /** Key used to sign new tokens. */
+    private volatile SigningKey signingKey;
+    /** Keys accepted for verification, by id; replaced wholesale on rotation. */
+    private volatile Map<Integer, SigningKey> verificationKeys;
+    /** Signatures of revoked tokens and the tokens' expiry times. */
+    private final Map<ByteBuffer, Long> revokedTokens = new ConcurrentHashMap<>();
+    /** Per user, the issue time up to which all of the user's tokens are revoked. */
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+    /** Number of revocations at which expired ones are pruned next. */
+    private volatile int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    /**
+     * Constructs a new HmacTokenService with the default lifetime.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param signingKey the key used to sign new tokens
+     */
+    public HmacTokenService(Function<String, Optional<User>> userLookup, SigningKey signingKey) {
+        this(userLookup, signingKey, DEFAULT_TTL, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a new HmacTokenService.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param signingKey the key used to sign new tokens
+     * @param ttl the lifetime of issued tokens
+     * @param clock the clock used for issue and expiry times
+     */
+    public HmacTokenService(Function<String, Optional<User>> userLookup, SigningKey signingKey,
+                            Duration ttl, Clock clock) {
+        this.userLookup = Objects.requireNonNull(userLookup);
+        this.ttl = Objects.requireNonNull(ttl);
+        this.clock = Objects.requireNonNull(clock);
+        this.signingKey = Objects.requireNonNull(signingKey);
+        this.verificationKeys = Map.of(signingKey.getId(), signingKey);
+    }
+
+    /**
+     * Makes the given key the signing key and adds it to the verification keys.
+     * Tokens signed with previous keys remain valid until those keys are retired.
+     *
+     * @param key the new signing key
+     */
+    public synchronized void rotate(SigningKey key) {
+        Map<Integer, SigningKey> keys = new HashMap<>(verificationKeys);
+        keys.put(key.getId(), key);
+        verificationKeys = Map.copyOf(keys);
+        signingKey = key;
+    }
+
+    /**
+     * Adds a key that is accepted for verification but not used for signing,
+     * e.g. a key announced by another node ahead of its rotation.
+     *
+     * @param key the verification key
+     */
+    public synchronized void addVerificationKey(SigningKey key) {
+        Map<Integer, SigningKey> keys = new HashMap<>(verificationKeys);
+        keys.put(key.getId(), key);
+        verificationKeys = Map.copyOf(keys);
+    }
+
+    /**
+     * Stops accepting tokens signed with the given key.
+     *
+     * @param keyId the id of the key to retire
+     * @throws IllegalArgumentException if the key is the current signing key
+     */
+    public synchronized void retire(int keyId) {
+        if (signingKey.getId() == keyId) {
+            throw new IllegalArgumentException("Cannot retire the current signing key");
+        }
+        Map<Integer, SigningKey> keys = new HashMap<>(verificationKeys);
+        keys.remove(keyId);
+        verificationKeys = Map.copyOf(keys);
+    }
+
+    /**
+     * Creates a signed token for the specified user.
+     *
+     * @param user the user for whom to create the token
+     * @return the base64url-encoded token
+     */
+    @Override
+    public String createToken(User user) {
+        SigningKey key = signingKey;
+        long issuedAt = clock.millis();
+        long expiresAt = issuedAt + ttl.toMillis();
+        String id = user.getId();
+        boolean packed = isPackedUuid(id);
+        byte[] userId = packed ? packUuid(id) : encodeUserId(id);
+        ByteBuffer token = ByteBuffer.allocate(HEADER_LENGTH + userId.length + SIGNATURE_LENGTH);
+        token.put(VERSION).putInt(key.getId()).putLong(issuedAt).putLong(expiresAt)
+                .put((byte) (packed ? PACKED_UUID : userId.length))
+                .put(userId);
+        Mac mac = key.acquire();
+        try {
+            mac.update(token.array(), 0, token.position());
+            mac.doFinal(token.array(), token.position());
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            key.release(mac);
+        }
+        return encoder.encodeToString(token.array());
+    }
+
+    /**
+     * Validates the token's signature and expiry and resolves its user.
+     *
+     * @param token the authentication token to validate
+     * @return an {@link Optional} containing the user if the token is valid, or empty if invalid or expired
+     */
+    @Override
+    public Optional<User> validateToken(String token) {
+        String userId = verify(token, clock.millis());
+        return userId == null ? Optional.empty() : userLookup.apply(userId).filter(user -> user.getId().equals(userId));
+    }
+
+    /**
+     * Validates many tokens at once.
+     * <p>
+     * Every signature still has to be checked, but all tokens are checked against a single
+     * reading of the clock and each distinct user is looked up once.
+     * </p>
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        long now = clock.millis();
+        Map<String, String> userIds = new HashMap<>();
+        for (String token : tokens) {
+            String userId = verify(token, now);
+            if (userId != null) {
+                userIds.put(token, userId);
+            }
+        }
+        return UserBatchResolver.resolve(userIds,
+                userId -> userLookup.apply(userId).filter(user -> user.getId().equals(userId)));
+    }
+
+    /**
+     * Revokes a valid token until it expires.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean revoke(String token) {
+        long now = clock.millis();
+        if (verify(token, now) == null) {
+            return false;
+        }
+        byte[] raw = decoder.decode(token);
+        long expiresAt = ByteBuffer.wrap(raw).getLong(1 + 4 + 8);
+        ByteBuffer signature = ByteBuffer.wrap(Arrays.copyOfRange(raw, raw.length - SIGNATURE_LENGTH, raw.length));
+        boolean revoked = revokedTokens.put(signature, expiresAt) == null;
+        pruneRevocations(now);
+        return revoked;
+    }
+
+    /**
+     * Rejects every token issued to the user so far, including any issued within the current
+     * millisecond. Tokens are not tracked, so they cannot be counted, and this method returns {@code 0}.
+     *
+     * @param userId the id of the user
+     * @return {@code 0}
+     */
+    @Override
+    public int revokeAllForUser(String userId) {
+        long now = clock.millis();
+        revokedUntil.merge(userId, now, Math::max);
+        pruneRevocations(now);
+        return 0;
+    }
+
+    /** Forgets revocations whose tokens have all expired, once enough of them have piled up. */
+    private void pruneRevocations(long now) {
+        if (revokedTokens.size() + revokedUntil.size() < pruneThreshold) {
+            return;
+        }
+        long ttlMillis = ttl.toMillis();
+        revokedTokens.values().removeIf(expiresAt -> now >= expiresAt);
+        revokedUntil.values().removeIf(until -> now >= until + ttlMillis);
+        pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, 2 * (revokedTokens.size() + revokedUntil.size()));
+    }
+
+    /**
+     * Checks a token's format, signature, expiry and revocation.
+     *
+     * @return the id of the token's user, or {@code null} if the token is invalid, expired or revoked
+     */
+    private String verify(String token, long now) {
+        if (token == null) {
+            return null;
+        }
+        byte[] raw;
+        try {
+            raw = decoder.decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (raw.length < HEADER_LENGTH + SIGNATURE_LENGTH || raw[0] != VERSION) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        buffer.position(1);
+        SigningKey key = verificationKeys.get(buffer.getInt());
+        long issuedAt = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        int idLength = raw[HEADER_LENGTH - 1] & 0xff;
+        int payloadLength = HEADER_LENGTH + (idLength == PACKED_UUID ? 16 : idLength);
+        if (key == null || raw.length != payloadLength + SIGNATURE_LENGTH) {
+            return null;
+        }
+        Mac mac = key.acquire();
+        byte[] expected;
+        try {
+            mac.update(raw, 0, payloadLength);
+            expected = mac.doFinal();
+        } finally {
+            key.release(mac);
+        }
+        byte[] actual = Arrays.copyOfRange(raw, payloadLength, raw.length);
+        if (!MessageDigest.isEqual(expected, actual) || now >= expiresAt) {
+            return null;
+        }
+        // Revocations are keyed by signature, as the decoder accepts several encodings of one token.
+        if (!revokedTokens.isEmpty() && revokedTokens.containsKey(ByteBuffer.wrap(actual))) {
+            return null;
+        }
+        String userId = decodeUserId(buffer.position(HEADER_LENGTH), idLength);
+        Long until = revokedUntil.isEmpty() ? null : revokedUntil.get(userId);
+        return until != null && issuedAt <= until ? null : userId;
+    }
+
+    private static boolean isPackedUuid(String id) {
+        if (id.length() != 36) {
+            return false;
+        }
+        try {
+            return UUID.fromString(id).toString().equals(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] packUuid(String id) {
+        UUID uuid = UUID.fromString(id);
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] encodeUserId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == PACKED_UUID || bytes.length > 255) {
+            throw new IllegalArgumentException("User id must be 1 to 255 UTF-8 bytes");
+        }
+        return bytes;
+    }
+
+    private static String decodeUserId(ByteBuffer buffer, int length) {
+        if (length == PACKED_UUID) {
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    }
+}
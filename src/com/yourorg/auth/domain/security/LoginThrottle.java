@@ -0,0 +1,119 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Limits login attempts per username and per client key, such as the caller's IP address.
+ * <p>
+ * Every attempt takes one token from the username's bucket and, if a client key is given,
+ * one from the client's bucket. An attempt that finds either bucket empty is rejected with a
+ * {@link TooManyAttemptsException} before any password hashing happens, so a credential
+ * stuffing burst costs a hash lookup per attempt instead of a PBKDF2 computation. Successful
+ * logins give their tokens back, so only failed attempts count against the limits and
+ * legitimate users are not slowed down by their own logins.
+ * </p>
+ * <p>
+ * The per-username limit protects individual accounts against guessing; the per-client limit
+ * stops one source from spraying many accounts. Note that an attacker can still exhaust a
+ * victim's per-username bucket and delay that user's logins; the default limits keep that delay
+ * to seconds. Buckets live in fixed-size {@link TokenBucketTable}s, so memory stays bounded no
+ * matter how many distinct usernames or clients are seen.
+ * </p>
+ */
+public final class LoginThrottle {
+    /** Default number of buckets per table. */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    /** Default per-username limit: a burst of 5 attempts, then one every 5 seconds. */
+    public static final Limit DEFAULT_USERNAME_LIMIT = new Limit(5, Duration.ofSeconds(5));
+    /** Default per-client limit: a burst of 50 attempts, then 10 per second. */
+    public static final Limit DEFAULT_CLIENT_LIMIT = new Limit(50, Duration.ofMillis(100));
+
+    private final TokenBucketTable usernames;
+    private final TokenBucketTable clients;
+    private final Clock clock;
+
+    /**
+     * Constructs a throttle with the default limits and capacity.
+     */
+    public LoginThrottle() {
+        this(DEFAULT_USERNAME_LIMIT, DEFAULT_CLIENT_LIMIT, DEFAULT_CAPACITY, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a throttle.
+     *
+     * @param usernameLimit the limit applied to each username
+     * @param clientLimit the limit applied to each client key
+     * @param capacity the number of buckets kept per table
+     * @param clock the clock used to refill buckets
+     */
+    public LoginThrottle(Limit usernameLimit, Limit clientLimit, int capacity, Clock clock) {
+        long now = clock.millis();
+        this.usernames = new TokenBucketTable(capacity, usernameLimit.burst, usernameLimit.refillMillis, now);
+        this.clients = new TokenBucketTable(capacity, clientLimit.burst, clientLimit.refillMillis, now);
+        this.clock = clock;
+    }
+
+    /**
+     * Admits a login attempt or rejects it.
+     *
+     * @param username the username being logged into
+     * @param clientKey identifies the caller, e.g. its IP address; may be {@code null}
+     * @throws TooManyAttemptsException if either bucket is empty
+     */
+    public void acquire(String username, String clientKey) throws TooManyAttemptsException {
+        long now = clock.millis();
+        if (clientKey != null) {
+            long wait = clients.tryAcquire(clientKey, now);
+            if (wait > 0) {
+                throw new TooManyAttemptsException(Duration.ofMillis(wait));
+            }
+        }
+        long wait = usernames.tryAcquire(username, now);
+        if (wait > 0) {
+            if (clientKey != null) {
+                clients.refund(clientKey, now);
+            }
+            throw new TooManyAttemptsException(Duration.ofMillis(wait));
+        }
+    }
+
+    /**
+     * Records that an admitted attempt succeeded and returns its tokens.
+     *
+     * @param username the username that logged in
+     * @param clientKey the client key passed to {@link #acquire(String, String)}; may be {@code null}
+     */
+    public void succeeded(String username, String clientKey) {
+        long now = clock.millis();
+        usernames.refund(username, now);
+        if (clientKey != null) {
+            clients.refund(clientKey, now);
+        }
+    }
+
+    /**
+     * A token bucket size and refill rate.
+     */
+    public static final class Limit {
+        final int burst;
+        final long refillMillis;
+
+        /**
+         * Creates a limit.
+         *
+         * @param burst the number of attempts allowed back to back
+         * @param refillInterval the time after which one more attempt is allowed
+         * @throws IllegalArgumentException if {@code burst} or {@code refillInterval} is not positive
+         */
+        public Limit(int burst, Duration refillInterval) {
+            if (burst < 1 || refillInterval.toMillis() < 1) {
+                throw new IllegalArgumentException("Burst and refill interval must be positive");
+            }
+            this.burst = burst;
+            this.refillMillis = refillInterval.toMillis();
+        }
+    }
+}
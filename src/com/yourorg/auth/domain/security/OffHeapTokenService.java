@@ -0,0 +1,388 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.model.User;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Token service keeping sessions in an {@link OffHeapTokenTable}.
+ * <p>
+ * Tokens are 128 random bits rendered as 22 base64url characters. A session costs
+ * 32 bytes of off-heap memory (plus load-factor slack): the token as two longs, a numeric
+ * handle for the user and an absolute expiry time. Each user id is registered once, on the heap,
+ * under its handle, regardless of how many sessions it has, and resolved to the current user
+ * through a lookup function on every validation.
+ * </p>
+ * <p>
+ * Sessions have an absolute lifetime only. A background thread sweeps one segment
+ * of the table per tick to reclaim expired slots; lookups reject expired tokens
+ * regardless of the sweeper.
+ * </p>
+ * <p>
+ * For {@link #revokeAllForUser(String)}, each user handle also indexes its sessions' tokens
+ * on the heap, as 16 bytes per session, so revoking a user's sessions costs time proportional
+ * to that user's sessions. A token is stored and indexed while holding its user's index entry,
+ * so a concurrent revocation either sees the new token or runs entirely before it was created.
+ * Index entries of expired tokens are dropped when an index fills up and once per full sweep of
+ * the table.
+ * </p>
+ */
+public class OffHeapTokenService implements TokenService, AutoCloseable {
+    /** Default token lifetime. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(8);
+    /** Interval between two segment sweeps. */
+    private static final long SWEEP_INTERVAL_MILLIS = 100;
+    /** Token length in characters. */
+    private static final int TOKEN_LENGTH = 22;
+    private static final char[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] BASE64URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            BASE64URL_VALUES[BASE64URL[i]] = (byte) i;
+        }
+    }
+
+    /** Secure random number generator for token generation. */
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * The tokens of one user, as pairs of longs. Only read or changed while holding the user's
+     * entry in {@link #sessionsByHandle}.
+     */
+    private static final class SessionList {
+        private long[] tokens = new long[4];
+        private int size;
+
+        void add(long hi, long lo) {
+            if (size * 2 == tokens.length) {
+                tokens = Arrays.copyOf(tokens, tokens.length * 2);
+            }
+            tokens[size * 2] = hi;
+            tokens[size * 2 + 1] = lo;
+            size++;
+        }
+
+        void remove(long hi, long lo) {
+            for (int i = 0; i < size; i++) {
+                if (tokens[i * 2] == hi && tokens[i * 2 + 1] == lo) {
+                    removeAt(i);
+                    return;
+                }
+            }
+        }
+
+        /** Drops the tokens that are no longer in the table or have expired, keeping the order of the rest. */
+        int retainLive(OffHeapTokenTable table, long now) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                long hi = tokens[i * 2];
+                long lo = tokens[i * 2 + 1];
+                if (table.get(hi, lo, now) != 0) {
+                    tokens[kept * 2] = hi;
+                    tokens[kept * 2 + 1] = lo;
+                    kept++;
+                }
+            }
+            size = kept;
+            return size;
+        }
+
+        boolean isFull() {
+            return size * 2 == tokens.length;
+        }
+
+        private void removeAt(int i) {
+            size--;
+            tokens[i * 2] = tokens[size * 2];
+            tokens[i * 2 + 1] = tokens[size * 2 + 1];
+        }
+    }
+
+    private final OffHeapTokenTable table;
+    private final Map<String, Long> handlesByUserId = new ConcurrentHashMap<>();
+    private final Map<Long, String> userIdsByHandle = new ConcurrentHashMap<>();
+    private final Map<Long, SessionList> sessionsByHandle = new ConcurrentHashMap<>();
+    private final Function<String, Optional<User>> userLookup;
+    private final AtomicLong nextHandle = new AtomicLong();
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+    private final long ttl;
+    private final Clock clock;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a new OffHeapTokenService with the default lifetime and a background sweeper.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param expectedSessions the number of concurrent sessions to size the table for
+     */
+    public OffHeapTokenService(Function<String, Optional<User>> userLookup, long expectedSessions) {
+        this(userLookup, expectedSessions, DEFAULT_TTL, Clock.systemUTC(), true);
+    }
+
+    /**
+     * Constructs a new OffHeapTokenService.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param expectedSessions the number of concurrent sessions to size the table for
+     * @param ttl the lifetime of issued tokens
+     * @param clock the clock used for expiry decisions
+     * @param startSweeper whether to start the background sweeper thread
+     */
+    public OffHeapTokenService(Function<String, Optional<User>> userLookup, long expectedSessions, Duration ttl,
+                               Clock clock, boolean startSweeper) {
+        this.userLookup = Objects.requireNonNull(userLookup);
+        this.table = new OffHeapTokenTable(expectedSessions, Runtime.getRuntime().availableProcessors() * 8);
+        this.ttl = ttl.toMillis();
+        this.clock = Objects.requireNonNull(clock);
+        if (startSweeper) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "offheap-token-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepNextSegment,
+                    SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /**
+     * Creates a new random token for the specified user.
+     *
+     * @param user the user for whom to create the token
+     * @return the generated authentication token as a String
+     * @throws IllegalStateException if the table segment the token falls into is full
+     */
+    @Override
+    public String createToken(User user) {
+        long handle = handlesByUserId.computeIfAbsent(user.getId(), id -> {
+            long h = nextHandle.incrementAndGet();
+            userIdsByHandle.put(h, id);
+            return h;
+        });
+        long hi = random.nextLong();
+        long lo = random.nextLong();
+        long now = clock.millis();
+        sessionsByHandle.compute(handle, (h, sessions) -> {
+            SessionList indexed = sessions != null ? sessions : new SessionList();
+            table.put(hi, lo, handle, now + ttl, now);
+            if (indexed.isFull()) {
+                indexed.retainLive(table, now);
+            }
+            indexed.add(hi, lo);
+            return indexed;
+        });
+        return encode(hi, lo);
+    }
+
+    /**
+     * Validates the provided token against the off-heap table.
+     *
+     * @param token the authentication token to validate
+     * @return an {@link Optional} containing the user if the token is valid, or empty if not found or expired
+     */
+    @Override
+    public Optional<User> validateToken(String token) {
+        if (!isWellFormed(token)) {
+            return Optional.empty();
+        }
+        long handle = table.get(decode(token, 0), decode(token, 11), clock.millis());
+        String userId = handle == 0 ? null : userIdsByHandle.get(handle);
+        return userId == null ? Optional.empty() : userLookup.apply(userId);
+    }
+
+    /**
+     * Validates many tokens at once.
+     * <p>
+     * The tokens are looked up segment by segment, each segment under one optimistic read,
+     * and each distinct user is resolved once.
+     * </p>
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        String[] wellFormed = new String[tokens.size()];
+        long[] his = new long[wellFormed.length];
+        long[] los = new long[wellFormed.length];
+        int count = 0;
+        for (String token : tokens) {
+            if (isWellFormed(token)) {
+                wellFormed[count] = token;
+                his[count] = decode(token, 0);
+                los[count] = decode(token, 11);
+                count++;
+            }
+        }
+        long[] handles = new long[count];
+        table.getAll(his, los, count, clock.millis(), handles);
+        Map<String, String> userIds = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String userId = handles[i] == 0 ? null : userIdsByHandle.get(handles[i]);
+            if (userId != null) {
+                userIds.put(wellFormed[i], userId);
+            }
+        }
+        return UserBatchResolver.resolve(userIds, userLookup);
+    }
+
+    /**
+     * Revokes a token by removing it from the table and from its user's index.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean revoke(String token) {
+        if (!isWellFormed(token)) {
+            return false;
+        }
+        long hi = decode(token, 0);
+        long lo = decode(token, 11);
+        long handle = table.get(hi, lo, clock.millis());
+        if (handle == 0 || !table.remove(hi, lo)) {
+            return false;
+        }
+        sessionsByHandle.computeIfPresent(handle, (h, sessions) -> {
+            sessions.remove(hi, lo);
+            return sessions.size == 0 ? null : sessions;
+        });
+        return true;
+    }
+
+    /**
+     * Revokes every token of a user, visiting only that user's sessions.
+     *
+     * @param userId the id of the user
+     * @return the number of live tokens revoked
+     */
+    @Override
+    public int revokeAllForUser(String userId) {
+        Long handle = userId == null ? null : handlesByUserId.get(userId);
+        SessionList sessions = handle == null ? null : sessionsByHandle.remove(handle);
+        if (sessions == null) {
+            return 0;
+        }
+        long now = clock.millis();
+        int revoked = 0;
+        for (int i = 0; i < sessions.size; i++) {
+            long hi = sessions.tokens[i * 2];
+            long lo = sessions.tokens[i * 2 + 1];
+            if (table.get(hi, lo, now) != 0 && table.remove(hi, lo)) {
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * Reclaims expired slots in the next segment of the table.
+     * Called by the background sweeper; each call sweeps one segment, and the call that
+     * completes a sweep of the whole table also drops expired tokens from the user index.
+     *
+     * @return the number of expired tokens removed
+     */
+    public int sweepNextSegment() {
+        int cursor = sweepCursor.getAndIncrement();
+        long now = clock.millis();
+        int removed = table.sweep(cursor, now);
+        if ((cursor & (table.segmentCount() - 1)) == table.segmentCount() - 1) {
+            for (Long handle : sessionsByHandle.keySet()) {
+                sessionsByHandle.computeIfPresent(handle,
+                        (h, sessions) -> sessions.retainLive(table, now) == 0 ? null : sessions);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of stored tokens, including expired tokens that have not been swept yet.
+     *
+     * @return the number of stored tokens
+     */
+    public long size() {
+        return table.size();
+    }
+
+    /**
+     * Returns the amount of off-heap memory held by the token table.
+     *
+     * @return the allocated size in bytes
+     */
+    public long offHeapBytes() {
+        return table.offHeapBytes();
+    }
+
+    /**
+     * Stops the background sweeper, if one was started.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Encodes 128 bits as 22 base64url characters: 11 characters of 6 bits for each half,
+     * the last character of each half carrying the remaining 4 bits.
+     */
+    private static String encode(long hi, long lo) {
+        char[] chars = new char[TOKEN_LENGTH];
+        encodeHalf(hi, chars, 0);
+        encodeHalf(lo, chars, 11);
+        return new String(chars);
+    }
+
+    private static void encodeHalf(long value, char[] chars, int offset) {
+        for (int i = 10; i >= 0; i--) {
+            chars[offset + i] = BASE64URL[(int) (value & 63)];
+            value >>>= 6;
+        }
+    }
+
+    /**
+     * Checks that a token has the right length and alphabet, and that the leading
+     * character of each half carries no more than 4 bits.
+     */
+    private static boolean isWellFormed(String token) {
+        if (token == null || token.length() != TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            char c = token.charAt(i);
+            int digit = c < 128 ? BASE64URL_VALUES[c] : -1;
+            if (digit < 0 || ((i == 0 || i == 11) && digit > 15)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long decode(String token, int offset) {
+        long value = 0;
+        for (int i = 0; i < 11; i++) {
+            value = (value << 6) | BASE64URL_VALUES[token.charAt(offset + i)];
+        }
+        return value;
+    }
+}
@@ -0,0 +1,382 @@
+package com.yourorg.auth.domain.security;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash table of 128-bit tokens kept in off-heap memory.
+ * <p>
+ * Each slot is 32 bytes of a direct {@link ByteBuffer}: the token's high and low 64 bits,
+ * a numeric user handle and an expiry time in epoch milliseconds. The table is split into
+ * independently locked segments; lookups use an optimistic {@link StampedLock} read and
+ * only fall back to a read lock when they race with a writer. Nothing per session lives
+ * on the Java heap, so millions of sessions add no GC scanning work.
+ * </p>
+ * <p>
+ * Handles must be positive. A handle of {@code 0} marks an empty slot and {@code -1} a
+ * deleted one. Expired entries are treated as absent and their slots are reused by
+ * later inserts or reclaimed by {@link #sweep(int, long)}. A segment grows up to
+ * {@value #MAX_SEGMENT_CAPACITY} slots; once one that large is over its load factor with
+ * live entries, inserts into it are rejected.
+ * </p>
+ */
+final class OffHeapTokenTable {
+    private static final int SLOT_BYTES = 32;
+    private static final int HI = 0;
+    private static final int LO = 8;
+    private static final int HANDLE = 16;
+    private static final int EXPIRY = 24;
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    /** Maximum fraction of slots that may be used or deleted before a segment grows. */
+    private static final double MAX_LOAD = 0.75;
+    /** Largest segment capacity: 1 GiB of slots, well within the int-indexed range of a ByteBuffer. */
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 25;
+
+    /** One independently locked region of the table. */
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        ByteBuffer slots;
+        int mask;
+        int live;
+        int used;
+
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        void allocate(int capacity) {
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            mask = capacity - 1;
+            live = 0;
+            used = 0;
+        }
+    }
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Constructs a table sized for the expected number of live tokens.
+     *
+     * @param expectedTokens the number of tokens the table should hold without growing
+     * @param segmentCount the number of lock stripes; rounded up to a power of two
+     */
+    OffHeapTokenTable(long expectedTokens, int segmentCount) {
+        int count = segmentCount <= 1 ? 1 : Integer.highestOneBit(segmentCount - 1) << 1;
+        long perSegment = (long) Math.ceil(Math.max(16, expectedTokens / count) / MAX_LOAD);
+        int capacity = (int) Math.min(MAX_SEGMENT_CAPACITY, Long.highestOneBit(perSegment - 1) << 1);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Inserts or replaces a token.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @param handle the user handle, which must be positive
+     * @param expiry the expiry time in epoch milliseconds
+     * @param now the current time, used to treat expired slots as free
+     * @throws IllegalStateException if the token's segment is at its maximum capacity and full
+     */
+    void put(long hi, long lo, long handle, long expiry, long now) {
+        if (handle <= 0) {
+            throw new IllegalArgumentException("Handle must be positive");
+        }
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.used + 1 > (segment.mask + 1) * MAX_LOAD) {
+                if (segment.mask + 1 == MAX_SEGMENT_CAPACITY && segment.live + 1 > MAX_SEGMENT_CAPACITY * MAX_LOAD) {
+                    throw new IllegalStateException("Off-heap token table segment is full");
+                }
+                rehash(segment, now);
+            }
+            ByteBuffer slots = segment.slots;
+            int reusable = -1;
+            for (int i = index(lo, segment.mask); ; i = (i + 1) & segment.mask) {
+                int base = i * SLOT_BYTES;
+                long h = slots.getLong(base + HANDLE);
+                if (h == EMPTY) {
+                    int target = reusable >= 0 ? reusable : base;
+                    if (target == base) {
+                        segment.used++;
+                    }
+                    write(slots, target, hi, lo, handle, expiry);
+                    segment.live++;
+                    return;
+                }
+                boolean free = h == DELETED || slots.getLong(base + EXPIRY) <= now;
+                if (!free && slots.getLong(base + HI) == hi && slots.getLong(base + LO) == lo) {
+                    write(slots, base, hi, lo, handle, expiry);
+                    return;
+                }
+                if (free && reusable < 0) {
+                    reusable = base;
+                    if (h != DELETED) {
+                        // An expired entry is being overwritten; it no longer counts as live.
+                        segment.live--;
+                    }
+                    slots.putLong(base + HANDLE, DELETED);
+                }
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Looks up a token.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @param now the current time in epoch milliseconds
+     * @return the user handle, or {@code 0} if the token is absent or expired
+     */
+    long get(long hi, long lo, long now) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.tryOptimisticRead();
+        long handle = find(segment, hi, lo, now);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                handle = find(segment, hi, lo, now);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Looks up many tokens, visiting each segment once.
+     * <p>
+     * The tokens are grouped by segment, and each group is read under a single optimistic
+     * stamp; only a group that raced with a writer is read again under the read lock.
+     * </p>
+     *
+     * @param his the high 64 bits of the tokens
+     * @param los the low 64 bits of the tokens
+     * @param count the number of tokens
+     * @param now the current time in epoch milliseconds
+     * @param handles receives the user handle of each token, or {@code 0} if it is absent or expired
+     */
+    void getAll(long[] his, long[] los, int count, long now, long[] handles) {
+        int[] starts = new int[segments.length + 1];
+        for (int i = 0; i < count; i++) {
+            starts[segmentIndex(his[i]) + 1]++;
+        }
+        for (int s = 0; s < segments.length; s++) {
+            starts[s + 1] += starts[s];
+        }
+        int[] order = new int[count];
+        int[] next = starts.clone();
+        for (int i = 0; i < count; i++) {
+            order[next[segmentIndex(his[i])]++] = i;
+        }
+        for (int s = 0; s < segments.length; s++) {
+            int from = starts[s];
+            int to = starts[s + 1];
+            if (from == to) {
+                continue;
+            }
+            Segment segment = segments[s];
+            long stamp = segment.lock.tryOptimisticRead();
+            for (int j = from; j < to; j++) {
+                int i = order[j];
+                handles[i] = find(segment, his[i], los[i], now);
+            }
+            if (!segment.lock.validate(stamp)) {
+                stamp = segment.lock.readLock();
+                try {
+                    for (int j = from; j < to; j++) {
+                        int i = order[j];
+                        handles[i] = find(segment, his[i], los[i], now);
+                    }
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a token.
+     *
+     * @param hi the high 64 bits of the token
+     * @param lo the low 64 bits of the token
+     * @return {@code true} if a live entry was removed
+     */
+    boolean remove(long hi, long lo) {
+        Segment segment = segmentFor(hi);
+        long stamp = segment.lock.writeLock();
+        try {
+            ByteBuffer slots = segment.slots;
+            for (int i = index(lo, segment.mask); ; i = (i + 1) & segment.mask) {
+                int base = i * SLOT_BYTES;
+                long h = slots.getLong(base + HANDLE);
+                if (h == EMPTY) {
+                    return false;
+                }
+                if (h != DELETED && slots.getLong(base + HI) == hi && slots.getLong(base + LO) == lo) {
+                    slots.putLong(base + HANDLE, DELETED);
+                    segment.live--;
+                    return true;
+                }
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks every expired entry of one segment as deleted, and rebuilds the segment if
+     * deleted slots make up most of it.
+     *
+     * @param segmentIndex the segment to sweep, taken modulo the segment count
+     * @param now the current time in epoch milliseconds
+     * @return the number of entries removed
+     */
+    int sweep(int segmentIndex, long now) {
+        Segment segment = segments[segmentIndex & (segments.length - 1)];
+        long stamp = segment.lock.writeLock();
+        try {
+            ByteBuffer slots = segment.slots;
+            int removed = 0;
+            for (int base = 0, end = (segment.mask + 1) * SLOT_BYTES; base < end; base += SLOT_BYTES) {
+                long h = slots.getLong(base + HANDLE);
+                if (h > 0 && slots.getLong(base + EXPIRY) <= now) {
+                    slots.putLong(base + HANDLE, DELETED);
+                    removed++;
+                }
+            }
+            segment.live -= removed;
+            if (segment.used - segment.live > (segment.mask + 1) / 2) {
+                rehash(segment, now);
+            }
+            return removed;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return the segment count
+     */
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the number of entries that have not been removed, including expired
+     * entries that have not been swept yet.
+     *
+     * @return the approximate number of live entries
+     */
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.live;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of off-heap bytes currently allocated.
+     *
+     * @return the allocated size in bytes
+     */
+    long offHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                bytes += segment.slots.capacity();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return bytes;
+    }
+
+    private long find(Segment segment, long hi, long lo, long now) {
+        ByteBuffer slots = segment.slots;
+        int mask = segment.mask;
+        for (int i = index(lo, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            int base = i * SLOT_BYTES;
+            if (base + SLOT_BYTES > slots.capacity()) {
+                // Torn read of a segment being resized; the caller will retry under the lock.
+                return 0;
+            }
+            long h = slots.getLong(base + HANDLE);
+            if (h == EMPTY) {
+                return 0;
+            }
+            if (h != DELETED && slots.getLong(base + HI) == hi && slots.getLong(base + LO) == lo) {
+                return slots.getLong(base + EXPIRY) > now ? h : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Copies the live, unexpired entries of a segment into a fresh buffer, doubling it while
+     * they would fill more than half of it. Must be called with the write lock held.
+     */
+    private static void rehash(Segment segment, long now) {
+        ByteBuffer old = segment.slots;
+        int oldCapacity = segment.mask + 1;
+        int capacity = oldCapacity;
+        while (segment.live + 1 > capacity / 2 && capacity < MAX_SEGMENT_CAPACITY) {
+            capacity <<= 1;
+        }
+        segment.allocate(capacity);
+        ByteBuffer slots = segment.slots;
+        for (int base = 0, end = oldCapacity * SLOT_BYTES; base < end; base += SLOT_BYTES) {
+            long h = old.getLong(base + HANDLE);
+            long expiry = old.getLong(base + EXPIRY);
+            if (h > 0 && expiry > now) {
+                long hi = old.getLong(base + HI);
+                long lo = old.getLong(base + LO);
+                int i = index(lo, segment.mask);
+                while (slots.getLong(i * SLOT_BYTES + HANDLE) != EMPTY) {
+                    i = (i + 1) & segment.mask;
+                }
+                write(slots, i * SLOT_BYTES, hi, lo, h, expiry);
+                segment.live++;
+                segment.used++;
+            }
+        }
+    }
+
+    private Segment segmentFor(long hi) {
+        return segments[segmentIndex(hi)];
+    }
+
+    private int segmentIndex(long hi) {
+        return segments.length == 1 ? 0 : (int) (hi >>> segmentShift);
+    }
+
+    private static int index(long lo, int mask) {
+        return (int) (lo ^ (lo >>> 32)) & mask;
+    }
+
+    private static void write(ByteBuffer slots, int base, long hi, long lo, long handle, long expiry) {
+        slots.putLong(base + HI, hi);
+        slots.putLong(base + LO, lo);
+        slots.putLong(base + EXPIRY, expiry);
+        slots.putLong(base + HANDLE, handle);
+    }
+}
@@ -1,5 +1,7 @@
 package com.yourorg.auth.domain.security;
 
+import java.nio.CharBuffer;
+
 /**
  * Interface for password encoding and verification.
  * <p>
@@ -24,4 +26,30 @@ public interface PasswordEncoder {
      * @return {@code true} if the password matches, {@code false} otherwise
      */
     boolean verify(CharSequence rawPassword, String hashedPassword);
+
+    /**
+     * Verifies a password held in a character array, so callers such as
+     * {@link javax.swing.JPasswordField#getPassword()} never need to create a String.
+     * <p>
+     * The array is not modified; callers remain responsible for clearing it.
+     * </p>
+     *
+     * @param rawPassword the raw password to verify
+     * @param hashedPassword the previously hashed password to compare against
+     * @return {@code true} if the password matches, {@code false} otherwise
+     */
+    default boolean verify(char[] rawPassword, String hashedPassword) {
+        return verify(CharBuffer.wrap(rawPassword), hashedPassword);
+    }
+
+    /**
+     * Reports whether a stored hash was made with outdated parameters and should be replaced
+     * by a fresh {@link #hash(CharSequence)} the next time the raw password is available.
+     *
+     * @param hashedPassword the stored hash
+     * @return {@code true} if the password should be hashed again
+     */
+    default boolean needsRehash(String hashedPassword) {
+        return false;
+    }
 }
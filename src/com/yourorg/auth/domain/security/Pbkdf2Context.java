@@ -0,0 +1,364 @@
+package com.yourorg.auth.domain.security;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pooled scratch state for {@link Pbkdf2PasswordEncoder}.
+ * <p>
+ * Holds a reusable SHA-256 instance and every buffer needed to hash or verify a password:
+ * the UTF-8 password bytes, the HMAC key pads, the decoded salt and expected hash, and the
+ * PBKDF2 working blocks.
+ * Stored values are parsed and Base64-decoded in place, so a verification allocates nothing
+ * once the pool has warmed up. Like {@link Argon2Context}, contexts are pooled instead of
+ * being kept per thread, so that requests on virtual threads reuse them too.
+ * Callers must invoke {@link #release()} when done so that no password material lingers.
+ * </p>
+ * <p>
+ * Two stored formats are understood: the self-describing
+ * {@code $pbkdf2-sha256$i=<iterations>$<salt>$<hash>} written by current encoders, and the
+ * legacy {@code <salt>:<hash>}, which implies {@link Pbkdf2PasswordEncoder#ITERATIONS}.
+ * </p>
+ */
+final class Pbkdf2Context {
+    /** SHA-256 block size in bytes, which is also the HMAC key pad length. */
+    static final int BLOCK_SIZE = 64;
+    /** SHA-256 output length in bytes. */
+    static final int DIGEST_LENGTH = 32;
+    /** Upper bound for decoded salts and hashes. */
+    private static final int MAX_DECODED_LENGTH = 64;
+    /** HMAC inner pad byte. */
+    private static final byte IPAD = 0x36;
+    /** HMAC outer pad byte. */
+    private static final byte OPAD = 0x5c;
+    /** Prefix of the self-describing format, followed by the iteration count. */
+    static final String PREFIX = "$pbkdf2-sha256$i=";
+    /** Largest iteration count accepted from a stored value. */
+    static final int MAX_ITERATIONS = 1 << 30;
+    /** Reverse lookup table for the standard Base64 alphabet; -1 marks invalid characters. */
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    /** Wiped contexts ready for reuse. */
+    private static final BlockingQueue<Pbkdf2Context> CONTEXTS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /** Reusable SHA-256 instance. */
+    final MessageDigest sha = newSha256();
+    /** UTF-8 password bytes; only the first {@link #passwordLength} bytes are meaningful. */
+    byte[] password = new byte[BLOCK_SIZE];
+    int passwordLength;
+    /** HMAC key XORed with the inner pad. */
+    final byte[] ipad = new byte[BLOCK_SIZE];
+    /** HMAC key XORed with the outer pad. */
+    final byte[] opad = new byte[BLOCK_SIZE];
+    /** Salt; only the first {@link #saltLength} bytes are meaningful. */
+    final byte[] salt = new byte[MAX_DECODED_LENGTH];
+    int saltLength;
+    /** Iteration count to run, taken from the encoder or the stored value. */
+    int iterations;
+    /** Expected hash decoded from the stored value. */
+    final byte[] expected = new byte[MAX_DECODED_LENGTH];
+    int expectedLength;
+    /** Derived key produced by the encoder. */
+    final byte[] derived = new byte[Pbkdf2PasswordEncoder.KEY_LENGTH / 8];
+    /** PBKDF2 working block U. */
+    final byte[] u = new byte[DIGEST_LENGTH];
+    /** PBKDF2 accumulator T. */
+    final byte[] t = new byte[DIGEST_LENGTH];
+    /** Big-endian PBKDF2 block counter. */
+    final byte[] counter = new byte[4];
+
+    private Pbkdf2Context() {
+    }
+
+    /**
+     * Takes a context from the pool, or creates one if none is free.
+     *
+     * @return a context for the caller's exclusive use
+     */
+    static Pbkdf2Context acquire() {
+        Pbkdf2Context ctx = CONTEXTS.poll();
+        return ctx != null ? ctx : new Pbkdf2Context();
+    }
+
+    /**
+     * Wipes this context and returns it to the pool.
+     */
+    void release() {
+        clear();
+        CONTEXTS.offer(this);
+    }
+
+    /**
+     * Stores the UTF-8 encoding of the password, replacing malformed surrogates with
+     * {@code '?'} exactly as the JCE PBKDF2 implementation does.
+     *
+     * @param raw the raw password
+     */
+    void setPassword(CharSequence raw) {
+        int length = raw.length();
+        ensurePasswordCapacity(length * 3);
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = raw.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(raw.charAt(i + 1))) {
+                n = putCodePoint(Character.toCodePoint(c, raw.charAt(++i)), n);
+            } else {
+                n = putChar(c, n);
+            }
+        }
+        passwordLength = n;
+    }
+
+    /**
+     * Stores the UTF-8 encoding of the password without going through a String.
+     *
+     * @param raw the raw password
+     */
+    void setPassword(char[] raw) {
+        int length = raw.length;
+        ensurePasswordCapacity(length * 3);
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = raw[i];
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(raw[i + 1])) {
+                n = putCodePoint(Character.toCodePoint(c, raw[++i]), n);
+            } else {
+                n = putChar(c, n);
+            }
+        }
+        passwordLength = n;
+    }
+
+    /**
+     * Copies a freshly generated salt into the context.
+     *
+     * @param value the salt
+     */
+    void setSalt(byte[] value) {
+        System.arraycopy(value, 0, salt, 0, value.length);
+        saltLength = value.length;
+    }
+
+    /**
+     * Parses a stored value into {@link #iterations}, {@link #salt} and {@link #expected}.
+     *
+     * @param stored the stored value, in either the current or the legacy format
+     * @throws IllegalArgumentException if the value is not in a recognized format
+     */
+    void parse(String stored) {
+        int start = 0;
+        char separator = ':';
+        iterations = Pbkdf2PasswordEncoder.ITERATIONS;
+        if (stored.startsWith(PREFIX)) {
+            int dollar = stored.indexOf('$', PREFIX.length());
+            iterations = parseIterations(stored, PREFIX.length(), dollar);
+            start = dollar + 1;
+            separator = '$';
+        }
+        int split = stored.indexOf(separator, start);
+        if (split < 0 || stored.indexOf(separator, split + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        saltLength = decodeBase64(stored, start, split, salt);
+        expectedLength = decodeBase64(stored, split + 1, stored.length(), expected);
+    }
+
+    /**
+     * Returns the iteration count recorded in a stored value without decoding the rest of it.
+     *
+     * @param stored the stored value
+     * @return the iteration count, or {@code -1} for the legacy format, which records none
+     * @throws IllegalArgumentException if the current format's iteration field is malformed
+     */
+    static int iterationsOf(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return -1;
+        }
+        return parseIterations(stored, PREFIX.length(), stored.indexOf('$', PREFIX.length()));
+    }
+
+    /**
+     * Formats a salt and derived key in the self-describing format.
+     *
+     * @param iterations the iteration count used
+     * @param salt the salt
+     * @param derived the derived key
+     * @return the stored value
+     */
+    static String format(int iterations, byte[] salt, byte[] derived) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + iterations + '$' + encoder.encodeToString(salt) + '$' + encoder.encodeToString(derived);
+    }
+
+    /**
+     * Computes the HMAC key pads from the current password.
+     * Keys longer than the block size are first hashed, as HMAC requires.
+     *
+     * @throws DigestException if the digest cannot be written
+     */
+    void preparePads() throws DigestException {
+        byte[] key = password;
+        int keyLength = passwordLength;
+        if (keyLength > BLOCK_SIZE) {
+            sha.reset();
+            sha.update(password, 0, passwordLength);
+            sha.digest(u, 0, DIGEST_LENGTH);
+            key = u;
+            keyLength = DIGEST_LENGTH;
+        }
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            byte k = i < keyLength ? key[i] : 0;
+            ipad[i] = (byte) (k ^ IPAD);
+            opad[i] = (byte) (k ^ OPAD);
+        }
+        sha.reset();
+    }
+
+    /**
+     * Sets {@link #counter} to the big-endian encoding of the PBKDF2 block index.
+     *
+     * @param block the one-based block index
+     */
+    void setCounter(int block) {
+        counter[0] = (byte) (block >>> 24);
+        counter[1] = (byte) (block >>> 16);
+        counter[2] = (byte) (block >>> 8);
+        counter[3] = (byte) block;
+    }
+
+    /**
+     * Compares the derived key to the expected hash in constant time.
+     *
+     * @return {@code true} if they are equal
+     */
+    boolean matches() {
+        int diff = expectedLength ^ derived.length;
+        for (int i = 0; i < derived.length; i++) {
+            diff |= derived[i] ^ expected[i];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Zeroes every buffer that may hold password-derived material.
+     */
+    private void clear() {
+        Arrays.fill(password, 0, passwordLength, (byte) 0);
+        passwordLength = 0;
+        Arrays.fill(ipad, (byte) 0);
+        Arrays.fill(opad, (byte) 0);
+        Arrays.fill(salt, (byte) 0);
+        saltLength = 0;
+        Arrays.fill(expected, (byte) 0);
+        expectedLength = 0;
+        iterations = 0;
+        Arrays.fill(derived, (byte) 0);
+        Arrays.fill(u, (byte) 0);
+        Arrays.fill(t, (byte) 0);
+        sha.reset();
+    }
+
+    private void ensurePasswordCapacity(int capacity) {
+        if (password.length < capacity) {
+            Arrays.fill(password, (byte) 0);
+            password = new byte[Math.max(capacity, password.length * 2)];
+        }
+    }
+
+    private int putChar(char c, int n) {
+        if (c < 0x80) {
+            password[n++] = (byte) c;
+        } else if (c < 0x800) {
+            password[n++] = (byte) (0xc0 | (c >> 6));
+            password[n++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            password[n++] = '?';
+        } else {
+            password[n++] = (byte) (0xe0 | (c >> 12));
+            password[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            password[n++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return n;
+    }
+
+    private int putCodePoint(int cp, int n) {
+        password[n++] = (byte) (0xf0 | (cp >> 18));
+        password[n++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        password[n++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        password[n++] = (byte) (0x80 | (cp & 0x3f));
+        return n;
+    }
+
+    private static int parseIterations(String src, int from, int to) {
+        if (to <= from || to - from > 10) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid stored password hash");
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (value < 1 || value > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes standard padded Base64 from {@code src[from, to)} into {@code dst}.
+     *
+     * @return the number of decoded bytes
+     * @throws IllegalArgumentException if the input is not valid Base64 or too long
+     */
+    private static int decodeBase64(String src, int from, int to, byte[] dst) {
+        while (to > from && src.charAt(to - 1) == '=') {
+            to--;
+        }
+        int length = to - from;
+        if (length % 4 == 1 || length / 4 * 3 + Math.max(0, length % 4 - 1) > dst.length) {
+            throw new IllegalArgumentException("Invalid stored password hash");
+        }
+        int n = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int value = c < 128 ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid stored password hash");
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                dst[n++] = (byte) (bits >> bitCount);
+            }
+        }
+        return n;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
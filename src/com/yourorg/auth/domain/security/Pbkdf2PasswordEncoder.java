@@ -1,86 +1,247 @@
 // src/com/yourorg/auth/security/Pbkdf2PasswordEncoder.java
 package com.yourorg.auth.domain.security;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.security.spec.KeySpec;
-import java.util.Base64;
+import java.time.Duration;
 import java.util.Objects;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
 
 /**
  * Password encoder implementation using PBKDF2 with HMAC SHA-256.
  * <p>
- * Generates a random salt for each password and encodes the salt and hash as Base64,
- * separated by a colon. Provides secure password hashing and verification.
+ * Generates a random salt for each password and stores it together with the algorithm and
+ * iteration count as {@code $pbkdf2-sha256$i=<iterations>$<salt>$<hash>}, salt and hash
+ * Base64-encoded. Legacy "salt:hash" values, which always used {@link #ITERATIONS}
+ * iterations, are still verified, and {@link #needsRehash(String)} reports them, along with
+ * any hash made with fewer iterations than this encoder's, so they can be upgraded on login.
+ * </p>
+ * <p>
+ * The iteration count can be fixed, or chosen at startup by {@link #calibrated(Duration)}
+ * to meet a target verification latency on the current machine.
+ * </p>
+ * <p>
+ * Hashing and verification run on a pooled {@link Pbkdf2Context}: the stored value is
+ * parsed and decoded in place, the password is encoded straight from the caller's
+ * {@link CharSequence} or {@code char[]}, and every buffer is zeroed afterwards.
+ * Verification therefore allocates nothing once the pool is warm.
  * </p>
  */
 public class Pbkdf2PasswordEncoder implements PasswordEncoder {
-    /** PBKDF2 algorithm with HMAC SHA-256. */
-    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
-    /** Number of PBKDF2 iterations. */
-    private static final int ITERATIONS = 65_536;
+    /** Default number of PBKDF2 iterations, and the number implied by legacy "salt:hash" values. */
+    static final int ITERATIONS = 65_536;
     /** Key length in bits. */
-    private static final int KEY_LENGTH = 256;
+    static final int KEY_LENGTH = 256;
+    /** Salt length in bytes. */
+    static final int SALT_LENGTH = 16;
     /** Secure random number generator for salt generation. */
     private static final SecureRandom random = new SecureRandom();
-    /** Base64 encoder for encoding salt and hash. */
-    private static final Base64.Encoder encoder = Base64.getEncoder();
-    /** Base64 decoder for decoding salt and hash. */
-    private static final Base64.Decoder decoder = Base64.getDecoder();
+    /** Iteration count used during calibration, small enough to stay well below any target. */
+    private static final int CALIBRATION_PROBE = 8_192;
+    /** Calibrated iteration counts are rounded down to a multiple of this. */
+    private static final int CALIBRATION_STEP = 8_192;
+    /** Number of timed probes; the fastest one is used. */
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    /** Number of PBKDF2 iterations used for new hashes. */
+    private final int iterations;
 
     /**
-     * Hashes the provided raw password using PBKDF2 with a random salt.
+     * Constructs an encoder that uses the default {@link #ITERATIONS}.
+     */
+    public Pbkdf2PasswordEncoder() {
+        this(ITERATIONS);
+    }
+
+    /**
+     * Constructs an encoder that hashes new passwords with the given iteration count.
+     *
+     * @param iterations the number of PBKDF2 iterations
+     * @throws IllegalArgumentException if {@code iterations} is not positive
+     */
+    public Pbkdf2PasswordEncoder(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Constructs an encoder whose iteration count has been calibrated on this machine.
+     *
+     * @param targetLatency the desired time to hash or verify one password
+     * @return the calibrated encoder
+     * @see #calibrate(Duration)
+     */
+    public static Pbkdf2PasswordEncoder calibrated(Duration targetLatency) {
+        return new Pbkdf2PasswordEncoder(calibrate(targetLatency));
+    }
+
+    /**
+     * Measures this machine and returns the iteration count at which one verification takes
+     * roughly {@code targetLatency}.
      * <p>
-     * The result is a Base64-encoded salt and hash, separated by a colon.
+     * A short probe is run a few times to warm up the JIT, and the fastest run is scaled
+     * linearly to the target. The result is rounded down to a multiple of 8,192 so that small
+     * measurement noise between restarts does not make every stored hash look outdated, and is
+     * never lower than {@link #ITERATIONS}, so slow machines do not weaken existing hashes.
      * </p>
      *
+     * @param targetLatency the desired time to hash or verify one password
+     * @return the iteration count to use
+     * @throws IllegalArgumentException if {@code targetLatency} is not positive
+     */
+    public static int calibrate(Duration targetLatency) {
+        if (targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Target latency must be positive");
+        }
+        Pbkdf2PasswordEncoder probe = new Pbkdf2PasswordEncoder(CALIBRATION_PROBE);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.hash("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        double perIteration = (double) Math.max(fastest, 1) / CALIBRATION_PROBE;
+        long target = (long) (targetLatency.toNanos() / perIteration);
+        long rounded = Math.min(target, Pbkdf2Context.MAX_ITERATIONS) / CALIBRATION_STEP * CALIBRATION_STEP;
+        return (int) Math.max(ITERATIONS, rounded);
+    }
+
+    /**
+     * Returns the number of iterations used for new hashes.
+     *
+     * @return the iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes the provided raw password using PBKDF2 with a random salt.
+     *
      * @param rawPassword the raw password to hash
-     * @return the encoded salt and hash, separated by a colon
+     * @return the self-describing stored value
      */
     @Override
     public String hash(CharSequence rawPassword) {
-        byte[] salt = new byte[16];
+        byte[] salt = new byte[SALT_LENGTH];
         random.nextBytes(salt);
-        byte[] hash = pbkdf2(rawPassword, salt);
-        return encoder.encodeToString(salt) + ":" + encoder.encodeToString(hash);
+        Pbkdf2Context ctx = Pbkdf2Context.acquire();
+        try {
+            ctx.setPassword(rawPassword);
+            ctx.setSalt(salt);
+            ctx.iterations = iterations;
+            pbkdf2(ctx);
+            return Pbkdf2Context.format(iterations, salt, ctx.derived);
+        } finally {
+            ctx.release();
+        }
     }
 
     /**
      * Verifies that the provided raw password matches the stored hash.
      * <p>
-     * The stored value must be in the format "salt:hash", both Base64-encoded.
+     * The stored value may be in the current self-describing format or the legacy
+     * "salt:hash" format; its own iteration count is used either way.
      * </p>
      *
      * @param rawPassword the raw password to verify
-     * @param stored the stored salt and hash, separated by a colon
+     * @param stored the stored hash
      * @return {@code true} if the password matches, {@code false} otherwise
      * @throws NullPointerException if {@code stored} is null
+     * @throws IllegalArgumentException if {@code stored} is not in the expected format
      */
     @Override
     public boolean verify(CharSequence rawPassword, String stored) {
-        String[] parts = Objects.requireNonNull(stored).split(":");
-        byte[] salt = decoder.decode(parts[0]);
-        byte[] expectedHash = decoder.decode(parts[1]);
-        byte[] actualHash = pbkdf2(rawPassword, salt);
-        return MessageDigest.isEqual(expectedHash, actualHash);
+        Objects.requireNonNull(stored);
+        Pbkdf2Context ctx = Pbkdf2Context.acquire();
+        try {
+            ctx.parse(stored);
+            ctx.setPassword(rawPassword);
+            pbkdf2(ctx);
+            return ctx.matches();
+        } finally {
+            ctx.release();
+        }
+    }
+
+    /**
+     * Verifies a password held in a character array without creating a String.
+     *
+     * @param rawPassword the raw password to verify
+     * @param stored the stored hash
+     * @return {@code true} if the password matches, {@code false} otherwise
+     * @throws NullPointerException if {@code stored} is null
+     * @throws IllegalArgumentException if {@code stored} is not in the expected format
+     */
+    @Override
+    public boolean verify(char[] rawPassword, String stored) {
+        Objects.requireNonNull(stored);
+        Pbkdf2Context ctx = Pbkdf2Context.acquire();
+        try {
+            ctx.parse(stored);
+            ctx.setPassword(rawPassword);
+            pbkdf2(ctx);
+            return ctx.matches();
+        } finally {
+            ctx.release();
+        }
+    }
+
+    /**
+     * Reports whether a stored hash uses the legacy format or fewer iterations than this encoder.
+     *
+     * @param stored the stored hash
+     * @return {@code true} if the password should be hashed again
+     * @throws IllegalArgumentException if {@code stored} has a malformed iteration count
+     */
+    @Override
+    public boolean needsRehash(String stored) {
+        return Pbkdf2Context.iterationsOf(stored) < iterations;
     }
 
     /**
-     * Computes the PBKDF2 hash of the given password and salt.
+     * Computes the PBKDF2 hash of the context's password and salt into {@link Pbkdf2Context#derived}.
+     * <p>
+     * Each HMAC is evaluated by feeding the precomputed key pads through the context's
+     * reusable digest, so the loop performs no allocation.
+     * </p>
      *
-     * @param raw the raw password
-     * @param salt the salt
-     * @return the hashed password as a byte array
+     * @param ctx the context holding password and salt
      * @throws RuntimeException if hashing fails
      */
-    private byte[] pbkdf2(CharSequence raw, byte[] salt) {
+    private static void pbkdf2(Pbkdf2Context ctx) {
         try {
-            KeySpec spec = new PBEKeySpec(raw.toString().toCharArray(), salt, ITERATIONS, KEY_LENGTH);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(ALGORITHM);
-            return skf.generateSecret(spec).getEncoded();
-        } catch (Exception e) {
+            MessageDigest sha = ctx.sha;
+            byte[] u = ctx.u;
+            byte[] t = ctx.t;
+            byte[] out = ctx.derived;
+            ctx.preparePads();
+            for (int block = 1, offset = 0; offset < out.length; block++, offset += Pbkdf2Context.DIGEST_LENGTH) {
+                ctx.setCounter(block);
+                sha.update(ctx.ipad);
+                sha.update(ctx.salt, 0, ctx.saltLength);
+                sha.update(ctx.counter);
+                sha.digest(u, 0, u.length);
+                sha.update(ctx.opad);
+                sha.update(u);
+                sha.digest(u, 0, u.length);
+                System.arraycopy(u, 0, t, 0, u.length);
+                for (int i = 1, n = ctx.iterations; i < n; i++) {
+                    sha.update(ctx.ipad);
+                    sha.update(u);
+                    sha.digest(u, 0, u.length);
+                    sha.update(ctx.opad);
+                    sha.update(u);
+                    sha.digest(u, 0, u.length);
+                    for (int j = 0; j < u.length; j++) {
+                        t[j] ^= u[j];
+                    }
+                }
+                System.arraycopy(t, 0, out, offset, Math.min(t.length, out.length - offset));
+            }
+        } catch (DigestException e) {
             throw new RuntimeException("Error hashing password", e);
         }
     }
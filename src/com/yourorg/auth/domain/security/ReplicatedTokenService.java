@@ -0,0 +1,644 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.model.User;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Token service that keeps the sessions of a {@link UuidTokenService} in step across several
+ * nodes, so that a token issued by one node is accepted by all of them without sticky sessions.
+ * <p>
+ * Every node holds all sessions, and validation stays a local in-memory lookup. Token creation,
+ * the once-per-second refresh of a session's idle lifetime, expiry and revocation are recorded
+ * as events and copied to every connected peer over plain TCP. Nodes form a full mesh: each
+ * node {@link #addPeer(InetSocketAddress) connects} to the peers that were running before it,
+ * and a connection carries events in both directions.
+ * </p>
+ * <p>
+ * Writes are asynchronous and pipelined. The thread making a change only appends an event to
+ * each peer's bounded queue; a writer per peer drains whatever has accumulated into one
+ * checksummed frame and sends it without waiting for an acknowledgement, so batches grow with
+ * the load. Replication lag is bounded: if a peer's queue fills up, or its oldest event has
+ * waited longer than the maximum lag, the connection is dropped. Idle connections exchange
+ * heartbeats, and a peer that stays silent is dropped as well. Reconnecting, like a node
+ * joining for the first time, starts with a full resync: each side sends its revocations and
+ * all its live sessions before any new events.
+ * </p>
+ * <p>
+ * Revocations are remembered as tombstones until the tokens they cover have expired, so a
+ * token revoked on one node cannot be brought back by a late or resynced creation event from
+ * another. Revoking all tokens of a user covers, on every node, the sessions created up to
+ * and including the millisecond of the revocation. Session times are wall-clock times, so the
+ * nodes' clocks must be synchronized and their token lifetimes configured alike. A session used
+ * on one node just as it idles out on another may end, as idle refreshes and expiries replicate
+ * with the same lag.
+ * </p>
+ * <p>
+ * Events contain bearer tokens and are not encrypted; peers must be connected over a trusted
+ * network.
+ * </p>
+ */
+public class ReplicatedTokenService implements TokenService, AutoCloseable {
+    /** Default upper bound on how long an event may wait before it is sent to a peer. */
+    public static final Duration DEFAULT_MAX_LAG = Duration.ofSeconds(2);
+    /** Default number of events queued per peer. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+
+    private static final int MAGIC = 0x41555250;
+    private static final int VERSION = 1;
+    private static final int FRAME_HEADER = 8;
+    private static final int FRAME_BYTES = 1 << 17;
+    private static final int MAX_BATCH = 4_096;
+    private static final long HEARTBEAT_MILLIS = 500;
+    private static final int READ_TIMEOUT_MILLIS = (int) (5 * HEARTBEAT_MILLIS);
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final long RECONNECT_MILLIS = 200;
+    /** Number of tombstones kept before expired ones are first pruned. */
+    private static final int MIN_PRUNE_THRESHOLD = 1_024;
+
+    private static final byte CREATE = 1;
+    private static final byte TOUCH = 2;
+    private static final byte EXPIRE = 3;
+    private static final byte REVOKE = 4;
+    private static final byte REVOKE_USER = 5;
+
+    /** A change to replicate. {@code key} is the token, or the user id for {@link #REVOKE_USER}. */
+    private static final class Event {
+        final byte type;
+        final String key;
+        final String userId;
+        final long first;
+        final long second;
+        final long enqueuedAt = System.nanoTime();
+
+        Event(byte type, String key, String userId, long first, long second) {
+            this.type = type;
+            this.key = key;
+            this.userId = userId;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    private final UuidTokenService local;
+    private final long maxLagNanos;
+    private final int queueCapacity;
+    private final ServerSocket serverSocket;
+    private final Set<Link> links = ConcurrentHashMap.newKeySet();
+    private final List<Thread> connectors = new ArrayList<>();
+    /** Revoked tokens and when their sessions would have expired; guarded by {@code tombstoneLock} for writes. */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    /** Per user, the time up to which sessions created are revoked; guarded by {@code tombstoneLock} for writes. */
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+    /** Orders tombstone checks against tombstone writes, so a revocation and a creation cannot interleave. */
+    private final Object tombstoneLock = new Object();
+    /** Number of tombstones at which expired ones are pruned next; guarded by {@code tombstoneLock}. */
+    private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+    private volatile boolean closed;
+
+    /**
+     * Starts replicating a token service with the default lag bound and queue capacity.
+     *
+     * @param local the token service holding this node's sessions; it must not be replicated already
+     * @param bindAddress the address peers connect to; port {@code 0} picks a free port
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public ReplicatedTokenService(UuidTokenService local, InetSocketAddress bindAddress) {
+        this(local, bindAddress, DEFAULT_MAX_LAG, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Starts replicating a token service.
+     *
+     * @param local the token service holding this node's sessions; it must not be replicated already
+     * @param bindAddress the address peers connect to; port {@code 0} picks a free port
+     * @param maxLag how long an event may wait for a peer before the peer is dropped and resynced
+     * @param queueCapacity the number of events queued per peer before it is dropped and resynced
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public ReplicatedTokenService(UuidTokenService local, InetSocketAddress bindAddress, Duration maxLag,
+                                  int queueCapacity) {
+        if (maxLag.isNegative() || maxLag.isZero() || queueCapacity < 1) {
+            throw new IllegalArgumentException("Replication lag and queue capacity must be positive");
+        }
+        this.local = Objects.requireNonNull(local);
+        this.maxLagNanos = maxLag.toNanos();
+        this.queueCapacity = queueCapacity;
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot bind " + bindAddress, e);
+        }
+        local.setListener(new Replicator());
+        Thread.ofVirtual().name("token-replication-acceptor").start(this::acceptLoop);
+    }
+
+    /**
+     * Connects to a peer and keeps the connection up, reconnecting and resyncing whenever it drops.
+     *
+     * @param peer the replication address of the peer
+     */
+    public void addPeer(InetSocketAddress peer) {
+        Thread connector = Thread.ofVirtual().name("token-replication-connector-" + peer).unstarted(() -> {
+            while (!closed) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(peer, CONNECT_TIMEOUT_MILLIS);
+                    runLink(socket, peer.toString());
+                } catch (IOException e) {
+                    // The peer is down or the connection broke; try again shortly.
+                }
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        synchronized (connectors) {
+            if (closed) {
+                return;
+            }
+            connectors.add(connector);
+        }
+        connector.start();
+    }
+
+    /**
+     * Returns the port peers connect to.
+     *
+     * @return the replication port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of peers currently connected, in either direction.
+     *
+     * @return the number of open peer connections
+     */
+    public int getConnectedPeers() {
+        return links.size();
+    }
+
+    /**
+     * Creates a token on this node; it is replicated to the peers.
+     *
+     * @param user the user for whom to create the token
+     * @return the generated authentication token as a String
+     */
+    @Override
+    public String createToken(User user) {
+        return local.createToken(user);
+    }
+
+    /**
+     * Validates a token against this node's copy of the sessions.
+     *
+     * @param token the authentication token to validate
+     * @return an {@link Optional} containing the user if the token is valid, or empty if not found or expired
+     */
+    @Override
+    public Optional<User> validateToken(String token) {
+        return local.validateToken(token);
+    }
+
+    /**
+     * Validates many tokens against this node's copy of the sessions.
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        return local.authenticateAll(tokens);
+    }
+
+    /**
+     * Revokes a token on every node. Tokens unknown here are revoked on the peers as well, as
+     * their creation may not have arrived yet.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid on this node and has been revoked
+     */
+    @Override
+    public boolean revoke(String token) {
+        return local.revoke(token);
+    }
+
+    /**
+     * Revokes every token of a user on every node.
+     *
+     * @param userId the id of the user
+     * @return the number of live tokens revoked on this node
+     */
+    @Override
+    public int revokeAllForUser(String userId) {
+        return local.revokeAllForUser(userId);
+    }
+
+    /**
+     * Stops replicating and closes all peer connections. The local token service keeps running.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Nothing left to release.
+        }
+        synchronized (connectors) {
+            for (Thread connector : connectors) {
+                connector.interrupt();
+            }
+        }
+        for (Link link : links) {
+            link.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            String name = String.valueOf(socket.getRemoteSocketAddress());
+            Thread.ofVirtual().name("token-replication-reader-" + name).start(() -> {
+                try (socket) {
+                    runLink(socket, name);
+                } catch (IOException e) {
+                    // The connection broke; the peer reconnects.
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs a peer connection until it breaks: starts its writer and reads on the calling thread.
+     */
+    private void runLink(Socket socket, String name) throws IOException {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        Link link = new Link(socket, name);
+        // Register before the writer takes its snapshot, so no change falls between the two.
+        links.add(link);
+        if (closed) {
+            link.close();
+            return;
+        }
+        link.writer = Thread.ofVirtual().name("token-replication-writer-" + name).start(link::writeLoop);
+        try {
+            link.readLoop();
+        } finally {
+            link.close();
+        }
+    }
+
+    private void broadcast(Event event) {
+        for (Link link : links) {
+            link.offer(event);
+        }
+    }
+
+    // ---------------------------------------------------------------- applying peer events
+
+    private void apply(ByteBuffer records) throws IOException {
+        byte type = records.get();
+        switch (type) {
+            case CREATE: {
+                String token = readToken(records);
+                long absoluteExpiry = records.getLong();
+                long lastAccess = records.getLong();
+                applyCreate(token, readString(records), absoluteExpiry, lastAccess);
+                break;
+            }
+            case TOUCH:
+                local.applyTouch(readToken(records), records.getLong());
+                break;
+            case EXPIRE:
+                local.removeSession(readToken(records));
+                break;
+            case REVOKE:
+                revokeToken(readToken(records), records.getLong());
+                break;
+            case REVOKE_USER: {
+                String userId = readString(records);
+                revokeUser(userId, records.getLong());
+                break;
+            }
+            default:
+                throw new IOException("Unknown replication record type " + type);
+        }
+    }
+
+    /** Reinstates a session from a peer, unless it has been revoked. */
+    private void applyCreate(String token, String userId, long absoluteExpiry, long lastAccess) {
+        synchronized (tombstoneLock) {
+            Long revokedAt = revokedUsers.get(userId);
+            if (revokedTokens.containsKey(token)
+                    || (revokedAt != null && local.createdAt(absoluteExpiry) <= revokedAt)) {
+                return;
+            }
+            if (!local.restoreSession(token, userId, absoluteExpiry, lastAccess)) {
+                local.applyTouch(token, lastAccess);
+            }
+        }
+    }
+
+    /** Records a token's tombstone and removes its session. */
+    private void revokeToken(String token, long expiresAt) {
+        synchronized (tombstoneLock) {
+            revokedTokens.merge(token, expiresAt, Math::max);
+            local.removeSession(token);
+            pruneTombstones();
+        }
+    }
+
+    /** Records a user's revocation time and removes the sessions it covers. */
+    private void revokeUser(String userId, long revokedAt) {
+        synchronized (tombstoneLock) {
+            revokedUsers.merge(userId, revokedAt, Math::max);
+            local.removeSessionsOfUser(userId, revokedAt);
+            pruneTombstones();
+        }
+    }
+
+    /** Forgets tombstones whose sessions have all expired, once enough of them have piled up. */
+    private void pruneTombstones() {
+        if (revokedTokens.size() + revokedUsers.size() < pruneThreshold) {
+            return;
+        }
+        long now = local.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> now >= expiresAt);
+        // Every session created up to the revocation has reached its absolute expiry.
+        revokedUsers.values().removeIf(revokedAt -> local.createdAt(now) >= revokedAt);
+        pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, 2 * (revokedTokens.size() + revokedUsers.size()));
+    }
+
+    // ---------------------------------------------------------------- encoding
+
+    private static boolean isCanonicalUuid(String token) {
+        try {
+            return UUID.fromString(token).toString().equals(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Appends an event's record, starting a new frame if the current one is full. */
+    private static void write(FrameWriter frames, Event event) throws IOException {
+        switch (event.type) {
+            case CREATE:
+                writeCreate(frames, event.key, event.userId, event.first, event.second);
+                break;
+            case TOUCH:
+            case REVOKE:
+                writeToken(frames.reserve(1 + 16 + 8).put(event.type), event.key).putLong(event.first);
+                break;
+            case EXPIRE:
+                writeToken(frames.reserve(1 + 16).put(event.type), event.key);
+                break;
+            default:
+                byte[] id = event.key.getBytes(StandardCharsets.UTF_8);
+                frames.reserve(1 + 2 + id.length + 8).put(event.type).putShort((short) id.length).put(id)
+                        .putLong(event.first);
+                break;
+        }
+    }
+
+    private static void writeCreate(FrameWriter frames, String token, String userId, long absoluteExpiry,
+                                    long lastAccess) throws IOException {
+        byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+        writeToken(frames.reserve(1 + 16 + 8 + 8 + 2 + id.length).put(CREATE), token)
+                .putLong(absoluteExpiry).putLong(lastAccess).putShort((short) id.length).put(id);
+    }
+
+    private static ByteBuffer writeToken(ByteBuffer out, String token) {
+        UUID uuid = UUID.fromString(token);
+        return out.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static String readToken(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong()).toString();
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Packs records into checksummed frames {@code [int length][int crc32c][records]}. */
+    private static final class FrameWriter {
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(FRAME_BYTES);
+        private final CRC32C crc = new CRC32C();
+
+        FrameWriter(OutputStream out) {
+            this.out = out;
+            buffer.position(FRAME_HEADER);
+        }
+
+        /** Makes room for a record, sending the current frame first if needed. */
+        ByteBuffer reserve(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                flush();
+            }
+            return buffer;
+        }
+
+        /** Sends the current frame, which is an empty heartbeat if no records were added. */
+        void flush() throws IOException {
+            int length = buffer.position() - FRAME_HEADER;
+            crc.reset();
+            crc.update(buffer.array(), FRAME_HEADER, length);
+            buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+            out.write(buffer.array(), 0, buffer.position());
+            out.flush();
+            buffer.position(FRAME_HEADER);
+        }
+    }
+
+    // ---------------------------------------------------------------- connections
+
+    /** One connection to a peer, with its outgoing queue. */
+    private final class Link {
+        private final Socket socket;
+        private final String name;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private volatile boolean open = true;
+        volatile Thread writer;
+
+        Link(Socket socket, String name) {
+            this.socket = socket;
+            this.name = name;
+        }
+
+        /** Queues an event, dropping the connection if the peer has fallen too far behind. */
+        void offer(Event event) {
+            if (!queue.offer(event)) {
+                close();
+            }
+        }
+
+        void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            links.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release.
+            }
+            Thread w = writer;
+            if (w != null) {
+                w.interrupt();
+            }
+        }
+
+        /** Sends the greeting and a full resync, then queued events in batches until the link closes. */
+        void writeLoop() {
+            try {
+                FrameWriter frames = new FrameWriter(socket.getOutputStream());
+                frames.reserve(8).putInt(MAGIC).putInt(VERSION);
+                frames.flush();
+                for (Map.Entry<String, Long> e : revokedTokens.entrySet()) {
+                    writeToken(frames.reserve(1 + 16 + 8).put(REVOKE), e.getKey()).putLong(e.getValue());
+                }
+                for (Map.Entry<String, Long> e : revokedUsers.entrySet()) {
+                    write(frames, new Event(REVOKE_USER, e.getKey(), null, e.getValue(), 0));
+                }
+                local.forEachLiveSession((token, userId, absoluteExpiry, lastAccess) ->
+                        writeCreate(frames, token, userId, absoluteExpiry, lastAccess));
+                frames.flush();
+                long syncedAt = System.nanoTime();
+
+                List<Event> batch = new ArrayList<>();
+                while (open) {
+                    Event first = queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        frames.flush();
+                        continue;
+                    }
+                    // Events queued during the resync are measured from its end.
+                    long lag = System.nanoTime() - Math.max(first.enqueuedAt, syncedAt);
+                    if (lag > maxLagNanos) {
+                        throw new IOException("Replication to " + name + " fell "
+                                + TimeUnit.NANOSECONDS.toMillis(lag) + " ms behind");
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (Event event : batch) {
+                        write(frames, event);
+                    }
+                    frames.flush();
+                    batch.clear();
+                }
+            } catch (IOException | InterruptedException e) {
+                // Closing the link below makes the peer, or our connector, start over with a resync.
+            } finally {
+                close();
+            }
+        }
+
+        /** Applies the peer's frames until the link closes or the peer stays silent too long. */
+        void readLoop() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), FRAME_BYTES));
+            byte[] payload = new byte[FRAME_BYTES];
+            CRC32C crc = new CRC32C();
+            boolean greeted = false;
+            while (open) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > FRAME_BYTES - FRAME_HEADER) {
+                    throw new IOException("Invalid replication frame length " + length);
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Corrupt replication frame from " + name);
+                }
+                ByteBuffer records = ByteBuffer.wrap(payload, 0, length);
+                try {
+                    if (!greeted) {
+                        if (length != 8 || records.getInt() != MAGIC || records.getInt() != VERSION) {
+                            throw new IOException(name + " is not a compatible replication peer");
+                        }
+                        greeted = true;
+                        continue;
+                    }
+                    while (records.hasRemaining()) {
+                        apply(records);
+                    }
+                } catch (BufferUnderflowException e) {
+                    throw new IOException("Truncated replication record from " + name, e);
+                }
+            }
+        }
+    }
+
+    /** Turns the local service's changes into events for every peer. */
+    private final class Replicator implements UuidTokenService.SessionListener {
+        @Override
+        public void created(String token, String userId, long absoluteExpiry, long lastAccess) {
+            broadcast(new Event(CREATE, token, userId, absoluteExpiry, lastAccess));
+        }
+
+        @Override
+        public void touched(String token, long lastAccess) {
+            broadcast(new Event(TOUCH, token, null, lastAccess, 0));
+        }
+
+        @Override
+        public void expired(String token) {
+            broadcast(new Event(EXPIRE, token, null, 0, 0));
+        }
+
+        @Override
+        public void revoked(String token, long absoluteExpiry) {
+            if (!isCanonicalUuid(token)) {
+                return;
+            }
+            // Removing the session again under the lock covers a creation applied concurrently.
+            revokeToken(token, absoluteExpiry);
+            broadcast(new Event(REVOKE, token, null, absoluteExpiry, 0));
+        }
+
+        @Override
+        public void revokedAllForUser(String userId, long revokedAt) {
+            revokeUser(userId, revokedAt);
+            broadcast(new Event(REVOKE_USER, userId, null, revokedAt, 0));
+        }
+    }
+}
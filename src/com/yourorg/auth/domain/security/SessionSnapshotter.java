@@ -0,0 +1,334 @@
+package com.yourorg.auth.domain.security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Periodic binary snapshots of a {@link UuidTokenService}'s sessions, restored on startup.
+ * <p>
+ * Without snapshots, a restart drops every session and all users log in again at once, each
+ * login paying for a full password hash. The snapshotter writes the live sessions to
+ * {@code sessions-<sequence>.snap} in its directory at a fixed interval and once more on
+ * {@link #close()}, and the constructor reinstates the sessions from the newest snapshot before
+ * the first new one is taken.
+ * </p>
+ * <p>
+ * A snapshot pass walks the token map with a weakly consistent iterator and streams checksummed
+ * records through a fixed-size buffer, so it neither copies the table nor blocks token
+ * creation or validation. Tokens created during the pass are picked up by the next one. Each
+ * snapshot is written to a temporary file, forced to disk and renamed into place, and only the
+ * newest two are kept. Loading streams through the file the same way, skips sessions that
+ * expired while the service was down, and stops at the first corrupt record. If the newest
+ * snapshot is unreadable, the one before it is used instead.
+ * </p>
+ * <p>
+ * Snapshots contain bearer tokens. Where the file system supports POSIX permissions they are
+ * created readable by the owner only.
+ * </p>
+ */
+public class SessionSnapshotter implements AutoCloseable {
+    /** Default time between snapshots. */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+
+    private static final String PREFIX = "sessions-";
+    private static final String SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int KEPT_SNAPSHOTS = 2;
+
+    private static final int MAGIC = 0x41555353;
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    /** Payload bytes besides the user id: token, both deadlines and the id length. */
+    private static final int FIXED_PAYLOAD = 16 + 8 + 8 + 2;
+    private static final int MAX_PAYLOAD = FIXED_PAYLOAD + 0xffff;
+    private static final int BUFFER_BYTES = 1 << 17;
+
+    /** Streams the sessions of one snapshot pass into a file. */
+    private static final class SnapshotWriter implements UuidTokenService.SessionVisitor {
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+        private long position;
+        long count;
+
+        SnapshotWriter(FileChannel channel) {
+            this.channel = channel;
+            out.putInt(MAGIC).putInt(VERSION);
+        }
+
+        @Override
+        public void visit(String token, String userId, long absoluteExpiry, long lastAccess) throws IOException {
+            UUID uuid = UUID.fromString(token);
+            byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+            int length = FIXED_PAYLOAD + id.length;
+            if (length > MAX_PAYLOAD) {
+                throw new IOException("User id too long for a snapshot: " + userId);
+            }
+            if (out.remaining() < RECORD_HEADER + length) {
+                flush();
+            }
+            int start = out.position();
+            out.putInt(length).putInt(0)
+                    .putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits())
+                    .putLong(absoluteExpiry).putLong(lastAccess)
+                    .putShort((short) id.length).put(id);
+            out.putInt(start + 4, crc(out.array(), start + RECORD_HEADER, length));
+            count++;
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                position += channel.write(out, position);
+            }
+            out.clear();
+        }
+    }
+
+    private final UuidTokenService tokens;
+    private final Path directory;
+    private final ScheduledExecutorService scheduler;
+    private final long restored;
+    /** Sequence number of the next snapshot; guarded by {@code this}. */
+    private long nextSequence;
+
+    /**
+     * Restores the newest snapshot in a directory and starts taking snapshots at the default interval.
+     *
+     * @param tokens the token service to snapshot and restore
+     * @param directory the directory holding the snapshots
+     * @throws UncheckedIOException if the directory cannot be read
+     */
+    public SessionSnapshotter(UuidTokenService tokens, Path directory) {
+        this(tokens, directory, DEFAULT_INTERVAL, true);
+    }
+
+    /**
+     * Restores the newest snapshot in a directory and optionally starts taking snapshots.
+     * <p>
+     * Without a scheduler, snapshots are only taken by {@link #snapshot()} and {@link #close()}.
+     * </p>
+     *
+     * @param tokens the token service to snapshot and restore
+     * @param directory the directory holding the snapshots
+     * @param interval the time between snapshots
+     * @param startScheduler whether to start the background snapshot thread
+     * @throws UncheckedIOException if the directory cannot be read
+     */
+    public SessionSnapshotter(UuidTokenService tokens, Path directory, Duration interval, boolean startScheduler) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        this.tokens = tokens;
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX + TEMP_SUFFIX)) {
+                for (Path temp : temps) {
+                    Files.delete(temp);
+                }
+            }
+            List<Long> sequences = sequences();
+            this.nextSequence = sequences.isEmpty() ? 1 : sequences.get(0) + 1;
+            this.restored = restore(sequences);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open session snapshots in " + directory, e);
+        }
+        if (startScheduler) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-snapshotter");
+                t.setDaemon(true);
+                return t;
+            });
+            long millis = interval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Returns the number of sessions reinstated from the newest readable snapshot on startup.
+     *
+     * @return the restored session count
+     */
+    public long getRestoredCount() {
+        return restored;
+    }
+
+    /**
+     * Writes a snapshot of the live sessions and deletes all but the newest two snapshots.
+     *
+     * @return the number of sessions written
+     * @throws UncheckedIOException if the snapshot cannot be written; earlier snapshots are kept
+     */
+    public synchronized long snapshot() {
+        long sequence = nextSequence++;
+        Path target = directory.resolve(fileName(sequence));
+        Path temp = directory.resolve(fileName(sequence) + TEMP_SUFFIX);
+        try {
+            long count;
+            try (FileChannel channel = create(temp)) {
+                SnapshotWriter writer = new SnapshotWriter(channel);
+                tokens.forEachLiveSession(writer);
+                writer.flush();
+                channel.force(true);
+                count = writer.count;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            List<Long> sequences = sequences();
+            for (int i = KEPT_SNAPSHOTS; i < sequences.size(); i++) {
+                Files.deleteIfExists(directory.resolve(fileName(sequences.get(i))));
+            }
+            return count;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The next startup removes leftover temporary files.
+            }
+            throw new UncheckedIOException("Cannot write session snapshot " + target, e);
+        }
+    }
+
+    /**
+     * Stops the background thread, if one was started, and takes a final snapshot.
+     *
+     * @throws UncheckedIOException if the final snapshot cannot be written
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        snapshot();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (UncheckedIOException e) {
+            // The previous snapshot stays in place; the next pass tries again.
+        }
+    }
+
+    private long restore(List<Long> sequences) {
+        for (long sequence : sequences) {
+            try {
+                return load(directory.resolve(fileName(sequence)));
+            } catch (IOException e) {
+                // Unreadable; fall back to the previous snapshot.
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Streams the records of a snapshot into the token service.
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    private long load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES).flip();
+            if (!fill(channel, in, HEADER) || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a session snapshot: " + file);
+            }
+            long count = 0;
+            while (fill(channel, in, RECORD_HEADER)) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length < FIXED_PAYLOAD || length > MAX_PAYLOAD || !fill(channel, in, length)
+                        || crc(in.array(), in.position(), length) != checksum) {
+                    break;
+                }
+                UUID token = new UUID(in.getLong(), in.getLong());
+                long absoluteExpiry = in.getLong();
+                long lastAccess = in.getLong();
+                int idLength = Short.toUnsignedInt(in.getShort());
+                if (idLength != length - FIXED_PAYLOAD) {
+                    break;
+                }
+                String userId = new String(in.array(), in.position(), idLength, StandardCharsets.UTF_8);
+                in.position(in.position() + idLength);
+                if (tokens.restoreSession(token.toString(), userId, absoluteExpiry, lastAccess)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Makes at least {@code needed} bytes readable in the buffer, reading more from the channel if required.
+     *
+     * @return {@code false} if the channel ends first
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer in, int needed) throws IOException {
+        if (in.remaining() >= needed) {
+            return true;
+        }
+        in.compact();
+        while (in.position() < needed) {
+            if (channel.read(in) < 0) {
+                break;
+            }
+        }
+        in.flip();
+        return in.remaining() >= needed;
+    }
+
+    /** Returns the sequence numbers of the snapshots in the directory, newest first. */
+    private List<Long> sequences() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours.
+                }
+            }
+        }
+        sequences.sort(Comparator.reverseOrder());
+        return sequences;
+    }
+
+    private static String fileName(long sequence) {
+        return String.format("%s%020d%s", PREFIX, sequence, SUFFIX);
+    }
+
+    private static FileChannel create(Path path) throws IOException {
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return FileChannel.open(path, EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
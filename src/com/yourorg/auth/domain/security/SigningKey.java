@@ -0,0 +1,99 @@
+package com.yourorg.auth.domain.security;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC-SHA256 key used to sign and verify stateless tokens.
+ * <p>
+ * Each key carries a numeric identifier that is embedded in every token it signs,
+ * so verifiers can pick the right key during rotation. Initialized {@link Mac} instances
+ * are kept in a small pool, which virtual-thread callers can draw from as well.
+ * </p>
+ */
+public final class SigningKey {
+    /** HMAC algorithm used for token signatures. */
+    static final String ALGORITHM = "HmacSHA256";
+    /** Minimum secret length in bytes. */
+    private static final int MIN_SECRET_LENGTH = 32;
+    /** Secure random number generator for key generation. */
+    private static final SecureRandom random = new SecureRandom();
+
+    private final int id;
+    private final SecretKeySpec secret;
+    /** Initialized Macs ready for reuse. */
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Constructs a signing key from existing secret material.
+     *
+     * @param id the key identifier embedded in tokens
+     * @param secret the secret bytes, at least 32 bytes long; the array is copied
+     * @throws IllegalArgumentException if the secret is too short
+     */
+    public SigningKey(int id, byte[] secret) {
+        if (secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("Signing key must be at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        this.id = id;
+        this.secret = new SecretKeySpec(Arrays.copyOf(secret, secret.length), ALGORITHM);
+    }
+
+    /**
+     * Generates a new random 256-bit signing key.
+     *
+     * @param id the key identifier embedded in tokens
+     * @return the new key
+     */
+    public static SigningKey generate(int id) {
+        byte[] secret = new byte[MIN_SECRET_LENGTH];
+        random.nextBytes(secret);
+        return new SigningKey(id, secret);
+    }
+
+    /**
+     * Returns the key identifier.
+     *
+     * @return the key identifier
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Takes a {@link Mac} initialized with this key from the pool, or creates one if none is free.
+     * Hand it back with {@link #release(Mac)} once done.
+     *
+     * @return a Mac instance for the caller's exclusive use
+     */
+    Mac acquire() {
+        Mac instance = macs.poll();
+        return instance != null ? instance : newMac();
+    }
+
+    /**
+     * Resets a Mac obtained from {@link #acquire()} and returns it to the pool.
+     *
+     * @param instance the Mac to return
+     */
+    void release(Mac instance) {
+        instance.reset();
+        macs.offer(instance);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(secret);
+            return instance;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
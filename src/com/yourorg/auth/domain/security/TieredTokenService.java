@@ -0,0 +1,455 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.model.User;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Token service keeping sessions in a persistent {@link FileSessionStore}, with the active
+ * sessions cached on the heap in front of it.
+ * <p>
+ * Tokens are random UUIDs and sessions have an absolute and an idle lifetime, as in
+ * {@link UuidTokenService}. Every session is written to the store when it is created, so it
+ * survives a restart, and the store may hold more sessions than fit in memory. Validation first
+ * looks in the hot tier, a bounded {@link TinyLfuCache} whose admission policy keeps the
+ * frequently used sessions and lets one-off lookups pass through without displacing them. A miss
+ * reads the store and offers the session to the hot tier.
+ * </p>
+ * <p>
+ * Tokens that the store does not know, whether they never existed, were revoked or have
+ * expired, are remembered by a 64-bit fingerprint in a fixed-size negative cache, so that
+ * repeated requests with the same bad token do not reach the store either. Malformed tokens
+ * are rejected without any lookup.
+ * </p>
+ * <p>
+ * The idle lifetime is extended in the hot tier on each validation and written back to the
+ * store at most once per write-back interval (a quarter of the idle lifetime, at most one
+ * minute), and when the session leaves the hot tier. After a crash, a session may therefore
+ * idle out up to one interval early. The store only reclaims sessions that expired more than
+ * one interval ago, so it never drops a session that is still live in the hot tier.
+ * </p>
+ * <p>
+ * Hit, miss, negative-hit and eviction counts are exposed for monitoring; as the hot tier is
+ * sized for the active sessions rather than all of them, its hit rate is what decides whether
+ * validation runs at memory speed.
+ * </p>
+ */
+public class TieredTokenService implements TokenService, AutoCloseable {
+    /** Default number of sessions cached on the heap. */
+    public static final int DEFAULT_HOT_CAPACITY = 10_000;
+    /** Default number of unknown tokens remembered. */
+    public static final int DEFAULT_NEGATIVE_CAPACITY = 1 << 14;
+    /** Interval between two sweeps of a store segment. */
+    private static final long SWEEP_INTERVAL_MILLIS = 1_000;
+    /** Upper bound of the interval at which idle extensions are written back to the store. */
+    private static final long MAX_WRITE_BACK_MILLIS = 60_000;
+
+    /** A session in the hot tier; the last access is extended without locking. */
+    private static final class HotSession {
+        final long hi;
+        final long lo;
+        final String userId;
+        final long absoluteExpiry;
+        volatile long lastAccess;
+        /** Last access as of the store's copy of the session. */
+        volatile long storedLastAccess;
+
+        HotSession(long hi, long lo, String userId, long absoluteExpiry, long lastAccess, long storedLastAccess) {
+            this.hi = hi;
+            this.lo = lo;
+            this.userId = userId;
+            this.absoluteExpiry = absoluteExpiry;
+            this.lastAccess = lastAccess;
+            this.storedLastAccess = storedLastAccess;
+        }
+
+        long expiresAt(long idleTtl) {
+            return Math.min(absoluteExpiry, lastAccess + idleTtl);
+        }
+    }
+
+    private final Function<String, Optional<User>> userLookup;
+    private final FileSessionStore store;
+    private final long absoluteTtl;
+    private final long idleTtl;
+    private final long writeBackMillis;
+    private final Clock clock;
+    private final TinyLfuCache<String, HotSession> hot;
+    /** Fingerprints of tokens the store does not know; {@code 0} marks an empty slot. */
+    private final AtomicLongArray negative;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final ScheduledExecutorService sweeper;
+    private int nextSweepSegment;
+
+    /**
+     * Constructs a new TieredTokenService with the default lifetimes and cache sizes and a
+     * background sweeper.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param store the store holding all sessions; not closed by {@link #close()}
+     */
+    public TieredTokenService(Function<String, Optional<User>> userLookup, FileSessionStore store) {
+        this(userLookup, store, DEFAULT_HOT_CAPACITY, DEFAULT_NEGATIVE_CAPACITY,
+                UuidTokenService.DEFAULT_ABSOLUTE_TTL, UuidTokenService.DEFAULT_IDLE_TTL, Clock.systemUTC(), true);
+    }
+
+    /**
+     * Constructs a new TieredTokenService.
+     * <p>
+     * Without a background sweeper, expired sessions are still rejected but are only removed
+     * when {@link #evictExpired()} is called.
+     * </p>
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param store the store holding all sessions; not closed by {@link #close()}
+     * @param hotCapacity the maximum number of sessions cached on the heap
+     * @param negativeCapacity the number of unknown tokens remembered; rounded up to a power of two
+     * @param absoluteTtl the maximum lifetime of a token
+     * @param idleTtl the lifetime of a token since it was last validated
+     * @param clock the clock used for expiry decisions
+     * @param startSweeper whether to start the background sweeper thread
+     */
+    public TieredTokenService(Function<String, Optional<User>> userLookup, FileSessionStore store, int hotCapacity,
+                              int negativeCapacity, Duration absoluteTtl, Duration idleTtl, Clock clock,
+                              boolean startSweeper) {
+        if (absoluteTtl.isNegative() || absoluteTtl.isZero() || idleTtl.isNegative() || idleTtl.isZero()) {
+            throw new IllegalArgumentException("Token lifetimes must be positive");
+        }
+        if (negativeCapacity < 1) {
+            throw new IllegalArgumentException("Negative cache capacity must be positive");
+        }
+        this.userLookup = Objects.requireNonNull(userLookup);
+        this.store = Objects.requireNonNull(store);
+        this.absoluteTtl = absoluteTtl.toMillis();
+        this.idleTtl = idleTtl.toMillis();
+        this.writeBackMillis = Math.max(1, Math.min(MAX_WRITE_BACK_MILLIS, this.idleTtl / 4));
+        this.clock = Objects.requireNonNull(clock);
+        this.hot = new TinyLfuCache<>(hotCapacity, this::writeBack);
+        this.negative = new AtomicLongArray(Math.max(2, Integer.highestOneBit(negativeCapacity - 1) << 1));
+        if (startSweeper) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tiered-token-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepNextSegment, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /**
+     * Creates a new authentication token for the specified user, stores its session and caches it.
+     *
+     * @param user the user for whom to create the token
+     * @return the generated authentication token as a String
+     * @throws IllegalArgumentException if the user id is not a canonical UUID
+     */
+    @Override
+    public String createToken(User user) {
+        UUID userId = parseUuid(user.getId());
+        if (userId == null) {
+            throw new IllegalArgumentException("User id is not a canonical UUID: " + user.getId());
+        }
+        long now = clock.millis();
+        long absoluteExpiry = now + absoluteTtl;
+        while (true) {
+            UUID uuid = UUID.randomUUID();
+            long hi = uuid.getMostSignificantBits();
+            long lo = uuid.getLeastSignificantBits();
+            String token = uuid.toString();
+            long stamp = hot.stamp(token);
+            if (store.insert(hi, lo, userId.getMostSignificantBits(), userId.getLeastSignificantBits(),
+                    absoluteExpiry, Math.min(absoluteExpiry, now + idleTtl), now - writeBackMillis)) {
+                forgetMissing(hi, lo);
+                hot.put(token, new HotSession(hi, lo, user.getId(), absoluteExpiry, now, now), stamp);
+                return token;
+            }
+        }
+    }
+
+    /**
+     * Validates the provided authentication token and retrieves the associated user.
+     * <p>
+     * Rejects the token if either lifetime has elapsed, and otherwise extends its idle lifetime
+     * and resolves the user by id.
+     * </p>
+     *
+     * @param token the authentication token to validate
+     * @return an {@link Optional} containing the user if the token is valid, or empty if not found or expired
+     */
+    @Override
+    public Optional<User> validateToken(String token) {
+        String userId = touch(token, clock.millis());
+        return userId == null ? Optional.empty() : userLookup.apply(userId);
+    }
+
+    /**
+     * Validates many tokens against a single reading of the clock, resolving each distinct user once.
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        long now = clock.millis();
+        Map<String, String> userIds = new HashMap<>();
+        for (String token : tokens) {
+            String userId = touch(token, now);
+            if (userId != null) {
+                userIds.put(token, userId);
+            }
+        }
+        return UserBatchResolver.resolve(userIds, userLookup);
+    }
+
+    /**
+     * Revokes a token, removing its session from both tiers.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean revoke(String token) {
+        UUID uuid = parseUuid(token);
+        if (uuid == null) {
+            return false;
+        }
+        long hi = uuid.getMostSignificantBits();
+        long lo = uuid.getLeastSignificantBits();
+        long now = clock.millis();
+        // Removing from the hot tier after the store keeps a concurrent miss from caching the session again.
+        long storedExpiry = store.remove(hi, lo);
+        HotSession session = hot.remove(token);
+        rememberMissing(hi, lo);
+        return storedExpiry != 0 && now < (session != null ? session.expiresAt(idleTtl) : storedExpiry);
+    }
+
+    /**
+     * Revokes every token of a user. The hot tier is small and scanned directly; the store has
+     * no index by user and is scanned in full, so this costs time proportional to the number of
+     * stored sessions.
+     *
+     * @param userId the id of the user
+     * @return the number of live tokens revoked
+     */
+    @Override
+    public int revokeAllForUser(String userId) {
+        UUID uuid = parseUuid(userId);
+        if (uuid == null) {
+            return 0;
+        }
+        long now = clock.millis();
+        // Write back idle extensions first, so that the store's copies show which sessions are live.
+        hot.forEach((token, session) -> {
+            if (session.userId.equals(userId)) {
+                writeBack(token, session);
+            }
+        });
+        int[] revoked = new int[1];
+        store.removeAllForUser(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), (hi, lo, expiresAt) -> {
+            rememberMissing(hi, lo);
+            if (now < expiresAt) {
+                revoked[0]++;
+            }
+        });
+        hot.removeIf((token, session) -> session.userId.equals(userId));
+        return revoked[0];
+    }
+
+    /**
+     * Removes expired sessions from the hot tier and sweeps every segment of the store once.
+     */
+    public void evictExpired() {
+        for (int i = 0; i < FileSessionStore.SEGMENTS; i++) {
+            sweepNextSegment();
+        }
+    }
+
+    /**
+     * Returns the number of validations answered by the hot tier.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of validations that had to read the store.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of validations rejected by the negative cache or as malformed,
+     * without reading the store.
+     *
+     * @return the negative hit count
+     */
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    /**
+     * Returns the number of sessions evicted from the hot tier, or refused admission to it, to make room.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return hot.evictionCount();
+    }
+
+    /**
+     * Returns the number of sessions currently cached on the heap.
+     *
+     * @return the hot tier's size
+     */
+    public int hotSize() {
+        return hot.size();
+    }
+
+    /**
+     * Stops the background sweeper, if one was started, and writes the idle extensions of cached
+     * sessions back to the store, which stays open.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            try {
+                sweeper.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        hot.forEach(this::writeBack);
+        store.flush();
+    }
+
+    /**
+     * Looks up a live session, extending its idle lifetime.
+     *
+     * @return the id of the session's user, or {@code null} if the token is unknown or expired
+     */
+    private String touch(String token, long now) {
+        if (token == null) {
+            return null;
+        }
+        HotSession session = hot.get(token);
+        if (session != null) {
+            hits.increment();
+            if (now >= session.expiresAt(idleTtl)) {
+                store.remove(session.hi, session.lo);
+                hot.remove(token);
+                rememberMissing(session.hi, session.lo);
+                return null;
+            }
+            if (now > session.lastAccess) {
+                session.lastAccess = now;
+                if (now - session.storedLastAccess >= writeBackMillis) {
+                    session.storedLastAccess = now;
+                    store.extend(session.hi, session.lo, session.expiresAt(idleTtl));
+                }
+            }
+            return session.userId;
+        }
+        UUID uuid = parseUuid(token);
+        if (uuid == null || isKnownMissing(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())) {
+            negativeHits.increment();
+            return null;
+        }
+        misses.increment();
+        long hi = uuid.getMostSignificantBits();
+        long lo = uuid.getLeastSignificantBits();
+        long stamp = hot.stamp(token);
+        long[] stored = new long[4];
+        if (!store.get(hi, lo, now, stored)) {
+            rememberMissing(hi, lo);
+            return null;
+        }
+        String userId = new UUID(stored[0], stored[1]).toString();
+        long absoluteExpiry = stored[2];
+        HotSession loaded = new HotSession(hi, lo, userId, absoluteExpiry, now, stored[3] - idleTtl);
+        if (now - loaded.storedLastAccess >= writeBackMillis) {
+            loaded.storedLastAccess = now;
+            store.extend(hi, lo, loaded.expiresAt(idleTtl));
+        }
+        hot.put(token, loaded, stamp);
+        return userId;
+    }
+
+    /** Sweeps expired sessions out of the hot tier and one store segment, and forces the store. */
+    private void sweepNextSegment() {
+        long now = clock.millis();
+        hot.removeIf((token, session) -> now >= session.expiresAt(idleTtl));
+        int segment;
+        synchronized (this) {
+            segment = nextSweepSegment;
+            nextSweepSegment = (segment + 1) % FileSessionStore.SEGMENTS;
+        }
+        store.sweep(segment, now - writeBackMillis);
+        store.flush();
+    }
+
+    /** Writes a cached session's idle extension to the store, if it has not been written yet. */
+    private void writeBack(String token, HotSession session) {
+        long lastAccess = session.lastAccess;
+        if (lastAccess > session.storedLastAccess) {
+            session.storedLastAccess = lastAccess;
+            store.extend(session.hi, session.lo, session.expiresAt(idleTtl));
+        }
+    }
+
+    private boolean isKnownMissing(long hi, long lo) {
+        long fingerprint = fingerprint(hi, lo);
+        return negative.get((int) fingerprint & (negative.length() - 1)) == fingerprint;
+    }
+
+    private void rememberMissing(long hi, long lo) {
+        long fingerprint = fingerprint(hi, lo);
+        negative.set((int) fingerprint & (negative.length() - 1), fingerprint);
+    }
+
+    private void forgetMissing(long hi, long lo) {
+        long fingerprint = fingerprint(hi, lo);
+        negative.compareAndSet((int) fingerprint & (negative.length() - 1), fingerprint, 0);
+    }
+
+    /** Mixes a token into a non-zero 64-bit fingerprint. */
+    private static long fingerprint(long hi, long lo) {
+        long h = (hi ^ Long.rotateLeft(lo, 32)) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        return h == 0 ? 1 : h;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.yourorg.auth.domain.security;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for cheap expiry of large numbers of entries.
+ * <p>
+ * Time is divided into ticks, and ticks are written in base 64: level {@code L} of the
+ * wheel has 64 slots indexed by the {@code L}-th base-64 digit of a deadline. An entry is
+ * filed under the highest digit in which its deadline differs from the current tick and
+ * is cascaded one level down whenever the wheel reaches that digit; entries beyond the
+ * top level's span are parked there and re-filed once per rotation. Advancing therefore
+ * touches only the entries that expire or cascade; nothing is ever scanned.
+ * </p>
+ * <p>
+ * {@link #schedule(Object, long)} may be called from any thread; new entries are handed
+ * over through a lock-free queue. {@link #advance(long, Consumer)} must only be called by
+ * a single thread at a time.
+ * </p>
+ *
+ * @param <T> the type of scheduled items
+ */
+final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /** A scheduled item, linked into the list of its slot. */
+    private static final class Entry<T> {
+        final T item;
+        final long deadlineTick;
+        Entry<T> next;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int levels;
+    private final Entry<T>[][] slots;
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    /**
+     * Constructs a new TimingWheel.
+     *
+     * @param tickMillis the length of one tick in milliseconds
+     * @param levels the number of levels; the wheel spans {@code 64^levels} ticks
+     * @param nowMillis the current time in milliseconds
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long tickMillis, int levels, long nowMillis) {
+        if (tickMillis < 1 || levels < 1 || levels > 10) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = new Entry[levels][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to be reported once the wheel has advanced past its deadline.
+     * Items are reported at tick granularity, on the first tick at or after their deadline.
+     *
+     * @param item the item
+     * @param deadlineMillis the deadline in milliseconds
+     */
+    void schedule(T item, long deadlineMillis) {
+        pending.add(new Entry<>(item, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis)));
+    }
+
+    /**
+     * Advances the wheel to the given time and reports every item whose deadline tick
+     * has been reached.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @param expired receives the expired items
+     */
+    void advance(long nowMillis, Consumer<? super T> expired) {
+        for (Entry<T> e; (e = pending.poll()) != null; ) {
+            insert(e, expired);
+        }
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels - 1; level >= 0; level--) {
+                int shift = level * SLOT_BITS;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    int index = (int) (currentTick >>> shift) & SLOT_MASK;
+                    Entry<T> e = slots[level][index];
+                    slots[level][index] = null;
+                    while (e != null) {
+                        Entry<T> next = e.next;
+                        insert(e, expired);
+                        e = next;
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(Entry<T> e, Consumer<? super T> expired) {
+        long deadline = e.deadlineTick;
+        if (deadline <= currentTick) {
+            expired.accept(e.item);
+            return;
+        }
+        int level = Math.min((63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / SLOT_BITS, levels - 1);
+        int shift = level * SLOT_BITS;
+        int index;
+        if ((deadline >>> shift) - (currentTick >>> shift) < SLOTS) {
+            index = (int) (deadline >>> shift) & SLOT_MASK;
+        } else {
+            // Beyond the wheel's span: park in the top level's farthest slot and re-file on cascade.
+            index = (int) ((currentTick >>> shift) - 1) & SLOT_MASK;
+        }
+        e.next = slots[level][index];
+        slots[level][index] = e;
+    }
+}
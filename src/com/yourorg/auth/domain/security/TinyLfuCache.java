@@ -0,0 +1,367 @@
+package com.yourorg.auth.domain.security;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded cache with W-TinyLFU eviction.
+ * <p>
+ * New entries enter a small LRU window of about 1% of the capacity. An entry pushed out of the
+ * window becomes a candidate for the main region, a segmented LRU whose protected part holds 80%
+ * of it and whose probation part holds the rest; entries found again while on probation are
+ * promoted to the protected part. When the main region is full, the candidate is only admitted
+ * if it has been requested more often than the entry it would evict, as estimated by a
+ * count-min sketch of 4-bit counters that is halved every ten capacities' worth of requests,
+ * so that past popularity fades. One-off requests, such as a scan of unknown keys, therefore
+ * pass through the window without displacing the frequently used entries.
+ * </p>
+ * <p>
+ * The cache is split into independently locked segments, each with its own regions and
+ * sketch. Like {@link com.yourorg.auth.domain.repository.CachingUserRepository}, every
+ * removal increments a segment's invalidation counter, so a caller that loaded a value from a
+ * slower store can tell whether it was removed meanwhile before putting it in.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class TinyLfuCache<K, V> {
+    /** Number of independently locked segments. */
+    private static final int SEGMENTS = 16;
+    /** Share of a segment's capacity given to the admission window. */
+    private static final double WINDOW_SHARE = 0.01;
+    /** Share of a segment's main region given to protected entries. */
+    private static final double PROTECTED_SHARE = 0.8;
+
+    /**
+     * Count-min sketch of four rows of 4-bit counters, sixteen to a long. Counters saturate at
+     * 15 and are all halved once the number of increments reaches the sample size.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Math.max(8, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+            this.table = new long[size];
+            this.sampleSize = 10 * capacity;
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = rehash(hash, i);
+                int shift = counterShift(h);
+                frequency = Math.min(frequency, (int) ((table[index(h)] >>> shift) & 15));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = rehash(hash, i);
+                int index = index(h);
+                int shift = counterShift(h);
+                if (((table[index] >>> shift) & 15) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private static long rehash(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return h + (h >>> 32);
+        }
+
+        private int index(long h) {
+            return (int) h & (table.length - 1);
+        }
+
+        private static int counterShift(long h) {
+            return (int) ((h >>> 40) & 15) << 2;
+        }
+    }
+
+    /** One lock's worth of cache: the three regions, the sketch and the counters. */
+    private static final class Segment<K, V> {
+        final Map<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+        final Map<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+        final Map<K, V> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        final FrequencySketch sketch;
+        final int windowCapacity;
+        final int mainCapacity;
+        final int protectedCapacity;
+        /** Incremented by every removal, so a racing load can detect it. */
+        long invalidations;
+        long evictions;
+
+        Segment(int capacity) {
+            this.sketch = new FrequencySketch(capacity);
+            this.windowCapacity = Math.max(1, (int) (capacity * WINDOW_SHARE));
+            this.mainCapacity = Math.max(1, capacity - windowCapacity);
+            this.protectedCapacity = Math.max(1, (int) (mainCapacity * PROTECTED_SHARE));
+        }
+
+        int size() {
+            return window.size() + probation.size() + protectedEntries.size();
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+    private final BiConsumer<K, V> evictionListener;
+
+    /**
+     * Constructs a cache.
+     *
+     * @param capacity the maximum number of entries
+     * @param evictionListener receives entries evicted to make room, while their segment is locked;
+     *                         it must not call back into the cache
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    @SuppressWarnings("unchecked")
+    TinyLfuCache(int capacity, BiConsumer<K, V> evictionListener) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.evictionListener = evictionListener;
+        int perSegment = Math.max(2, (capacity + SEGMENTS - 1) / SEGMENTS);
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    /**
+     * Looks up an entry and records the request in the frequency sketch, whether or not it hits.
+     *
+     * @param key the key
+     * @return the cached value, or {@code null} if absent
+     */
+    V get(K key) {
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        synchronized (segment) {
+            segment.sketch.increment(hash);
+            V value = segment.window.get(key);
+            if (value != null) {
+                return value;
+            }
+            value = segment.probation.remove(key);
+            if (value != null) {
+                segment.protectedEntries.put(key, value);
+                if (segment.protectedEntries.size() > segment.protectedCapacity) {
+                    // Demote the least recently used protected entry back to probation.
+                    Map.Entry<K, V> demoted = removeEldest(segment.protectedEntries);
+                    segment.probation.put(demoted.getKey(), demoted.getValue());
+                }
+                return value;
+            }
+            return segment.protectedEntries.get(key);
+        }
+    }
+
+    /**
+     * Returns the invalidation counter of a key's segment, to be passed to
+     * {@link #put(Object, Object, long)} after loading the key's value.
+     *
+     * @param key the key about to be loaded
+     * @return the segment's current invalidation count
+     */
+    long stamp(K key) {
+        Segment<K, V> segment = segmentFor(hash(key));
+        synchronized (segment) {
+            return segment.invalidations;
+        }
+    }
+
+    /**
+     * Adds an entry through the admission window, unless an entry of its segment has been
+     * removed since the stamp was taken. An entry already present keeps its place and gets the new value.
+     *
+     * @param key the key
+     * @param value the value
+     * @param stamp the result of {@link #stamp(Object)} taken before the value was loaded
+     * @return {@code true} if the entry was added or updated
+     */
+    boolean put(K key, V value, long stamp) {
+        Segment<K, V> segment = segmentFor(hash(key));
+        synchronized (segment) {
+            if (segment.invalidations != stamp) {
+                return false;
+            }
+            if (segment.window.containsKey(key)) {
+                segment.window.put(key, value);
+                return true;
+            }
+            if (segment.probation.containsKey(key)) {
+                segment.probation.put(key, value);
+                return true;
+            }
+            if (segment.protectedEntries.containsKey(key)) {
+                segment.protectedEntries.put(key, value);
+                return true;
+            }
+            segment.window.put(key, value);
+            if (segment.window.size() > segment.windowCapacity) {
+                Map.Entry<K, V> candidate = removeEldest(segment.window);
+                admit(segment, candidate.getKey(), candidate.getValue());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Removes an entry. Removals are not reported to the eviction listener.
+     *
+     * @param key the key
+     * @return the removed value, or {@code null} if absent
+     */
+    V remove(K key) {
+        Segment<K, V> segment = segmentFor(hash(key));
+        synchronized (segment) {
+            segment.invalidations++;
+            V value = segment.window.remove(key);
+            if (value == null) {
+                value = segment.probation.remove(key);
+            }
+            if (value == null) {
+                value = segment.protectedEntries.remove(key);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Removes every entry matching a predicate, one segment at a time. The predicate is called
+     * while the entry's segment is locked; removals are not reported to the eviction listener.
+     *
+     * @param filter selects the entries to remove
+     * @return the number of entries removed
+     */
+    int removeIf(BiPredicate<K, V> filter) {
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                removed += removeIf(segment.window, filter);
+                removed += removeIf(segment.probation, filter);
+                removed += removeIf(segment.protectedEntries, filter);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Passes every entry to an action, one segment at a time, while the segment is locked.
+     *
+     * @param action receives each entry
+     */
+    void forEach(BiConsumer<K, V> action) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.window.forEach(action);
+                segment.probation.forEach(action);
+                segment.protectedEntries.forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the cache size
+     */
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room, including candidates refused admission.
+     *
+     * @return the eviction count
+     */
+    long evictionCount() {
+        long evictions = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /** Moves a candidate from the window into the main region if it is popular enough. */
+    private void admit(Segment<K, V> segment, K key, V value) {
+        if (segment.probation.size() + segment.protectedEntries.size() < segment.mainCapacity) {
+            segment.probation.put(key, value);
+            return;
+        }
+        Map<K, V> victims = segment.probation.isEmpty() ? segment.protectedEntries : segment.probation;
+        K victim = victims.keySet().iterator().next();
+        if (segment.sketch.frequency(hash(key)) > segment.sketch.frequency(hash(victim))) {
+            V evicted = victims.remove(victim);
+            segment.probation.put(key, value);
+            evicted(segment, victim, evicted);
+        } else {
+            evicted(segment, key, value);
+        }
+    }
+
+    private void evicted(Segment<K, V> segment, K key, V value) {
+        segment.evictions++;
+        if (evictionListener != null) {
+            evictionListener.accept(key, value);
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(Map<K, V> region) {
+        Iterator<Map.Entry<K, V>> it = region.entrySet().iterator();
+        Map.Entry<K, V> eldest = it.next();
+        Map.Entry<K, V> copy = Map.entry(eldest.getKey(), eldest.getValue());
+        it.remove();
+        return copy;
+    }
+
+    private static <K, V> int removeIf(Map<K, V> region, BiPredicate<K, V> filter) {
+        int removed = 0;
+        for (Iterator<Map.Entry<K, V>> it = region.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, V> e = it.next();
+            if (filter.test(e.getKey(), e.getValue())) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENTS - 1)];
+    }
+}
@@ -0,0 +1,168 @@
+package com.yourorg.auth.domain.security;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free table of token buckets keyed by string.
+ * <p>
+ * Each bucket is kept in the form used by the generic cell rate algorithm: instead of a token
+ * count and a last-refill time, it stores a single <em>theoretical arrival time</em> (TAT),
+ * the moment at which the bucket would be full again. Taking a token moves the TAT forward by
+ * one refill interval; the attempt is allowed as long as the TAT stays within
+ * {@code burst} intervals of now. This is exactly a token bucket of capacity {@code burst},
+ * but it fits in one word, so every update is a single compare-and-set.
+ * </p>
+ * <p>
+ * A slot packs a 24-bit fingerprint of the key with a 40-bit TAT in milliseconds since the
+ * table was created (enough for 34 years). Slots are grouped into sets of {@value #WAYS}; a key
+ * lives in the set selected by its seeded hash. When a new key arrives and its set is full,
+ * the slot with the earliest TAT is overwritten. That is the bucket closest to full, and any
+ * bucket whose TAT has passed is indistinguishable from a fresh one, so under normal load
+ * eviction loses nothing. Memory is fixed at eight bytes per slot no matter how many distinct
+ * keys are seen, and threads only ever contend on the set they touch.
+ * </p>
+ * <p>
+ * Two keys whose fingerprints collide within a set share a bucket. With 24-bit fingerprints
+ * this happens for about one key pair in two million per set, and only makes throttling
+ * slightly stricter for them.
+ * </p>
+ */
+final class TokenBucketTable {
+    /** Slots per set. */
+    static final int WAYS = 8;
+    private static final int TAT_BITS = 40;
+    private static final long TAT_MASK = (1L << TAT_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+    private final long intervalMillis;
+    private final long burstMillis;
+    private final long epochMillis;
+    private final long seed = new SecureRandom().nextLong();
+
+    /**
+     * Creates a table.
+     *
+     * @param capacity the number of buckets, rounded up to a power of two of at least {@value #WAYS}
+     * @param burst the bucket capacity in tokens
+     * @param intervalMillis the time to refill one token
+     * @param nowMillis the current time, used as the table's epoch
+     */
+    TokenBucketTable(int capacity, int burst, long intervalMillis, long nowMillis) {
+        if (burst < 1 || intervalMillis < 1) {
+            throw new IllegalArgumentException("Burst and refill interval must be positive");
+        }
+        int size = Math.max(WAYS, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.slots = new AtomicLongArray(size);
+        this.setMask = size / WAYS - 1;
+        this.intervalMillis = intervalMillis;
+        this.burstMillis = burst * intervalMillis;
+        this.epochMillis = nowMillis;
+    }
+
+    /**
+     * Takes one token from the key's bucket if one is available.
+     *
+     * @param key the bucket key
+     * @param nowMillis the current time
+     * @return {@code 0} if a token was taken, otherwise the milliseconds until one will be available
+     */
+    long tryAcquire(String key, long nowMillis) {
+        long hash = hash(key);
+        long fingerprint = fingerprint(hash);
+        int base = setOf(hash);
+        long now = Math.max(0, nowMillis - epochMillis);
+        while (true) {
+            int victim = base;
+            long victimSlot = 0;
+            long victimTat = Long.MAX_VALUE;
+            boolean raced = false;
+            for (int i = base; i < base + WAYS; i++) {
+                long slot = slots.get(i);
+                long tat = slot == 0 ? -1 : slot & TAT_MASK;
+                if (slot != 0 && (slot >>> TAT_BITS) == fingerprint) {
+                    long next = Math.max(tat, now) + intervalMillis;
+                    if (next - now > burstMillis) {
+                        return next - now - burstMillis;
+                    }
+                    if (slots.compareAndSet(i, slot, pack(fingerprint, next))) {
+                        return 0;
+                    }
+                    raced = true;
+                    break;
+                }
+                if (tat < victimTat) {
+                    victim = i;
+                    victimSlot = slot;
+                    victimTat = tat;
+                }
+            }
+            if (!raced && slots.compareAndSet(victim, victimSlot, pack(fingerprint, now + intervalMillis))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a token to the key's bucket, e.g. after an attempt turned out to be legitimate.
+     * Does nothing if the bucket has been evicted or is already full.
+     *
+     * @param key the bucket key
+     * @param nowMillis the current time
+     */
+    void refund(String key, long nowMillis) {
+        long hash = hash(key);
+        long fingerprint = fingerprint(hash);
+        int base = setOf(hash);
+        long now = Math.max(0, nowMillis - epochMillis);
+        for (int i = base; i < base + WAYS; i++) {
+            long slot = slots.get(i);
+            while (slot != 0 && (slot >>> TAT_BITS) == fingerprint) {
+                long tat = slot & TAT_MASK;
+                if (tat <= now || slots.compareAndSet(i, slot, pack(fingerprint, Math.max(now, tat - intervalMillis)))) {
+                    return;
+                }
+                slot = slots.get(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of slots.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return slots.length();
+    }
+
+    private int setOf(long hash) {
+        return ((int) hash & setMask) * WAYS;
+    }
+
+    private static long fingerprint(long hash) {
+        long fingerprint = hash >>> TAT_BITS;
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private static long pack(long fingerprint, long tat) {
+        return fingerprint << TAT_BITS | (tat & TAT_MASK);
+    }
+
+    /**
+     * Hashes the key with a per-table random seed, so that clients cannot choose keys that
+     * all land in the same set and evict each other on purpose.
+     */
+    private long hash(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -1,14 +1,23 @@
 package com.yourorg.auth.domain.security;
 
 import com.yourorg.auth.domain.model.User;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Service interface for creating and validating authentication tokens.
+ * Service interface for creating, validating and revoking authentication tokens.
  * <p>
  * Implementations are responsible for generating tokens for authenticated users
  * and validating tokens to retrieve the associated user.
  * </p>
+ * <p>
+ * Revocation is safe to run alongside token creation and validation: once {@link #revoke(String)}
+ * or {@link #revokeAllForUser(String)} returns, the revoked tokens no longer validate, and a
+ * token created concurrently with {@code revokeAllForUser} is either revoked or was created
+ * after it.
+ * </p>
  */
 public interface TokenService {
     /**
@@ -26,4 +35,39 @@ public interface TokenService {
      * @return an {@link Optional} containing the user if the token is valid, or empty if invalid or expired
      */
     Optional<User> validateToken(String token);
+
+    /**
+     * Validates many tokens at once, for callers such as gateways that check a batch of requests together.
+     * <p>
+     * The default implementation validates the tokens one by one. Implementations may group
+     * the lookups by how their sessions are stored and should resolve each user only once, however
+     * many of the tokens belong to that user.
+     * </p>
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    default Map<String, User> authenticateAll(Collection<String> tokens) {
+        Map<String, User> users = new HashMap<>();
+        for (String token : tokens) {
+            validateToken(token).ifPresent(user -> users.put(token, user));
+        }
+        return users;
+    }
+
+    /**
+     * Revokes a token, e.g. on logout, so that it no longer validates.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    boolean revoke(String token);
+
+    /**
+     * Revokes every token of a user, e.g. after a password change or when the account is compromised.
+     *
+     * @param userId the id of the user
+     * @return the number of live tokens revoked, or {@code 0} if the implementation does not track tokens
+     */
+    int revokeAllForUser(String userId);
 }
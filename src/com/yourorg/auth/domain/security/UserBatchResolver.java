@@ -0,0 +1,36 @@
+package com.yourorg.auth.domain.security;
+
+import com.yourorg.auth.domain.model.User;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves the users of a batch of validated tokens, looking up each user id only once.
+ * <p>
+ * Gateways often validate several tokens of the same user together, so the token services'
+ * {@link TokenService#authenticateAll(java.util.Collection)} implementations collect the user id
+ * of every valid token first and resolve the distinct ids here.
+ * </p>
+ */
+final class UserBatchResolver {
+    private UserBatchResolver() {
+    }
+
+    /**
+     * Resolves the user of every token.
+     *
+     * @param userIdsByToken the user id of each valid token
+     * @param userLookup resolves a user id to the current user
+     * @return the users keyed by token; tokens whose user no longer exists are absent
+     */
+    static Map<String, User> resolve(Map<String, String> userIdsByToken, Function<String, Optional<User>> userLookup) {
+        Map<String, Optional<User>> usersById = new HashMap<>();
+        Map<String, User> users = new HashMap<>();
+        for (Map.Entry<String, String> e : userIdsByToken.entrySet()) {
+            usersById.computeIfAbsent(e.getValue(), userLookup).ifPresent(user -> users.put(e.getKey(), user));
+        }
+        return users;
+    }
+}
@@ -1,26 +1,177 @@
 package com.yourorg.auth.domain.security;
 
 import com.yourorg.auth.domain.model.User;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Simple token service implementation using randomly generated UUIDs as tokens.
  * <p>
- * Stores tokens and associated users in a thread-safe in-memory map.
+ * Stores tokens and the ids of their users in a thread-safe in-memory map.
  * Intended for development or testing; not suitable for production use.
  * </p>
+ * <p>
+ * Sessions hold only the user id, which is resolved through a lookup function on every
+ * validation, typically {@link com.yourorg.auth.domain.repository.UserRepository#findById(String)}
+ * behind a {@link com.yourorg.auth.domain.repository.CachingUserRepository}. Sessions therefore
+ * stay small, and changes to a user are visible to the next validation.
+ * </p>
+ * <p>
+ * Every token has an absolute lifetime and an idle (sliding) lifetime that is extended
+ * each time the token is validated. Expired tokens are rejected by
+ * {@link #validateToken(String)} immediately and removed from the map by a background
+ * sweeper driven by a {@link TimingWheel}, so eviction costs are proportional to the
+ * number of expiring tokens rather than the size of the map.
+ * </p>
+ * <p>
+ * A reverse index from each user id to the user's tokens lets {@link #revokeAllForUser(String)}
+ * end every session of a user in time proportional to that user's sessions. A token is stored
+ * and indexed while holding the index entry of its user, so a concurrent revocation either
+ * sees the new token or runs entirely before it was created.
+ * </p>
+ * <p>
+ * Expiry times are wall-clock times, so sessions can outlive the process: a
+ * {@link SessionSnapshotter} periodically writes the live sessions to disk and restores them
+ * on startup. For the same reason they can be shared between processes: a
+ * {@link ReplicatedTokenService} copies every change to its peers.
+ * </p>
  */
-public class UuidTokenService implements TokenService {
-    /** Thread-safe map storing tokens and their associated users. */
-    private final Map<String, User> tokenStore = new ConcurrentHashMap<>();
+public class UuidTokenService implements TokenService, AutoCloseable {
+    /** Default absolute token lifetime. */
+    public static final Duration DEFAULT_ABSOLUTE_TTL = Duration.ofHours(8);
+    /** Default idle token lifetime. */
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(30);
+    /** Granularity of the expiry sweeper. */
+    private static final long TICK_MILLIS = 1_000;
+    /** Number of timing wheel levels; four levels of one-second ticks span about 194 days. */
+    private static final int WHEEL_LEVELS = 4;
+
+    /** A live session: the user id plus its absolute and sliding deadlines. */
+    private static final class Session {
+        final String userId;
+        final long absoluteExpiry;
+        /** Last time the session was used, updated at most once per sweeper tick. */
+        volatile long lastAccess;
+
+        Session(String userId, long absoluteExpiry, long lastAccess) {
+            this.userId = userId;
+            this.absoluteExpiry = absoluteExpiry;
+            this.lastAccess = lastAccess;
+        }
+
+        long expiresAt(long idleTtl) {
+            return Math.min(absoluteExpiry, lastAccess + idleTtl);
+        }
+    }
+
+    /** Receives the sessions visited by {@link #forEachLiveSession(SessionVisitor)}. */
+    @FunctionalInterface
+    interface SessionVisitor {
+        void visit(String token, String userId, long absoluteExpiry, long lastAccess) throws IOException;
+    }
+
+    /**
+     * Receives the changes made through this service's public methods and its sweeper, for
+     * replication. Changes applied through the package-private restore and apply methods are
+     * not reported. Called on the thread making the change, so implementations must not block.
+     */
+    interface SessionListener {
+        void created(String token, String userId, long absoluteExpiry, long lastAccess);
+
+        void touched(String token, long lastAccess);
+
+        void expired(String token);
+
+        void revoked(String token, long absoluteExpiry);
+
+        void revokedAllForUser(String userId, long revokedAt);
+    }
+
+    /** Thread-safe map storing tokens and their associated sessions. */
+    private final Map<String, Session> tokenStore = new ConcurrentHashMap<>();
+    /** Tokens of each user; a user's set is only read or changed while holding its map entry. */
+    private final Map<String, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    private final Function<String, Optional<User>> userLookup;
+    private final long absoluteTtl;
+    private final long idleTtl;
+    private final Clock clock;
+    private final TimingWheel<String> expiryWheel;
+    private final ScheduledExecutorService sweeper;
+    private volatile SessionListener listener;
+
+    /**
+     * Constructs a new UuidTokenService with the default lifetimes and a background sweeper.
+     *
+     * @param userLookup resolves a user id to the current user
+     */
+    public UuidTokenService(Function<String, Optional<User>> userLookup) {
+        this(userLookup, DEFAULT_ABSOLUTE_TTL, DEFAULT_IDLE_TTL);
+    }
+
+    /**
+     * Constructs a new UuidTokenService with a background sweeper.
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param absoluteTtl the maximum lifetime of a token
+     * @param idleTtl the lifetime of a token since it was last validated
+     */
+    public UuidTokenService(Function<String, Optional<User>> userLookup, Duration absoluteTtl, Duration idleTtl) {
+        this(userLookup, absoluteTtl, idleTtl, Clock.systemUTC(), true);
+    }
+
+    /**
+     * Constructs a new UuidTokenService.
+     * <p>
+     * Without a background sweeper, expired tokens are still rejected but are only removed
+     * from memory when {@link #evictExpired()} is called.
+     * </p>
+     *
+     * @param userLookup resolves a user id to the current user
+     * @param absoluteTtl the maximum lifetime of a token
+     * @param idleTtl the lifetime of a token since it was last validated
+     * @param clock the clock used for expiry decisions
+     * @param startSweeper whether to start the background sweeper thread
+     */
+    public UuidTokenService(Function<String, Optional<User>> userLookup, Duration absoluteTtl, Duration idleTtl,
+                            Clock clock, boolean startSweeper) {
+        if (absoluteTtl.isNegative() || absoluteTtl.isZero() || idleTtl.isNegative() || idleTtl.isZero()) {
+            throw new IllegalArgumentException("Token lifetimes must be positive");
+        }
+        this.userLookup = Objects.requireNonNull(userLookup);
+        this.absoluteTtl = absoluteTtl.toMillis();
+        this.idleTtl = idleTtl.toMillis();
+        this.clock = Objects.requireNonNull(clock);
+        this.expiryWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_LEVELS, clock.millis());
+        if (startSweeper) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "token-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleWithFixedDelay(this::evictExpired, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
 
     /**
      * Creates a new authentication token for the specified user.
      * <p>
-     * Generates a random UUID as the token and stores the mapping in memory.
+     * Generates a random UUID as the token and stores the mapping to the user's id in memory.
      * </p>
      *
      * @param user the user for whom to create the token
@@ -29,21 +180,333 @@ public class UuidTokenService implements TokenService {
     @Override
     public String createToken(User user) {
         String token = UUID.randomUUID().toString();
-        tokenStore.put(token, user);
+        long now = clock.millis();
+        Session session = new Session(user.getId(), now + absoluteTtl, now);
+        store(token, session);
+        expiryWheel.schedule(token, session.expiresAt(idleTtl));
+        SessionListener l = listener;
+        if (l != null) {
+            l.created(token, session.userId, session.absoluteExpiry, now);
+        }
         return token;
     }
 
     /**
      * Validates the provided authentication token and retrieves the associated user.
      * <p>
-     * Looks up the token in the in-memory store.
+     * Looks up the token in the in-memory store, rejects it if either lifetime has
+     * elapsed, and otherwise extends its idle lifetime and resolves the user by id.
      * </p>
      *
      * @param token the authentication token to validate
-     * @return an {@link Optional} containing the user if the token is valid, or empty if not found
+     * @return an {@link Optional} containing the user if the token is valid, or empty if not found or expired
      */
     @Override
     public Optional<User> validateToken(String token) {
-        return Optional.ofNullable(tokenStore.get(token));
+        String userId = touch(token, clock.millis());
+        return userId == null ? Optional.empty() : userLookup.apply(userId);
+    }
+
+    /**
+     * Validates many tokens at once.
+     * <p>
+     * All tokens are checked against a single reading of the clock, and each distinct user
+     * is looked up once.
+     * </p>
+     *
+     * @param tokens the authentication tokens to validate
+     * @return the users of the valid tokens, keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        long now = clock.millis();
+        Map<String, String> userIds = new HashMap<>();
+        for (String token : tokens) {
+            String userId = touch(token, now);
+            if (userId != null) {
+                userIds.put(token, userId);
+            }
+        }
+        return UserBatchResolver.resolve(userIds, userLookup);
+    }
+
+    /**
+     * Checks a token's lifetimes and extends its idle lifetime.
+     *
+     * @return the id of the token's user, or {@code null} if the token is unknown or expired
+     */
+    private String touch(String token, long now) {
+        Session session = token == null ? null : tokenStore.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (now >= session.expiresAt(idleTtl)) {
+            expire(token, session);
+            return null;
+        }
+        if (now - session.lastAccess >= TICK_MILLIS) {
+            session.lastAccess = now;
+            SessionListener l = listener;
+            if (l != null) {
+                l.touched(token, now);
+            }
+        }
+        return session.userId;
+    }
+
+    /**
+     * Revokes a token by removing its session.
+     *
+     * @param token the authentication token to revoke
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean revoke(String token) {
+        Session session = token == null ? null : tokenStore.get(token);
+        boolean revoked = session != null && discard(token, session);
+        SessionListener l = listener;
+        if (l != null && token != null) {
+            // Also reported for tokens not known here, which may be known elsewhere.
+            l.revoked(token, session != null ? session.absoluteExpiry : clock.millis() + absoluteTtl);
+        }
+        return revoked && clock.millis() < session.expiresAt(idleTtl);
+    }
+
+    /**
+     * Revokes every token of a user, visiting only that user's sessions.
+     *
+     * @param userId the id of the user
+     * @return the number of live tokens revoked
+     */
+    @Override
+    public int revokeAllForUser(String userId) {
+        if (userId == null) {
+            return 0;
+        }
+        long now = clock.millis();
+        Set<String> tokens = tokensByUser.remove(userId);
+        SessionListener l = listener;
+        if (l != null) {
+            l.revokedAllForUser(userId, now);
+        }
+        if (tokens == null) {
+            return 0;
+        }
+        int revoked = 0;
+        for (String token : tokens) {
+            Session session = tokenStore.remove(token);
+            if (session != null && now < session.expiresAt(idleTtl)) {
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * Stores a session unless its token is taken, adding the token to its user's index under
+     * the index entry's lock.
+     *
+     * @return {@code true} if the session was stored
+     */
+    private boolean store(String token, Session session) {
+        boolean[] stored = new boolean[1];
+        tokensByUser.compute(session.userId, (userId, tokens) -> {
+            Set<String> indexed = tokens != null ? tokens : new HashSet<>();
+            if (tokenStore.putIfAbsent(token, session) == null) {
+                indexed.add(token);
+                stored[0] = true;
+            }
+            return indexed.isEmpty() ? null : indexed;
+        });
+        return stored[0];
+    }
+
+    /**
+     * Removes a session and its index entry.
+     *
+     * @return {@code true} if the session was still stored under the token
+     */
+    private boolean discard(String token, Session session) {
+        if (!tokenStore.remove(token, session)) {
+            return false;
+        }
+        tokensByUser.computeIfPresent(session.userId, (userId, tokens) -> {
+            tokens.remove(token);
+            return tokens.isEmpty() ? null : tokens;
+        });
+        return true;
+    }
+
+    /** Removes an expired session and reports it. */
+    private void expire(String token, Session session) {
+        if (discard(token, session)) {
+            SessionListener l = listener;
+            if (l != null) {
+                l.expired(token);
+            }
+        }
+    }
+
+    /**
+     * Advances the expiry wheel to the current time and removes every expired token.
+     * Tokens whose idle lifetime was extended since they were scheduled are rescheduled.
+     * Called by the background sweeper once per tick; direct calls wait for a running sweep
+     * to finish, as the wheel may only be advanced by one thread at a time.
+     */
+    public synchronized void evictExpired() {
+        long now = clock.millis();
+        expiryWheel.advance(now, token -> {
+            Session session = tokenStore.get(token);
+            if (session == null) {
+                return;
+            }
+            long expiresAt = session.expiresAt(idleTtl);
+            if (now >= expiresAt) {
+                expire(token, session);
+            } else {
+                expiryWheel.schedule(token, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Visits every session that has not expired, without blocking concurrent token operations.
+     * <p>
+     * The iteration is weakly consistent: sessions created or removed while it runs may or
+     * may not be visited.
+     * </p>
+     *
+     * @param visitor receives each live session
+     * @throws IOException if the visitor fails
+     */
+    void forEachLiveSession(SessionVisitor visitor) throws IOException {
+        long now = clock.millis();
+        for (Map.Entry<String, Session> e : tokenStore.entrySet()) {
+            Session session = e.getValue();
+            if (now < session.expiresAt(idleTtl)) {
+                visitor.visit(e.getKey(), session.userId, session.absoluteExpiry, session.lastAccess);
+            }
+        }
+    }
+
+    /**
+     * Reinstates a session taken from a snapshot, unless it has expired in the meantime or
+     * the token is already in use.
+     *
+     * @param token the token
+     * @param userId the id of the session's user
+     * @param absoluteExpiry when the session expires regardless of use, in epoch milliseconds
+     * @param lastAccess when the session was last used, in epoch milliseconds
+     * @return {@code true} if the session was reinstated
+     */
+    boolean restoreSession(String token, String userId, long absoluteExpiry, long lastAccess) {
+        Session session = new Session(userId, absoluteExpiry, lastAccess);
+        long expiresAt = session.expiresAt(idleTtl);
+        if (clock.millis() >= expiresAt || !store(token, session)) {
+            return false;
+        }
+        expiryWheel.schedule(token, expiresAt);
+        return true;
+    }
+
+    /**
+     * Moves a session's last access time forward, without reporting the change.
+     *
+     * @param token the token
+     * @param lastAccess when the session was last used, in epoch milliseconds
+     */
+    void applyTouch(String token, long lastAccess) {
+        Session session = tokenStore.get(token);
+        if (session != null && lastAccess > session.lastAccess) {
+            session.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Removes a session, without reporting the change.
+     *
+     * @param token the token
+     */
+    void removeSession(String token) {
+        Session session = tokenStore.get(token);
+        if (session != null) {
+            discard(token, session);
+        }
+    }
+
+    /**
+     * Removes the sessions of a user that were created at or before a given time, without
+     * reporting the change. Later sessions of the user are kept.
+     *
+     * @param userId the id of the user
+     * @param createdUpTo the latest creation time removed, in epoch milliseconds
+     */
+    void removeSessionsOfUser(String userId, long createdUpTo) {
+        tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+            tokens.removeIf(token -> {
+                Session session = tokenStore.get(token);
+                if (session == null) {
+                    return true;
+                }
+                if (createdAt(session.absoluteExpiry) <= createdUpTo) {
+                    tokenStore.remove(token, session);
+                    return true;
+                }
+                return false;
+            });
+            return tokens.isEmpty() ? null : tokens;
+        });
+    }
+
+    /**
+     * Returns when a session was created, given its absolute expiry.
+     *
+     * @param absoluteExpiry when the session expires regardless of use, in epoch milliseconds
+     * @return the creation time in epoch milliseconds
+     */
+    long createdAt(long absoluteExpiry) {
+        return absoluteExpiry - absoluteTtl;
+    }
+
+    /**
+     * Returns the current time of this service's clock.
+     *
+     * @return the current time in epoch milliseconds
+     */
+    long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    /**
+     * Installs the listener that receives this service's changes.
+     *
+     * @param listener the listener
+     * @throws IllegalStateException if a listener is already installed
+     */
+    synchronized void setListener(SessionListener listener) {
+        if (this.listener != null) {
+            throw new IllegalStateException("Token service already has a session listener");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the number of tokens currently held in memory, including expired tokens
+     * that have not been swept yet.
+     *
+     * @return the number of stored tokens
+     */
+    public int size() {
+        return tokenStore.size();
+    }
+
+    /**
+     * Stops the background sweeper, if one was started.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
     }
-}
\ No newline at end of file
+}
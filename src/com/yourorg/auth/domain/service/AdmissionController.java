@@ -0,0 +1,324 @@
+package com.yourorg.auth.domain.service;
+
+import com.yourorg.auth.domain.exception.OverloadedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive, deadline-aware admission control for password hashing.
+ * <p>
+ * At most {@link #getLimit()} hashing operations run at once; further requests queue. Before
+ * queueing, a request's wait is estimated from the number of requests ahead of it, the current
+ * limit and the smoothed hashing latency. If that estimate already overshoots the caller's
+ * deadline, the request fails at once with an {@link OverloadedException} instead of burning
+ * CPU on an answer nobody will read. Requests that do queue give up when their deadline passes.
+ * </p>
+ * <p>
+ * The limit adapts Vegas-style. Hashing is CPU-bound, so once more operations run than there
+ * are cores, each one takes proportionally longer. The controller takes the lowest smoothed
+ * latency of the last {@value #BASELINE_WINDOW} to {@code 2 * }{@value #BASELINE_WINDOW}
+ * operations as its uncontended baseline, and after every operation estimates how many
+ * operations are queued for CPU as {@code limit * (1 - baseline / latency)}. Below
+ * {@value #ALPHA} the limit grows by one, provided it is actually being used; above
+ * {@value #BETA} it shrinks by one. The limit therefore settles just above the number of cores
+ * the hashing gets, and under overload throughput plateaus at that level while excess requests
+ * are shed. As the baseline is taken from the smoothed latency, a single unusually cheap
+ * operation cannot pin it far below the typical latency, and as it only covers recent windows,
+ * it follows the hardware if, for example, the CPU is throttled.
+ * </p>
+ * <p>
+ * Latencies and waits are measured with a monotonic time source, so stepping the wall clock
+ * does not disturb them; the clock is only read to turn a caller's deadline into a wait.
+ * </p>
+ */
+public final class AdmissionController {
+    /** Queue estimate below which the limit grows. */
+    private static final double ALPHA = 1;
+    /** Queue estimate above which the limit shrinks. */
+    private static final double BETA = 3;
+    /** Number of operations in each window of the latency baseline. */
+    private static final int BASELINE_WINDOW = 1_000;
+    /** Longest wait a deadline is taken to ask for, so that distant deadlines cannot overflow. */
+    private static final long MAX_DEADLINE_SECONDS = 86_400;
+    /** Weight of each new sample in the smoothed latency and queue delay. */
+    private static final double SMOOTHING = 0.2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final int maxLimit;
+    private final long defaultMaxWaitNanos;
+    private final Clock clock;
+    private final LongSupplier nanoTime;
+
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private long samples;
+    private long rejected;
+    private double latencyNanos;
+    /** Lowest smoothed latency of the current and of the previous baseline window. */
+    private double windowMinNanos;
+    private double previousWindowMinNanos;
+    private double queueDelayNanos;
+
+    /**
+     * Constructs a controller that starts at one slot per core, may grow to four per core,
+     * and lets requests without a deadline wait up to one second.
+     */
+    public AdmissionController() {
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors() * 4,
+                Duration.ofSeconds(1), Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a controller that measures latency with {@link System#nanoTime()}.
+     *
+     * @param initialLimit the initial number of concurrent hashing operations
+     * @param maxLimit the largest limit the controller may adapt to
+     * @param defaultMaxWait how long a request without a deadline may wait
+     * @param clock the clock against which deadlines are given
+     * @throws IllegalArgumentException if the limits are not positive or inconsistent
+     */
+    public AdmissionController(int initialLimit, int maxLimit, Duration defaultMaxWait, Clock clock) {
+        this(initialLimit, maxLimit, defaultMaxWait, clock, System::nanoTime);
+    }
+
+    /**
+     * Constructs a controller.
+     *
+     * @param initialLimit the initial number of concurrent hashing operations
+     * @param maxLimit the largest limit the controller may adapt to
+     * @param defaultMaxWait how long a request without a deadline may wait
+     * @param clock the clock against which deadlines are given
+     * @param nanoTime the monotonic time source, in nanoseconds, used for latencies and waits
+     * @throws IllegalArgumentException if the limits are not positive or inconsistent
+     */
+    public AdmissionController(int initialLimit, int maxLimit, Duration defaultMaxWait, Clock clock,
+                               LongSupplier nanoTime) {
+        if (initialLimit < 1 || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.defaultMaxWaitNanos = defaultMaxWait.toNanos();
+        this.clock = clock;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Waits for a hashing slot, or fails if none can be had before the deadline.
+     * The returned permit must be closed when the hashing is done.
+     *
+     * @param deadline when the caller stops waiting for an answer; {@code null} for the default wait
+     * @return the permit
+     * @throws OverloadedException if the estimated or actual wait exceeds the deadline
+     */
+    public Permit acquire(Instant deadline) throws OverloadedException {
+        long now = nanoTime.getAsLong();
+        long deadlineNanos = now + (deadline == null ? defaultMaxWaitNanos : waitUntil(deadline));
+        lock.lock();
+        try {
+            if (inFlight < limit && waiting == 0) {
+                inFlight++;
+                recordQueueDelay(0);
+                return new Permit(now);
+            }
+            long estimate = estimateWait(waiting + 1);
+            if (now + estimate > deadlineNanos) {
+                rejected++;
+                throw new OverloadedException(Duration.ofNanos(estimate));
+            }
+            waiting++;
+            try {
+                while (inFlight >= limit) {
+                    long remaining = deadlineNanos - nanoTime.getAsLong();
+                    if (remaining <= 0) {
+                        rejected++;
+                        throw new OverloadedException(Duration.ofNanos(estimateWait(waiting)));
+                    }
+                    permitReleased.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected++;
+                throw new OverloadedException(Duration.ofNanos(estimateWait(waiting)));
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            long admitted = nanoTime.getAsLong();
+            recordQueueDelay(admitted - now);
+            return new Permit(admitted);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of hashing operations currently running.
+     *
+     * @return the number of permits held
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests waiting for a slot.
+     *
+     * @return the queue length
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests shed so far.
+     *
+     * @return the rejection count
+     */
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the smoothed time admitted requests spent waiting for a slot.
+     *
+     * @return the queue delay
+     */
+    public Duration getQueueDelay() {
+        lock.lock();
+        try {
+            return Duration.ofNanos((long) queueDelayNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the smoothed duration of a hashing operation.
+     *
+     * @return the hashing latency
+     */
+    public Duration getLatency() {
+        lock.lock();
+        try {
+            return Duration.ofNanos((long) latencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long admittedNanos) {
+        long latency = Math.max(1, nanoTime.getAsLong() - admittedNanos);
+        lock.lock();
+        try {
+            boolean saturated = inFlight + waiting >= limit;
+            inFlight--;
+            adapt(latency, saturated);
+            if (inFlight < limit) {
+                permitReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(long latency, boolean saturated) {
+        samples++;
+        latencyNanos = latencyNanos == 0 ? latency : latencyNanos + (latency - latencyNanos) * SMOOTHING;
+        if (windowMinNanos == 0 || latencyNanos < windowMinNanos) {
+            windowMinNanos = latencyNanos;
+        }
+        double baselineNanos = previousWindowMinNanos == 0
+                ? windowMinNanos : Math.min(windowMinNanos, previousWindowMinNanos);
+        if (samples % BASELINE_WINDOW == 0) {
+            previousWindowMinNanos = windowMinNanos;
+            windowMinNanos = 0;
+        }
+        double queue = limit * (1 - baselineNanos / latencyNanos);
+        if (queue < ALPHA && saturated) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else if (queue > BETA) {
+            limit = Math.max(1, limit - 1);
+        }
+    }
+
+    private void recordQueueDelay(long delay) {
+        queueDelayNanos += (delay - queueDelayNanos) * SMOOTHING;
+    }
+
+    /**
+     * Estimates how long the {@code position}-th request in line waits: every {@code limit}
+     * requests ahead of it cost one hashing latency.
+     */
+    private long estimateWait(int position) {
+        long rounds = (position + limit - 1) / limit;
+        return (long) (rounds * latencyNanos);
+    }
+
+    /**
+     * Converts a deadline into the time left until it, capped at {@value #MAX_DEADLINE_SECONDS} seconds.
+     */
+    private long waitUntil(Instant deadline) {
+        Duration remaining = Duration.between(clock.instant(), deadline);
+        long seconds = Math.max(-MAX_DEADLINE_SECONDS, Math.min(MAX_DEADLINE_SECONDS, remaining.getSeconds()));
+        return seconds * 1_000_000_000L + remaining.getNano();
+    }
+
+    /**
+     * A hashing slot, released by {@link #close()}.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long admittedNanos;
+        private boolean released;
+
+        private Permit(long admittedNanos) {
+            this.admittedNanos = admittedNanos;
+        }
+
+        /**
+         * Releases the slot and feeds the measured hashing latency into the limit.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(admittedNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.yourorg.auth.domain.service;
+
+import com.yourorg.auth.domain.model.User;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous flavour of {@link AuthManager}.
+ * <p>
+ * Registration and login are CPU-bound because of password hashing, so they are
+ * executed off the caller's thread and completed through a {@link CompletableFuture}.
+ * Token authentication is cheap and remains synchronous.
+ * </p>
+ */
+public interface AsyncAuthManager extends AuthManager {
+    /**
+     * Registers a new user asynchronously.
+     * <p>
+     * The returned future completes exceptionally with a
+     * {@link java.util.concurrent.CompletionException} wrapping an
+     * {@link com.yourorg.auth.domain.exception.AuthException} if registration fails.
+     * </p>
+     *
+     * @param username the username for the new user
+     * @param rawPassword the raw password for the new user
+     * @return a future completed with the registered {@link User}
+     */
+    CompletableFuture<User> registerAsync(String username, String rawPassword);
+
+    /**
+     * Authenticates a user with the provided username and raw password asynchronously.
+     * <p>
+     * The returned future completes exceptionally with a
+     * {@link java.util.concurrent.CompletionException} wrapping an
+     * {@link com.yourorg.auth.domain.exception.AuthException} if authentication fails.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @return a future completed with the authentication token
+     */
+    CompletableFuture<String> loginAsync(String username, String rawPassword);
+}
@@ -0,0 +1,304 @@
+package com.yourorg.auth.domain.service;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.model.User;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link AsyncAuthManager} that runs password hashing on a dedicated, bounded executor.
+ * <p>
+ * Wraps a synchronous {@link AuthManager} and submits {@code register} and {@code login}
+ * to a fixed pool sized to the number of available cores. The pool's work queue is bounded;
+ * once it is full, new requests fail fast with a {@link RejectedExecutionException}
+ * instead of piling up. {@link #authenticate(String)} runs on the caller's thread.
+ * </p>
+ */
+public class AsyncAuthManagerImpl implements AsyncAuthManager, AutoCloseable {
+    /** Default number of hashing requests that may wait for a free worker. */
+    public static final int DEFAULT_QUEUE_DEPTH = 1_024;
+
+    private final AuthManager delegate;
+    private final ExecutorService hashingExecutor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Constructs a new AsyncAuthManagerImpl with a hashing pool of the default queue depth.
+     *
+     * @param delegate the synchronous auth manager doing the actual work
+     */
+    public AsyncAuthManagerImpl(AuthManager delegate) {
+        this(delegate, DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * Constructs a new AsyncAuthManagerImpl with a hashing pool sized to the core count.
+     *
+     * @param delegate the synchronous auth manager doing the actual work
+     * @param queueDepth the maximum number of hashing requests waiting for a worker
+     */
+    public AsyncAuthManagerImpl(AuthManager delegate, int queueDepth) {
+        this(delegate, newHashingExecutor(Runtime.getRuntime().availableProcessors(), queueDepth), true);
+    }
+
+    /**
+     * Constructs a new AsyncAuthManagerImpl using a caller-supplied executor.
+     * <p>
+     * The executor is not shut down by {@link #close()}.
+     * </p>
+     *
+     * @param delegate the synchronous auth manager doing the actual work
+     * @param hashingExecutor the executor on which register and login are run
+     */
+    public AsyncAuthManagerImpl(AuthManager delegate, ExecutorService hashingExecutor) {
+        this(delegate, hashingExecutor, false);
+    }
+
+    private AsyncAuthManagerImpl(AuthManager delegate, ExecutorService hashingExecutor, boolean ownsExecutor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.hashingExecutor = Objects.requireNonNull(hashingExecutor);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates a fixed-size executor with a bounded queue, suitable for CPU-bound hashing.
+     * <p>
+     * Worker threads are daemon threads named {@code auth-hash-N}. Submissions beyond
+     * the queue capacity are rejected with a {@link RejectedExecutionException}.
+     * </p>
+     *
+     * @param threads the number of worker threads
+     * @param queueDepth the maximum number of queued tasks
+     * @return the new executor
+     */
+    public static ExecutorService newHashingExecutor(int threads, int queueDepth) {
+        if (threads < 1 || queueDepth < 1) {
+            throw new IllegalArgumentException("threads and queueDepth must be positive");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "auth-hash-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public CompletableFuture<User> registerAsync(String username, String rawPassword) {
+        return submit(() -> delegate.register(username, rawPassword));
+    }
+
+    @Override
+    public CompletableFuture<String> loginAsync(String username, String rawPassword) {
+        return submit(() -> delegate.login(username, rawPassword));
+    }
+
+    /**
+     * Registers a new user, blocking until the hashing pool has completed the work.
+     *
+     * @param username the username for the new user
+     * @param rawPassword the raw password for the new user
+     * @return the registered {@link User}
+     * @throws AuthException if registration fails
+     */
+    @Override
+    public User register(String username, String rawPassword) throws AuthException {
+        return await(registerAsync(username, rawPassword));
+    }
+
+    /**
+     * Registers a new user with a deadline, blocking until the hashing pool has completed the work.
+     * Time spent waiting for a worker counts against the deadline.
+     *
+     * @param username the username for the new user
+     * @param rawPassword the raw password for the new user
+     * @param deadline when the caller stops waiting for an answer; {@code null} for none
+     * @return the registered {@link User}
+     * @throws AuthException if registration fails or the request is shed
+     */
+    @Override
+    public User register(String username, String rawPassword, Instant deadline) throws AuthException {
+        return await(submit(() -> delegate.register(username, rawPassword, deadline)));
+    }
+
+    /**
+     * Reports whether a username is free. Runs on the caller's thread, as no hashing is involved.
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return delegate.isUsernameAvailable(username);
+    }
+
+    /**
+     * Logs a user in, blocking until the hashing pool has completed the work.
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @return an authentication token as a String
+     * @throws AuthException if authentication fails
+     */
+    @Override
+    public String login(String username, String rawPassword) throws AuthException {
+        return await(loginAsync(username, rawPassword));
+    }
+
+    /**
+     * Logs a user in on behalf of an identified client, blocking until the hashing pool has
+     * completed the work.
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @return an authentication token as a String
+     * @throws AuthException if authentication fails or the attempt is throttled
+     */
+    @Override
+    public String login(String username, String rawPassword, String clientKey) throws AuthException {
+        return await(submit(() -> delegate.login(username, rawPassword, clientKey)));
+    }
+
+    /**
+     * Logs a user in on behalf of an identified client with a deadline, blocking until the
+     * hashing pool has completed the work. Time spent waiting for a worker counts against the deadline.
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @param deadline when the caller stops waiting for an answer; {@code null} for none
+     * @return an authentication token as a String
+     * @throws AuthException if authentication fails, the attempt is throttled or the request is shed
+     */
+    @Override
+    public String login(String username, String rawPassword, String clientKey, Instant deadline)
+            throws AuthException {
+        return await(submit(() -> delegate.login(username, rawPassword, clientKey, deadline)));
+    }
+
+    /**
+     * Registers many users at once. The delegate parallelizes the hashing itself,
+     * so the call runs on the caller's thread rather than the hashing pool.
+     *
+     * @param credentials raw passwords keyed by username
+     * @return the users that were registered
+     */
+    @Override
+    public List<User> registerAll(Map<String, String> credentials) {
+        return delegate.registerAll(credentials);
+    }
+
+    /**
+     * Authenticates a token on the caller's thread.
+     *
+     * @param token the authentication token
+     * @return an {@link Optional} containing the authenticated user if the token is valid, or empty if invalid
+     */
+    @Override
+    public Optional<User> authenticate(String token) {
+        return delegate.authenticate(token);
+    }
+
+    /**
+     * Authenticates many tokens at once on the caller's thread.
+     *
+     * @param tokens the authentication tokens
+     * @return the authenticated users keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        return delegate.authenticateAll(tokens);
+    }
+
+    /**
+     * Logs out the session of a token on the caller's thread.
+     *
+     * @param token the authentication token
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean logout(String token) {
+        return delegate.logout(token);
+    }
+
+    /**
+     * Signs the user of a token out everywhere on the caller's thread.
+     *
+     * @param token an authentication token of the user
+     * @return {@code true} if the token was valid and the user's tokens have been revoked
+     */
+    @Override
+    public boolean logoutEverywhere(String token) {
+        return delegate.logoutEverywhere(token);
+    }
+
+    /**
+     * Shuts down the hashing pool if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            hashingExecutor.shutdown();
+        }
+    }
+
+    /**
+     * A unit of auth work that may fail with an {@link AuthException}.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    private interface AuthCall<T> {
+        T call() throws AuthException;
+    }
+
+    private <T> CompletableFuture<T> submit(AuthCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            hashingExecutor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws AuthException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthException) {
+                throw (AuthException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
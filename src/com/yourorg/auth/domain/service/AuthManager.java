@@ -2,12 +2,17 @@ package com.yourorg.auth.domain.service;
 
 import com.yourorg.auth.domain.exception.AuthException;
 import com.yourorg.auth.domain.model.User;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Service interface for managing user authentication and registration.
  * <p>
- * Provides methods for registering users, logging in, and authenticating tokens.
+ * Provides methods for registering users, logging in and out, and authenticating tokens.
  * </p>
  */
 public interface AuthManager {
@@ -21,6 +26,47 @@ public interface AuthManager {
      */
     User register(String username, String rawPassword) throws AuthException;
 
+    /**
+     * Registers a new user, giving up if the password cannot be hashed before the deadline.
+     * <p>
+     * Implementations that shed load under overload reject the request with an
+     * {@link com.yourorg.auth.domain.exception.OverloadedException} once it is clear that
+     * hashing would not start in time; the default implementation ignores the deadline.
+     * </p>
+     *
+     * @param username the username for the new user
+     * @param rawPassword the raw password for the new user
+     * @param deadline when the caller stops waiting for an answer; {@code null} for none
+     * @return the registered {@link User}
+     * @throws AuthException if registration fails or the request is shed
+     */
+    default User register(String username, String rawPassword, Instant deadline) throws AuthException {
+        return register(username, rawPassword);
+    }
+
+    /**
+     * Reports whether a username is free, without hashing anything.
+     * <p>
+     * Cheap enough to call on every keystroke of a signup form. The answer is advisory:
+     * {@link #register(String, String)} still fails if the name is taken in the meantime.
+     * </p>
+     *
+     * @param username the username to check
+     * @return {@code true} if no user has, or is being registered with, the username
+     */
+    boolean isUsernameAvailable(String username);
+
+    /**
+     * Registers many users at once, e.g. when importing an existing user base.
+     * <p>
+     * Usernames that already exist are skipped rather than reported as errors.
+     * </p>
+     *
+     * @param credentials raw passwords keyed by username
+     * @return the users that were registered
+     */
+    List<User> registerAll(Map<String, String> credentials);
+
     /**
      * Authenticates a user with the provided username and raw password.
      *
@@ -31,6 +77,44 @@ public interface AuthManager {
      */
     String login(String username, String rawPassword) throws AuthException;
 
+    /**
+     * Authenticates a user on behalf of an identified client, such as a remote address.
+     * <p>
+     * Implementations that throttle login attempts use the client key to limit each source
+     * separately; the default implementation ignores it.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @return an authentication token as a String
+     * @throws AuthException if authentication fails or the attempt is throttled
+     */
+    default String login(String username, String rawPassword, String clientKey) throws AuthException {
+        return login(username, rawPassword);
+    }
+
+    /**
+     * Authenticates a user on behalf of an identified client, giving up if the password cannot
+     * be verified before the deadline.
+     * <p>
+     * Implementations that shed load under overload reject the request with an
+     * {@link com.yourorg.auth.domain.exception.OverloadedException} once it is clear that
+     * hashing would not start in time; the default implementation ignores the deadline.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @param deadline when the caller stops waiting for an answer; {@code null} for none
+     * @return an authentication token as a String
+     * @throws AuthException if authentication fails, the attempt is throttled or the request is shed
+     */
+    default String login(String username, String rawPassword, String clientKey, Instant deadline)
+            throws AuthException {
+        return login(username, rawPassword, clientKey);
+    }
+
     /**
      * Authenticates a user based on the provided authentication token.
      *
@@ -38,4 +122,38 @@ public interface AuthManager {
      * @return an {@link Optional} containing the authenticated user if the token is valid, or empty if invalid
      */
     Optional<User> authenticate(String token);
+
+    /**
+     * Authenticates many tokens at once, for callers such as gateways that check a batch of requests together.
+     * <p>
+     * The default implementation authenticates the tokens one by one.
+     * </p>
+     *
+     * @param tokens the authentication tokens
+     * @return the authenticated users keyed by token; invalid or expired tokens are absent
+     */
+    default Map<String, User> authenticateAll(Collection<String> tokens) {
+        Map<String, User> users = new HashMap<>();
+        for (String token : tokens) {
+            authenticate(token).ifPresent(user -> users.put(token, user));
+        }
+        return users;
+    }
+
+    /**
+     * Logs out the session of a token, so that the token no longer authenticates.
+     *
+     * @param token the authentication token
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    boolean logout(String token);
+
+    /**
+     * Signs the user of a token out everywhere: revokes every token of that user, including
+     * this one, e.g. after a password change or when the account may be compromised.
+     *
+     * @param token an authentication token of the user
+     * @return {@code true} if the token was valid and the user's tokens have been revoked
+     */
+    boolean logoutEverywhere(String token);
 }
@@ -1,24 +1,49 @@
 package com.yourorg.auth.domain.service;
 
 import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.exception.OverloadedException;
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
 import com.yourorg.auth.domain.exception.UserAlreadyExistsException;
 import com.yourorg.auth.domain.model.User;
 import com.yourorg.auth.domain.repository.UserRepository;
+import com.yourorg.auth.domain.security.LoginThrottle;
 import com.yourorg.auth.domain.security.PasswordEncoder;
 import com.yourorg.auth.domain.security.TokenService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@link AuthManager} for managing user authentication and registration.
  * <p>
- * Handles user registration, login, and token-based authentication using
+ * Handles user registration, login, logout, and token-based authentication using
  * a user repository, password encoder, and token service.
  * </p>
+ * <p>
+ * A registration first reserves its username. Concurrent registrations of the same name are
+ * refused before any of them hashes a password, and a reserved name is reported as taken by
+ * {@link #isUsernameAvailable(String)}.
+ * </p>
  */
 public class AuthManagerImpl implements AuthManager {
+    /** Number of users hashed and inserted together by {@link #registerAll(Map)}. */
+    private static final int IMPORT_BATCH = 1_000;
+
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
+    private final LoginThrottle loginThrottle;
+    private final AdmissionController admission;
+    /** Usernames with a registration in progress. */
+    private final Set<String> reservations = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructs a new AuthManagerImpl with the required dependencies.
@@ -30,9 +55,44 @@ public class AuthManagerImpl implements AuthManager {
     public AuthManagerImpl(UserRepository userRepo,
                            PasswordEncoder passwordEncoder,
                            TokenService tokenService) {
+        this(userRepo, passwordEncoder, tokenService, null);
+    }
+
+    /**
+     * Constructs a new AuthManagerImpl that throttles login attempts.
+     *
+     * @param userRepo the user repository for user persistence
+     * @param passwordEncoder the password encoder for hashing and verifying passwords
+     * @param tokenService the token service for token creation and validation
+     * @param loginThrottle the throttle consulted before each login; {@code null} for none
+     */
+    public AuthManagerImpl(UserRepository userRepo,
+                           PasswordEncoder passwordEncoder,
+                           TokenService tokenService,
+                           LoginThrottle loginThrottle) {
+        this(userRepo, passwordEncoder, tokenService, loginThrottle, null);
+    }
+
+    /**
+     * Constructs a new AuthManagerImpl that throttles login attempts and sheds hashing work
+     * under overload.
+     *
+     * @param userRepo the user repository for user persistence
+     * @param passwordEncoder the password encoder for hashing and verifying passwords
+     * @param tokenService the token service for token creation and validation
+     * @param loginThrottle the throttle consulted before each login; {@code null} for none
+     * @param admission the controller every register and login hash passes through; {@code null} for none
+     */
+    public AuthManagerImpl(UserRepository userRepo,
+                           PasswordEncoder passwordEncoder,
+                           TokenService tokenService,
+                           LoginThrottle loginThrottle,
+                           AdmissionController admission) {
         this.userRepo = userRepo;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
+        this.loginThrottle = loginThrottle;
+        this.admission = admission;
     }
 
     /**
@@ -42,38 +102,202 @@ public class AuthManagerImpl implements AuthManager {
      * @param rawPassword the raw password for the new user
      * @return the registered {@link User}
      * @throws UserAlreadyExistsException if a user with the given username already exists
+     * @throws OverloadedException if an {@link AdmissionController} sheds the request
+     */
+    @Override
+    public User register(String username, String rawPassword) throws UserAlreadyExistsException,
+            OverloadedException {
+        return register(username, rawPassword, null);
+    }
+
+    /**
+     * Registers a new user, giving up if the password cannot be hashed before the deadline.
+     * <p>
+     * If an {@link AdmissionController} is configured, hashing waits for one of its slots;
+     * without one, the deadline is ignored.
+     * </p>
+     *
+     * @param username the username for the new user
+     * @param rawPassword the raw password for the new user
+     * @param deadline when the caller stops waiting for an answer; {@code null} for the controller's default
+     * @return the registered {@link User}
+     * @throws UserAlreadyExistsException if a user with the given username already exists
+     * @throws OverloadedException if hashing cannot start before the deadline
      */
     @Override
-    public User register(String username, String rawPassword) throws UserAlreadyExistsException {
-        if (userRepo.findByUsername(username).isPresent()) {
+    public User register(String username, String rawPassword, Instant deadline) throws UserAlreadyExistsException,
+            OverloadedException {
+        if (!reservations.add(username)) {
             throw new UserAlreadyExistsException(username);
         }
-        String hash = passwordEncoder.hash(rawPassword);
-        User user = new User(username, hash);
-        userRepo.save(user);
-        return user;
+        try {
+            if (!userRepo.isUsernameAvailable(username)) {
+                throw new UserAlreadyExistsException(username);
+            }
+            String hash;
+            AdmissionController.Permit permit = admit(deadline);
+            try {
+                hash = passwordEncoder.hash(rawPassword);
+            } finally {
+                release(permit);
+            }
+            User user = new User(username, hash);
+            if (!userRepo.saveIfAbsent(user)) {
+                throw new UserAlreadyExistsException(username);
+            }
+            return user;
+        } finally {
+            reservations.remove(username);
+        }
+    }
+
+    /**
+     * Reports whether a username is free: neither stored nor reserved by a registration in progress.
+     *
+     * @param username the username to check
+     * @return {@code true} if the username is free
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return !reservations.contains(username) && userRepo.isUsernameAvailable(username);
+    }
+
+    /**
+     * Registers many users at once.
+     * <p>
+     * Passwords are hashed in parallel on a fork-join pool spanning every core, one batch
+     * at a time; while a batch is inserted with {@link UserRepository#saveAllIfAbsent(List)},
+     * the next one is already being hashed. Usernames that already exist are skipped.
+     * </p>
+     *
+     * @param credentials raw passwords keyed by username
+     * @return the users that were registered
+     */
+    @Override
+    public List<User> registerAll(Map<String, String> credentials) {
+        List<Map.Entry<String, String>> entries = credentials.entrySet().stream()
+                .filter(e -> isUsernameAvailable(e.getKey()))
+                .collect(Collectors.toList());
+        List<User> registered = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            ForkJoinTask<List<User>> next = hashBatch(pool, entries, 0);
+            for (int from = 0; from < entries.size(); from += IMPORT_BATCH) {
+                List<User> batch = next.join();
+                next = hashBatch(pool, entries, from + IMPORT_BATCH);
+                registered.addAll(userRepo.saveAllIfAbsent(batch));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return registered;
+    }
+
+    private ForkJoinTask<List<User>> hashBatch(ForkJoinPool pool, List<Map.Entry<String, String>> entries, int from) {
+        List<Map.Entry<String, String>> slice = entries.subList(
+                Math.min(from, entries.size()), Math.min(from + IMPORT_BATCH, entries.size()));
+        return pool.submit(() -> slice.parallelStream()
+                .map(e -> new User(e.getKey(), passwordEncoder.hash(e.getValue())))
+                .collect(Collectors.toList()));
     }
 
     /**
      * Authenticates a user with the provided username and raw password.
+     * <p>
+     * If the stored hash was made with outdated parameters, it is replaced with a fresh hash
+     * of the now-verified password, so cost increases reach existing users as they log in.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @return an authentication token as a String
+     * @throws InvalidCredentialsException if authentication fails (e.g., invalid credentials)
+     */
+    @Override
+    public String login(String username, String rawPassword) throws InvalidCredentialsException,
+            TooManyAttemptsException, OverloadedException {
+        return login(username, rawPassword, null, null);
+    }
+
+    /**
+     * Authenticates a user on behalf of an identified client.
+     * <p>
+     * If a {@link LoginThrottle} is configured, the attempt is admitted or rejected before the
+     * user is looked up or any password is hashed, and a successful login returns its tokens.
+     * </p>
+     *
+     * @param username the username of the user
+     * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @return an authentication token as a String
+     * @throws InvalidCredentialsException if authentication fails (e.g., invalid credentials)
+     * @throws TooManyAttemptsException if the attempt is throttled
+     * @throws OverloadedException if an {@link AdmissionController} sheds the request
+     */
+    @Override
+    public String login(String username, String rawPassword, String clientKey) throws InvalidCredentialsException,
+            TooManyAttemptsException, OverloadedException {
+        return login(username, rawPassword, clientKey, null);
+    }
+
+    /**
+     * Authenticates a user on behalf of an identified client, giving up if the password cannot
+     * be verified before the deadline.
+     * <p>
+     * Throttling comes first, so throttled attempts never occupy a hashing slot. If an
+     * {@link AdmissionController} is configured, verification and any rehash then run under
+     * one of its slots; without one, the deadline is ignored.
+     * </p>
      *
      * @param username the username of the user
      * @param rawPassword the raw password of the user
+     * @param clientKey identifies the caller; may be {@code null}
+     * @param deadline when the caller stops waiting for an answer; {@code null} for the controller's default
      * @return an authentication token as a String
      * @throws InvalidCredentialsException if authentication fails (e.g., invalid credentials)
+     * @throws TooManyAttemptsException if the attempt is throttled
+     * @throws OverloadedException if verification cannot start before the deadline
      */
     @Override
-    public String login(String username, String rawPassword) throws InvalidCredentialsException {
+    public String login(String username, String rawPassword, String clientKey, Instant deadline)
+            throws InvalidCredentialsException, TooManyAttemptsException, OverloadedException {
+        if (loginThrottle != null) {
+            loginThrottle.acquire(username, clientKey);
+        }
         User user = userRepo.findByUsername(username)
                 .orElseThrow(InvalidCredentialsException::new);
 
-        if (!passwordEncoder.verify(rawPassword, user.getPasswordHash())) {
-            throw new InvalidCredentialsException();
+        // The hash is unpacked from the user's compact form on every call, so only do it once.
+        String storedHash = user.getPasswordHash();
+        AdmissionController.Permit permit = admit(deadline);
+        try {
+            if (!passwordEncoder.verify(rawPassword, storedHash)) {
+                throw new InvalidCredentialsException();
+            }
+            if (passwordEncoder.needsRehash(storedHash)) {
+                user.setPasswordHash(passwordEncoder.hash(rawPassword));
+                userRepo.update(user);
+            }
+        } finally {
+            release(permit);
+        }
+        if (loginThrottle != null) {
+            loginThrottle.succeeded(username, clientKey);
         }
 
         return tokenService.createToken(user);
     }
 
+    private AdmissionController.Permit admit(Instant deadline) throws OverloadedException {
+        return admission == null ? null : admission.acquire(deadline);
+    }
+
+    private static void release(AdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
     /**
      * Authenticates a user based on the provided authentication token.
      *
@@ -84,4 +308,40 @@ public class AuthManagerImpl implements AuthManager {
     public Optional<User> authenticate(String token) {
         return tokenService.validateToken(token);
     }
-}
\ No newline at end of file
+
+    /**
+     * Authenticates many tokens at once through {@link TokenService#authenticateAll(Collection)},
+     * which groups the session lookups and resolves each user once.
+     *
+     * @param tokens the authentication tokens
+     * @return the authenticated users keyed by token; invalid or expired tokens are absent
+     */
+    @Override
+    public Map<String, User> authenticateAll(Collection<String> tokens) {
+        return tokenService.authenticateAll(tokens);
+    }
+
+    /**
+     * Logs out the session of a token through {@link TokenService#revoke(String)}.
+     *
+     * @param token the authentication token
+     * @return {@code true} if the token was valid and has been revoked
+     */
+    @Override
+    public boolean logout(String token) {
+        return tokenService.revoke(token);
+    }
+
+    /**
+     * Signs the user of a token out everywhere through {@link TokenService#revokeAllForUser(String)}.
+     *
+     * @param token an authentication token of the user
+     * @return {@code true} if the token was valid and the user's tokens have been revoked
+     */
+    @Override
+    public boolean logoutEverywhere(String token) {
+        Optional<User> user = tokenService.validateToken(token);
+        user.ifPresent(u -> tokenService.revokeAllForUser(u.getId()));
+        return user.isPresent();
+    }
+}
@@ -0,0 +1,130 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.exception.OverloadedException;
+import com.yourorg.auth.domain.service.AdmissionController;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    @Test
+    void testFailsFastWhenEstimatedWaitExceedsDeadline() throws OverloadedException {
+        MutableClock clock = new MutableClock();
+        AdmissionController admission = new AdmissionController(2, 2, Duration.ofSeconds(1), clock, clock::nanoTime);
+        runRound(admission, clock, Duration.ofMillis(100));
+
+        AdmissionController.Permit first = admission.acquire(null);
+        AdmissionController.Permit second = admission.acquire(null);
+        OverloadedException e = assertThrows(OverloadedException.class,
+                () -> admission.acquire(clock.instant().plusMillis(50)));
+        assertEquals(Duration.ofMillis(100), e.getEstimatedWait());
+        assertEquals(1, admission.getRejected());
+        assertEquals(0, admission.getQueued());
+        first.close();
+        second.close();
+        assertEquals(0, admission.getInFlight());
+    }
+
+    @Test
+    void testQueuedRequestGetsReleasedPermit() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, Duration.ofSeconds(1), Clock.systemUTC());
+        AdmissionController.Permit held = admission.acquire(null);
+        CompletableFuture<AdmissionController.Permit> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.acquire(Instant.now().plusSeconds(5));
+            } catch (OverloadedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (admission.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+        held.close();
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, admission.getRejected());
+    }
+
+    @Test
+    void testQueuedRequestGivesUpAtDeadline() throws OverloadedException {
+        AdmissionController admission = new AdmissionController(1, 1, Duration.ofSeconds(1), Clock.systemUTC());
+        AdmissionController.Permit held = admission.acquire(null);
+        long start = System.nanoTime();
+        assertThrows(OverloadedException.class, () -> admission.acquire(Instant.now().plusMillis(50)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, admission.getQueued());
+        held.close();
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyHoldsSteady() throws OverloadedException {
+        MutableClock clock = new MutableClock();
+        AdmissionController admission = new AdmissionController(2, 6, Duration.ofSeconds(1), clock, clock::nanoTime);
+        for (int i = 0; i < 10; i++) {
+            runRound(admission, clock, Duration.ofMillis(10));
+        }
+        assertEquals(6, admission.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() throws OverloadedException {
+        MutableClock clock = new MutableClock();
+        AdmissionController admission = new AdmissionController(8, 16, Duration.ofSeconds(1), clock, clock::nanoTime);
+        runRound(admission, clock, Duration.ofMillis(10));
+        int before = admission.getLimit();
+        for (int i = 0; i < 5; i++) {
+            runRound(admission, clock, Duration.ofMillis(40));
+        }
+        assertTrue(admission.getLimit() < before, "limit " + admission.getLimit() + " should drop below " + before);
+        assertTrue(admission.getLatency().compareTo(Duration.ofMillis(30)) > 0);
+    }
+
+    @Test
+    void testCheapOutlierDoesNotCollapseLimit() throws OverloadedException {
+        MutableClock clock = new MutableClock();
+        AdmissionController admission = new AdmissionController(8, 16, Duration.ofSeconds(1), clock, clock::nanoTime);
+        for (int i = 0; i < 3; i++) {
+            runRound(admission, clock, Duration.ofMillis(10));
+        }
+        int before = admission.getLimit();
+        // An operation that takes no time at all, e.g. a cheap legacy hash.
+        admission.acquire(null).close();
+        for (int i = 0; i < 20; i++) {
+            runRound(admission, clock, Duration.ofMillis(10));
+        }
+        assertTrue(admission.getLimit() >= before, "limit " + admission.getLimit() + " fell below " + before);
+    }
+
+    @Test
+    void testWallClockStepDoesNotAffectLatency() throws OverloadedException {
+        MutableClock wallClock = new MutableClock();
+        MutableClock ticker = new MutableClock();
+        AdmissionController admission = new AdmissionController(4, 4, Duration.ofSeconds(1), wallClock,
+                ticker::nanoTime);
+        AdmissionController.Permit permit = admission.acquire(wallClock.instant().plusSeconds(1));
+        wallClock.advance(Duration.ofHours(-1));
+        ticker.advance(Duration.ofMillis(10));
+        permit.close();
+        assertEquals(Duration.ofMillis(10), admission.getLatency());
+    }
+
+    /** Fills every slot, lets the given time pass, then releases them all. */
+    private static void runRound(AdmissionController admission, MutableClock clock, Duration latency)
+            throws OverloadedException {
+        List<AdmissionController.Permit> permits = new ArrayList<>();
+        for (int i = admission.getLimit(); i > 0; i--) {
+            permits.add(admission.acquire(null));
+        }
+        clock.advance(latency);
+        permits.forEach(AdmissionController.Permit::close);
+    }
+}
@@ -0,0 +1,94 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.security.Argon2PasswordEncoder;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Argon2PasswordEncoderTest {
+    private final Argon2PasswordEncoder encoder = new Argon2PasswordEncoder(256, 2, 1);
+
+    @Test
+    void testRfc9106TestVector() {
+        byte[] password = filled(32, 0x01);
+        byte[] salt = filled(16, 0x02);
+        byte[] secret = filled(8, 0x03);
+        byte[] associatedData = filled(12, 0x04);
+        String expected = "0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659";
+        Argon2PasswordEncoder rfc = new Argon2PasswordEncoder(32, 3, 4);
+        assertEquals(expected, HexFormat.of().formatHex(rfc.hashRaw(password, salt, secret, associatedData, 32)));
+        // Lanes are filled on the pool; a reused, wiped context gives the same tag.
+        assertEquals(expected, HexFormat.of().formatHex(rfc.hashRaw(password, salt, secret, associatedData, 32)));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Argon2PasswordEncoder pooled = new Argon2PasswordEncoder(32, 3, 4, pool, null);
+            assertEquals(expected,
+                    HexFormat.of().formatHex(pooled.hashRaw(password, salt, secret, associatedData, 32)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testHashRecordsParametersAndVerifies() {
+        String stored = encoder.hash("password");
+        String[] parts = stored.split("\\$");
+        assertEquals(6, parts.length);
+        assertEquals("argon2id", parts[1]);
+        assertEquals("v=19", parts[2]);
+        assertEquals("m=256,t=2,p=1", parts[3]);
+        assertNotEquals(stored, encoder.hash("password"));
+        assertTrue(encoder.verify("password", stored));
+        assertTrue(encoder.verify("password".toCharArray(), stored));
+        assertFalse(encoder.verify("wrongpassword", stored));
+        // The stored parameters are used, not the verifying encoder's own.
+        assertTrue(new Argon2PasswordEncoder(64, 1, 2).verify("password", stored));
+    }
+
+    @Test
+    void testNeedsRehash() {
+        String stored = encoder.hash("password");
+        assertFalse(encoder.needsRehash(stored));
+        assertFalse(new Argon2PasswordEncoder(128, 1, 1).needsRehash(stored));
+        assertTrue(new Argon2PasswordEncoder(512, 2, 1).needsRehash(stored));
+        assertTrue(new Argon2PasswordEncoder(256, 3, 1).needsRehash(stored));
+    }
+
+    @Test
+    void testPbkdf2HashesVerifyThroughFallback() {
+        String pbkdf2 = new Pbkdf2PasswordEncoder(1_000).hash("password");
+        assertTrue(encoder.verify("password", pbkdf2));
+        assertFalse(encoder.verify("wrongpassword", pbkdf2));
+        assertTrue(encoder.needsRehash(pbkdf2));
+        Argon2PasswordEncoder strict = new Argon2PasswordEncoder(256, 2, 1, ForkJoinPool.commonPool(), null);
+        assertThrows(IllegalArgumentException.class, () -> strict.verify("password", pbkdf2));
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new Argon2PasswordEncoder(7, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Argon2PasswordEncoder(64, 1, 9));
+        assertThrows(IllegalArgumentException.class, () -> new Argon2PasswordEncoder(64, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Argon2PasswordEncoder(64, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$argon2id$v=19$m=1,t=1,p=1$AAAAAAAAAAAAAAAAAAAAAA$AAAAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$argon2id$v=16$m=64,t=1,p=1$AAAAAAAAAAAAAAAAAAAAAA$AAAAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$argon2id$v=19$m=64,t=1$AAAAAAAAAAAAAAAAAAAAAA$AAAAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.hashRaw(new byte[0], new byte[4], new byte[0], new byte[0], 32));
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AsyncAuthManagerImpl;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAuthManagerImplTest {
+    private AsyncAuthManagerImpl authManager;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        authManager = new AsyncAuthManagerImpl(new AuthManagerImpl(
+                users,
+                new Pbkdf2PasswordEncoder(),
+                new UuidTokenService(users::findById)
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        authManager.close();
+    }
+
+    @Test
+    void testRegisterAndLoginAsync() {
+        User user = authManager.registerAsync("user1", "password").join();
+        assertNotNull(user.getId());
+        String token = authManager.loginAsync("user1", "password").join();
+        assertTrue(authManager.authenticate(token).isPresent());
+    }
+
+    @Test
+    void testLoginAsyncInvalidCredentials() throws AuthException {
+        authManager.register("user1", "password");
+        CompletionException e = assertThrows(CompletionException.class, () ->
+                authManager.loginAsync("user1", "wrongpassword").join()
+        );
+        assertTrue(e.getCause() instanceof InvalidCredentialsException);
+        assertThrows(InvalidCredentialsException.class, () ->
+                authManager.login("user1", "wrongpassword")
+        );
+    }
+
+    @Test
+    void testFullQueueRejects() throws InterruptedException {
+        ExecutorService executor = AsyncAuthManagerImpl.newHashingExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> { });
+            AsyncAuthManagerImpl bounded = new AsyncAuthManagerImpl(authManager, executor);
+            CompletionException e = assertThrows(CompletionException.class, () ->
+                    bounded.loginAsync("user1", "password").join()
+            );
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
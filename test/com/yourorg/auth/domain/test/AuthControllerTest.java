@@ -0,0 +1,110 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.demo.controller.AuthController;
+import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.PasswordEncoder;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthControllerTest {
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final UuidTokenService tokens = new UuidTokenService(users::findById);
+    private final CountDownLatch verifying = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blockVerify;
+    private ExecutorService executor;
+    private AuthController controller;
+
+    @BeforeEach
+    void setUp() {
+        Pbkdf2PasswordEncoder pbkdf2 = new Pbkdf2PasswordEncoder();
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String hash(CharSequence rawPassword) {
+                return pbkdf2.hash(rawPassword);
+            }
+
+            @Override
+            public boolean verify(CharSequence rawPassword, String hashedPassword) {
+                if (blockVerify) {
+                    verifying.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return pbkdf2.verify(rawPassword, hashedPassword);
+            }
+        };
+        executor = Executors.newSingleThreadExecutor();
+        controller = new AuthController(new AuthManagerImpl(users, encoder, tokens), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        controller.close();
+        executor.shutdownNow();
+        tokens.close();
+    }
+
+    @Test
+    void testRegisterAndLoginAsync() {
+        User user = controller.registerAsync("user1", "password").join();
+        String token = controller.loginAsync("user1", "password").join();
+        assertEquals(user.getId(), controller.authenticate(token).orElseThrow().getId());
+
+        CompletionException e = assertThrows(CompletionException.class, () ->
+                controller.loginAsync("user1", "wrongpassword").join()
+        );
+        assertTrue(e.getCause() instanceof InvalidCredentialsException);
+    }
+
+    @Test
+    void testCancelBeforeStartSkipsWork() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<User> registration = controller.registerAsync("user1", "password");
+        assertTrue(registration.cancel(false));
+        busy.countDown();
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertThrows(CancellationException.class, registration::join);
+        assertTrue(controller.isUsernameAvailable("user1"));
+    }
+
+    @Test
+    void testCancelDuringLoginLogsTokenOut() throws Exception {
+        controller.register("user1", "password");
+        blockVerify = true;
+        CompletableFuture<String> login = controller.loginAsync("user1", "password");
+        assertTrue(verifying.await(5, TimeUnit.SECONDS));
+        assertTrue(login.cancel(false));
+        release.countDown();
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertEquals(0, tokens.size());
+    }
+}
@@ -0,0 +1,162 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.demo.controller.AuthController;
+import com.yourorg.auth.demo.http.AuthHttpServer;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.LoginThrottle;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthHttpServerTest {
+    private AuthHttpServer server;
+    private HttpClient client;
+    private String base;
+
+    @BeforeEach
+    void setUp() {
+        LoginThrottle throttle = new LoginThrottle(new LoginThrottle.Limit(3, Duration.ofMinutes(1)),
+                LoginThrottle.DEFAULT_CLIENT_LIMIT, 1_024, Clock.systemUTC());
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        AuthController controller = new AuthController(new AuthManagerImpl(
+                users, new Pbkdf2PasswordEncoder(1_000), new UuidTokenService(users::findById), throttle));
+        server = new AuthHttpServer(controller, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+        base = "http://localhost:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testRegisterLoginAuthenticate() throws Exception {
+        HttpResponse<String> registered = post("/register", "{\"username\":\"user1\",\"password\":\"p\\u00e4ss\"}");
+        assertEquals(201, registered.statusCode());
+        assertTrue(registered.body().contains("\"username\":\"user1\""));
+        assertEquals(409, post("/register", "{\"username\":\"user1\",\"password\":\"other\"}").statusCode());
+
+        assertEquals(401, post("/login", "{\"username\":\"user1\",\"password\":\"wrong\"}").statusCode());
+        HttpResponse<String> login = post("/login", "{ \"username\" : \"user1\", \"password\" : \"päss\" }");
+        assertEquals(200, login.statusCode());
+        String token = login.body().replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+
+        assertEquals(200, authenticate(token).statusCode());
+        assertTrue(authenticate(token).body().contains("\"username\":\"user1\""));
+        assertEquals(401, authenticate("bogus").statusCode());
+
+        String other = post("/login", "{\"username\":\"user1\",\"password\":\"päss\"}").body()
+                .replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+        assertEquals(200, postWithToken("/logout", token).statusCode());
+        assertEquals(401, postWithToken("/logout", token).statusCode());
+        assertEquals(401, authenticate(token).statusCode());
+        assertEquals(200, authenticate(other).statusCode());
+        assertEquals(200, postWithToken("/logout-everywhere", other).statusCode());
+        assertEquals(401, authenticate(other).statusCode());
+    }
+
+    @Test
+    void testThrottledLoginReturns429() throws Exception {
+        post("/register", "{\"username\":\"user1\",\"password\":\"p\"}");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(401, post("/login", "{\"username\":\"user1\",\"password\":\"wrong\"}").statusCode());
+        }
+        HttpResponse<String> throttled = post("/login", "{\"username\":\"user1\",\"password\":\"p\"}");
+        assertEquals(429, throttled.statusCode());
+        assertEquals("60", throttled.headers().firstValue("Retry-After").orElseThrow());
+    }
+
+    @Test
+    void testRejectsMalformedRequests() throws Exception {
+        assertEquals(400, post("/register", "not json").statusCode());
+        assertEquals(400, post("/register", "{\"username\":\"user1\"}").statusCode());
+        assertEquals(400, post("/login", "{\"username\":\"user1\",\"password\":\"p\"} trailing").statusCode());
+        assertEquals(413, post("/login", "{\"username\":\"" + "x".repeat(5_000) + "\"}").statusCode());
+        HttpResponse<String> wrongMethod = client.send(
+                HttpRequest.newBuilder(URI.create(base + "/login")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, wrongMethod.statusCode());
+    }
+
+    @Test
+    void testManyKeepAliveConnections() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                sockets.add(new Socket(InetAddress.getLoopbackAddress(), server.getPort()));
+            }
+            for (int round = 0; round < 2; round++) {
+                for (Socket socket : sockets) {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("GET /authenticate HTTP/1.1\r\nHost: localhost\r\n"
+                            + "Authorization: Bearer nope\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+                for (Socket socket : sockets) {
+                    assertEquals("HTTP/1.1 401 Unauthorized", readResponse(socket));
+                }
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> postWithToken(String path, String token) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> authenticate(String token) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(base + "/authenticate"))
+                .header("Authorization", "Bearer " + token).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Reads one response from a kept-alive connection and returns its status line. */
+    private static String readResponse(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 1);
+        String status = in.readLine();
+        int length = 0;
+        for (String line = in.readLine(); !line.isEmpty(); line = in.readLine()) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            in.read();
+        }
+        return status;
+    }
+}
@@ -1,14 +1,32 @@
 package com.yourorg.auth.domain.test;
 
 import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.CachingUserRepository;
 import com.yourorg.auth.domain.repository.InMemoryUserRepository;
 import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
 import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AdmissionController;
 import com.yourorg.auth.domain.service.AuthManager;
 import com.yourorg.auth.domain.service.AuthManagerImpl;
 import com.yourorg.auth.domain.exception.AuthException;
 import com.yourorg.auth.domain.exception.UserAlreadyExistsException;
 import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.exception.OverloadedException;
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
+import com.yourorg.auth.domain.security.LoginThrottle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,10 +39,11 @@ class AuthManagerImplTest {
 
     @BeforeEach
     void setUp() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
         authManager = new AuthManagerImpl(
-                new InMemoryUserRepository(),
+                users,
                 new Pbkdf2PasswordEncoder(),
-                new UuidTokenService()
+                new UuidTokenService(users::findById)
         );
     }
 
@@ -66,4 +85,179 @@ class AuthManagerImplTest {
     void testAuthenticateInvalidToken() {
         assertFalse(authManager.authenticate("invalidtoken").isPresent());
     }
+
+    @Test
+    void testLogoutAndLogoutEverywhere() throws AuthException {
+        authManager.register("user1", "password");
+        authManager.register("user2", "password");
+        String laptop = authManager.login("user1", "password");
+        String phone = authManager.login("user1", "password");
+        String tablet = authManager.login("user1", "password");
+        String other = authManager.login("user2", "password");
+
+        assertTrue(authManager.logout(laptop));
+        assertFalse(authManager.logout(laptop));
+        assertFalse(authManager.authenticate(laptop).isPresent());
+        assertTrue(authManager.authenticate(phone).isPresent());
+
+        assertTrue(authManager.logoutEverywhere(phone));
+        assertFalse(authManager.logoutEverywhere(phone));
+        assertFalse(authManager.authenticate(phone).isPresent());
+        assertFalse(authManager.authenticate(tablet).isPresent());
+        assertTrue(authManager.authenticate(other).isPresent());
+    }
+
+    @Test
+    void testConcurrentRegisterSameUsername() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<User>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> authManager.register("user1", "password")));
+            }
+            int registered = 0;
+            for (Future<User> result : results) {
+                try {
+                    result.get();
+                    registered++;
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertTrue(e.getCause() instanceof UserAlreadyExistsException);
+                }
+            }
+            assertEquals(1, registered);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRegisterAllSkipsExistingUsers() throws AuthException {
+        authManager.register("user1", "password");
+        Map<String, String> credentials = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            credentials.put("user" + i, "password" + i);
+        }
+        List<User> registered = authManager.registerAll(credentials);
+        assertEquals(19, registered.size());
+        assertNotNull(authManager.login("user7", "password7"));
+        assertNotNull(authManager.login("user1", "password"));
+    }
+
+    @Test
+    void testLoginRehashesOutdatedPassword() throws AuthException {
+        InMemoryUserRepository repo = new InMemoryUserRepository();
+        Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder(100_000);
+        AuthManager manager = new AuthManagerImpl(repo, encoder, new UuidTokenService(repo::findById));
+        String outdated = new Pbkdf2PasswordEncoder(1_000).hash("password");
+        repo.save(new User("user1", outdated));
+
+        assertNotNull(manager.login("user1", "password"));
+        String upgraded = repo.findByUsername("user1").orElseThrow().getPasswordHash();
+        assertNotEquals(outdated, upgraded);
+        assertFalse(encoder.needsRehash(upgraded));
+        assertNotNull(manager.login("user1", "password"));
+        assertEquals(upgraded, repo.findByUsername("user1").orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void testThrottledLoginRejectedBeforeHashing() throws AuthException {
+        AtomicInteger verifications = new AtomicInteger();
+        Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder(1_000) {
+            @Override
+            public boolean verify(CharSequence rawPassword, String stored) {
+                verifications.incrementAndGet();
+                return super.verify(rawPassword, stored);
+            }
+        };
+        LoginThrottle throttle = new LoginThrottle(new LoginThrottle.Limit(2, Duration.ofMinutes(1)),
+                LoginThrottle.DEFAULT_CLIENT_LIMIT, 1_024, Clock.systemUTC());
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        AuthManager manager = new AuthManagerImpl(users, encoder, new UuidTokenService(users::findById), throttle);
+        manager.register("user1", "password");
+
+        assertNotNull(manager.login("user1", "password", "10.0.0.1"));
+        assertThrows(InvalidCredentialsException.class, () -> manager.login("user1", "wrong", "10.0.0.1"));
+        assertThrows(InvalidCredentialsException.class, () -> manager.login("user1", "wrong", "10.0.0.1"));
+        assertEquals(3, verifications.get());
+        assertThrows(TooManyAttemptsException.class, () -> manager.login("user1", "password", "10.0.0.1"));
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void testOverloadedLoginShedBeforeHashing() throws AuthException {
+        AtomicInteger verifications = new AtomicInteger();
+        Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder(1_000) {
+            @Override
+            public boolean verify(CharSequence rawPassword, String stored) {
+                verifications.incrementAndGet();
+                return super.verify(rawPassword, stored);
+            }
+        };
+        AdmissionController admission = new AdmissionController(1, 1, Duration.ofSeconds(1), Clock.systemUTC());
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        AuthManager manager = new AuthManagerImpl(users, encoder, new UuidTokenService(users::findById),
+                null, admission);
+        manager.register("user1", "password");
+
+        AdmissionController.Permit busy = admission.acquire(null);
+        assertThrows(OverloadedException.class,
+                () -> manager.login("user1", "password", null, Instant.now()));
+        assertEquals(0, verifications.get());
+        busy.close();
+
+        assertNotNull(manager.login("user1", "password", null, Instant.now().plusSeconds(5)));
+        assertEquals(1, verifications.get());
+        assertEquals(1, admission.getRejected());
+    }
+
+    @Test
+    void testPasswordChangeVisibleOnNextAuthenticate() throws AuthException {
+        CachingUserRepository users = new CachingUserRepository(new InMemoryUserRepository());
+        AuthManager manager = new AuthManagerImpl(users, new Pbkdf2PasswordEncoder(1_000),
+                new UuidTokenService(users::findById));
+        User user = manager.register("user1", "password");
+        String token = manager.login("user1", "password");
+        assertEquals(user.getPasswordHash(), manager.authenticate(token).orElseThrow().getPasswordHash());
+
+        users.update(new User(user.getId(), "user1", "new-hash", user.getCreatedAt()));
+        assertEquals("new-hash", manager.authenticate(token).orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void testUsernameReservedBeforeHashing() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger hashes = new AtomicInteger();
+        Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder(1_000) {
+            @Override
+            public String hash(CharSequence rawPassword) {
+                hashes.incrementAndGet();
+                hashing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.hash(rawPassword);
+            }
+        };
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        AuthManager manager = new AuthManagerImpl(users, encoder, new UuidTokenService(users::findById));
+        assertTrue(manager.isUsernameAvailable("user1"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<User> first = executor.submit(() -> manager.register("user1", "password"));
+            hashing.await();
+            assertFalse(manager.isUsernameAvailable("user1"));
+            assertThrows(UserAlreadyExistsException.class, () -> manager.register("user1", "other"));
+            assertEquals(1, hashes.get());
+            release.countDown();
+            assertNotNull(first.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(manager.isUsernameAvailable("user1"));
+        assertTrue(manager.isUsernameAvailable("user2"));
+    }
 }
@@ -0,0 +1,76 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.CachingUserRepository;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingUserRepositoryTest {
+    private final AtomicInteger lookups = new AtomicInteger();
+    private InMemoryUserRepository store;
+    private CachingUserRepository cache;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryUserRepository() {
+            @Override
+            public Optional<User> findById(String id) {
+                lookups.incrementAndGet();
+                return super.findById(id);
+            }
+        };
+        cache = new CachingUserRepository(store, 64);
+    }
+
+    @Test
+    void testReadThroughCachesHitsOnly() {
+        User user = new User("user1", "hash");
+        cache.saveIfAbsent(user);
+        assertSame(user, cache.findById(user.getId()).orElseThrow());
+        assertSame(user, cache.findById(user.getId()).orElseThrow());
+        assertEquals(1, lookups.get());
+
+        assertFalse(cache.findById("missing").isPresent());
+        assertFalse(cache.findById("missing").isPresent());
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void testUpdateInvalidatesCachedUser() {
+        User user = new User("user1", "old");
+        cache.saveIfAbsent(user);
+        cache.findById(user.getId());
+
+        User changed = new User(user.getId(), "user1", "new", user.getCreatedAt());
+        cache.update(changed);
+        assertEquals("new", cache.findById(user.getId()).orElseThrow().getPasswordHash());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void testSaveInvalidatesReplacedUser() {
+        User first = new User("user1", "first");
+        cache.saveIfAbsent(first);
+        cache.findById(first.getId());
+        cache.save(new User("user1", "second"));
+        assertFalse(cache.findById(first.getId()).isPresent());
+    }
+
+    @Test
+    void testCapacityIsBounded() {
+        for (int i = 0; i < 1_000; i++) {
+            User user = new User("user" + i, "hash");
+            cache.saveIfAbsent(user);
+            cache.findById(user.getId());
+        }
+        assertTrue(cache.cachedSize() <= 64, "cached " + cache.cachedSize());
+        assertEquals(1_000, lookups.get());
+    }
+}
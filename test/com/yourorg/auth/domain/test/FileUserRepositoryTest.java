@@ -0,0 +1,204 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.FileUserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUserRepositoryTest {
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("users");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void testSaveFindAndReopen() {
+        User user = new User("user1", "salt:hash");
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            repo.save(user);
+            User found = repo.findByUsername("user1").orElseThrow();
+            assertEquals(user.getId(), found.getId());
+            assertEquals(user.getCreatedAt().toEpochMilli(), found.getCreatedAt().toEpochMilli());
+            assertFalse(repo.findByUsername("user2").isPresent());
+        }
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertEquals("salt:hash", repo.findByUsername("user1").orElseThrow().getPasswordHash());
+            assertEquals(1, repo.size());
+        }
+    }
+
+    @Test
+    void testUpdateKeepsLatestRecord() {
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            User user = new User("user1", "first");
+            repo.save(user);
+            user.setPasswordHash("second");
+            repo.update(user);
+            assertEquals("second", repo.findByUsername("user1").orElseThrow().getPasswordHash());
+            repo.compact();
+            assertEquals("second", repo.findByUsername("user1").orElseThrow().getPasswordHash());
+            assertEquals(1, repo.size());
+        }
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertEquals("second", repo.findByUsername("user1").orElseThrow().getPasswordHash());
+        }
+    }
+
+    @Test
+    void testSaveIfAbsentRejectsDuplicates() {
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertTrue(repo.saveIfAbsent(new User("user1", "first")));
+            assertFalse(repo.saveIfAbsent(new User("user1", "second")));
+            List<User> saved = repo.saveAllIfAbsent(List.of(
+                    new User("user1", "third"), new User("user2", "a"), new User("user2", "b")));
+            assertEquals(1, saved.size());
+            assertEquals("a", saved.get(0).getPasswordHash());
+            assertEquals("first", repo.findByUsername("user1").orElseThrow().getPasswordHash());
+            assertEquals(2, repo.size());
+        }
+    }
+
+    @Test
+    void testRecoversFromTornTailAfterCrash() throws IOException {
+        FileUserRepository crashed = new FileUserRepository(directory);
+        for (int i = 0; i < 100; i++) {
+            crashed.save(new User("user" + i, "hash" + i));
+        }
+        // Simulate a crash: the repository is never closed and a partial record follows.
+        Files.write(directory.resolve("users.log"), new byte[] {0, 0, 0, 40, 1, 2, 3},
+                StandardOpenOption.APPEND);
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertEquals(100, repo.size());
+            assertEquals("hash42", repo.findByUsername("user42").orElseThrow().getPasswordHash());
+            repo.save(new User("user100", "hash100"));
+        }
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertEquals(101, repo.size());
+            assertEquals("hash100", repo.findByUsername("user100").orElseThrow().getPasswordHash());
+        }
+    }
+
+    @Test
+    void testConcurrentSavesGrowIndex() throws InterruptedException {
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                int offset = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        repo.save(new User("user" + (i * 8 + offset), "hash"));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(4_000, repo.size());
+            for (int i = 0; i < 4_000; i += 37) {
+                assertTrue(repo.findByUsername("user" + i).isPresent());
+            }
+        }
+    }
+
+    @Test
+    void testFindByIdThroughGrowthCompactionAndRecovery() {
+        List<User> users = new ArrayList<>();
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            for (int i = 0; i < 3_000; i++) {
+                User user = new User("user" + i, "hash" + i);
+                users.add(user);
+                repo.save(user);
+            }
+            User updated = users.get(7);
+            updated.setPasswordHash("changed");
+            repo.update(updated);
+            assertEquals("changed", repo.findById(updated.getId()).orElseThrow().getPasswordHash());
+
+            User replacement = new User("user8", "replacement");
+            repo.save(replacement);
+            assertFalse(repo.findById(users.get(8).getId()).isPresent());
+            assertEquals("replacement", repo.findById(replacement.getId()).orElseThrow().getPasswordHash());
+            users.set(8, replacement);
+
+            repo.compact();
+            assertFalse(repo.findById("missing").isPresent());
+            for (int i = 0; i < users.size(); i += 31) {
+                assertEquals(users.get(i).getUsername(), repo.findById(users.get(i).getId()).orElseThrow().getUsername());
+            }
+        }
+        // Reopen after a clean close, then after a crash, when the index is rebuilt from the log.
+        new FileUserRepository(directory).findById(users.get(0).getId()).orElseThrow();
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            assertEquals("changed", repo.findById(users.get(7).getId()).orElseThrow().getPasswordHash());
+            assertEquals("replacement", repo.findById(users.get(8).getId()).orElseThrow().getPasswordHash());
+            assertEquals("user2999", repo.findById(users.get(2_999).getId()).orElseThrow().getUsername());
+        }
+    }
+
+    @Test
+    void testUsernameAvailabilitySurvivesReopen() {
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            for (int i = 0; i < 2_000; i++) {
+                repo.save(new User("user" + i, "hash"));
+            }
+            assertFalse(repo.isUsernameAvailable("user1999"));
+            assertTrue(repo.isUsernameAvailable("user2000"));
+        }
+        FileUserRepository crashed = new FileUserRepository(directory);
+        crashed.save(new User("user2000", "hash"));
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            for (int i = 0; i <= 2_000; i++) {
+                assertFalse(repo.isUsernameAvailable("user" + i));
+            }
+            for (int i = 2_001; i < 4_000; i++) {
+                assertTrue(repo.isUsernameAvailable("user" + i));
+            }
+        }
+    }
+
+    @Test
+    void testWriterFailureRejectsLaterWrites() throws IOException {
+        try (FileUserRepository repo = new FileUserRepository(directory)) {
+            for (int i = 0; i < 512; i++) {
+                repo.save(new User("user" + i, "hash"));
+            }
+            // The next save grows the index, which needs a new file in the deleted directory.
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+            assertThrows(UncheckedIOException.class, () -> repo.save(new User("user512", "hash")));
+            assertThrows(IllegalStateException.class, () -> repo.save(new User("user513", "hash")));
+            assertThrows(IllegalStateException.class, repo::compact);
+            assertEquals("hash", repo.findByUsername("user42").orElseThrow().getPasswordHash());
+        } finally {
+            Files.createDirectories(directory);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.security.HmacTokenService;
+import com.yourorg.auth.domain.security.SigningKey;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HmacTokenServiceTest {
+    private final User user = new User("user1", "hash");
+    private final SigningKey key = SigningKey.generate(1);
+    private MutableClock clock;
+    private HmacTokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        tokenService = new HmacTokenService(
+                id -> id.equals(user.getId()) ? Optional.of(user) : Optional.empty(),
+                key, Duration.ofMinutes(15), clock);
+    }
+
+    @Test
+    void testValidToken() {
+        String token = tokenService.createToken(user);
+        assertSame(user, tokenService.validateToken(token).orElseThrow());
+    }
+
+    @Test
+    void testTamperedToken() {
+        String token = tokenService.createToken(user);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+        assertFalse(tokenService.validateToken(tampered).isPresent());
+        assertFalse(tokenService.validateToken("invalidtoken").isPresent());
+        assertFalse(tokenService.validateToken("").isPresent());
+    }
+
+    @Test
+    void testExpiredToken() {
+        String token = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(14));
+        assertTrue(tokenService.validateToken(token).isPresent());
+        clock.advance(Duration.ofMinutes(1));
+        assertFalse(tokenService.validateToken(token).isPresent());
+    }
+
+    @Test
+    void testKeyRotation() {
+        String oldToken = tokenService.createToken(user);
+        tokenService.rotate(SigningKey.generate(2));
+        String newToken = tokenService.createToken(user);
+        assertTrue(tokenService.validateToken(oldToken).isPresent());
+        assertTrue(tokenService.validateToken(newToken).isPresent());
+        tokenService.retire(1);
+        assertFalse(tokenService.validateToken(oldToken).isPresent());
+        assertTrue(tokenService.validateToken(newToken).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> tokenService.retire(2));
+    }
+
+    @Test
+    void testTokenFromOtherKeyRejected() {
+        HmacTokenService other = new HmacTokenService(id -> Optional.of(user), SigningKey.generate(1));
+        assertFalse(tokenService.validateToken(other.createToken(user)).isPresent());
+    }
+
+    @Test
+    void testAuthenticateAll() {
+        String first = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(10));
+        String second = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(5));
+        Map<String, User> users = tokenService.authenticateAll(List.of(first, second, "invalidtoken"));
+        assertEquals(Map.of(second, user), users);
+    }
+
+    @Test
+    void testRevokeAndRevokeAllForUser() {
+        String first = tokenService.createToken(user);
+        clock.advance(Duration.ofMillis(1));
+        String second = tokenService.createToken(user);
+        assertTrue(tokenService.revoke(first));
+        assertFalse(tokenService.revoke(first));
+        assertFalse(tokenService.revoke("invalidtoken"));
+        assertFalse(tokenService.validateToken(first).isPresent());
+        assertTrue(tokenService.validateToken(second).isPresent());
+
+        clock.advance(Duration.ofMillis(1));
+        tokenService.revokeAllForUser(user.getId());
+        assertFalse(tokenService.validateToken(second).isPresent());
+        assertTrue(tokenService.authenticateAll(List.of(first, second)).isEmpty());
+        clock.advance(Duration.ofMillis(1));
+        String third = tokenService.createToken(user);
+        assertSame(user, tokenService.validateToken(third).orElseThrow());
+    }
+
+    @Test
+    void testRevocationCoversOtherEncodings() {
+        String token = tokenService.createToken(user);
+        String padded = Base64.getUrlEncoder().encodeToString(Base64.getUrlDecoder().decode(token));
+        // The last character also carries unused bits, which the decoder ignores.
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        int last = alphabet.indexOf(token.charAt(token.length() - 1));
+        String altered = token.substring(0, token.length() - 1) + alphabet.charAt(last ^ 1);
+        assertNotEquals(token, padded);
+
+        assertTrue(tokenService.revoke(token));
+        for (String variant : List.of(token, token + "==", padded, altered)) {
+            assertFalse(tokenService.validateToken(variant).isPresent(), variant);
+            assertFalse(tokenService.revoke(variant), variant);
+        }
+        assertTrue(tokenService.authenticateAll(List.of(padded, altered)).isEmpty());
+    }
+}
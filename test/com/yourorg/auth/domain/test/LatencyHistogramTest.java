@@ -0,0 +1,76 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.metrics.LatencyHistogram;
+import com.yourorg.auth.domain.metrics.MetricsSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(100_000, latency.getCount());
+        assertWithin(50_000_000, latency.getP50Nanos());
+        assertWithin(99_000_000, latency.getP99Nanos());
+        assertWithin(99_900_000, latency.getP999Nanos());
+        assertWithin(100_000_000, latency.getMaxNanos());
+        assertWithin(50_000_500, latency.getMeanNanos());
+    }
+
+    @Test
+    void testSmallAndExtremeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(3, latency.getCount());
+        assertEquals(3, latency.getP50Nanos());
+        assertEquals(Long.MAX_VALUE, latency.getMaxNanos());
+        assertEquals(0, new LatencyHistogram().snapshot().getP99Nanos());
+    }
+
+    @Test
+    void testSamplingCountsEveryCall() {
+        LatencyHistogram histogram = new LatencyHistogram(8);
+        for (int i = 0; i < 80_000; i++) {
+            histogram.stop(histogram.start());
+        }
+        assertEquals(80_000, histogram.snapshot().getCount());
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(3));
+    }
+
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, histogram.count());
+        assertEquals(800_000, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 16,
+                "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,116 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.exception.TooManyAttemptsException;
+import com.yourorg.auth.domain.security.LoginThrottle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private MutableClock clock;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        throttle = new LoginThrottle(
+                new LoginThrottle.Limit(3, Duration.ofSeconds(10)),
+                new LoginThrottle.Limit(5, Duration.ofSeconds(1)),
+                1_024, clock);
+    }
+
+    @Test
+    void testUsernameBurstThenRefill() throws TooManyAttemptsException {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user1", null);
+        }
+        TooManyAttemptsException e = assertThrows(TooManyAttemptsException.class, () -> throttle.acquire("user1", null));
+        assertEquals(Duration.ofSeconds(10), e.getRetryAfter());
+        assertDoesNotThrow(() -> throttle.acquire("user2", null));
+
+        clock.advance(Duration.ofSeconds(10));
+        throttle.acquire("user1", null);
+        assertThrows(TooManyAttemptsException.class, () -> throttle.acquire("user1", null));
+    }
+
+    @Test
+    void testClientLimitSpansUsernames() throws TooManyAttemptsException {
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("user" + i, "10.0.0.1");
+        }
+        assertThrows(TooManyAttemptsException.class, () -> throttle.acquire("user9", "10.0.0.1"));
+        throttle.acquire("user9", "10.0.0.2");
+    }
+
+    @Test
+    void testSuccessReturnsTokens() throws TooManyAttemptsException {
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user1", "10.0.0.1");
+            throttle.succeeded("user1", "10.0.0.1");
+        }
+        throttle.acquire("user1", "10.0.0.1");
+    }
+
+    @Test
+    void testRejectedUsernameDoesNotChargeClient() throws TooManyAttemptsException {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("victim", "10.0.0.1");
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThrows(TooManyAttemptsException.class, () -> throttle.acquire("victim", "10.0.0.1"));
+        }
+        throttle.acquire("other", "10.0.0.1");
+        throttle.acquire("other", "10.0.0.1");
+    }
+
+    @Test
+    void testBoundedUnderManyDistinctKeys() throws TooManyAttemptsException {
+        for (int i = 0; i < 100_000; i++) {
+            throttle.acquire("spray" + i, null);
+        }
+        // Sprayed keys are at least as recent as an exhausted bucket, but fresh ones still get in.
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("late", null);
+        }
+        assertThrows(TooManyAttemptsException.class, () -> throttle.acquire("late", null));
+    }
+
+    @Test
+    void testConcurrentAttemptsAdmitExactlyBurst() throws InterruptedException {
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        try {
+                            throttle.acquire("contended", null);
+                            admitted.incrementAndGet();
+                        } catch (TooManyAttemptsException e) {
+                            // expected once the burst is used up
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(3, admitted.get());
+    }
+}
@@ -0,0 +1,68 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.exception.AuthException;
+import com.yourorg.auth.domain.exception.InvalidCredentialsException;
+import com.yourorg.auth.domain.exception.UserAlreadyExistsException;
+import com.yourorg.auth.domain.metrics.MeteredAuthManager;
+import com.yourorg.auth.domain.metrics.MeteredPasswordEncoder;
+import com.yourorg.auth.domain.metrics.MeteredTokenService;
+import com.yourorg.auth.domain.metrics.MeteredUserRepository;
+import com.yourorg.auth.domain.metrics.MetricsRegistry;
+import com.yourorg.auth.domain.metrics.MetricsSnapshot;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+import com.yourorg.auth.domain.security.UuidTokenService;
+import com.yourorg.auth.domain.service.AuthManager;
+import com.yourorg.auth.domain.service.AuthManagerImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredAuthManagerTest {
+    private MetricsRegistry registry;
+    private AuthManager authManager;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MetricsRegistry();
+        MeteredUserRepository users = new MeteredUserRepository(new InMemoryUserRepository(), registry);
+        authManager = new MeteredAuthManager(
+                new AuthManagerImpl(
+                        users,
+                        new MeteredPasswordEncoder(new Pbkdf2PasswordEncoder(1_000), registry),
+                        new MeteredTokenService(new UuidTokenService(users::findById), registry)),
+                registry);
+    }
+
+    @Test
+    void testRecordsOperationsAndOutcomes() throws AuthException {
+        authManager.register("user1", "password");
+        assertThrows(UserAlreadyExistsException.class, () -> authManager.register("user1", "password"));
+        String token = authManager.login("user1", "password");
+        assertThrows(InvalidCredentialsException.class, () -> authManager.login("user1", "wrong"));
+        assertThrows(InvalidCredentialsException.class, () -> authManager.login("nobody", "wrong"));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(authManager.authenticate(token).isPresent());
+        }
+        assertFalse(authManager.authenticate("bogus").isPresent());
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(2, snapshot.latency("auth.register").getCount());
+        assertEquals(1, snapshot.counter("auth.register.duplicateUser"));
+        assertEquals(3, snapshot.latency("auth.login").getCount());
+        assertEquals(2, snapshot.counter("auth.login.invalidCredentials"));
+        assertEquals(101, snapshot.latency("auth.authenticate").getCount());
+        assertEquals(1, snapshot.counter("auth.authenticate.rejected"));
+        assertEquals(1, snapshot.latency("password.hash").getCount());
+        assertEquals(2, snapshot.latency("password.verify").getCount());
+        assertEquals(1, snapshot.counter("password.verify.mismatch"));
+        assertEquals(1, snapshot.counter("users.findByUsername.miss"));
+        assertEquals(1, snapshot.latency("token.create").getCount());
+        assertEquals(1, snapshot.counter("token.validate.miss"));
+        assertTrue(snapshot.latency("password.verify").getP99Nanos() > 0);
+        assertEquals(2, (long) snapshot.toMap().get("auth.register.count"));
+        assertTrue(snapshot.toString().contains("auth.login count=3"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.yourorg.auth.domain.test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock whose time only moves when a test advances it.
+ */
+class MutableClock extends Clock {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+    private volatile Instant now = START;
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+
+    void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+
+    /** Returns the time advanced so far, as a monotonic nanosecond reading. */
+    long nanoTime() {
+        return Duration.between(START, now).toNanos();
+    }
+}
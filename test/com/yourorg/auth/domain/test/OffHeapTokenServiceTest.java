@@ -0,0 +1,128 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.OffHeapTokenService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTokenServiceTest {
+    private final User user = new User("user1", "hash");
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private MutableClock clock;
+    private OffHeapTokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        users.save(user);
+        tokenService = new OffHeapTokenService(users::findById, 1_000, Duration.ofMinutes(30), clock, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenService.close();
+    }
+
+    @Test
+    void testCreateAndValidate() {
+        String token = tokenService.createToken(user);
+        assertEquals(22, token.length());
+        assertSame(user, tokenService.validateToken(token).orElseThrow());
+        assertFalse(tokenService.validateToken("invalidtoken").isPresent());
+        assertFalse(tokenService.validateToken("zzzzzzzzzzzzzzzzzzzzzz").isPresent());
+        assertFalse(tokenService.validateToken(null).isPresent());
+    }
+
+    @Test
+    void testGrowsBeyondExpectedSize() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            User other = new User("user" + i, "hash");
+            users.save(other);
+            tokens.add(tokenService.createToken(other));
+        }
+        assertEquals(50_000, tokenService.size());
+        for (int i = 0; i < tokens.size(); i += 97) {
+            assertEquals("user" + i, tokenService.validateToken(tokens.get(i)).orElseThrow().getUsername());
+        }
+    }
+
+    @Test
+    void testExpiryAndSweep() {
+        for (int i = 0; i < 5_000; i++) {
+            tokenService.createToken(user);
+        }
+        String token = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(30));
+        assertFalse(tokenService.validateToken(token).isPresent());
+        int removed = 0;
+        for (int i = 0; i < 4_096; i++) {
+            removed += tokenService.sweepNextSegment();
+        }
+        assertEquals(5_001, removed);
+        assertEquals(0, tokenService.size());
+    }
+
+    @Test
+    void testAuthenticateAllMatchesSingleLookups() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            User other = new User("user" + (i + 2), "hash");
+            users.save(other);
+            tokens.add(tokenService.createToken(i % 5 == 0 ? user : other));
+        }
+        tokens.add("invalidtoken");
+        tokens.add("zzzzzzzzzzzzzzzzzzzzzz");
+        Map<String, User> batch = tokenService.authenticateAll(tokens);
+        assertEquals(500, batch.size());
+        for (String token : tokens) {
+            assertEquals(tokenService.validateToken(token).orElse(null), batch.get(token));
+        }
+        clock.advance(Duration.ofMinutes(30));
+        assertTrue(tokenService.authenticateAll(tokens).isEmpty());
+    }
+
+    @Test
+    void testRevokeAndRevokeAllForUser() {
+        User other = new User("user2", "hash");
+        users.save(other);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.add(tokenService.createToken(user));
+        }
+        String kept = tokenService.createToken(other);
+
+        assertTrue(tokenService.revoke(tokens.get(0)));
+        assertFalse(tokenService.revoke(tokens.get(0)));
+        assertFalse(tokenService.revoke("invalidtoken"));
+        assertFalse(tokenService.validateToken(tokens.get(0)).isPresent());
+
+        assertEquals(9, tokenService.revokeAllForUser(user.getId()));
+        assertEquals(0, tokenService.revokeAllForUser(user.getId()));
+        assertEquals(0, tokenService.revokeAllForUser("unknown"));
+        for (String token : tokens) {
+            assertFalse(tokenService.validateToken(token).isPresent());
+        }
+        assertSame(other, tokenService.validateToken(kept).orElseThrow());
+        assertEquals(1, tokenService.size());
+
+        // Expired tokens are not counted as revoked.
+        for (int i = 0; i < 20; i++) {
+            tokenService.createToken(user);
+        }
+        clock.advance(Duration.ofMinutes(30));
+        String live = tokenService.createToken(user);
+        assertEquals(1, tokenService.revokeAllForUser(user.getId()));
+        assertFalse(tokenService.validateToken(live).isPresent());
+    }
+}
@@ -0,0 +1,112 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Pbkdf2PasswordEncoderTest {
+    private final Pbkdf2PasswordEncoder encoder = new Pbkdf2PasswordEncoder();
+
+    @Test
+    void testHashRecordsAlgorithmAndIterations() throws Exception {
+        String stored = new Pbkdf2PasswordEncoder(10_000).hash("password");
+        String[] parts = stored.split("\\$");
+        assertEquals(5, parts.length);
+        assertEquals("pbkdf2-sha256", parts[1]);
+        assertEquals("i=10000", parts[2]);
+        byte[] salt = Base64.getDecoder().decode(parts[3]);
+        byte[] expected = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec("password".toCharArray(), salt, 10_000, 256))
+                .getEncoded();
+        assertArrayEquals(expected, Base64.getDecoder().decode(parts[4]));
+        // The stored iteration count is used, not the verifying encoder's own.
+        assertTrue(encoder.verify("password", stored));
+        assertFalse(encoder.verify("wrongpassword", stored));
+    }
+
+    @Test
+    void testLegacyFormatStillVerifies() throws Exception {
+        byte[] salt = "0123456789abcdef".getBytes();
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec("password".toCharArray(), salt, 65_536, 256))
+                .getEncoded();
+        String legacy = Base64.getEncoder().encodeToString(salt) + ":" + Base64.getEncoder().encodeToString(hash);
+        assertTrue(encoder.verify("password", legacy));
+        assertTrue(encoder.needsRehash(legacy));
+    }
+
+    @Test
+    void testNonAsciiAndLongPasswords() throws Exception {
+        byte[] salt = "fedcba9876543210".getBytes();
+        String unicode = "pässwörd-ж🔒\uD800";
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec(unicode.toCharArray(), salt, 65_536, 256))
+                .getEncoded();
+        String stored = Base64.getEncoder().encodeToString(salt) + ":" + Base64.getEncoder().encodeToString(hash);
+        assertTrue(encoder.verify(unicode, stored));
+        assertTrue(encoder.verify(unicode.toCharArray(), stored));
+        String longPassword = "x".repeat(100);
+        assertTrue(encoder.verify(longPassword, encoder.hash(longPassword)));
+        assertFalse(encoder.verify(longPassword + "y", encoder.hash(longPassword)));
+    }
+
+    @Test
+    void testConcurrentVerifiesOnVirtualThreads() throws Exception {
+        Pbkdf2PasswordEncoder cheap = new Pbkdf2PasswordEncoder(1_000);
+        String stored = cheap.hash("password");
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 64; i++) {
+                String attempt = i % 2 == 0 ? "password" : "wrongpassword" + i;
+                results.add(executor.submit(() -> cheap.verify(attempt, stored)));
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i % 2 == 0, results.get(i).get());
+        }
+    }
+
+    @Test
+    void testNeedsRehashWhenIterationsAreOutdated() {
+        String weak = new Pbkdf2PasswordEncoder(10_000).hash("password");
+        String current = encoder.hash("password");
+        assertTrue(encoder.needsRehash(weak));
+        assertFalse(encoder.needsRehash(current));
+        assertFalse(new Pbkdf2PasswordEncoder(10_000).needsRehash(current));
+    }
+
+    @Test
+    void testMalformedStoredHash() {
+        assertThrows(IllegalArgumentException.class, () -> encoder.verify("password", "no-colon"));
+        assertThrows(IllegalArgumentException.class, () -> encoder.verify("password", "a:b:c"));
+        assertThrows(IllegalArgumentException.class, () -> encoder.verify("password", "!!!!:AAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$pbkdf2-sha256$i=$AAAA$AAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$pbkdf2-sha256$i=0$AAAA$AAAA"));
+        assertThrows(IllegalArgumentException.class,
+                () -> encoder.verify("password", "$pbkdf2-sha256$i=99999999999$AAAA$AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> new Pbkdf2PasswordEncoder(0));
+    }
+
+    @Test
+    void testCalibrationMeetsFloorAndTarget() {
+        assertEquals(65_536, Pbkdf2PasswordEncoder.calibrate(Duration.ofNanos(1)));
+        int iterations = Pbkdf2PasswordEncoder.calibrate(Duration.ofMillis(200));
+        assertTrue(iterations >= 65_536);
+        assertEquals(0, iterations % 8_192);
+        assertThrows(IllegalArgumentException.class, () -> Pbkdf2PasswordEncoder.calibrate(Duration.ZERO));
+    }
+}
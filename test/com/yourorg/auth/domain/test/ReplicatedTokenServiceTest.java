@@ -0,0 +1,145 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.ReplicatedTokenService;
+import com.yourorg.auth.domain.security.UuidTokenService;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicatedTokenServiceTest {
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final MutableClock clock = new MutableClock();
+    private final List<UuidTokenService> locals = new ArrayList<>();
+    private final List<ReplicatedTokenService> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ReplicatedTokenService::close);
+        locals.forEach(UuidTokenService::close);
+    }
+
+    private UuidTokenService newLocal() {
+        UuidTokenService local =
+                new UuidTokenService(users::findById, Duration.ofHours(1), Duration.ofMinutes(10), clock, false);
+        locals.add(local);
+        return local;
+    }
+
+    private ReplicatedTokenService newNode(UuidTokenService local) {
+        ReplicatedTokenService node =
+                new ReplicatedTokenService(local, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        nodes.add(node);
+        return node;
+    }
+
+    private static InetSocketAddress addressOf(ReplicatedTokenService node) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), node.getPort());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testReplicatesCreateTouchRevokeAndExpire() throws InterruptedException {
+        User alice = new User("alice", "hash");
+        User bob = new User("bob", "hash");
+        users.save(alice);
+        users.save(bob);
+        UuidTokenService localA = newLocal();
+        UuidTokenService localB = newLocal();
+        UuidTokenService localC = newLocal();
+        ReplicatedTokenService a = newNode(localA);
+        ReplicatedTokenService b = newNode(localB);
+        ReplicatedTokenService c = newNode(localC);
+        b.addPeer(addressOf(a));
+        c.addPeer(addressOf(a));
+        c.addPeer(addressOf(b));
+        awaitTrue(() -> a.getConnectedPeers() == 2 && b.getConnectedPeers() == 2 && c.getConnectedPeers() == 2);
+
+        String token = a.createToken(alice);
+        awaitTrue(() -> b.validateToken(token).isPresent() && c.validateToken(token).isPresent());
+
+        // Using the token on B keeps it alive on A past A's idle timeout.
+        clock.advance(Duration.ofMinutes(6));
+        assertTrue(b.validateToken(token).isPresent());
+        // Events from B arrive in order, so once a later creation has arrived the refresh has too.
+        String marker = b.createToken(bob);
+        awaitTrue(() -> a.validateToken(marker).isPresent());
+        assertTrue(b.revoke(marker));
+        clock.advance(Duration.ofMinutes(6));
+        assertTrue(a.validateToken(token).isPresent());
+
+        assertTrue(b.revoke(token));
+        awaitTrue(() -> a.validateToken(token).isEmpty() && c.validateToken(token).isEmpty());
+        assertFalse(c.revoke(token));
+
+        String first = a.createToken(bob);
+        String second = b.createToken(bob);
+        awaitTrue(() -> c.validateToken(first).isPresent() && c.validateToken(second).isPresent());
+        assertEquals(2, c.revokeAllForUser(bob.getId()));
+        awaitTrue(() -> a.validateToken(first).isEmpty() && a.validateToken(second).isEmpty()
+                && b.validateToken(first).isEmpty() && b.validateToken(second).isEmpty());
+
+        String idle = a.createToken(alice);
+        awaitTrue(() -> localB.size() == 1 && localC.size() == 1);
+        clock.advance(Duration.ofMinutes(11));
+        localA.evictExpired();
+        assertEquals(0, localA.size());
+        awaitTrue(() -> localB.size() == 0 && localC.size() == 0);
+        assertTrue(b.validateToken(idle).isEmpty());
+    }
+
+    @Test
+    void testJoiningNodeResyncs() throws InterruptedException {
+        User alice = new User("alice", "hash");
+        User bob = new User("bob", "hash");
+        users.save(alice);
+        users.save(bob);
+        ReplicatedTokenService a = newNode(newLocal());
+        ReplicatedTokenService b = newNode(newLocal());
+        b.addPeer(addressOf(a));
+        awaitTrue(() -> a.getConnectedPeers() == 1 && b.getConnectedPeers() == 1);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            tokens.add((i % 2 == 0 ? a : b).createToken(alice));
+        }
+        String revokedToken = a.createToken(bob);
+        assertTrue(a.revoke(revokedToken));
+        String bobToken = b.createToken(bob);
+        b.revokeAllForUser(bob.getId());
+
+        UuidTokenService localD = newLocal();
+        ReplicatedTokenService d = newNode(localD);
+        d.addPeer(addressOf(a));
+        d.addPeer(addressOf(b));
+        awaitTrue(() -> localD.size() == tokens.size());
+        for (String token : tokens) {
+            assertEquals(alice.getId(), d.validateToken(token).orElseThrow().getId());
+        }
+        assertTrue(d.validateToken(revokedToken).isEmpty());
+        assertTrue(d.validateToken(bobToken).isEmpty());
+
+        clock.advance(Duration.ofSeconds(1));
+        String fromD = d.createToken(bob);
+        awaitTrue(() -> a.validateToken(fromD).isPresent() && b.validateToken(fromD).isPresent());
+    }
+}
@@ -0,0 +1,108 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.SessionSnapshotter;
+import com.yourorg.auth.domain.security.UuidTokenService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionSnapshotterTest {
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private MutableClock clock;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clock = new MutableClock();
+        directory = Files.createTempDirectory("sessions");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private UuidTokenService newTokenService() {
+        return new UuidTokenService(users::findById, Duration.ofHours(1), Duration.ofMinutes(10), clock, false);
+    }
+
+    @Test
+    void testRestartKeepsLiveSessionsAndSkipsExpired() {
+        User user = new User("user1", "hash");
+        users.save(user);
+        List<String> stale = new ArrayList<>();
+        List<String> live = new ArrayList<>();
+        try (UuidTokenService tokens = newTokenService();
+             SessionSnapshotter snapshots = new SessionSnapshotter(tokens, directory, Duration.ofMinutes(1), false)) {
+            assertEquals(0, snapshots.getRestoredCount());
+            for (int i = 0; i < 5_000; i++) {
+                stale.add(tokens.createToken(user));
+            }
+            clock.advance(Duration.ofMinutes(6));
+            for (int i = 0; i < 5_000; i++) {
+                live.add(tokens.createToken(user));
+            }
+        }
+
+        clock.advance(Duration.ofMinutes(5));
+        try (UuidTokenService tokens = newTokenService();
+             SessionSnapshotter snapshots = new SessionSnapshotter(tokens, directory, Duration.ofMinutes(1), false)) {
+            assertEquals(5_000, snapshots.getRestoredCount());
+            assertEquals(5_000, tokens.size());
+            for (String token : live) {
+                assertEquals(user.getId(), tokens.validateToken(token).orElseThrow().getId());
+            }
+            for (String token : stale) {
+                assertFalse(tokens.validateToken(token).isPresent());
+            }
+            clock.advance(Duration.ofMinutes(10));
+            tokens.evictExpired();
+            assertEquals(0, tokens.size());
+        }
+    }
+
+    @Test
+    void testFallsBackToPreviousSnapshotAndKeepsTwo() throws IOException {
+        User user = new User("user1", "hash");
+        users.save(user);
+        String first;
+        String second;
+        try (UuidTokenService tokens = newTokenService()) {
+            SessionSnapshotter snapshots = new SessionSnapshotter(tokens, directory, Duration.ofMinutes(1), false);
+            first = tokens.createToken(user);
+            assertEquals(1, snapshots.snapshot());
+            second = tokens.createToken(user);
+            assertEquals(2, snapshots.snapshot());
+            assertEquals(2, snapshots.snapshot());
+        }
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(directory)) {
+            files = listed.sorted().toList();
+        }
+        assertEquals(2, files.size());
+        Files.write(files.get(1), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        try (UuidTokenService tokens = newTokenService();
+             SessionSnapshotter snapshots = new SessionSnapshotter(tokens, directory, Duration.ofMinutes(1), false)) {
+            assertEquals(2, snapshots.getRestoredCount());
+            assertTrue(tokens.validateToken(first).isPresent());
+            assertTrue(tokens.validateToken(second).isPresent());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.repository.InMemoryUserRepository;
+import com.yourorg.auth.domain.security.FileSessionStore;
+import com.yourorg.auth.domain.security.TieredTokenService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredTokenServiceTest {
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private MutableClock clock;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clock = new MutableClock();
+        directory = Files.createTempDirectory("session-store");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private TieredTokenService newTokenService(FileSessionStore store, int hotCapacity) {
+        return new TieredTokenService(users::findById, store, hotCapacity, 1_024,
+                Duration.ofHours(1), Duration.ofMinutes(10), clock, false);
+    }
+
+    @Test
+    void testSessionsSurviveRestart() {
+        User user = new User("user1", "hash");
+        users.save(user);
+        List<String> tokens = new ArrayList<>();
+        try (FileSessionStore store = new FileSessionStore(directory);
+             TieredTokenService service = newTokenService(store, 100)) {
+            for (int i = 0; i < 20_000; i++) {
+                tokens.add(service.createToken(user));
+            }
+            assertTrue(service.hotSize() <= 128);
+            assertEquals(20_000, store.size());
+            assertTrue(service.revoke(tokens.get(0)));
+        }
+        try (FileSessionStore store = new FileSessionStore(directory);
+             TieredTokenService service = newTokenService(store, 100)) {
+            assertEquals(19_999, store.size());
+            assertTrue(service.validateToken(tokens.get(0)).isEmpty());
+            for (String token : tokens.subList(1, tokens.size())) {
+                assertEquals(user.getId(), service.validateToken(token).orElseThrow().getId());
+            }
+            assertEquals(20_000, service.getMissCount());
+        }
+    }
+
+    @Test
+    void testExpiryAndRevocation() {
+        User alice = new User("alice", "hash");
+        User bob = new User("bob", "hash");
+        users.save(alice);
+        users.save(bob);
+        try (FileSessionStore store = new FileSessionStore(directory);
+             TieredTokenService service = newTokenService(store, 2)) {
+            String idle = service.createToken(alice);
+            String used = service.createToken(alice);
+            List<String> bobTokens = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                bobTokens.add(service.createToken(bob));
+            }
+
+            // Extensions made in the hot tier or on a store read both keep the session alive.
+            clock.advance(Duration.ofMinutes(6));
+            assertTrue(service.validateToken(used).isPresent());
+            clock.advance(Duration.ofMinutes(6));
+            assertTrue(service.validateToken(idle).isEmpty());
+            assertTrue(service.validateToken(used).isPresent());
+            assertTrue(service.validateToken(bobTokens.get(0)).isEmpty());
+
+            String fresh = service.createToken(bob);
+            assertEquals(1, service.revokeAllForUser(bob.getId()));
+            assertTrue(service.validateToken(fresh).isEmpty());
+            assertTrue(service.validateToken(used).isPresent());
+            assertFalse(service.revoke(fresh));
+            assertTrue(service.revoke(used));
+            assertTrue(service.validateToken(used).isEmpty());
+
+            clock.advance(Duration.ofHours(1));
+            service.evictExpired();
+            assertEquals(0, store.size());
+            assertEquals(0, service.hotSize());
+        }
+    }
+
+    @Test
+    void testUnknownTokensAreCachedAsMissing() {
+        User user = new User("user1", "hash");
+        users.save(user);
+        try (FileSessionStore store = new FileSessionStore(directory);
+             TieredTokenService service = newTokenService(store, 100)) {
+            String token = service.createToken(user);
+            String unknown = UUID.randomUUID().toString();
+            assertTrue(service.validateToken(unknown).isEmpty());
+            assertTrue(service.validateToken(unknown).isEmpty());
+            assertTrue(service.validateToken("not-a-token").isEmpty());
+            assertTrue(service.validateToken(null).isEmpty());
+            assertEquals(1, service.getMissCount());
+            assertEquals(2, service.getNegativeHitCount());
+
+            Map<String, User> valid = service.authenticateAll(List.of(token, unknown));
+            assertEquals(1, valid.size());
+            assertEquals(user.getId(), valid.get(token).getId());
+            assertEquals(1, service.getHitCount());
+            assertEquals(3, service.getNegativeHitCount());
+        }
+    }
+
+    @Test
+    void testHotTierKeepsActiveSessionsThroughScans() {
+        User user = new User("user1", "hash");
+        users.save(user);
+        try (FileSessionStore store = new FileSessionStore(directory);
+             TieredTokenService service = newTokenService(store, 1_000)) {
+            List<String> active = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                active.add(service.createToken(user));
+            }
+            List<String> cold = new ArrayList<>();
+            for (int i = 0; i < 40_000; i++) {
+                cold.add(service.createToken(user));
+            }
+            // Each round touches 1,500 distinct sessions, so an LRU cache of 1,000 would never hit.
+            int next = 0;
+            long hitsBefore = 0;
+            for (int round = 0; round < 40; round++) {
+                if (round == 5) {
+                    hitsBefore = service.getHitCount();
+                }
+                for (String token : active) {
+                    assertTrue(service.validateToken(token).isPresent());
+                    assertTrue(service.validateToken(cold.get(next++)).isPresent());
+                    assertTrue(service.validateToken(cold.get(next++)).isPresent());
+                }
+                next %= cold.size();
+            }
+            long activeRequests = 35L * active.size();
+            double hitRate = (double) (service.getHitCount() - hitsBefore) / activeRequests;
+            assertTrue(hitRate > 0.95, "hit rate " + hitRate);
+            assertTrue(service.hotSize() <= 1_024);
+            assertTrue(service.getEvictionCount() > 0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.security.Argon2PasswordEncoder;
+import com.yourorg.auth.domain.security.Pbkdf2PasswordEncoder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTest {
+    @Test
+    void testPasswordHashRoundTripsInEveryFormat() {
+        String current = new Pbkdf2PasswordEncoder(1_000).hash("password");
+        String legacy = "c2FsdHNhbHRzYWx0c2FsdA==:aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaGhhc2g=";
+        String argon2 = new Argon2PasswordEncoder(64, 1, 1).hash("password");
+        String[] values = {current, legacy, argon2, "hash", "", "salt:hash", "$pbkdf2-sha256$i=01$x$y",
+                "$argon2id$v=19$m=064,t=1,p=1$x$y", "$argon2id$v=19$m=64,t=1,p=300$"
+                        + argon2.substring(argon2.lastIndexOf('$', argon2.lastIndexOf('$') - 1) + 1), "päss☃"};
+        for (String value : values) {
+            User user = new User("user1", value);
+            assertEquals(value, user.getPasswordHash());
+        }
+        User user = new User("user1", "hash");
+        user.setPasswordHash(current);
+        assertEquals(current, user.getPasswordHash());
+        user.setPasswordHash(legacy);
+        assertEquals(legacy, user.getPasswordHash());
+        user.setPasswordHash(null);
+        assertNull(user.getPasswordHash());
+        assertNull(new User("user1", null).getPasswordHash());
+    }
+
+    @Test
+    void testIdAndCreationTimeViews() {
+        String id = UUID.randomUUID().toString();
+        Instant createdAt = Instant.parse("2024-01-01T12:34:56.789123Z");
+        User user = new User(id, "user1", "hash", createdAt);
+        assertEquals(id, user.getId());
+        assertSame(user.getId(), user.getId());
+        assertEquals(UUID.fromString(id), user.getUuid());
+        assertEquals(Instant.parse("2024-01-01T12:34:56.789Z"), user.getCreatedAt());
+        assertEquals(36, new User("user1", "hash").getId().length());
+        assertThrows(IllegalArgumentException.class, () -> new User("not-a-uuid", "user1", "hash", createdAt));
+        assertThrows(IllegalArgumentException.class,
+                () -> new User(id.toUpperCase(), "user1", "hash", createdAt));
+    }
+}
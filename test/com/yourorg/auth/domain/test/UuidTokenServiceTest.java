@@ -0,0 +1,205 @@
+package com.yourorg.auth.domain.test;
+
+import com.yourorg.auth.domain.model.User;
+import com.yourorg.auth.domain.security.UuidTokenService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidTokenServiceTest {
+    private final User user = new User("user1", "hash");
+    private MutableClock clock;
+    private UuidTokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        tokenService = new UuidTokenService(id -> Optional.of(user).filter(u -> u.getId().equals(id)),
+                Duration.ofHours(1), Duration.ofMinutes(10), clock, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenService.close();
+    }
+
+    @Test
+    void testIdleExpiryRejectsBeforeSweep() {
+        String token = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(10));
+        assertFalse(tokenService.validateToken(token).isPresent());
+    }
+
+    @Test
+    void testSlidingExpiryExtendsOnUse() {
+        String token = tokenService.createToken(user);
+        for (int i = 0; i < 5; i++) {
+            clock.advance(Duration.ofMinutes(9));
+            tokenService.evictExpired();
+            assertTrue(tokenService.validateToken(token).isPresent());
+        }
+        assertEquals(1, tokenService.size());
+    }
+
+    @Test
+    void testAbsoluteExpiry() {
+        String token = tokenService.createToken(user);
+        for (int i = 0; i < 6; i++) {
+            clock.advance(Duration.ofMinutes(9));
+            assertTrue(tokenService.validateToken(token).isPresent());
+        }
+        clock.advance(Duration.ofMinutes(6));
+        assertFalse(tokenService.validateToken(token).isPresent());
+    }
+
+    @Test
+    void testSweeperEvictsExpiredTokens() {
+        for (int i = 0; i < 1_000; i++) {
+            tokenService.createToken(user);
+        }
+        String kept = tokenService.createToken(user);
+        clock.advance(Duration.ofMinutes(5));
+        tokenService.validateToken(kept);
+        tokenService.evictExpired();
+        assertEquals(1_001, tokenService.size());
+        clock.advance(Duration.ofMinutes(6));
+        tokenService.evictExpired();
+        assertEquals(1, tokenService.size());
+        assertTrue(tokenService.validateToken(kept).isPresent());
+        clock.advance(Duration.ofHours(2));
+        tokenService.evictExpired();
+        assertEquals(0, tokenService.size());
+    }
+
+    @Test
+    void testConcurrentEvictionsAreSerialized() throws Exception {
+        for (int i = 0; i < 10_000; i++) {
+            tokenService.createToken(user);
+        }
+        clock.advance(Duration.ofMinutes(11));
+        List<Thread> threads = new ArrayList<>();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    tokenService.evictExpired();
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(0, tokenService.size());
+    }
+
+    @Test
+    void testAuthenticateAllResolvesEachUserOnce() {
+        User other = new User("user2", "hash");
+        AtomicInteger lookups = new AtomicInteger();
+        try (UuidTokenService batch = new UuidTokenService(id -> {
+            lookups.incrementAndGet();
+            return Stream.of(user, other).filter(u -> u.getId().equals(id)).findFirst();
+        }, Duration.ofHours(1), Duration.ofMinutes(10), clock, false)) {
+            String expired = batch.createToken(user);
+            clock.advance(Duration.ofMinutes(5));
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tokens.add(batch.createToken(i % 2 == 0 ? user : other));
+            }
+            clock.advance(Duration.ofMinutes(5));
+            tokens.add(expired);
+            tokens.add("unknown");
+            tokens.add(null);
+
+            Map<String, User> users = batch.authenticateAll(tokens);
+            assertEquals(10, users.size());
+            assertEquals(2, lookups.get());
+            for (int i = 0; i < 10; i++) {
+                assertSame(i % 2 == 0 ? user : other, users.get(tokens.get(i)));
+            }
+            assertFalse(users.containsKey(expired));
+        }
+    }
+
+    @Test
+    void testRevokeAndRevokeAllForUser() {
+        User other = new User("user2", "hash");
+        try (UuidTokenService tokens = new UuidTokenService(
+                id -> Stream.of(user, other).filter(u -> u.getId().equals(id)).findFirst(),
+                Duration.ofHours(1), Duration.ofMinutes(10), clock, false)) {
+            String first = tokens.createToken(user);
+            String second = tokens.createToken(user);
+            String third = tokens.createToken(user);
+            String kept = tokens.createToken(other);
+
+            assertTrue(tokens.revoke(first));
+            assertFalse(tokens.revoke(first));
+            assertFalse(tokens.revoke("unknown"));
+            assertFalse(tokens.revoke(null));
+            assertFalse(tokens.validateToken(first).isPresent());
+            assertTrue(tokens.validateToken(second).isPresent());
+
+            assertEquals(2, tokens.revokeAllForUser(user.getId()));
+            assertEquals(0, tokens.revokeAllForUser(user.getId()));
+            assertFalse(tokens.validateToken(second).isPresent());
+            assertFalse(tokens.validateToken(third).isPresent());
+            assertSame(other, tokens.validateToken(kept).orElseThrow());
+            assertEquals(1, tokens.size());
+
+            // Expired tokens are dropped from the index too, and are not counted as revoked.
+            String expired = tokens.createToken(user);
+            clock.advance(Duration.ofMinutes(10));
+            assertFalse(tokens.revoke(expired));
+            tokens.createToken(user);
+            clock.advance(Duration.ofMinutes(5));
+            String live = tokens.createToken(user);
+            clock.advance(Duration.ofMinutes(5));
+            assertEquals(1, tokens.revokeAllForUser(user.getId()));
+            assertFalse(tokens.validateToken(live).isPresent());
+        }
+    }
+
+    @Test
+    void testRevokeAllForUserRacingCreateToken() throws Exception {
+        ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> creators = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread creator = new Thread(() -> {
+                while (running.get()) {
+                    created.add(tokenService.createToken(user));
+                }
+            });
+            creator.start();
+            creators.add(creator);
+        }
+        for (int i = 0; i < 200; i++) {
+            tokenService.revokeAllForUser(user.getId());
+        }
+        running.set(false);
+        for (Thread creator : creators) {
+            creator.join();
+        }
+        tokenService.revokeAllForUser(user.getId());
+        assertEquals(0, tokenService.size());
+        for (String token : created) {
+            assertFalse(tokenService.validateToken(token).isPresent());
+        }
+    }
+}